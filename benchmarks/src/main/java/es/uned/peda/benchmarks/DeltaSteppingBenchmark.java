@@ -0,0 +1,113 @@
+package es.uned.peda.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uned.peda.algorithm.CostDistribution;
+import es.uned.peda.algorithm.DeltaStepping;
+import es.uned.peda.algorithm.RobotAlgorithm;
+import es.uned.peda.algorithm.SearchMode;
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class DeltaSteppingBenchmark.
+ *
+ * The distance from the initial cell of a square grid to every other cell,
+ * found by {@link DeltaStepping} with a number of threads, against the
+ * algorithm of Dijkstra of {@link RobotAlgorithm} in one to all mode. A width
+ * of 0 takes the default width of the grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeltaSteppingBenchmark {
+
+	/** The probability of a cell being an obstacle. */
+	private static final double OBSTACLE_DENSITY = 0.2;
+
+	/** The number of rows and columns. */
+	@Param({ "256", "1024" })
+	public int size;
+
+	/** The number of threads. */
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	/** The width of the buckets, 0 for the default one. */
+	@Param({ "0" })
+	public double delta;
+
+	/** The graph. */
+	private GridGraph graph;
+
+	/** The delta stepping search. */
+	private DeltaStepping search;
+
+	/** The copy of the graph searched by the algorithm of Dijkstra. */
+	private GridGraph dijkstraGraph;
+
+	/** The algorithm of Dijkstra. */
+	private RobotAlgorithm algorithm;
+
+	/**
+	 * Create the grid, the delta stepping search with its threads and the
+	 * algorithm of Dijkstra on a copy of the grid.
+	 */
+	@Setup
+	public void setUp() {
+
+		graph = SyntheticGrid.create(size, OBSTACLE_DENSITY, CostDistribution.INTEGER);
+		search = new DeltaStepping(graph, threads, delta == 0.0 ? DeltaStepping.getDefaultDelta(graph) : delta);
+		dijkstraGraph = new GridGraph(graph);
+		algorithm = new RobotAlgorithm(dijkstraGraph, QueueType.BINARY, true, SearchMode.DIJKSTRA, false, null);
+
+	}
+
+	/**
+	 * Stop the threads of the delta stepping search.
+	 */
+	@TearDown
+	public void tearDown() {
+		search.close();
+	}
+
+	/**
+	 * Find the distance to every cell with delta stepping.
+	 *
+	 * @return the number of rounds
+	 * @throws InterruptedException
+	 *             if the thread is interrupted
+	 */
+	@Benchmark
+	public int deltaStepping() throws InterruptedException {
+		return search.search(graph.getInitialCell());
+	}
+
+	/**
+	 * Find the distance to every cell with the algorithm of Dijkstra.
+	 *
+	 * @return the energy of the nearest final cell
+	 */
+	@Benchmark
+	public double dijkstra() {
+		dijkstraGraph.reset();
+		return algorithm.rankFinalCells().get(0).getEnergy();
+	}
+
+}
@@ -0,0 +1,67 @@
+package es.uned.peda.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.Node;
+import es.uned.peda.dataStructures.ProblemData;
+
+/**
+ * The Class GraphConstructionBenchmark.
+ *
+ * Construction of the structures a search needs from a loaded grid: the nodes
+ * and their adjacency lists, which {@link ProblemData} creates the first time
+ * they are requested, and the per thread view of a {@link GridGraph}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphConstructionBenchmark extends GridBenchmark {
+
+	/** The graph. */
+	private GridGraph graph;
+
+	/**
+	 * Create the grid.
+	 */
+	@Setup
+	public void setUp() {
+		graph = createGraph();
+	}
+
+	/**
+	 * Create the nodes of the grid and initialise them.
+	 *
+	 * @return the nodes
+	 */
+	@Benchmark
+	public List<Node> initialiseNodes() {
+		return new ProblemData(graph).getNodes();
+	}
+
+	/**
+	 * Create a view of the grid with its own search state.
+	 *
+	 * @return the graph
+	 */
+	@Benchmark
+	public GridGraph copyGraph() {
+		return new GridGraph(graph);
+	}
+
+}
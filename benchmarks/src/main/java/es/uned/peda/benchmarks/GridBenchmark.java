@@ -0,0 +1,40 @@
+package es.uned.peda.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import es.uned.peda.algorithm.CostDistribution;
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class GridBenchmark.
+ *
+ * Parameters of the synthetic grid shared by the benchmarks. Any of them can
+ * be narrowed from the command line, for example -p size=256.
+ */
+@State(Scope.Thread)
+public abstract class GridBenchmark {
+
+	/** The number of rows and columns. */
+	@Param({ "64", "256", "1024" })
+	public int size;
+
+	/** The probability of a cell being an obstacle. */
+	@Param({ "0.0", "0.2", "0.35" })
+	public double obstacleDensity;
+
+	/** The distribution of the costs. */
+	@Param({ "INTEGER", "TENTHS", "CONTINUOUS" })
+	public CostDistribution costDistribution;
+
+	/**
+	 * Creates the grid of the parameters.
+	 *
+	 * @return the graph
+	 */
+	protected GridGraph createGraph() {
+		return SyntheticGrid.create(size, obstacleDensity, costDistribution);
+	}
+
+}
@@ -0,0 +1,131 @@
+package es.uned.peda.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.IndexedPriorityQueue;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class HeapBenchmark.
+ *
+ * Operations of the priority queues on the cells of a grid that are not
+ * obstacles. The priorities are random, spread over the range of the
+ * distances of the grid, and decreased to half of their value, so every queue
+ * sees them in an order it accepts. The queue is reused, as in a search. The
+ * bucket queue only accepts grids whose costs are multiples of a quantum, so
+ * it fails with {@link CostDistribution#CONTINUOUS}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeapBenchmark extends GridBenchmark {
+
+	/** The seed of the priorities. */
+	private static final long SEED = 2L;
+
+	/** The name of the queue type. */
+	@Param({ "binary", "4-ary", "pairing", "radix", "bucket", "nodes" })
+	public String queue;
+
+	/** The queue. */
+	private IndexedPriorityQueue heap;
+
+	/** The cells that are not obstacles, in random order. */
+	private int[] cells;
+
+	/** The priority of each cell in {@link #cells}. */
+	private double[] priorities;
+
+	/**
+	 * Create the queue and the priorities.
+	 */
+	@Setup
+	public void setUp() {
+
+		final GridGraph graph = createGraph();
+		heap = QueueType.fromName(queue).create(graph, true);
+
+		int numberOfCells = 0;
+		cells = new int[graph.getNumberOfCells()];
+		for (int cell = 0; cell < graph.getNumberOfCells(); cell++) {
+			if (!graph.isObstacle(cell)) {
+				cells[numberOfCells++] = cell;
+			}
+		}
+
+		final Random random = new Random(SEED);
+		final double range = graph.getMaxCost() * (graph.getNumberOfRows() + graph.getNumberOfColumns());
+		priorities = new double[numberOfCells];
+		for (int i = numberOfCells - 1; i >= 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final int cell = cells[i];
+			cells[i] = cells[j];
+			cells[j] = cell;
+			priorities[i] = random.nextDouble() * range;
+		}
+
+	}
+
+	/**
+	 * Insert every cell and extract them all.
+	 *
+	 * @return the sum of the extracted cells
+	 */
+	@Benchmark
+	public long insertExtract() {
+		heap.clear();
+		for (int i = 0; i < priorities.length; i++) {
+			heap.insert(cells[i], priorities[i]);
+		}
+		return extractAll();
+	}
+
+	/**
+	 * Insert every cell, decrease the priority of every other cell and extract
+	 * them all.
+	 *
+	 * @return the sum of the extracted cells
+	 */
+	@Benchmark
+	public long insertDecreaseExtract() {
+		heap.clear();
+		for (int i = 0; i < priorities.length; i++) {
+			heap.insert(cells[i], priorities[i]);
+		}
+		for (int i = 0; i < priorities.length; i += 2) {
+			heap.decreaseKey(cells[i], priorities[i] / 2);
+		}
+		return extractAll();
+	}
+
+	/**
+	 * Extract every cell of the queue.
+	 *
+	 * @return the sum of the extracted cells
+	 */
+	private long extractAll() {
+		long sum = 0;
+		while (!heap.isEmpty()) {
+			sum += heap.extractMin();
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,189 @@
+package es.uned.peda.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uned.peda.algorithm.CostDistribution;
+import es.uned.peda.algorithm.Landmarks;
+import es.uned.peda.algorithm.RobotAlgorithm;
+import es.uned.peda.algorithm.SearchMode;
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class LandmarkBenchmark.
+ *
+ * Routes between random cells of a square grid found by A* with the bounds
+ * of a few landmarks (ALT), read from a file mapped in memory, against A*
+ * with the octile distance and the algorithm of Dijkstra. The table of the
+ * landmarks takes 8 bytes per cell and landmark, so its size grows with the
+ * number of landmarks as the latency falls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LandmarkBenchmark {
+
+	/** The probability of a cell being an obstacle. */
+	private static final double OBSTACLE_DENSITY = 0.2;
+
+	/** The number of queries, used in turn. */
+	private static final int NUMBER_OF_QUERIES = 64;
+
+	/** The seed of the queries. */
+	private static final long SEED = 2L;
+
+	/** The number of rows and columns. */
+	@Param({ "256", "1024" })
+	public int size;
+
+	/** The number of landmarks. */
+	@Param({ "4", "8", "16" })
+	public int numberOfLandmarks;
+
+	/** The graph. */
+	private GridGraph graph;
+
+	/** The file of the landmarks. */
+	private Path landmarksFile;
+
+	/** The algorithm with the landmarks. */
+	private RobotAlgorithm landmarkAlgorithm;
+
+	/** The algorithm with the octile distance. */
+	private RobotAlgorithm octileAlgorithm;
+
+	/** The algorithm of Dijkstra. */
+	private RobotAlgorithm dijkstraAlgorithm;
+
+	/** The initial cell of each query. */
+	private final int[] initialCells = new int[NUMBER_OF_QUERIES];
+
+	/** The final cell of each query. */
+	private final int[] finalCells = new int[NUMBER_OF_QUERIES];
+
+	/** The next query. */
+	private int query;
+
+	/**
+	 * Create the grid, save its landmarks and map them, and choose the
+	 * queries.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+
+		graph = SyntheticGrid.create(size, OBSTACLE_DENSITY, CostDistribution.INTEGER);
+
+		landmarksFile = Files.createTempFile("landmarks", ".bin");
+		Files.delete(landmarksFile);
+		Landmarks.select(graph, numberOfLandmarks).write(landmarksFile);
+
+		landmarkAlgorithm = new RobotAlgorithm(new GridGraph(graph), QueueType.BINARY, true, SearchMode.ASTAR, false,
+				null);
+		landmarkAlgorithm.setLandmarks(Landmarks.read(landmarksFile, graph));
+		octileAlgorithm = new RobotAlgorithm(new GridGraph(graph), QueueType.BINARY, true, SearchMode.ASTAR, false,
+				null);
+		dijkstraAlgorithm = new RobotAlgorithm(new GridGraph(graph), QueueType.BINARY, true, SearchMode.DIJKSTRA,
+				false, null);
+
+		final Random random = new Random(SEED);
+		for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+			initialCells[i] = getRandomCell(random);
+			finalCells[i] = getRandomCell(random);
+		}
+		query = 0;
+
+	}
+
+	/**
+	 * Delete the file of the landmarks.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(landmarksFile);
+	}
+
+	/**
+	 * Gets a random cell that is not an obstacle.
+	 *
+	 * @param random
+	 *            the random
+	 * @return the cell
+	 */
+	private int getRandomCell(Random random) {
+		int cell;
+		do {
+			cell = random.nextInt(graph.getNumberOfCells());
+		} while (graph.isObstacle(cell));
+		return cell;
+	}
+
+	/**
+	 * Search the next query with A* and the landmarks.
+	 *
+	 * @return the energy of the path
+	 */
+	@Benchmark
+	public double searchWithLandmarks() {
+		return search(landmarkAlgorithm);
+	}
+
+	/**
+	 * Search the next query with A* and the octile distance.
+	 *
+	 * @return the energy of the path
+	 */
+	@Benchmark
+	public double searchWithOctileDistance() {
+		return search(octileAlgorithm);
+	}
+
+	/**
+	 * Search the next query with the algorithm of Dijkstra.
+	 *
+	 * @return the energy of the path
+	 */
+	@Benchmark
+	public double searchWithDijkstra() {
+		return search(dijkstraAlgorithm);
+	}
+
+	/**
+	 * Search the next query.
+	 *
+	 * @param algorithm
+	 *            the algorithm
+	 * @return the energy of the path
+	 */
+	private double search(RobotAlgorithm algorithm) {
+		algorithm.search(initialCells[query], finalCells[query]);
+		query = (query + 1) % NUMBER_OF_QUERIES;
+		return algorithm.getEnergy();
+	}
+
+}
@@ -0,0 +1,86 @@
+package es.uned.peda.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uned.peda.algorithm.CostDistribution;
+import es.uned.peda.algorithm.RobotAlgorithm;
+import es.uned.peda.algorithm.SearchMode;
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.LayoutType;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class LayoutBenchmark.
+ *
+ * Search with the algorithm of Dijkstra from the top left corner of a wide
+ * grid to the bottom right one, with its cells in row-major order and in
+ * tiles. The cache misses of each search are reported by the perfnorm
+ * profiler of JMH where perf is available, for example:
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar LayoutBenchmark -prof perfnorm
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LayoutBenchmark {
+
+	/** The probability of a cell being an obstacle. */
+	private static final double OBSTACLE_DENSITY = 0.2;
+
+	/** The number of rows. */
+	@Param({ "256" })
+	public int rows;
+
+	/** The number of columns. */
+	@Param({ "1024", "16384", "65536" })
+	public int columns;
+
+	/** The name of the layout type. */
+	@Param({ "row-major", "tiled" })
+	public String layout;
+
+	/** The graph. */
+	private GridGraph graph;
+
+	/** The algorithm. */
+	private RobotAlgorithm algorithm;
+
+	/**
+	 * Create the grid in the layout and the algorithm.
+	 */
+	@Setup
+	public void setUp() {
+		graph = new GridGraph(SyntheticGrid.create(rows, columns, OBSTACLE_DENSITY, CostDistribution.INTEGER),
+				LayoutType.fromName(layout));
+		algorithm = new RobotAlgorithm(graph, QueueType.BINARY, true, SearchMode.DIJKSTRA, false, null);
+	}
+
+	/**
+	 * Search with the algorithm created in the setup.
+	 *
+	 * @return the energy of the path
+	 */
+	@Benchmark
+	public double search() {
+		algorithm.search(graph.getInitialCell(), graph.getFinalCell());
+		return algorithm.getEnergy();
+	}
+
+}
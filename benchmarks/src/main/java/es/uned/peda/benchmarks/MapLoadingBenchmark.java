@@ -0,0 +1,105 @@
+package es.uned.peda.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uned.peda.algorithm.IOData;
+import es.uned.peda.algorithm.MapGenerator;
+import es.uned.peda.dataStructures.ProblemData;
+
+/**
+ * The Class MapLoadingBenchmark.
+ *
+ * Loading of a map written to a temporary file by {@link MapGenerator}, in the
+ * text format and in the binary one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapLoadingBenchmark extends GridBenchmark {
+
+	/** The text map. */
+	private Path textMap;
+
+	/** The binary map. */
+	private Path binaryMap;
+
+	/**
+	 * Write the map to the temporary files.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		final MapGenerator generator = new MapGenerator(size, size, 1L);
+		generator.setObstacleDensity(obstacleDensity);
+		generator.setCostDistribution(costDistribution);
+		textMap = Files.createTempFile("robot", ".txt");
+		Files.delete(textMap);
+		generator.writeText(textMap);
+		binaryMap = Files.createTempFile("robot", ".bin");
+		Files.delete(binaryMap);
+		generator.writeBinary(binaryMap);
+	}
+
+	/**
+	 * Delete the temporary files.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(textMap);
+		Files.deleteIfExists(binaryMap);
+	}
+
+	/**
+	 * Read the text map.
+	 *
+	 * @return the problem data
+	 */
+	@Benchmark
+	public ProblemData readText() {
+		return new IOData().readInput(textMap.toString());
+	}
+
+	/**
+	 * Read the text map with two threads.
+	 *
+	 * @return the problem data
+	 */
+	@Benchmark
+	public ProblemData readTextParallel() {
+		return new IOData().readInput(textMap.toString(), 2);
+	}
+
+	/**
+	 * Read the binary map.
+	 *
+	 * @return the problem data
+	 */
+	@Benchmark
+	public ProblemData readBinary() {
+		return new IOData().readInput(binaryMap.toString());
+	}
+
+}
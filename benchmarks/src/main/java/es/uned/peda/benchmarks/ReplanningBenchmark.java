@@ -0,0 +1,111 @@
+package es.uned.peda.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uned.peda.algorithm.CostDistribution;
+import es.uned.peda.algorithm.IncrementalPlanner;
+import es.uned.peda.algorithm.RobotAlgorithm;
+import es.uned.peda.algorithm.SearchMode;
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class ReplanningBenchmark.
+ *
+ * A cell in the middle of the route across a square grid becomes an obstacle
+ * and then free again, one change per invocation, and the route is planned
+ * again by {@link IncrementalPlanner}, against a search from scratch with the
+ * algorithm of Dijkstra.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplanningBenchmark {
+
+	/** The probability of a cell being an obstacle. */
+	private static final double OBSTACLE_DENSITY = 0.2;
+
+	/** The number of rows and columns. */
+	@Param({ "256", "1024" })
+	public int size;
+
+	/** The graph. */
+	private GridGraph graph;
+
+	/** The algorithm. */
+	private RobotAlgorithm algorithm;
+
+	/** The planner. */
+	private IncrementalPlanner planner;
+
+	/** The x of the changed cell. */
+	private int changedX;
+
+	/** The y of the changed cell. */
+	private int changedY;
+
+	/** The cost of the changed cell when it is not an obstacle. */
+	private double changedCost;
+
+	/** Whether the changed cell is now an obstacle. */
+	private boolean blocked;
+
+	/**
+	 * Create the grid, the algorithm and the planner, and plan the first
+	 * route.
+	 */
+	@Setup
+	public void setUp() {
+
+		graph = SyntheticGrid.create(size, OBSTACLE_DENSITY, CostDistribution.INTEGER);
+		algorithm = new RobotAlgorithm(graph, QueueType.BINARY, true, SearchMode.DIJKSTRA, false, null);
+		planner = new IncrementalPlanner(graph);
+
+		final int[] path = planner.plan().getPath();
+		final int changedCell = path[path.length / 2];
+		changedX = graph.getX(changedCell);
+		changedY = graph.getY(changedCell);
+		changedCost = graph.getCost(changedCell);
+		blocked = false;
+
+	}
+
+	/**
+	 * Block or free the changed cell and plan the route again.
+	 *
+	 * @return the energy of the path
+	 */
+	@Benchmark
+	public double replan() {
+		blocked = !blocked;
+		planner.updateCost(changedX, changedY, blocked ? Double.POSITIVE_INFINITY : changedCost);
+		return planner.plan().getEnergy();
+	}
+
+	/**
+	 * Search the route from scratch.
+	 *
+	 * @return the energy of the path
+	 */
+	@Benchmark
+	public double searchFromScratch() {
+		algorithm.search(graph.getInitialCell(), graph.getFinalCell());
+		return algorithm.getEnergy();
+	}
+
+}
@@ -0,0 +1,93 @@
+package es.uned.peda.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uned.peda.algorithm.RobotAlgorithm;
+import es.uned.peda.algorithm.SearchMode;
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class SolveBenchmark.
+ *
+ * Search from the top left corner of a grid to the bottom right one. The
+ * search is measured on its own, reusing the algorithm as a service does, and
+ * together with the creation of the algorithm and its queues, as the robot
+ * does for a map. The other queues and search modes can be selected from the
+ * command line, for example -p queue=radix -p mode=bidirectional.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark extends GridBenchmark {
+
+	/** The name of the queue type. */
+	@Param({ "binary", "nodes" })
+	public String queue;
+
+	/** The name of the search mode. */
+	@Param({ "dijkstra", "astar", "jps" })
+	public String mode;
+
+	/** The graph. */
+	private GridGraph graph;
+
+	/** The queue type. */
+	private QueueType queueType;
+
+	/** The search mode. */
+	private SearchMode searchMode;
+
+	/** The algorithm reused by {@link #search()}. */
+	private RobotAlgorithm algorithm;
+
+	/**
+	 * Create the grid and the algorithm.
+	 */
+	@Setup
+	public void setUp() {
+		graph = createGraph();
+		queueType = QueueType.fromName(queue);
+		searchMode = SearchMode.fromName(mode);
+		algorithm = new RobotAlgorithm(graph, queueType, true, searchMode, false, null);
+	}
+
+	/**
+	 * Search with the algorithm created in the setup.
+	 *
+	 * @return the energy of the path
+	 */
+	@Benchmark
+	public double search() {
+		algorithm.search(graph.getInitialCell(), graph.getFinalCell());
+		return algorithm.getEnergy();
+	}
+
+	/**
+	 * Create the algorithm and its queues and search.
+	 *
+	 * @return the energy of the path
+	 */
+	@Benchmark
+	public double solve() {
+		final RobotAlgorithm newAlgorithm = new RobotAlgorithm(graph, queueType, true, searchMode, false, null);
+		newAlgorithm.search(graph.getInitialCell(), graph.getFinalCell());
+		return newAlgorithm.getEnergy();
+	}
+
+}
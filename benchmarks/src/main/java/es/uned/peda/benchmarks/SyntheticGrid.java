@@ -0,0 +1,78 @@
+package es.uned.peda.benchmarks;
+
+import java.util.Random;
+
+import es.uned.peda.algorithm.CostDistribution;
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class SyntheticGrid.
+ *
+ * Grids with random costs and obstacles for the benchmarks, created in
+ * memory. The robot starts at the top left corner and the exit is at the
+ * bottom right one, and the same parameters always give the same grid.
+ */
+public final class SyntheticGrid {
+
+	/** The seed of the grids. */
+	private static final long SEED = 1L;
+
+	/**
+	 * Instantiates a new synthetic grid.
+	 */
+	private SyntheticGrid() {
+	}
+
+	/**
+	 * Creates a square grid.
+	 *
+	 * @param size
+	 *            the number of rows and columns
+	 * @param obstacleDensity
+	 *            the probability of a cell being an obstacle
+	 * @param costDistribution
+	 *            the distribution of the costs of the other cells
+	 * @return the graph
+	 */
+	public static GridGraph create(int size, double obstacleDensity, CostDistribution costDistribution) {
+		return create(size, size, obstacleDensity, costDistribution);
+	}
+
+	/**
+	 * Creates a grid.
+	 *
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 * @param obstacleDensity
+	 *            the probability of a cell being an obstacle
+	 * @param costDistribution
+	 *            the distribution of the costs of the other cells
+	 * @return the graph
+	 */
+	public static GridGraph create(int numberOfRows, int numberOfColumns, double obstacleDensity,
+			CostDistribution costDistribution) {
+
+		if (numberOfRows < 2 || numberOfColumns < 2) {
+			throw new IllegalArgumentException("The grid must have at least two rows and columns");
+		}
+
+		final Random random = new Random(SEED);
+		final int numberOfCells = numberOfRows * numberOfColumns;
+		final int initialCell = 0;
+		final int finalCell = numberOfCells - 1;
+
+		final double[] costs = new double[numberOfCells];
+		for (int cell = 0; cell < numberOfCells; cell++) {
+			costs[cell] = random.nextDouble() < obstacleDensity ? Double.POSITIVE_INFINITY
+					: costDistribution.nextCost(random);
+		}
+		costs[initialCell] = 0.0;
+		costs[finalCell] = 0.0;
+
+		return new GridGraph(costs, initialCell, finalCell, numberOfRows, numberOfColumns);
+
+	}
+
+}
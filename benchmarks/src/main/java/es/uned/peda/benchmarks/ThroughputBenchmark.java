@@ -0,0 +1,142 @@
+package es.uned.peda.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uned.peda.algorithm.CostDistribution;
+import es.uned.peda.algorithm.RobotService;
+import es.uned.peda.algorithm.RouteResult;
+import es.uned.peda.algorithm.SearchMode;
+import es.uned.peda.algorithm.SearchStatistics;
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class ThroughputBenchmark.
+ *
+ * Searches per second answered by a {@link RobotService} with a number of
+ * threads, between random cells of a square grid that are not obstacles,
+ * always the same ones. With -p metrics=true the searches are also recorded
+ * in a {@link SearchStatistics}, to measure what the metrics cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThroughputBenchmark {
+
+	/** The probability of a cell being an obstacle. */
+	private static final double OBSTACLE_DENSITY = 0.2;
+
+	/** The number of searches of each invocation. */
+	private static final int NUMBER_OF_SEARCHES = 256;
+
+	/** The seed of the searches. */
+	private static final long SEED = 1L;
+
+	/** The number of rows and columns. */
+	@Param({ "256" })
+	public int size;
+
+	/** The number of threads of the service. */
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	/** The name of the queue type. */
+	@Param({ "binary" })
+	public String queue;
+
+	/** The name of the search mode. */
+	@Param({ "dijkstra", "astar" })
+	public String mode;
+
+	/** Whether the searches are recorded in statistics. */
+	@Param({ "false" })
+	public boolean metrics;
+
+	/** The service. */
+	private RobotService service;
+
+	/** The initial cell of each search. */
+	private final int[] initialCells = new int[NUMBER_OF_SEARCHES];
+
+	/** The final cell of each search. */
+	private final int[] finalCells = new int[NUMBER_OF_SEARCHES];
+
+	/**
+	 * Create the grid, the searches and the service with its threads.
+	 */
+	@Setup
+	public void setUp() {
+
+		final GridGraph graph = SyntheticGrid.create(size, OBSTACLE_DENSITY, CostDistribution.INTEGER);
+
+		final Random random = new Random(SEED);
+		for (int search = 0; search < NUMBER_OF_SEARCHES; search++) {
+			initialCells[search] = randomCell(graph, random);
+			finalCells[search] = randomCell(graph, random);
+		}
+
+		service = new RobotService(graph, QueueType.fromName(queue), SearchMode.fromName(mode), threads);
+		if (metrics) {
+			service.setStatistics(new SearchStatistics());
+		}
+
+	}
+
+	/**
+	 * Stop the threads of the service.
+	 */
+	@TearDown
+	public void tearDown() {
+		service.close();
+	}
+
+	/**
+	 * Answer every search with the threads of the service.
+	 *
+	 * @return the results
+	 * @throws InterruptedException
+	 *             if the thread is interrupted
+	 */
+	@Benchmark
+	@OperationsPerInvocation(NUMBER_OF_SEARCHES)
+	public List<RouteResult> solveAll() throws InterruptedException {
+		return service.solveAll(initialCells, finalCells);
+	}
+
+	/**
+	 * Gets a random cell that is not an obstacle.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param random
+	 *            the random number generator
+	 * @return the cell
+	 */
+	private static int randomCell(GridGraph graph, Random random) {
+		int cell;
+		do {
+			cell = random.nextInt(graph.getNumberOfCells());
+		} while (graph.isObstacle(cell));
+		return cell;
+	}
+
+}
@@ -0,0 +1,343 @@
+package es.uned.peda.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.MappedCosts;
+import es.uned.peda.dataStructures.ProblemData;
+
+/**
+ * The Class BinaryMap.
+ *
+ * Binary format of the maps, which is loaded without reading the costs: they
+ * are mapped in memory and used in place. All the values are little-endian.
+ * The header has these fields:
+ *
+ * <pre>
+ *  0  int     magic number, "RMAP"
+ *  4  int     version
+ *  8  int     number of rows
+ * 12  int     number of columns
+ * 16  int     size of each cost, 4 (float32) or 8 (float64)
+ * 20  int     initial cell
+ * 24  int     number of final cells
+ * 28  int     number of free cells, the cells that cost nothing
+ * 32  double  lowest positive cost
+ * 40  double  highest cost that is not an obstacle
+ * 48  long    offset of the costs, a multiple of 8
+ * 56  int[]   final cells, followed by the free cells
+ * </pre>
+ *
+ * The costs of the cells follow in row-major order, with obstacles as
+ * infinity. They are written as float32 when that loses nothing.
+ */
+public final class BinaryMap {
+
+	/** The magic number, the bytes "RMAP" read as a little-endian int. */
+	static final int MAGIC = 0x50414D52;
+
+	/** The version of the format. */
+	static final int VERSION = 1;
+
+	/** The size of the fixed part of the header. */
+	private static final int HEADER_SIZE = 56;
+
+	/** The size of the buffer used to write the costs. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Instantiates a new binary map.
+	 */
+	private BinaryMap() {
+	}
+
+	/**
+	 * Checks if a file is a binary map.
+	 *
+	 * @param inputPath
+	 *            the input path
+	 * @return true, if it starts with the magic number
+	 */
+	public static boolean isBinaryMap(Path inputPath) {
+		try (FileChannel channel = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+			final ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			return readFully(channel, magic, 0) && magic.getInt(0) == MAGIC;
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Write a graph as a binary map, with its cells in row-major order whatever
+	 * its layout.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param outputPath
+	 *            the output path
+	 */
+	public static void write(GridGraph graph, Path outputPath) {
+
+		if (Files.exists(outputPath)) {
+			throw new IllegalArgumentException("Output file already exists");
+		}
+
+		final int numberOfCells = graph.getNumberOfCells();
+		final int costSize = fitsInFloat(graph) ? Float.BYTES : Double.BYTES;
+		final int[] finalCells = new int[graph.getNumberOfFinalCells()];
+		for (int i = 0; i < finalCells.length; i++) {
+			finalCells[i] = graph.getTag(graph.getFinalCell(i)) - 1;
+		}
+		final int[] freeCells = new int[graph.getNumberOfFreeCells()];
+		for (int i = 0; i < freeCells.length; i++) {
+			freeCells[i] = graph.getTag(graph.getFreeCell(i)) - 1;
+		}
+		Arrays.sort(freeCells);
+
+		try (FileChannel channel = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+
+			channel.position(getDataOffset(finalCells.length, freeCells.length));
+
+			final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			for (int tag = 1; tag <= numberOfCells; tag++) {
+				if (buffer.remaining() < costSize) {
+					buffer.flip();
+					writeFully(channel, buffer);
+					buffer.clear();
+				}
+				if (costSize == Float.BYTES) {
+					buffer.putFloat((float) graph.getCost(graph.getCell(tag)));
+				} else {
+					buffer.putDouble(graph.getCost(graph.getCell(tag)));
+				}
+			}
+			buffer.flip();
+			writeFully(channel, buffer);
+
+			writeHeader(channel, graph.getNumberOfRows(), graph.getNumberOfColumns(), costSize,
+					graph.getTag(graph.getInitialCell()) - 1, finalCells, freeCells, graph.getMinCost(),
+					graph.getMaxCost());
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Write the header of a binary map at the start of a channel, whose costs
+	 * have been written from {@link #getDataOffset(int, int)}. The position
+	 * of the channel is not changed.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 * @param costSize
+	 *            the size of each cost, 4 or 8
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCells
+	 *            the final cells
+	 * @param freeCells
+	 *            the cells that cost nothing
+	 * @param minCost
+	 *            the lowest positive cost
+	 * @param maxCost
+	 *            the highest cost that is not an obstacle
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	static void writeHeader(FileChannel channel, int numberOfRows, int numberOfColumns, int costSize,
+			int initialCell, int[] finalCells, int[] freeCells, double minCost, double maxCost) throws IOException {
+
+		final long dataOffset = getDataOffset(finalCells.length, freeCells.length);
+
+		final ByteBuffer header = ByteBuffer.allocate((int) dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION).putInt(numberOfRows).putInt(numberOfColumns);
+		header.putInt(costSize).putInt(initialCell).putInt(finalCells.length).putInt(freeCells.length);
+		header.putDouble(minCost).putDouble(maxCost).putLong(dataOffset);
+		for (final int cell : finalCells) {
+			header.putInt(cell);
+		}
+		for (final int cell : freeCells) {
+			header.putInt(cell);
+		}
+		header.clear();
+
+		long position = 0;
+		while (header.hasRemaining()) {
+			position += channel.write(header, position);
+		}
+
+	}
+
+	/**
+	 * Read a binary map. The costs are mapped in memory, not read.
+	 *
+	 * @param inputPath
+	 *            the input path
+	 * @return the problem data
+	 */
+	public static ProblemData read(Path inputPath) {
+
+		if (!Files.exists(inputPath)) {
+			throw new IllegalArgumentException("Input file does not exist");
+		}
+
+		try (FileChannel channel = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			if (!readFully(channel, header, 0) || header.getInt(0) != MAGIC) {
+				throw new IllegalArgumentException("Invalid binary map file");
+			}
+			if (header.getInt(4) != VERSION) {
+				throw new IllegalArgumentException("Unsupported binary map version " + header.getInt(4));
+			}
+
+			final int numberOfRows = header.getInt(8);
+			final int numberOfColumns = header.getInt(12);
+			final int costSize = header.getInt(16);
+			final int initialCell = header.getInt(20);
+			final int numberOfFinalCells = header.getInt(24);
+			final int numberOfFreeCells = header.getInt(28);
+			final double minCost = header.getDouble(32);
+			final double maxCost = header.getDouble(40);
+			final long dataOffset = header.getLong(48);
+
+			final long numberOfCells = (long) numberOfRows * numberOfColumns;
+			if (numberOfRows < 1 || numberOfColumns < 1 || numberOfCells > Integer.MAX_VALUE
+					|| (costSize != Float.BYTES && costSize != Double.BYTES) || numberOfFinalCells < 1
+					|| numberOfFinalCells > numberOfCells || numberOfFreeCells < 0 || numberOfFreeCells > numberOfCells
+					|| (long) numberOfFinalCells + numberOfFreeCells > Integer.MAX_VALUE / Integer.BYTES
+					|| dataOffset < getDataOffset(numberOfFinalCells, numberOfFreeCells)
+					|| dataOffset + numberOfCells * costSize > channel.size()) {
+				throw new IllegalArgumentException("Invalid binary map file");
+			}
+
+			final ByteBuffer cellList = ByteBuffer.allocate(Integer.BYTES * (numberOfFinalCells + numberOfFreeCells))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, cellList, HEADER_SIZE);
+			cellList.flip();
+			final int[] finalCells = readCells(cellList, numberOfFinalCells, numberOfCells);
+			final int[] freeCells = readCells(cellList, numberOfFreeCells, numberOfCells);
+			if (initialCell < 0 || initialCell >= numberOfCells) {
+				throw new IllegalArgumentException("Invalid binary map file");
+			}
+
+			final MappedCosts costs = new MappedCosts(channel, dataOffset, (int) numberOfCells, costSize, minCost,
+					maxCost, freeCells);
+
+			return new ProblemData(new GridGraph(costs, initialCell, finalCells, numberOfRows, numberOfColumns));
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Read a list of cells and check that they are inside the grid.
+	 *
+	 * @param buffer
+	 *            the buffer with the cells
+	 * @param numberOfCellsInList
+	 *            the number of cells in the list
+	 * @param numberOfCells
+	 *            the number of cells of the grid
+	 * @return the cells
+	 */
+	private static int[] readCells(ByteBuffer buffer, int numberOfCellsInList, long numberOfCells) {
+		final int[] cells = new int[numberOfCellsInList];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = buffer.getInt();
+			if (cells[i] < 0 || cells[i] >= numberOfCells) {
+				throw new IllegalArgumentException("Invalid binary map file");
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Checks if every cost of a graph is kept exactly as a float32.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return true, if it is
+	 */
+	private static boolean fitsInFloat(GridGraph graph) {
+		for (int cell = 0; cell < graph.getNumberOfCells(); cell++) {
+			final double cost = graph.getCost(cell);
+			if ((float) cost != cost) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the offset of the costs: after the header and the lists of cells,
+	 * rounded up to a multiple of 8.
+	 *
+	 * @param numberOfFinalCells
+	 *            the number of final cells
+	 * @param numberOfFreeCells
+	 *            the number of free cells
+	 * @return the offset
+	 */
+	static long getDataOffset(int numberOfFinalCells, int numberOfFreeCells) {
+		final long end = HEADER_SIZE + (long) Integer.BYTES * (numberOfFinalCells + numberOfFreeCells);
+		return (end + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+	}
+
+	/**
+	 * Read bytes from a position of a channel until the buffer is full.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer
+	 * @param position
+	 *            the position
+	 * @return true, if the buffer was filled before the end of the file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			final int read = channel.read(buffer, position);
+			if (read < 0) {
+				return false;
+			}
+			position += read;
+		}
+		return true;
+	}
+
+	/**
+	 * Write all the remaining bytes of a buffer to a channel.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+}
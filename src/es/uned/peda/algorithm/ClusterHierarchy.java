@@ -0,0 +1,928 @@
+package es.uned.peda.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class ClusterHierarchy.
+ *
+ * Abstract graph of hierarchical path finding (HPA*) over a map, built once
+ * and used by {@link HierarchicalSearch} for any number of queries. The map is
+ * split in square clusters, and the cells on both sides of the borders between
+ * clusters where the robot can cross become entrances. The entrances are the
+ * nodes of the abstract graph, with an edge for each crossing between two
+ * clusters and an edge between every two entrances of a cluster with the
+ * energy of the best path between them that does not leave the cluster.
+ *
+ * In the optimal mode every crossing is an entrance, so any path can be split
+ * in edges of the abstract graph and the searches find the same energy as the
+ * algorithm of Dijkstra. Otherwise, as in the original HPA*, each run of free
+ * cells along a border only gets one crossing, or two at its ends if it is
+ * long, which keeps the abstract graph much smaller at the price of routes up
+ * to a few percent longer. The diagonal crossings outside the runs are always
+ * kept, so no route is lost. In both modes the edges inside a cluster whose
+ * best path goes through another entrance are left out, because the path is
+ * already made of other edges.
+ *
+ * The hierarchy can be saved to disk and read back for the same map, with all
+ * the values little-endian:
+ *
+ * <pre>
+ *  0  int       magic number, "RHPA"
+ *  4  int       version
+ *  8  int       number of rows
+ * 12  int       number of columns
+ * 16  int       side of the clusters
+ * 20  int       1 in the optimal mode, 0 otherwise
+ * 24  int       number of entrances
+ * 28  int       number of edges
+ * 32  long      fingerprint of the costs of the map
+ * 40  int[]     entrances, in row-major order, sorted by cluster
+ *     int[]     first entrance of each cluster, and the number of entrances
+ *     int[]     first edge of each entrance, and the number of edges
+ *     int[]     entrance at the end of each edge
+ *     double[]  energy of each edge
+ * </pre>
+ */
+public final class ClusterHierarchy {
+
+	/** The magic number, the bytes "RHPA" read as a little-endian int. */
+	static final int MAGIC = 0x41504852;
+
+	/** The version of the format. */
+	static final int VERSION = 1;
+
+	/** The size of the header. */
+	private static final int HEADER_SIZE = 40;
+
+	/** The size of the buffer used to read and write the values. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/** The default side of the clusters. */
+	public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+	/**
+	 * The length from which a run of free cells along a border gets a
+	 * crossing at each end instead of one in the middle.
+	 */
+	private static final int LONG_ENTRANCE = 6;
+
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The side of the clusters. */
+	private final int clusterSize;
+
+	/** Whether every crossing is an entrance. */
+	private final boolean optimal;
+
+	/** The number of clusters in each row of clusters. */
+	private final int clustersPerRow;
+
+	/** The cell of each entrance, sorted by cluster. */
+	private final int[] entranceCells;
+
+	/** The first entrance of each cluster, followed by the number of entrances. */
+	private final int[] clusterStarts;
+
+	/** The first edge of each entrance, followed by the number of edges. */
+	private final int[] edgeStarts;
+
+	/** The entrance at the end of each edge. */
+	private final int[] edgeTargets;
+
+	/** The energy of each edge. */
+	private final double[] edgeEnergies;
+
+	/**
+	 * Instantiates a new cluster hierarchy. The arrays are not copied.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param clusterSize
+	 *            the side of the clusters
+	 * @param optimal
+	 *            whether every crossing is an entrance
+	 * @param entranceCells
+	 *            the cell of each entrance, sorted by cluster
+	 * @param clusterStarts
+	 *            the first entrance of each cluster
+	 * @param edgeStarts
+	 *            the first edge of each entrance
+	 * @param edgeTargets
+	 *            the entrance at the end of each edge
+	 * @param edgeEnergies
+	 *            the energy of each edge
+	 */
+	private ClusterHierarchy(GridGraph graph, int clusterSize, boolean optimal, int[] entranceCells,
+			int[] clusterStarts, int[] edgeStarts, int[] edgeTargets, double[] edgeEnergies) {
+		this.graph = graph;
+		this.clusterSize = clusterSize;
+		this.optimal = optimal;
+		this.clustersPerRow = (graph.getNumberOfColumns() + clusterSize - 1) / clusterSize;
+		this.entranceCells = entranceCells;
+		this.clusterStarts = clusterStarts;
+		this.edgeStarts = edgeStarts;
+		this.edgeTargets = edgeTargets;
+		this.edgeEnergies = edgeEnergies;
+	}
+
+	/**
+	 * Build the hierarchy of a graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param clusterSize
+	 *            the side of the clusters
+	 * @param optimal
+	 *            whether every crossing is an entrance, so the searches find
+	 *            the best routes
+	 * @return the hierarchy
+	 */
+	public static ClusterHierarchy build(GridGraph graph, int clusterSize, boolean optimal) {
+
+		if (clusterSize < 2 || (long) clusterSize * clusterSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid cluster size: " + clusterSize);
+		}
+
+		final Builder builder = new Builder(graph, clusterSize, optimal);
+		builder.findCrossings();
+		return builder.createHierarchy();
+
+	}
+
+	/**
+	 * Gets the cluster of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the cluster
+	 */
+	int getCluster(int cell) {
+		return (graph.getX(cell) - 1) / clusterSize * clustersPerRow + (graph.getY(cell) - 1) / clusterSize;
+	}
+
+	/**
+	 * Gets the first entrance of a cluster.
+	 *
+	 * @param cluster
+	 *            the cluster
+	 * @return the first entrance
+	 */
+	int getFirstEntrance(int cluster) {
+		return clusterStarts[cluster];
+	}
+
+	/**
+	 * Gets the entrance after the last one of a cluster.
+	 *
+	 * @param cluster
+	 *            the cluster
+	 * @return the end of the entrances of the cluster
+	 */
+	int getEntranceEnd(int cluster) {
+		return clusterStarts[cluster + 1];
+	}
+
+	/**
+	 * Gets the cell of an entrance.
+	 *
+	 * @param entrance
+	 *            the entrance
+	 * @return the cell
+	 */
+	int getEntranceCell(int entrance) {
+		return entranceCells[entrance];
+	}
+
+	/**
+	 * Gets the first edge of an entrance.
+	 *
+	 * @param entrance
+	 *            the entrance
+	 * @return the first edge
+	 */
+	int getFirstEdge(int entrance) {
+		return edgeStarts[entrance];
+	}
+
+	/**
+	 * Gets the edge after the last one of an entrance.
+	 *
+	 * @param entrance
+	 *            the entrance
+	 * @return the end of the edges of the entrance
+	 */
+	int getEdgeEnd(int entrance) {
+		return edgeStarts[entrance + 1];
+	}
+
+	/**
+	 * Gets the entrance at the end of an edge.
+	 *
+	 * @param edge
+	 *            the edge
+	 * @return the entrance
+	 */
+	int getEdgeTarget(int edge) {
+		return edgeTargets[edge];
+	}
+
+	/**
+	 * Gets the energy of an edge.
+	 *
+	 * @param edge
+	 *            the edge
+	 * @return the energy
+	 */
+	double getEdgeEnergy(int edge) {
+		return edgeEnergies[edge];
+	}
+
+	/**
+	 * Gets the graph.
+	 *
+	 * @return the graph
+	 */
+	public GridGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Gets the side of the clusters.
+	 *
+	 * @return the cluster size
+	 */
+	public int getClusterSize() {
+		return clusterSize;
+	}
+
+	/**
+	 * Checks if every crossing is an entrance, so the searches find the best
+	 * routes.
+	 *
+	 * @return true, if it is optimal
+	 */
+	public boolean isOptimal() {
+		return optimal;
+	}
+
+	/**
+	 * Gets the number of clusters.
+	 *
+	 * @return the number of clusters
+	 */
+	public int getNumberOfClusters() {
+		return clusterStarts.length - 1;
+	}
+
+	/**
+	 * Gets the number of entrances.
+	 *
+	 * @return the number of entrances
+	 */
+	public int getNumberOfEntrances() {
+		return entranceCells.length;
+	}
+
+	/**
+	 * Gets the number of edges.
+	 *
+	 * @return the number of edges
+	 */
+	public int getNumberOfEdges() {
+		return edgeTargets.length;
+	}
+
+	/**
+	 * Write the hierarchy as a binary file.
+	 *
+	 * @param outputPath
+	 *            the output path
+	 */
+	public void write(Path outputPath) {
+
+		if (Files.exists(outputPath)) {
+			throw new IllegalArgumentException("Output file already exists");
+		}
+
+		try (FileChannel channel = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+
+			final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(graph.getNumberOfRows()).putInt(graph.getNumberOfColumns());
+			buffer.putInt(clusterSize).putInt(optimal ? 1 : 0).putInt(entranceCells.length).putInt(edgeTargets.length);
+			buffer.putLong(getFingerprint(graph));
+
+			for (final int cell : entranceCells) {
+				putInt(channel, buffer, graph.getTag(cell) - 1);
+			}
+			for (final int start : clusterStarts) {
+				putInt(channel, buffer, start);
+			}
+			for (final int start : edgeStarts) {
+				putInt(channel, buffer, start);
+			}
+			for (final int target : edgeTargets) {
+				putInt(channel, buffer, target);
+			}
+			for (final double energy : edgeEnergies) {
+				if (buffer.remaining() < Double.BYTES) {
+					flush(channel, buffer);
+				}
+				buffer.putDouble(energy);
+			}
+			flush(channel, buffer);
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Put an int in a buffer, writing the buffer to a channel first if it is
+	 * full.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer
+	 * @param value
+	 *            the value
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+		if (buffer.remaining() < Integer.BYTES) {
+			flush(channel, buffer);
+		}
+		buffer.putInt(value);
+	}
+
+	/**
+	 * Write the content of a buffer to a channel and clear it.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		BinaryMap.writeFully(channel, buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Read a hierarchy written by {@link #write(Path)} for the map of a graph,
+	 * in any layout.
+	 *
+	 * @param inputPath
+	 *            the input path
+	 * @param graph
+	 *            the graph of the map
+	 * @return the hierarchy
+	 */
+	public static ClusterHierarchy read(Path inputPath, GridGraph graph) {
+
+		if (!Files.exists(inputPath)) {
+			throw new IllegalArgumentException("Input file does not exist");
+		}
+
+		try (FileChannel channel = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+
+			final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.limit(HEADER_SIZE);
+			if (!BinaryMap.readFully(channel, buffer, 0) || buffer.getInt(0) != MAGIC) {
+				throw new IllegalArgumentException("Invalid hierarchy file");
+			}
+			if (buffer.getInt(4) != VERSION) {
+				throw new IllegalArgumentException("Unsupported hierarchy version " + buffer.getInt(4));
+			}
+			if (buffer.getInt(8) != graph.getNumberOfRows() || buffer.getInt(12) != graph.getNumberOfColumns()
+					|| buffer.getLong(32) != getFingerprint(graph)) {
+				throw new IllegalArgumentException("The hierarchy was built for another map");
+			}
+
+			final int clusterSize = buffer.getInt(16);
+			final boolean optimal = buffer.getInt(20) != 0;
+			final int numberOfEntrances = buffer.getInt(24);
+			final int numberOfEdges = buffer.getInt(28);
+			if (clusterSize < 2 || numberOfEntrances < 0 || numberOfEdges < 0) {
+				throw new IllegalArgumentException("Invalid hierarchy file");
+			}
+
+			final long numberOfClusters = (graph.getNumberOfRows() + (long) clusterSize - 1) / clusterSize
+					* ((graph.getNumberOfColumns() + (long) clusterSize - 1) / clusterSize);
+			final long size = HEADER_SIZE
+					+ (long) Integer.BYTES * (2L * numberOfEntrances + numberOfClusters + 2 + numberOfEdges)
+					+ (long) Double.BYTES * numberOfEdges;
+			if (numberOfClusters >= Integer.MAX_VALUE || channel.size() != size) {
+				throw new IllegalArgumentException("Invalid hierarchy file");
+			}
+
+			final long[] position = { HEADER_SIZE };
+			final int[] entranceCells = readInts(channel, buffer, position, numberOfEntrances);
+			final int[] clusterStarts = readInts(channel, buffer, position, (int) numberOfClusters + 1);
+			final int[] edgeStarts = readInts(channel, buffer, position, numberOfEntrances + 1);
+			final int[] edgeTargets = readInts(channel, buffer, position, numberOfEdges);
+			final double[] edgeEnergies = readDoubles(channel, buffer, position, numberOfEdges);
+
+			for (int entrance = 0; entrance < numberOfEntrances; entrance++) {
+				if (entranceCells[entrance] < 0 || entranceCells[entrance] >= graph.getNumberOfCells()) {
+					throw new IllegalArgumentException("Invalid hierarchy file");
+				}
+				entranceCells[entrance] = graph.getCell(entranceCells[entrance] + 1);
+			}
+			checkStarts(clusterStarts, numberOfEntrances);
+			checkStarts(edgeStarts, numberOfEdges);
+			for (final int target : edgeTargets) {
+				if (target < 0 || target >= numberOfEntrances) {
+					throw new IllegalArgumentException("Invalid hierarchy file");
+				}
+			}
+
+			return new ClusterHierarchy(graph, clusterSize, optimal, entranceCells, clusterStarts, edgeStarts,
+					edgeTargets, edgeEnergies);
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Read ints from a position of a channel, which is advanced.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer
+	 * @param position
+	 *            the position, in its only element
+	 * @param count
+	 *            the number of ints
+	 * @return the ints
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static int[] readInts(FileChannel channel, ByteBuffer buffer, long[] position, int count)
+			throws IOException {
+		final int[] values = new int[count];
+		for (int i = 0; i < count;) {
+			final int chunk = Math.min(count - i, BUFFER_SIZE / Integer.BYTES);
+			buffer.clear().limit(chunk * Integer.BYTES);
+			BinaryMap.readFully(channel, buffer, position[0]);
+			buffer.flip();
+			buffer.asIntBuffer().get(values, i, chunk);
+			position[0] += chunk * Integer.BYTES;
+			i += chunk;
+		}
+		return values;
+	}
+
+	/**
+	 * Read doubles from a position of a channel, which is advanced.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer
+	 * @param position
+	 *            the position, in its only element
+	 * @param count
+	 *            the number of doubles
+	 * @return the doubles
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static double[] readDoubles(FileChannel channel, ByteBuffer buffer, long[] position, int count)
+			throws IOException {
+		final double[] values = new double[count];
+		for (int i = 0; i < count;) {
+			final int chunk = Math.min(count - i, BUFFER_SIZE / Double.BYTES);
+			buffer.clear().limit(chunk * Double.BYTES);
+			BinaryMap.readFully(channel, buffer, position[0]);
+			buffer.flip();
+			buffer.asDoubleBuffer().get(values, i, chunk);
+			position[0] += chunk * Double.BYTES;
+			i += chunk;
+		}
+		return values;
+	}
+
+	/**
+	 * Check that an array of starts goes from zero to its end without going
+	 * back.
+	 *
+	 * @param starts
+	 *            the starts
+	 * @param end
+	 *            the end
+	 */
+	private static void checkStarts(int[] starts, int end) {
+		if (starts[0] != 0 || starts[starts.length - 1] != end) {
+			throw new IllegalArgumentException("Invalid hierarchy file");
+		}
+		for (int i = 1; i < starts.length; i++) {
+			if (starts[i] < starts[i - 1]) {
+				throw new IllegalArgumentException("Invalid hierarchy file");
+			}
+		}
+	}
+
+	/**
+	 * Gets a fingerprint of the costs of a graph in row-major order, to check
+	 * that a hierarchy read from disk belongs to its map.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the fingerprint
+	 */
+	static long getFingerprint(GridGraph graph) {
+		long fingerprint = 17;
+		for (int tag = 1; tag <= graph.getNumberOfCells(); tag++) {
+			fingerprint = fingerprint * 31 + Double.doubleToLongBits(graph.getCost(graph.getCell(tag)));
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * The Class Builder.
+	 *
+	 * Finds the crossings between clusters and the edges inside each cluster.
+	 */
+	private static final class Builder {
+
+		/** The graph. */
+		private final GridGraph graph;
+
+		/** The side of the clusters. */
+		private final int clusterSize;
+
+		/** Whether every crossing is an entrance. */
+		private final boolean optimal;
+
+		/** Whether each cell is an entrance. */
+		private final boolean[] entranceFlags;
+
+		/** The cells at the start of the crossings. */
+		private int[] crossingSources = new int[16];
+
+		/** The cells at the end of the crossings. */
+		private int[] crossingTargets = new int[16];
+
+		/** The number of crossings, in each direction. */
+		private int numberOfCrossings;
+
+		/**
+		 * Instantiates a new builder.
+		 *
+		 * @param graph
+		 *            the graph
+		 * @param clusterSize
+		 *            the side of the clusters
+		 * @param optimal
+		 *            whether every crossing is an entrance
+		 */
+		Builder(GridGraph graph, int clusterSize, boolean optimal) {
+			this.graph = graph;
+			this.clusterSize = clusterSize;
+			this.optimal = optimal;
+			this.entranceFlags = new boolean[graph.getNumberOfCells()];
+		}
+
+		/**
+		 * Find the crossings of every border between two clusters, first the
+		 * vertical borders and then the horizontal ones.
+		 */
+		void findCrossings() {
+
+			final int rows = graph.getNumberOfRows();
+			final int columns = graph.getNumberOfColumns();
+
+			for (int column = clusterSize; column < columns; column += clusterSize) {
+				findCrossings(column - 1, rows, columns, false);
+			}
+			for (int row = clusterSize; row < rows; row += clusterSize) {
+				findCrossings(row - 1, columns, rows, true);
+			}
+
+		}
+
+		/**
+		 * Find the crossings of a border. The border is described as if it
+		 * were vertical, between a line and the next one; for horizontal
+		 * borders the rows and the columns are swapped.
+		 *
+		 * @param line
+		 *            the line before the border, starting at 0
+		 * @param length
+		 *            the length of the border
+		 * @param width
+		 *            the number of lines
+		 * @param horizontal
+		 *            whether the border is horizontal
+		 */
+		private void findCrossings(int line, int length, int width, boolean horizontal) {
+
+			// Straight crossings: runs of free pairs inside each cluster
+			for (int start = 0; start < length; start += clusterSize) {
+				final int end = Math.min(start + clusterSize, length);
+				int first = start;
+				while (first < end) {
+					if (!isStraightCrossing(first, line, horizontal)) {
+						first++;
+						continue;
+					}
+					int last = first;
+					while (last + 1 < end && isStraightCrossing(last + 1, line, horizontal)) {
+						last++;
+					}
+					if (optimal) {
+						for (int position = first; position <= last; position++) {
+							addStraightCrossing(position, line, horizontal);
+						}
+					} else if (last - first + 1 >= LONG_ENTRANCE) {
+						addStraightCrossing(first, line, horizontal);
+						addStraightCrossing(last, line, horizontal);
+					} else {
+						addStraightCrossing((first + last) / 2, line, horizontal);
+					}
+					first = last + 1;
+				}
+			}
+
+			// Diagonal crossings, unless both ends belong to the same run. A
+			// horizontal border leaves the corners to the vertical ones
+			for (int position = 0; position + 1 < length; position++) {
+				final boolean sameCluster = position / clusterSize == (position + 1) / clusterSize;
+				if (horizontal && !sameCluster) {
+					continue;
+				}
+				final boolean inRun = !optimal && sameCluster && isStraightCrossing(position, line, horizontal)
+						&& isStraightCrossing(position + 1, line, horizontal);
+				if (inRun) {
+					continue;
+				}
+				addCrossing(getCell(position, line, horizontal), getCell(position + 1, line + 1, horizontal));
+				addCrossing(getCell(position + 1, line, horizontal), getCell(position, line + 1, horizontal));
+			}
+
+		}
+
+		/**
+		 * Checks if the cells at both sides of a position of a border are free.
+		 *
+		 * @param position
+		 *            the position along the border
+		 * @param line
+		 *            the line before the border
+		 * @param horizontal
+		 *            whether the border is horizontal
+		 * @return true, if the robot can cross there
+		 */
+		private boolean isStraightCrossing(int position, int line, boolean horizontal) {
+			return !graph.isObstacle(getCell(position, line, horizontal))
+					&& !graph.isObstacle(getCell(position, line + 1, horizontal));
+		}
+
+		/**
+		 * Add the straight crossing at a position of a border.
+		 *
+		 * @param position
+		 *            the position along the border
+		 * @param line
+		 *            the line before the border
+		 * @param horizontal
+		 *            whether the border is horizontal
+		 */
+		private void addStraightCrossing(int position, int line, boolean horizontal) {
+			addCrossing(getCell(position, line, horizontal), getCell(position, line + 1, horizontal));
+		}
+
+		/**
+		 * Add a crossing between two adjacent cells of different clusters, in
+		 * both directions, if neither is an obstacle.
+		 *
+		 * @param cell
+		 *            a cell
+		 * @param otherCell
+		 *            the other cell
+		 */
+		private void addCrossing(int cell, int otherCell) {
+
+			if (graph.isObstacle(cell) || graph.isObstacle(otherCell)) {
+				return;
+			}
+
+			if (numberOfCrossings + 2 > crossingSources.length) {
+				crossingSources = Arrays.copyOf(crossingSources, crossingSources.length * 2);
+				crossingTargets = Arrays.copyOf(crossingTargets, crossingTargets.length * 2);
+			}
+			crossingSources[numberOfCrossings] = cell;
+			crossingTargets[numberOfCrossings++] = otherCell;
+			crossingSources[numberOfCrossings] = otherCell;
+			crossingTargets[numberOfCrossings++] = cell;
+			entranceFlags[cell] = true;
+			entranceFlags[otherCell] = true;
+
+		}
+
+		/**
+		 * Gets the cell at a position of a line.
+		 *
+		 * @param position
+		 *            the position along the line
+		 * @param line
+		 *            the line
+		 * @param horizontal
+		 *            whether the lines are rows
+		 * @return the cell
+		 */
+		private int getCell(int position, int line, boolean horizontal) {
+			return horizontal ? graph.getCellAt(line + 1, position + 1) : graph.getCellAt(position + 1, line + 1);
+		}
+
+		/**
+		 * Create the hierarchy: number the entrances by cluster and find the
+		 * edges inside each cluster.
+		 *
+		 * @return the hierarchy
+		 */
+		ClusterHierarchy createHierarchy() {
+
+			final int numberOfCells = graph.getNumberOfCells();
+			final int clustersPerRow = (graph.getNumberOfColumns() + clusterSize - 1) / clusterSize;
+			final int clustersPerColumn = (graph.getNumberOfRows() + clusterSize - 1) / clusterSize;
+			final int numberOfClusters = clustersPerRow * clustersPerColumn;
+
+			// Count the entrances of each cluster and number them
+			final int[] clusterStarts = new int[numberOfClusters + 1];
+			for (int cell = 0; cell < numberOfCells; cell++) {
+				if (entranceFlags[cell]) {
+					clusterStarts[getCluster(cell, clustersPerRow) + 1]++;
+				}
+			}
+			for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+				clusterStarts[cluster + 1] += clusterStarts[cluster];
+			}
+			final int[] entranceCells = new int[clusterStarts[numberOfClusters]];
+			final int[] nextEntrance = Arrays.copyOf(clusterStarts, numberOfClusters);
+			for (int tag = 1; tag <= numberOfCells; tag++) {
+				final int cell = graph.getCell(tag);
+				if (entranceFlags[cell]) {
+					entranceCells[nextEntrance[getCluster(cell, clustersPerRow)]++] = cell;
+				}
+			}
+			final int[] entrances = new int[numberOfCells];
+			for (int entrance = 0; entrance < entranceCells.length; entrance++) {
+				entrances[entranceCells[entrance]] = entrance;
+			}
+
+			// The edges of the crossings
+			final EdgeList edges = new EdgeList();
+			for (int i = 0; i < numberOfCrossings; i++) {
+				edges.add(entrances[crossingSources[i]], entrances[crossingTargets[i]],
+						graph.getCost(crossingTargets[i]));
+			}
+
+			// The edges inside each cluster
+			final ClusterSearch search = new ClusterSearch(graph, clusterSize);
+			for (int cluster = 0; cluster < numberOfClusters; cluster++) {
+				final int first = clusterStarts[cluster];
+				final int end = clusterStarts[cluster + 1];
+				if (end - first < 2) {
+					continue;
+				}
+				search.setCluster(entranceCells[first]);
+				for (int entrance = first; entrance < end; entrance++) {
+					search.addEntrance(entranceCells[entrance]);
+				}
+				for (int entrance = first; entrance < end; entrance++) {
+					search.searchFrom(entranceCells[entrance]);
+					for (int target = first; target < end; target++) {
+						final int targetCell = entranceCells[target];
+						if (target != entrance && !Double.isInfinite(search.getDistance(targetCell))
+								&& !search.isThroughEntrance(targetCell)) {
+							edges.add(entrance, target, search.getDistance(targetCell));
+						}
+					}
+				}
+			}
+
+			return edges.createHierarchy(graph, clusterSize, optimal, entranceCells, clusterStarts);
+
+		}
+
+		/**
+		 * Gets the cluster of a cell.
+		 *
+		 * @param cell
+		 *            the cell
+		 * @param clustersPerRow
+		 *            the number of clusters in each row of clusters
+		 * @return the cluster
+		 */
+		private int getCluster(int cell, int clustersPerRow) {
+			return (graph.getX(cell) - 1) / clusterSize * clustersPerRow + (graph.getY(cell) - 1) / clusterSize;
+		}
+
+	}
+
+	/**
+	 * The Class EdgeList.
+	 *
+	 * Edges of the abstract graph in any order, grouped by their first
+	 * entrance at the end.
+	 */
+	private static final class EdgeList {
+
+		/** The first entrance of each edge. */
+		private int[] sources = new int[16];
+
+		/** The last entrance of each edge. */
+		private int[] targets = new int[16];
+
+		/** The energy of each edge. */
+		private double[] energies = new double[16];
+
+		/** The number of edges. */
+		private int size;
+
+		/**
+		 * Add an edge.
+		 *
+		 * @param source
+		 *            the first entrance
+		 * @param target
+		 *            the last entrance
+		 * @param energy
+		 *            the energy
+		 */
+		void add(int source, int target, double energy) {
+			if (size == sources.length) {
+				sources = Arrays.copyOf(sources, size * 2);
+				targets = Arrays.copyOf(targets, size * 2);
+				energies = Arrays.copyOf(energies, size * 2);
+			}
+			sources[size] = source;
+			targets[size] = target;
+			energies[size] = energy;
+			size++;
+		}
+
+		/**
+		 * Create the hierarchy with these edges.
+		 *
+		 * @param graph
+		 *            the graph
+		 * @param clusterSize
+		 *            the side of the clusters
+		 * @param optimal
+		 *            whether every crossing is an entrance
+		 * @param entranceCells
+		 *            the cell of each entrance
+		 * @param clusterStarts
+		 *            the first entrance of each cluster
+		 * @return the hierarchy
+		 */
+		ClusterHierarchy createHierarchy(GridGraph graph, int clusterSize, boolean optimal, int[] entranceCells,
+				int[] clusterStarts) {
+
+			final int[] edgeStarts = new int[entranceCells.length + 1];
+			for (int i = 0; i < size; i++) {
+				edgeStarts[sources[i] + 1]++;
+			}
+			for (int entrance = 0; entrance < entranceCells.length; entrance++) {
+				edgeStarts[entrance + 1] += edgeStarts[entrance];
+			}
+
+			final int[] edgeTargets = new int[size];
+			final double[] edgeEnergies = new double[size];
+			final int[] nextEdge = Arrays.copyOf(edgeStarts, entranceCells.length);
+			for (int i = 0; i < size; i++) {
+				final int edge = nextEdge[sources[i]]++;
+				edgeTargets[edge] = targets[i];
+				edgeEnergies[edge] = energies[i];
+			}
+
+			return new ClusterHierarchy(graph, clusterSize, optimal, entranceCells, clusterStarts, edgeStarts,
+					edgeTargets, edgeEnergies);
+
+		}
+
+	}
+
+}
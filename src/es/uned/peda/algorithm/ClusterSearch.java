@@ -0,0 +1,260 @@
+package es.uned.peda.algorithm;
+
+import java.util.Arrays;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.IndexedMinHeap;
+import es.uned.peda.dataStructures.SearchState;
+
+/**
+ * The Class ClusterSearch.
+ *
+ * Search of Dijkstra that never leaves a cluster of a {@link ClusterHierarchy},
+ * from a cell to every cell of the cluster or, over the reversed moves, from
+ * every cell of the cluster to a cell. The state is indexed by the position of
+ * the cells in the cluster, so it is created once for the clusters of any
+ * graph and each search only pays for the cells it reaches.
+ */
+final class ClusterSearch {
+
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The side of the clusters. */
+	private final int clusterSize;
+
+	/** The state of the search, indexed by position in the cluster. */
+	private final SearchState state;
+
+	/** The queue, indexed by position in the cluster. */
+	private final IndexedMinHeap heap;
+
+	/**
+	 * Whether the best path to each position goes through an entrance, other
+	 * than the first one, nearer than it and not at distance zero.
+	 */
+	private final boolean[] throughEntrance;
+
+	/** The entrances of the current cluster, by position. */
+	private final boolean[] entrances;
+
+	/** The adjacent cells, to avoid creating an array on each iteration. */
+	private final int[] adjacentCells = new int[GridGraph.MAX_ADJACENT_CELLS];
+
+	/** The first row of the current cluster, starting at 0. */
+	private int firstRow;
+
+	/** The first column of the current cluster, starting at 0. */
+	private int firstColumn;
+
+	/** The number of rows of the current cluster. */
+	private int height;
+
+	/** The number of columns of the current cluster. */
+	private int width;
+
+	/** The position of the first cell of the last search. */
+	private int source;
+
+	/** Whether the last search was over the reversed moves. */
+	private boolean reverse;
+
+	/**
+	 * Instantiates a new cluster search.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param clusterSize
+	 *            the side of the clusters
+	 */
+	ClusterSearch(GridGraph graph, int clusterSize) {
+		final int size = clusterSize * clusterSize;
+		this.graph = graph;
+		this.clusterSize = clusterSize;
+		this.state = new SearchState(size);
+		this.heap = new IndexedMinHeap(size);
+		this.throughEntrance = new boolean[size];
+		this.entrances = new boolean[size];
+	}
+
+	/**
+	 * Select the cluster of a cell for the next searches. The entrances of the
+	 * previous cluster are forgotten.
+	 *
+	 * @param cell
+	 *            any cell of the cluster
+	 */
+	void setCluster(int cell) {
+		firstRow = (graph.getX(cell) - 1) / clusterSize * clusterSize;
+		firstColumn = (graph.getY(cell) - 1) / clusterSize * clusterSize;
+		height = Math.min(clusterSize, graph.getNumberOfRows() - firstRow);
+		width = Math.min(clusterSize, graph.getNumberOfColumns() - firstColumn);
+		Arrays.fill(entrances, false);
+	}
+
+	/**
+	 * Mark a cell of the current cluster as an entrance, so the paths that go
+	 * through it are noted by the next searches.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	void addEntrance(int cell) {
+		entrances[getPosition(cell)] = true;
+	}
+
+	/**
+	 * Search from a cell of the current cluster to every cell of the cluster.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	void searchFrom(int cell) {
+		search(cell, false);
+	}
+
+	/**
+	 * Search from every cell of the current cluster to one of its cells, over
+	 * the reversed moves.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	void searchTo(int cell) {
+		search(cell, true);
+	}
+
+	/**
+	 * Search from or to a cell of the current cluster.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param reverseMoves
+	 *            whether the moves are reversed
+	 */
+	private void search(int cell, boolean reverseMoves) {
+
+		source = getPosition(cell);
+		reverse = reverseMoves;
+
+		heap.clear();
+		state.reset(source);
+		throughEntrance[source] = false;
+		heap.insert(source, 0.0);
+
+		while (!heap.isEmpty()) {
+
+			final int position = heap.extractMin();
+			final int current = getCell(position);
+			final double distance = state.getDistance(position);
+			final int count = graph.getAdjacentCells(current, adjacentCells);
+			final boolean entranceBefore = throughEntrance[position];
+
+			for (int i = 0; i < count; i++) {
+				final int adjacentPosition = getPosition(adjacentCells[i]);
+				if (adjacentPosition < 0) {
+					continue;
+				}
+				final double newDistance = distance + graph.getCost(reverseMoves ? current : adjacentCells[i]);
+				final boolean through = entranceBefore || (entrances[position] && position != source
+						&& distance > 0.0 && distance < newDistance);
+				final double oldDistance = state.getDistance(adjacentPosition);
+				if (newDistance < oldDistance) {
+					state.setDistance(adjacentPosition, newDistance);
+					state.setPreviousCell(adjacentPosition, position);
+					throughEntrance[adjacentPosition] = through;
+					if (heap.contains(adjacentPosition)) {
+						heap.decreaseKey(adjacentPosition, newDistance);
+					} else {
+						heap.insert(adjacentPosition, newDistance);
+					}
+				} else if (newDistance == oldDistance && through) {
+					throughEntrance[adjacentPosition] = true;
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * Gets the distance of a cell of the current cluster in the last search.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the distance, infinite if it was not reached
+	 */
+	double getDistance(int cell) {
+		return state.getDistance(getPosition(cell));
+	}
+
+	/**
+	 * Checks if a best path of the last search to a cell goes through another
+	 * entrance, which makes a direct edge to it useless. Only the entrances
+	 * that are neither at distance zero nor as far as the cell count, so each
+	 * part of the path is shorter than the whole and has its own edges.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return true, if it does
+	 */
+	boolean isThroughEntrance(int cell) {
+		return throughEntrance[getPosition(cell)];
+	}
+
+	/**
+	 * Gets the cells of the path of the last search between its cell and
+	 * another cell, both included, from the first to be visited to the last.
+	 *
+	 * @param cell
+	 *            the other cell, which must have been reached
+	 * @return the path
+	 */
+	int[] getPath(int cell) {
+
+		final int last = getPosition(cell);
+
+		int length = 1;
+		for (int position = last; position != source; position = state.getPreviousCell(position)) {
+			length++;
+		}
+
+		final int[] path = new int[length];
+		int position = last;
+		for (int i = 0; i < length; i++) {
+			path[reverse ? i : length - 1 - i] = getCell(position);
+			position = state.getPreviousCell(position);
+		}
+
+		return path;
+
+	}
+
+	/**
+	 * Gets the position in the current cluster of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the position, or -1 if the cell is out of the cluster
+	 */
+	private int getPosition(int cell) {
+		final int row = graph.getX(cell) - 1 - firstRow;
+		final int column = graph.getY(cell) - 1 - firstColumn;
+		if (row < 0 || row >= height || column < 0 || column >= width) {
+			return -1;
+		}
+		return row * width + column;
+	}
+
+	/**
+	 * Gets the cell at a position of the current cluster.
+	 *
+	 * @param position
+	 *            the position
+	 * @return the cell
+	 */
+	private int getCell(int position) {
+		return graph.getCellAt(firstRow + position / width + 1, firstColumn + position % width + 1);
+	}
+
+}
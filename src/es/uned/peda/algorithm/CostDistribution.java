@@ -0,0 +1,90 @@
+package es.uned.peda.algorithm;
+
+import java.util.Random;
+
+/**
+ * The Enum CostDistribution.
+ *
+ * Distributions of the costs of the cells of the maps created by
+ * {@link MapGenerator}.
+ */
+public enum CostDistribution {
+
+	/** Whole numbers from 1 to 9, like the maps of the course. */
+	INTEGER("integer"),
+
+	/** Tenths from 0.1 to 9.9, which the bucket queue still handles exactly. */
+	TENTHS("tenths"),
+
+	/**
+	 * Continuous costs from 1 with an exponential tail, written with all
+	 * their digits.
+	 */
+	CONTINUOUS("continuous");
+
+	/** The name used in the command line. */
+	private final String name;
+
+	/**
+	 * Instantiates a new cost distribution.
+	 *
+	 * @param name
+	 *            the name
+	 */
+	CostDistribution(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the cost distribution with the given name.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the cost distribution
+	 */
+	public static CostDistribution fromName(String name) {
+		for (final CostDistribution distribution : values()) {
+			if (distribution.name.equals(name)) {
+				return distribution;
+			}
+		}
+		throw new IllegalArgumentException("Unknown cost distribution: " + name);
+	}
+
+	/**
+	 * Draw a cost.
+	 *
+	 * @param random
+	 *            the random number generator
+	 * @return the cost, greater than zero
+	 */
+	public double nextCost(Random random) {
+		switch (this) {
+		case TENTHS:
+			return (1 + random.nextInt(99)) / 10.0;
+		case CONTINUOUS:
+			return 1.0 - 2.0 * Math.log(1.0 - random.nextDouble());
+		default:
+			return 1 + random.nextInt(9);
+		}
+	}
+
+	/**
+	 * Checks if every cost of the distribution is kept exactly as a float32.
+	 *
+	 * @return true, if it is
+	 */
+	public boolean fitsInFloat() {
+		return this == INTEGER;
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+}
@@ -0,0 +1,536 @@
+package es.uned.peda.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class DeltaStepping.
+ *
+ * Parallel search from a cell to every reachable cell with the delta stepping
+ * algorithm of Meyer and Sanders. The cells are kept in buckets of distances
+ * of a fixed width, the delta, and all the cells of the first bucket that is
+ * not empty are relaxed at the same time by several threads, again and again
+ * until no relaxation puts a cell back in it. Since a relaxation never moves a
+ * cell further than the maximum cost, a circular array of maximum cost / delta
+ * + 2 buckets is enough, as in {@link es.uned.peda.dataStructures.BucketQueue}.
+ *
+ * Each thread keeps its own buckets, and between two rounds the threads meet
+ * at a barrier where the next bucket is chosen and the cells of every thread
+ * are gathered in a shared frontier, which is then relaxed in chunks taken by
+ * the threads as they finish the previous ones. A narrow delta relaxes each
+ * cell about once but leaves little work for each round, and a wide one the
+ * opposite, so by default it is chosen from the costs of the map, see
+ * {@link #getDefaultDelta(GridGraph)}.
+ *
+ * The distances are the same as those of the algorithm of Dijkstra in
+ * {@link RobotAlgorithm}, since every cell ends with the lowest distance
+ * offered by its adjacent cells. The distance and the previous cell of a cell
+ * are only changed together while holding one of a set of locks, so every
+ * previous cell is one that gives the cell its final distance, and they form
+ * a tree of optimal paths, although with ties it may not be the same tree.
+ */
+public class DeltaStepping implements AutoCloseable {
+
+	/** The number of cells of the frontier that a thread takes at a time. */
+	private static final int CHUNK_SIZE = 256;
+
+	/** The number of locks of the cells, a power of two. */
+	private static final int NUMBER_OF_LOCKS = 1 << 12;
+
+	/** The largest number of buckets that can be created. */
+	private static final int MAX_NUMBER_OF_BUCKETS = 1 << 16;
+
+	/** The initial capacity of a bucket of a thread. */
+	private static final int INITIAL_BUCKET_CAPACITY = 16;
+
+	/** Value of the current bucket once the search has ended. */
+	private static final long NO_BUCKET = -1;
+
+	/** The bits of an infinite distance. */
+	private static final long INFINITE_BITS = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+
+	/** The map. */
+	private final GridGraph map;
+
+	/** The width of the buckets. */
+	private final double delta;
+
+	/** The number of buckets of each thread. */
+	private final int numberOfBuckets;
+
+	/** The number of threads. */
+	private final int threads;
+
+	/** The executor of the threads. */
+	private final ExecutorService executor;
+
+	/**
+	 * The bits of the distance of each cell. Non negative doubles are ordered
+	 * as their bits, so they are compared without converting them.
+	 */
+	private final AtomicLongArray distances;
+
+	/** The previous cell of each cell. */
+	private final int[] previousCells;
+
+	/** The locks of the cells. */
+	private final Object[] locks = new Object[NUMBER_OF_LOCKS];
+
+	/** The buckets of each thread, each one an array of cells. */
+	private final int[][][] buckets;
+
+	/** The number of cells in each bucket of each thread. */
+	private final int[][] bucketSizes;
+
+	/** The position of the frontier where each thread copies its cells. */
+	private final int[] offsets;
+
+	/** The barrier where the next bucket is chosen. */
+	private final CyclicBarrier selectBarrier;
+
+	/** The barrier that waits until the frontier is complete. */
+	private final CyclicBarrier copyBarrier;
+
+	/** The position of the next chunk of the frontier to relax. */
+	private final AtomicInteger nextChunk = new AtomicInteger();
+
+	/** The cells to relax in the current round. */
+	private int[] frontier = new int[INITIAL_BUCKET_CAPACITY];
+
+	/** The number of cells of the frontier. */
+	private int frontierSize;
+
+	/** The bucket relaxed in the current round, or {@link #NO_BUCKET}. */
+	private long currentBucket;
+
+	/** The initial cell of the current search. */
+	private int initialCell = GridGraph.NO_CELL;
+
+	/** The number of rounds of the last search. */
+	private int rounds;
+
+	/** The first error thrown by a thread in the current search, or null. */
+	private volatile Throwable failure;
+
+	/**
+	 * Instantiates a new delta stepping search with its own pool of threads
+	 * and the default delta of the map.
+	 *
+	 * @param map
+	 *            the map
+	 * @param threads
+	 *            the number of threads
+	 */
+	public DeltaStepping(GridGraph map, int threads) {
+		this(map, threads, getDefaultDelta(map));
+	}
+
+	/**
+	 * Instantiates a new delta stepping search with its own pool of threads.
+	 *
+	 * @param map
+	 *            the map
+	 * @param threads
+	 *            the number of threads
+	 * @param delta
+	 *            the width of the buckets
+	 */
+	public DeltaStepping(GridGraph map, int threads, double delta) {
+
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		if (!(delta > 0) || Double.isInfinite(delta)) {
+			throw new IllegalArgumentException("Invalid bucket width: " + delta);
+		}
+		if (map.getMaxCost() / delta + 3 > MAX_NUMBER_OF_BUCKETS) {
+			throw new IllegalArgumentException("The bucket width is too small for the costs of the map");
+		}
+
+		this.map = new GridGraph(map);
+		this.delta = delta;
+		this.numberOfBuckets = (int) (map.getMaxCost() / delta) + 3;
+		this.threads = threads;
+
+		this.distances = new AtomicLongArray(map.getNumberOfCells());
+		this.previousCells = new int[map.getNumberOfCells()];
+		for (int lock = 0; lock < NUMBER_OF_LOCKS; lock++) {
+			locks[lock] = new Object();
+		}
+
+		this.buckets = new int[threads][numberOfBuckets][];
+		this.bucketSizes = new int[threads][numberOfBuckets];
+		for (final int[][] threadBuckets : buckets) {
+			for (int bucket = 0; bucket < numberOfBuckets; bucket++) {
+				threadBuckets[bucket] = new int[INITIAL_BUCKET_CAPACITY];
+			}
+		}
+		this.offsets = new int[threads];
+
+		this.selectBarrier = new CyclicBarrier(threads, this::selectNextBucket);
+		this.copyBarrier = new CyclicBarrier(threads);
+		this.executor = Executors.newFixedThreadPool(threads);
+
+	}
+
+	/**
+	 * Gets the default delta of a map: the maximum cost divided by the number
+	 * of adjacent cells, as suggested by Meyer and Sanders for random costs,
+	 * but never below the minimum cost, since with a narrower delta a cell can
+	 * never go back to the bucket that is being relaxed and only the number of
+	 * rounds grows.
+	 *
+	 * @param map
+	 *            the map
+	 * @return the delta
+	 */
+	public static double getDefaultDelta(GridGraph map) {
+		final double delta = Math.max(map.getMinCost(), map.getMaxCost() / GridGraph.MAX_ADJACENT_CELLS);
+		return delta > 0 ? delta : 1.0;
+	}
+
+	/**
+	 * Search from a cell to every reachable cell.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @return the number of rounds
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	public int search(int initialCell) throws InterruptedException {
+
+		if (initialCell < 0 || initialCell >= map.getNumberOfCells()) {
+			throw new IllegalArgumentException("Cell " + initialCell + " is out of the grid");
+		}
+		if (map.isObstacle(initialCell)) {
+			throw new IllegalArgumentException("Cell " + initialCell + " is an obstacle");
+		}
+
+		this.initialCell = initialCell;
+		this.currentBucket = 0;
+		this.rounds = 0;
+		this.failure = null;
+
+		final List<Callable<Void>> tasks = new ArrayList<>(threads);
+		for (int thread = 0; thread < threads; thread++) {
+			final int id = thread;
+			tasks.add(() -> {
+				relaxBuckets(id);
+				return null;
+			});
+		}
+
+		for (final Future<Void> future : executor.invokeAll(tasks)) {
+			try {
+				future.get();
+			} catch (final ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+
+		return rounds;
+
+	}
+
+	/**
+	 * Reset a part of the cells and relax the buckets with the other threads
+	 * until they are all empty. A thread that fails keeps meeting the others
+	 * at the barriers, so that they do not wait for it forever, and the
+	 * search ends at the next one.
+	 *
+	 * @param id
+	 *            the number of the thread
+	 * @throws BrokenBarrierException
+	 *             if another thread has failed
+	 * @throws InterruptedException
+	 *             if the thread is interrupted
+	 */
+	private void relaxBuckets(int id) throws BrokenBarrierException, InterruptedException {
+
+		final int numberOfCells = map.getNumberOfCells();
+		final int firstCell = (int) ((long) numberOfCells * id / threads);
+		final int lastCell = (int) ((long) numberOfCells * (id + 1) / threads);
+		for (int cell = firstCell; cell < lastCell; cell++) {
+			distances.lazySet(cell, INFINITE_BITS);
+			previousCells[cell] = initialCell;
+		}
+		Arrays.fill(bucketSizes[id], 0);
+		copyBarrier.await();
+
+		if (id == 0) {
+			distances.set(initialCell, Double.doubleToLongBits(0.0));
+			addToBucket(id, initialCell, 0.0);
+		}
+
+		final int[] adjacentCells = new int[GridGraph.MAX_ADJACENT_CELLS];
+
+		while (true) {
+
+			selectBarrier.await();
+			if (currentBucket == NO_BUCKET) {
+				return;
+			}
+
+			final int bucket = (int) (currentBucket % numberOfBuckets);
+			System.arraycopy(buckets[id][bucket], 0, frontier, offsets[id], bucketSizes[id][bucket]);
+			bucketSizes[id][bucket] = 0;
+			copyBarrier.await();
+
+			try {
+				int start;
+				while ((start = nextChunk.getAndAdd(CHUNK_SIZE)) < frontierSize) {
+					final int end = Math.min(start + CHUNK_SIZE, frontierSize);
+					for (int i = start; i < end; i++) {
+						relax(id, frontier[i], adjacentCells);
+					}
+				}
+			} catch (final RuntimeException | Error e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * Relax the adjacent cells of a cell, unless its distance has dropped to
+	 * an earlier bucket since it was added, where it has already been relaxed.
+	 *
+	 * @param id
+	 *            the number of the thread
+	 * @param cell
+	 *            the cell
+	 * @param adjacentCells
+	 *            array where the adjacent cells are written
+	 */
+	private void relax(int id, int cell, int[] adjacentCells) {
+
+		final double cellValue = Double.longBitsToDouble(distances.get(cell));
+		if (getBucket(cellValue) < currentBucket) {
+			return;
+		}
+
+		final int numberOfAdjacentCells = map.getAdjacentCells(cell, adjacentCells);
+		for (int i = 0; i < numberOfAdjacentCells; i++) {
+			final int adjacentCell = adjacentCells[i];
+			final double distance = cellValue + map.getCost(adjacentCell);
+			final long distanceBits = Double.doubleToLongBits(distance);
+			if (distances.get(adjacentCell) > distanceBits && update(adjacentCell, distanceBits, cell)) {
+				addToBucket(id, adjacentCell, distance);
+			}
+		}
+
+	}
+
+	/**
+	 * Change the distance and the previous cell of a cell if the distance is
+	 * lower than its current one.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param distanceBits
+	 *            the bits of the new distance
+	 * @param previousCell
+	 *            the new previous cell
+	 * @return true, if they were changed
+	 */
+	private boolean update(int cell, long distanceBits, int previousCell) {
+		synchronized (locks[cell & (NUMBER_OF_LOCKS - 1)]) {
+			if (distances.get(cell) <= distanceBits) {
+				return false;
+			}
+			distances.set(cell, distanceBits);
+			previousCells[cell] = previousCell;
+			return true;
+		}
+	}
+
+	/**
+	 * Add a cell to the bucket of its distance in the buckets of a thread.
+	 *
+	 * @param id
+	 *            the number of the thread
+	 * @param cell
+	 *            the cell
+	 * @param distance
+	 *            the distance
+	 */
+	private void addToBucket(int id, int cell, double distance) {
+		final int bucket = (int) (getBucket(distance) % numberOfBuckets);
+		final int size = bucketSizes[id][bucket];
+		if (size == buckets[id][bucket].length) {
+			buckets[id][bucket] = Arrays.copyOf(buckets[id][bucket], 2 * size);
+		}
+		buckets[id][bucket][size] = cell;
+		bucketSizes[id][bucket] = size + 1;
+	}
+
+	/**
+	 * Gets the bucket of a distance.
+	 *
+	 * @param distance
+	 *            the distance
+	 * @return the bucket
+	 */
+	private long getBucket(double distance) {
+		return (long) (distance / delta);
+	}
+
+	/**
+	 * Choose the next bucket to relax, the first one that is not empty in any
+	 * thread from the current one on, and make room in the frontier for its
+	 * cells. Run by the last thread that reaches the barrier.
+	 */
+	private void selectNextBucket() {
+
+		if (failure != null) {
+			currentBucket = NO_BUCKET;
+			return;
+		}
+
+		for (int step = 0; step < numberOfBuckets; step++) {
+			final int bucket = (int) ((currentBucket + step) % numberOfBuckets);
+			int size = 0;
+			for (int id = 0; id < threads; id++) {
+				offsets[id] = size;
+				size += bucketSizes[id][bucket];
+			}
+			if (size > 0) {
+				if (size > frontier.length) {
+					frontier = new int[Math.max(size, 2 * frontier.length)];
+				}
+				frontierSize = size;
+				currentBucket += step;
+				nextChunk.set(0);
+				rounds++;
+				return;
+			}
+		}
+
+		currentBucket = NO_BUCKET;
+
+	}
+
+	/**
+	 * Gets the distance of a cell from the initial cell, which is infinite if
+	 * it cannot be reached. Only valid after the search.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the distance
+	 */
+	public double getDistance(int cell) {
+		return Double.longBitsToDouble(distances.get(cell));
+	}
+
+	/**
+	 * Gets the previous cell of a cell in a path of the lowest energy from the
+	 * initial cell. Only valid after the search.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the previous cell, the initial cell for itself and for the cells
+	 *         that cannot be reached
+	 */
+	public int getPreviousCell(int cell) {
+		return previousCells[cell];
+	}
+
+	/**
+	 * Gets the cells of a path of the lowest energy from the initial cell to a
+	 * cell, both included. Only valid after the search.
+	 *
+	 * @param lastCell
+	 *            the last cell of the path
+	 * @return the path, empty if there is no path
+	 */
+	public int[] getPath(int lastCell) {
+
+		if (Double.isInfinite(getDistance(lastCell))) {
+			return new int[0];
+		}
+
+		int length = 1;
+		for (int cell = lastCell; cell != initialCell; cell = previousCells[cell]) {
+			length++;
+		}
+
+		final int[] path = new int[length];
+		int cell = lastCell;
+		for (int i = length - 1; i >= 0; i--) {
+			path[i] = cell;
+			cell = previousCells[cell];
+		}
+
+		return path;
+
+	}
+
+	/**
+	 * Gets the initial cell of the last search.
+	 *
+	 * @return the initial cell
+	 */
+	public int getInitialCell() {
+		return initialCell;
+	}
+
+	/**
+	 * Gets the number of rounds of the last search: the number of times that
+	 * the threads relaxed a frontier together.
+	 *
+	 * @return the rounds
+	 */
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Gets the width of the buckets.
+	 *
+	 * @return the delta
+	 */
+	public double getDelta() {
+		return delta;
+	}
+
+	/**
+	 * Gets the number of threads.
+	 *
+	 * @return the threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Shut down the threads.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+}
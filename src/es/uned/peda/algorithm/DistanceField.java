@@ -0,0 +1,421 @@
+package es.uned.peda.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.IndexedMinHeap;
+import es.uned.peda.dataStructures.LayoutType;
+
+/**
+ * The Class DistanceField.
+ *
+ * Energy needed to reach the nearest final cell from every cell of a map, and
+ * the next cell of the way, found by a single search of Dijkstra from the
+ * final cells over the reversed moves: moving from a cell to another costs
+ * the cost of the one that is entered. The path from any cell to its exit is
+ * then followed in time proportional to its length, without searching.
+ *
+ * The cells are numbered by their index in row-major order, the tag minus
+ * one, whatever the layout of the graph, so the field does not depend on the
+ * graph once it is computed. It can be exported as arrays or as a binary file
+ * with all the values little-endian:
+ *
+ * <pre>
+ *  0  int       magic number, "RDST"
+ *  4  int       version
+ *  8  int       number of rows
+ * 12  int       number of columns
+ * 16  double[]  energy of each cell, infinity if it cannot reach an exit
+ *     int[]     next cell of each cell, -1 for the exits and the cells that
+ *               cannot reach an exit
+ * </pre>
+ */
+public final class DistanceField {
+
+	/** The magic number, the bytes "RDST" read as a little-endian int. */
+	static final int MAGIC = 0x54534452;
+
+	/** The version of the format. */
+	static final int VERSION = 1;
+
+	/** The size of the header. */
+	private static final int HEADER_SIZE = 16;
+
+	/** The size of the buffer used to read and write the values. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/** The number of rows. */
+	private final int numberOfRows;
+
+	/** The number of columns. */
+	private final int numberOfColumns;
+
+	/** The energy needed to reach an exit from each cell. */
+	private final double[] energies;
+
+	/** The next cell of the way to the exit from each cell. */
+	private final int[] nextCells;
+
+	/**
+	 * Instantiates a new distance field. The arrays are not copied.
+	 *
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 * @param energies
+	 *            the energy of each cell
+	 * @param nextCells
+	 *            the next cell of each cell
+	 */
+	private DistanceField(int numberOfRows, int numberOfColumns, double[] energies, int[] nextCells) {
+		this.numberOfRows = numberOfRows;
+		this.numberOfColumns = numberOfColumns;
+		this.energies = energies;
+		this.nextCells = nextCells;
+	}
+
+	/**
+	 * Compute the distance field of a graph from its final cells. The search
+	 * state of the graph is not used.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the distance field
+	 */
+	public static DistanceField compute(GridGraph graph) {
+
+		final int numberOfCells = graph.getNumberOfCells();
+		final double[] energies = new double[numberOfCells];
+		final int[] nextCells = new int[numberOfCells];
+		final IndexedMinHeap heap = new IndexedMinHeap(numberOfCells);
+		final int[] adjacentCells = new int[GridGraph.MAX_ADJACENT_CELLS];
+
+		Arrays.fill(energies, Double.POSITIVE_INFINITY);
+		Arrays.fill(nextCells, GridGraph.NO_CELL);
+
+		for (int i = 0; i < graph.getNumberOfFinalCells(); i++) {
+			final int cell = graph.getFinalCell(i);
+			if (!heap.contains(cell)) {
+				energies[cell] = 0.0;
+				heap.insert(cell, 0.0);
+			}
+		}
+
+		while (!heap.isEmpty()) {
+
+			final int cell = heap.extractMin();
+			// Reaching the cell from an adjacent one costs what the cell costs
+			final double energy = energies[cell] + graph.getCost(cell);
+			final int count = graph.getAdjacentCells(cell, adjacentCells);
+
+			for (int i = 0; i < count; i++) {
+				final int adjacentCell = adjacentCells[i];
+				if (energy < energies[adjacentCell]) {
+					energies[adjacentCell] = energy;
+					nextCells[adjacentCell] = cell;
+					if (heap.contains(adjacentCell)) {
+						heap.decreaseKey(adjacentCell, energy);
+					} else {
+						heap.insert(adjacentCell, energy);
+					}
+				}
+			}
+
+		}
+
+		if (graph.getLayout().getType() != LayoutType.ROW_MAJOR) {
+			return toRowMajor(graph, energies, nextCells);
+		}
+
+		return new DistanceField(graph.getNumberOfRows(), graph.getNumberOfColumns(), energies, nextCells);
+
+	}
+
+	/**
+	 * Create a distance field from the values found over the cells of a graph
+	 * with another layout.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param energies
+	 *            the energy of each cell of the graph
+	 * @param nextCells
+	 *            the next cell of each cell of the graph
+	 * @return the distance field
+	 */
+	private static DistanceField toRowMajor(GridGraph graph, double[] energies, int[] nextCells) {
+
+		final int numberOfCells = graph.getNumberOfCells();
+		final double[] rowMajorEnergies = new double[numberOfCells];
+		final int[] rowMajorNextCells = new int[numberOfCells];
+
+		for (int tag = 1; tag <= numberOfCells; tag++) {
+			final int cell = graph.getCell(tag);
+			rowMajorEnergies[tag - 1] = energies[cell];
+			rowMajorNextCells[tag - 1] = nextCells[cell] == GridGraph.NO_CELL ? GridGraph.NO_CELL
+					: graph.getTag(nextCells[cell]) - 1;
+		}
+
+		return new DistanceField(graph.getNumberOfRows(), graph.getNumberOfColumns(), rowMajorEnergies,
+				rowMajorNextCells);
+
+	}
+
+	/**
+	 * Gets the cells of the path from a cell to the nearest exit, both
+	 * included, following the next cells.
+	 *
+	 * @param cell
+	 *            the first cell of the path
+	 * @return the path, empty if the cell cannot reach an exit
+	 */
+	public int[] getPathToFinalCell(int cell) {
+
+		if (Double.isInfinite(energies[cell])) {
+			return new int[0];
+		}
+
+		int length = 1;
+		for (int next = nextCells[cell]; next != GridGraph.NO_CELL; next = nextCells[next]) {
+			length++;
+		}
+
+		final int[] path = new int[length];
+		path[0] = cell;
+		for (int i = 1; i < length; i++) {
+			path[i] = nextCells[path[i - 1]];
+		}
+
+		return path;
+
+	}
+
+	/**
+	 * Write the distance field as a binary file.
+	 *
+	 * @param outputPath
+	 *            the output path
+	 */
+	public void write(Path outputPath) {
+
+		if (Files.exists(outputPath)) {
+			throw new IllegalArgumentException("Output file already exists");
+		}
+
+		try (FileChannel channel = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+
+			final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(numberOfRows).putInt(numberOfColumns);
+
+			for (final double energy : energies) {
+				if (buffer.remaining() < Double.BYTES) {
+					flush(channel, buffer);
+				}
+				buffer.putDouble(energy);
+			}
+			for (final int nextCell : nextCells) {
+				if (buffer.remaining() < Integer.BYTES) {
+					flush(channel, buffer);
+				}
+				buffer.putInt(nextCell);
+			}
+			flush(channel, buffer);
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Write the content of a buffer to a channel and clear it.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		BinaryMap.writeFully(channel, buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Read a distance field written by {@link #write(Path)}.
+	 *
+	 * @param inputPath
+	 *            the input path
+	 * @return the distance field
+	 */
+	public static DistanceField read(Path inputPath) {
+
+		if (!Files.exists(inputPath)) {
+			throw new IllegalArgumentException("Input file does not exist");
+		}
+
+		try (FileChannel channel = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+
+			final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.limit(HEADER_SIZE);
+			if (!BinaryMap.readFully(channel, buffer, 0) || buffer.getInt(0) != MAGIC) {
+				throw new IllegalArgumentException("Invalid distance field file");
+			}
+			if (buffer.getInt(4) != VERSION) {
+				throw new IllegalArgumentException("Unsupported distance field version " + buffer.getInt(4));
+			}
+
+			final int numberOfRows = buffer.getInt(8);
+			final int numberOfColumns = buffer.getInt(12);
+			final long numberOfCells = (long) numberOfRows * numberOfColumns;
+			if (numberOfRows < 1 || numberOfColumns < 1 || numberOfCells > Integer.MAX_VALUE
+					|| channel.size() != HEADER_SIZE + numberOfCells * (Double.BYTES + Integer.BYTES)) {
+				throw new IllegalArgumentException("Invalid distance field file");
+			}
+
+			final double[] energies = new double[(int) numberOfCells];
+			final int[] nextCells = new int[(int) numberOfCells];
+			long position = HEADER_SIZE;
+
+			for (int cell = 0; cell < energies.length;) {
+				final int count = Math.min(energies.length - cell, BUFFER_SIZE / Double.BYTES);
+				buffer.clear().limit(count * Double.BYTES);
+				BinaryMap.readFully(channel, buffer, position);
+				buffer.flip();
+				buffer.asDoubleBuffer().get(energies, cell, count);
+				position += count * Double.BYTES;
+				cell += count;
+			}
+			for (int cell = 0; cell < nextCells.length;) {
+				final int count = Math.min(nextCells.length - cell, BUFFER_SIZE / Integer.BYTES);
+				buffer.clear().limit(count * Integer.BYTES);
+				BinaryMap.readFully(channel, buffer, position);
+				buffer.flip();
+				buffer.asIntBuffer().get(nextCells, cell, count);
+				position += count * Integer.BYTES;
+				cell += count;
+			}
+
+			for (final int nextCell : nextCells) {
+				if (nextCell < GridGraph.NO_CELL || nextCell >= numberOfCells) {
+					throw new IllegalArgumentException("Invalid distance field file");
+				}
+			}
+
+			return new DistanceField(numberOfRows, numberOfColumns, energies, nextCells);
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Gets the cell at a position.
+	 *
+	 * @param x
+	 *            the x (row, starting at 1)
+	 * @param y
+	 *            the y (column, starting at 1)
+	 * @return the cell
+	 */
+	public int getCell(int x, int y) {
+		if (x < 1 || x > numberOfRows || y < 1 || y > numberOfColumns) {
+			throw new IllegalArgumentException("Cell " + x + "," + y + " is out of the grid");
+		}
+		return (x - 1) * numberOfColumns + y - 1;
+	}
+
+	/**
+	 * Gets the x (row, starting at 1) of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the x
+	 */
+	public int getX(int cell) {
+		return cell / numberOfColumns + 1;
+	}
+
+	/**
+	 * Gets the y (column, starting at 1) of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the y
+	 */
+	public int getY(int cell) {
+		return cell % numberOfColumns + 1;
+	}
+
+	/**
+	 * Gets the energy needed to reach the nearest exit from a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the energy, infinite if it cannot reach an exit
+	 */
+	public double getEnergy(int cell) {
+		return energies[cell];
+	}
+
+	/**
+	 * Gets the next cell of the way to the nearest exit from a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the next cell, or {@link GridGraph#NO_CELL} for the exits and
+	 *         the cells that cannot reach one
+	 */
+	public int getNextCell(int cell) {
+		return nextCells[cell];
+	}
+
+	/**
+	 * Gets a copy of the energy of every cell, in row-major order.
+	 *
+	 * @return the energies
+	 */
+	public double[] toEnergyArray() {
+		return energies.clone();
+	}
+
+	/**
+	 * Gets a copy of the next cell of every cell, in row-major order.
+	 *
+	 * @return the next cells
+	 */
+	public int[] toNextCellArray() {
+		return nextCells.clone();
+	}
+
+	/**
+	 * Gets the number of rows.
+	 *
+	 * @return the number of rows
+	 */
+	public int getNumberOfRows() {
+		return numberOfRows;
+	}
+
+	/**
+	 * Gets the number of columns.
+	 *
+	 * @return the number of columns
+	 */
+	public int getNumberOfColumns() {
+		return numberOfColumns;
+	}
+
+}
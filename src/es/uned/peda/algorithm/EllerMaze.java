@@ -0,0 +1,213 @@
+package es.uned.peda.algorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The Class EllerMaze.
+ *
+ * Perfect maze built one row at a time with the algorithm of Eller, which only
+ * keeps the state of the current row, so mazes of any number of rows take
+ * memory proportional to the number of columns. The rooms of the maze are the
+ * cells with even row and column, and the cells between two rooms are open
+ * when the rooms are joined. The cells with odd row and column are always
+ * walls, so the diagonal moves of the robot join no rooms that the maze does
+ * not join, and every room can be reached from every other.
+ */
+final class EllerMaze {
+
+	/** The number of rows of the grid. */
+	private final int numberOfRows;
+
+	/** The number of columns of the grid. */
+	private final int numberOfColumns;
+
+	/** The number of rooms in a row. */
+	private final int numberOfRooms;
+
+	/** The row of the last rooms. */
+	private final int lastRoomRow;
+
+	/** The random number generator. */
+	private final Random random;
+
+	/** The set of each room of the current row. */
+	private final int[] sets;
+
+	/** The parent of each set, to join them. */
+	private final int[] parents;
+
+	/** Whether each room is joined to the next one in the current row. */
+	private final boolean[] joined;
+
+	/** Whether each room is joined to the room below it. */
+	private final boolean[] down;
+
+	/** Whether each set has a room joined to the room below it. */
+	private final boolean[] setGoesDown;
+
+	/** Whether each set is used in the next row. */
+	private final boolean[] used;
+
+	/** The row that is built next. */
+	private int row = 0;
+
+	/**
+	 * Instantiates a new maze.
+	 *
+	 * @param numberOfRows
+	 *            the number of rows of the grid
+	 * @param numberOfColumns
+	 *            the number of columns of the grid
+	 * @param random
+	 *            the random number generator
+	 */
+	EllerMaze(int numberOfRows, int numberOfColumns, Random random) {
+		this.numberOfRows = numberOfRows;
+		this.numberOfColumns = numberOfColumns;
+		this.numberOfRooms = (numberOfColumns + 1) / 2;
+		this.lastRoomRow = getLastRoom(numberOfRows);
+		this.random = random;
+
+		this.sets = new int[numberOfRooms];
+		this.parents = new int[numberOfRooms];
+		this.joined = new boolean[numberOfRooms];
+		this.down = new boolean[numberOfRooms];
+		this.setGoesDown = new boolean[numberOfRooms];
+		this.used = new boolean[numberOfRooms];
+		for (int room = 0; room < numberOfRooms; room++) {
+			sets[room] = room;
+			parents[room] = room;
+		}
+	}
+
+	/**
+	 * Gets the row or column of the last rooms.
+	 *
+	 * @param length
+	 *            the number of rows or columns of the grid
+	 * @return the greatest even index
+	 */
+	static int getLastRoom(int length) {
+		return (length - 1) & ~1;
+	}
+
+	/**
+	 * Build the next row of the grid.
+	 *
+	 * @param open
+	 *            array where it is written, for each column, whether the cell
+	 *            is open
+	 */
+	void nextRow(boolean[] open) {
+
+		if (row >= numberOfRows) {
+			throw new IllegalStateException("The maze has no more rows");
+		}
+
+		Arrays.fill(open, 0, numberOfColumns, false);
+
+		if (row > lastRoomRow) {
+			// The last row of a grid with an even number of rows
+		} else if (row % 2 == 0) {
+			joinRooms(row == lastRoomRow);
+			for (int room = 0; room < numberOfRooms; room++) {
+				open[2 * room] = true;
+				if (joined[room]) {
+					open[2 * room + 1] = true;
+				}
+			}
+		} else {
+			goDown();
+			for (int room = 0; room < numberOfRooms; room++) {
+				open[2 * room] = down[room];
+			}
+			startNextRow();
+		}
+
+		row++;
+
+	}
+
+	/**
+	 * Join adjacent rooms of different sets at random, or all of them in the
+	 * last row, so that the maze is connected.
+	 *
+	 * @param lastRow
+	 *            whether it is the last row of rooms
+	 */
+	private void joinRooms(boolean lastRow) {
+		for (int room = 0; room < numberOfRooms - 1; room++) {
+			final int set = find(sets[room]);
+			final int nextSet = find(sets[room + 1]);
+			joined[room] = set != nextSet && (lastRow || random.nextBoolean());
+			if (joined[room]) {
+				parents[nextSet] = set;
+			}
+		}
+		joined[numberOfRooms - 1] = false;
+		for (int room = 0; room < numberOfRooms; room++) {
+			sets[room] = find(sets[room]);
+		}
+	}
+
+	/**
+	 * Join rooms to the rooms below them at random, at least one of each set.
+	 */
+	private void goDown() {
+		Arrays.fill(setGoesDown, false);
+		for (int room = 0; room < numberOfRooms; room++) {
+			down[room] = random.nextBoolean();
+			if (down[room]) {
+				setGoesDown[sets[room]] = true;
+			}
+		}
+		for (int room = 0; room < numberOfRooms; room++) {
+			if (!setGoesDown[sets[room]]) {
+				down[room] = true;
+				setGoesDown[sets[room]] = true;
+			}
+		}
+	}
+
+	/**
+	 * Prepare the sets of the next row of rooms: the rooms joined to the room
+	 * above keep its set, and the others get a new set of their own.
+	 */
+	private void startNextRow() {
+		Arrays.fill(used, false);
+		for (int room = 0; room < numberOfRooms; room++) {
+			if (down[room]) {
+				used[sets[room]] = true;
+			}
+		}
+		int freeSet = 0;
+		for (int room = 0; room < numberOfRooms; room++) {
+			if (!down[room]) {
+				while (used[freeSet]) {
+					freeSet++;
+				}
+				sets[room] = freeSet++;
+			}
+		}
+		for (int set = 0; set < numberOfRooms; set++) {
+			parents[set] = set;
+		}
+	}
+
+	/**
+	 * Find the root of a set, halving the path to it.
+	 *
+	 * @param set
+	 *            the set
+	 * @return the root
+	 */
+	private int find(int set) {
+		while (parents[set] != set) {
+			parents[set] = parents[parents[set]];
+			set = parents[set];
+		}
+		return set;
+	}
+
+}
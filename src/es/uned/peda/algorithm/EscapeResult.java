@@ -0,0 +1,89 @@
+package es.uned.peda.algorithm;
+
+/**
+ * The Class EscapeResult.
+ *
+ * Immutable answer of a bounded search for an exit: whether a final cell can
+ * be reached with at most a given energy and, if so, the route to the nearest
+ * one.
+ */
+public final class EscapeResult {
+
+	/** The status. */
+	private final SearchStatus status;
+
+	/** The energy budget. */
+	private final double maxEnergy;
+
+	/** The route, or null if no final cell was found within the budget. */
+	private final RouteResult route;
+
+	/** The number of iterations. */
+	private final int iterations;
+
+	/**
+	 * Instantiates a new escape result.
+	 *
+	 * @param status
+	 *            the status: found, not found or cut off by a limit
+	 * @param maxEnergy
+	 *            the energy budget
+	 * @param route
+	 *            the route, or null if no final cell was found
+	 * @param iterations
+	 *            the number of iterations
+	 */
+	public EscapeResult(SearchStatus status, double maxEnergy, RouteResult route, int iterations) {
+		this.status = status;
+		this.maxEnergy = maxEnergy;
+		this.route = route;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Gets the status.
+	 *
+	 * @return the status
+	 */
+	public SearchStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Checks if a final cell can be reached within the budget. False when the
+	 * search was cut off, in which case the answer is unknown.
+	 *
+	 * @return true, if it can
+	 */
+	public boolean isFound() {
+		return status == SearchStatus.FOUND;
+	}
+
+	/**
+	 * Gets the energy budget.
+	 *
+	 * @return the energy budget
+	 */
+	public double getMaxEnergy() {
+		return maxEnergy;
+	}
+
+	/**
+	 * Gets the route to the nearest final cell.
+	 *
+	 * @return the route, or null if no final cell was found within the budget
+	 */
+	public RouteResult getRoute() {
+		return route;
+	}
+
+	/**
+	 * Gets the number of iterations.
+	 *
+	 * @return the iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+}
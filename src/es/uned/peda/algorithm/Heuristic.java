@@ -0,0 +1,99 @@
+package es.uned.peda.algorithm;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Enum Heuristic.
+ *
+ * Lower bounds of the energy needed to go from a cell to the final cell, used
+ * by A*. Every move costs at least the lowest cost of a cell, except the moves
+ * into cells that cost nothing, like the final cell or, in a maze with several
+ * exits, the other exits. So the moves counted are those needed to reach the
+ * final cell or, if it is nearer, a free cell, minus one. Both estimates
+ * change at most in the lowest cost from one cell to an adjacent one, and are
+ * zero next to a free cell, so they are consistent and A* finds the same
+ * energy as the algorithm of Dijkstra. The final cells and the free cells
+ * are looked up in a {@link HeuristicState}, so an estimate does not depend on
+ * how many of them there are.
+ */
+public enum Heuristic {
+
+	/** No estimate, which turns A* into the algorithm of Dijkstra. */
+	NONE {
+		@Override
+		public double estimate(HeuristicState state, int cell) {
+			return 0.0;
+		}
+	},
+
+	/**
+	 * Octile distance to the nearest final cell times the lowest cost. A
+	 * diagonal move costs the same as a straight one, so the octile distance
+	 * is the largest of the differences of rows and columns.
+	 */
+	OCTILE {
+		@Override
+		public double estimate(HeuristicState state, int cell) {
+			final GridGraph graph = state.getGraph();
+			final int x = graph.getX(cell);
+			final int y = graph.getY(cell);
+			return estimateMoves(state, x, y, state.getFinalCellDistance(x, y));
+		}
+	},
+
+	/**
+	 * Distance to the nearest border times the lowest cost. It does not depend
+	 * on the final cells while they are on a border, as the exits of a maze;
+	 * when one is not, as in a search between any two cells, the estimate is
+	 * the octile one, which is a lower bound for any final cell.
+	 */
+	BORDER {
+		@Override
+		public double estimate(HeuristicState state, int cell) {
+			if (!state.areFinalCellsOnBorder()) {
+				return OCTILE.estimate(state, cell);
+			}
+			final GridGraph graph = state.getGraph();
+			final int x = graph.getX(cell);
+			final int y = graph.getY(cell);
+			final int rows = Math.min(x - 1, graph.getNumberOfRows() - x);
+			final int columns = Math.min(y - 1, graph.getNumberOfColumns() - y);
+			return estimateMoves(state, x, y, Math.min(rows, columns));
+		}
+	};
+
+	/**
+	 * Estimate the energy needed to go from a cell to the final cell.
+	 *
+	 * @param state
+	 *            the state of the graph, updated for its current endpoints
+	 * @param cell
+	 *            the cell
+	 * @return the estimate
+	 */
+	public abstract double estimate(HeuristicState state, int cell);
+
+	/**
+	 * Lowest energy of the moves from a position to the final cell, given the
+	 * moves needed to reach it, once the free cells nearer than the final cell
+	 * are taken into account. The initial cell is left out because the search
+	 * never goes back to it.
+	 *
+	 * @param state
+	 *            the state of the graph
+	 * @param x
+	 *            the x of the position
+	 * @param y
+	 *            the y of the position
+	 * @param moves
+	 *            the number of moves needed to reach the final cell
+	 * @return the energy
+	 */
+	private static double estimateMoves(HeuristicState state, int x, int y, int moves) {
+		if (moves > 1) {
+			moves = Math.min(moves, state.getFreeCellDistance(x, y));
+		}
+		return moves <= 1 ? 0.0 : (moves - 1) * state.getGraph().getMinCost();
+	}
+
+}
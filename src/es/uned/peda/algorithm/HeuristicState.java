@@ -0,0 +1,301 @@
+package es.uned.peda.algorithm;
+
+import java.util.Arrays;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class HeuristicState.
+ *
+ * The cells a {@link Heuristic} measures distances to, indexed so that each
+ * estimate only looks at the rows near the cell instead of at every final
+ * cell and every free cell. The free cells depend only on the costs and are
+ * indexed once; the final cells are indexed again by {@link #update()} when
+ * they change, before each search.
+ */
+public final class HeuristicState {
+
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The index of the free cells. */
+	private final CellIndex freeCells;
+
+	/** The final cells indexed, in the order of the graph. */
+	private int[] finalCells = new int[0];
+
+	/** The index of the final cells. */
+	private CellIndex finalCellIndex;
+
+	/** Whether every final cell is on a border of the map. */
+	private boolean finalCellsOnBorder;
+
+	/** The initial cell, which is left out of the free cells. */
+	private int initialCell;
+
+	/**
+	 * Instantiates a new heuristic state for the endpoints of a graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 */
+	public HeuristicState(GridGraph graph) {
+
+		final int[] cells = new int[graph.getNumberOfFreeCells()];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = graph.getFreeCell(i);
+		}
+
+		this.graph = graph;
+		this.freeCells = new CellIndex(graph, cells);
+
+		update();
+
+	}
+
+	/**
+	 * Take the current endpoints of the graph into account, indexing the
+	 * final cells again only if they have changed.
+	 */
+	public void update() {
+
+		initialCell = graph.getInitialCell();
+
+		final int numberOfFinalCells = graph.getNumberOfFinalCells();
+		boolean changed = finalCells.length != numberOfFinalCells;
+		for (int i = 0; i < numberOfFinalCells && !changed; i++) {
+			changed = finalCells[i] != graph.getFinalCell(i);
+		}
+		if (changed) {
+			finalCells = new int[numberOfFinalCells];
+			finalCellsOnBorder = true;
+			for (int i = 0; i < numberOfFinalCells; i++) {
+				finalCells[i] = graph.getFinalCell(i);
+				finalCellsOnBorder &= isOnBorder(finalCells[i]);
+			}
+			finalCellIndex = new CellIndex(graph, finalCells);
+		}
+
+	}
+
+	/**
+	 * Gets the graph.
+	 *
+	 * @return the graph
+	 */
+	public GridGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Checks if every final cell is on a border of the map.
+	 *
+	 * @return true, if they are
+	 */
+	boolean areFinalCellsOnBorder() {
+		return finalCellsOnBorder;
+	}
+
+	/**
+	 * Checks if a cell is on a border of the map.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return true, if it is
+	 */
+	private boolean isOnBorder(int cell) {
+		final int x = graph.getX(cell);
+		final int y = graph.getY(cell);
+		return x == 1 || y == 1 || x == graph.getNumberOfRows() || y == graph.getNumberOfColumns();
+	}
+
+	/**
+	 * Gets the octile distance from a position to the nearest final cell,
+	 * which is the largest of the differences of rows and columns.
+	 *
+	 * @param x
+	 *            the x
+	 * @param y
+	 *            the y
+	 * @return the distance
+	 */
+	int getFinalCellDistance(int x, int y) {
+		return finalCellIndex.getDistance(x, y, GridGraph.NO_CELL);
+	}
+
+	/**
+	 * Gets the octile distance from a position to the nearest free cell other
+	 * than the initial cell.
+	 *
+	 * @param x
+	 *            the x
+	 * @param y
+	 *            the y
+	 * @return the distance, {@link Integer#MAX_VALUE} if there is none
+	 */
+	int getFreeCellDistance(int x, int y) {
+		return freeCells.getDistance(x, y, initialCell);
+	}
+
+	/**
+	 * The Class CellIndex.
+	 *
+	 * A set of cells grouped by row, the rows and the columns of each row
+	 * sorted. The nearest cell is found by visiting the rows from the nearest
+	 * one outwards, with a binary search in each, until the rows are farther
+	 * than the nearest cell found.
+	 */
+	private static final class CellIndex {
+
+		/** The rows that have cells, sorted. */
+		private final int[] rows;
+
+		/** The position of the first cell of each row, and the end. */
+		private final int[] rowStarts;
+
+		/** The column of each cell, sorted inside each row. */
+		private final int[] columns;
+
+		/** The cells, in the same order. */
+		private final int[] cells;
+
+		/**
+		 * Instantiates a new cell index.
+		 *
+		 * @param graph
+		 *            the graph
+		 * @param cellsToIndex
+		 *            the cells, without repetitions
+		 */
+		CellIndex(GridGraph graph, int[] cellsToIndex) {
+
+			// The tags follow the order of the rows and then of the columns
+			final int[] tags = new int[cellsToIndex.length];
+			for (int i = 0; i < tags.length; i++) {
+				tags[i] = graph.getTag(cellsToIndex[i]);
+			}
+			Arrays.sort(tags);
+
+			final int[] allRows = new int[tags.length];
+			final int[] allStarts = new int[tags.length + 1];
+			this.columns = new int[tags.length];
+			this.cells = new int[tags.length];
+
+			int numberOfRows = 0;
+			for (int i = 0; i < tags.length; i++) {
+				final int cell = graph.getCell(tags[i]);
+				final int x = graph.getX(cell);
+				if (numberOfRows == 0 || allRows[numberOfRows - 1] != x) {
+					allRows[numberOfRows] = x;
+					allStarts[numberOfRows++] = i;
+				}
+				columns[i] = graph.getY(cell);
+				cells[i] = cell;
+			}
+			allStarts[numberOfRows] = tags.length;
+
+			this.rows = Arrays.copyOf(allRows, numberOfRows);
+			this.rowStarts = Arrays.copyOf(allStarts, numberOfRows + 1);
+
+		}
+
+		/**
+		 * Gets the octile distance from a position to the nearest cell.
+		 *
+		 * @param x
+		 *            the x
+		 * @param y
+		 *            the y
+		 * @param excludedCell
+		 *            a cell that is left out, or {@link GridGraph#NO_CELL}
+		 * @return the distance, {@link Integer#MAX_VALUE} if there is no cell
+		 */
+		int getDistance(int x, int y, int excludedCell) {
+
+			int distance = Integer.MAX_VALUE;
+
+			int down = lowerBound(rows, 0, rows.length, x);
+			int up = down - 1;
+			while (up >= 0 || down < rows.length) {
+				final int upDistance = up >= 0 ? x - rows[up] : Integer.MAX_VALUE;
+				final int downDistance = down < rows.length ? rows[down] - x : Integer.MAX_VALUE;
+				final int rowDistance = Math.min(upDistance, downDistance);
+				if (rowDistance >= distance) {
+					break;
+				}
+				final int row = downDistance <= upDistance ? down++ : up--;
+				distance = Math.min(distance, Math.max(rowDistance, getColumnDistance(row, y, excludedCell)));
+			}
+
+			return distance;
+
+		}
+
+		/**
+		 * Gets the distance from a column to the nearest column of a row.
+		 *
+		 * @param row
+		 *            the position of the row
+		 * @param y
+		 *            the column
+		 * @param excludedCell
+		 *            a cell that is left out, or {@link GridGraph#NO_CELL}
+		 * @return the distance, {@link Integer#MAX_VALUE} if the row only has
+		 *         the excluded cell
+		 */
+		private int getColumnDistance(int row, int y, int excludedCell) {
+
+			final int start = rowStarts[row];
+			final int end = rowStarts[row + 1];
+			int right = lowerBound(columns, start, end, y);
+			int left = right - 1;
+			if (right < end && cells[right] == excludedCell) {
+				right++;
+			}
+			if (left >= start && cells[left] == excludedCell) {
+				left--;
+			}
+
+			int distance = Integer.MAX_VALUE;
+			if (right < end) {
+				distance = columns[right] - y;
+			}
+			if (left >= start) {
+				distance = Math.min(distance, y - columns[left]);
+			}
+
+			return distance;
+
+		}
+
+		/**
+		 * Gets the position of the first value of a sorted range that is not
+		 * lower than a value.
+		 *
+		 * @param values
+		 *            the values
+		 * @param from
+		 *            the first position of the range
+		 * @param to
+		 *            the end of the range
+		 * @param value
+		 *            the value
+		 * @return the position, the end if every value is lower
+		 */
+		private static int lowerBound(int[] values, int from, int to, int value) {
+			int low = from;
+			int high = to;
+			while (low < high) {
+				final int middle = (low + high) >>> 1;
+				if (values[middle] < value) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+	}
+
+}
@@ -0,0 +1,351 @@
+package es.uned.peda.algorithm;
+
+import java.util.Arrays;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.IndexedMinHeap;
+import es.uned.peda.dataStructures.SearchState;
+
+/**
+ * The Class HierarchicalSearch.
+ *
+ * Searches with the abstract graph of a {@link ClusterHierarchy}. The initial
+ * cell is joined to the entrances of its cluster and the entrances of the
+ * clusters of the final cells to those cells by searches that do not leave the
+ * cluster, A* with the octile distance finds the best route over the abstract
+ * graph, and each of its edges is turned back into cells by another search
+ * inside its cluster. Only the clusters of the endpoints and of the route are
+ * searched cell by cell.
+ */
+public class HierarchicalSearch {
+
+	/** The hierarchy. */
+	private final ClusterHierarchy hierarchy;
+
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The searches inside a cluster. */
+	private final ClusterSearch clusterSearch;
+
+	/** The state of the search over the entrances, the start and the goal. */
+	private final SearchState state;
+
+	/** The final cells and free cells indexed for the octile distance. */
+	private final HeuristicState heuristicState;
+
+	/** The queue of the search over the abstract graph. */
+	private final IndexedMinHeap heap;
+
+	/** The node of the initial cell, after the entrances. */
+	private final int startNode;
+
+	/** The node of the final cells, after the start. */
+	private final int goalNode;
+
+	/** The energy needed to reach a final cell from each entrance of its cluster. */
+	private final double[] exitEnergies;
+
+	/** The final cell reached from each entrance with that energy. */
+	private final int[] exitCells;
+
+	/** The entrances with an energy to a final cell in the current search. */
+	private int[] exitEntrances = new int[16];
+
+	/** The number of entrances with an energy to a final cell. */
+	private int numberOfExitEntrances;
+
+	/** The energy needed to reach each entrance of its cluster from the initial cell. */
+	private double[] startEnergies = new double[16];
+
+	/** The first entrance of the cluster of the initial cell. */
+	private int firstStartEntrance;
+
+	/** The energy of the best route that does not leave the cluster of the initial cell. */
+	private double directEnergy;
+
+	/** The final cell of that route. */
+	private int directFinalCell;
+
+	/** The number of nodes expanded by the last search. */
+	private int iterations;
+
+	/**
+	 * Instantiates a new hierarchical search.
+	 *
+	 * @param hierarchy
+	 *            the hierarchy
+	 */
+	public HierarchicalSearch(ClusterHierarchy hierarchy) {
+
+		final int numberOfEntrances = hierarchy.getNumberOfEntrances();
+
+		this.hierarchy = hierarchy;
+		this.graph = hierarchy.getGraph();
+		this.clusterSearch = new ClusterSearch(graph, hierarchy.getClusterSize());
+		this.state = new SearchState(numberOfEntrances + 2);
+		this.heap = new IndexedMinHeap(numberOfEntrances + 2);
+		this.heuristicState = new HeuristicState(graph);
+		this.startNode = numberOfEntrances;
+		this.goalNode = numberOfEntrances + 1;
+		this.exitEnergies = new double[numberOfEntrances];
+		this.exitCells = new int[numberOfEntrances];
+
+		Arrays.fill(exitEnergies, Double.POSITIVE_INFINITY);
+
+	}
+
+	/**
+	 * Search the route between two cells.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCell
+	 *            the final cell
+	 * @return the route
+	 */
+	public RouteResult search(int initialCell, int finalCell) {
+		graph.setEndpoints(initialCell, finalCell);
+		return search();
+	}
+
+	/**
+	 * Search the route from the initial cell of the graph to the nearest of
+	 * its final cells.
+	 *
+	 * @return the route
+	 */
+	public RouteResult search() {
+
+		final int initialCell = graph.getInitialCell();
+
+		heuristicState.update();
+		joinInitialCell(initialCell);
+		joinFinalCells();
+
+		iterations = 0;
+		heap.clear();
+		state.reset(startNode);
+		heap.insert(startNode, 0.0);
+
+		while (!heap.isEmpty()) {
+
+			final int node = heap.extractMin();
+			iterations++;
+			if (node == goalNode) {
+				break;
+			}
+			state.setVisited(node, true);
+			final double energy = state.getDistance(node);
+
+			if (node == startNode) {
+				relax(node, goalNode, directEnergy);
+				final int count = hierarchy.getEntranceEnd(hierarchy.getCluster(initialCell)) - firstStartEntrance;
+				for (int i = 0; i < count; i++) {
+					relax(node, firstStartEntrance + i, startEnergies[i]);
+				}
+			} else {
+				for (int edge = hierarchy.getFirstEdge(node); edge < hierarchy.getEdgeEnd(node); edge++) {
+					relax(node, hierarchy.getEdgeTarget(edge), energy + hierarchy.getEdgeEnergy(edge));
+				}
+				relax(node, goalNode, energy + exitEnergies[node]);
+			}
+
+		}
+
+		final double energy = state.getDistance(goalNode);
+		if (Double.isInfinite(energy)) {
+			return new RouteResult(initialCell, graph.getFinalCell(), energy, new int[0], iterations);
+		}
+
+		final int lastNode = state.getPreviousCell(goalNode);
+		final int finalCell = lastNode == startNode ? directFinalCell : exitCells[lastNode];
+		return new RouteResult(initialCell, finalCell, energy, refine(initialCell, finalCell), iterations);
+
+	}
+
+	/**
+	 * Find the energy needed to reach each entrance of the cluster of the
+	 * initial cell, and the best route to a final cell of the same cluster
+	 * that does not leave it.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 */
+	private void joinInitialCell(int initialCell) {
+
+		final int cluster = hierarchy.getCluster(initialCell);
+		firstStartEntrance = hierarchy.getFirstEntrance(cluster);
+		final int count = hierarchy.getEntranceEnd(cluster) - firstStartEntrance;
+		if (startEnergies.length < count) {
+			startEnergies = new double[count];
+		}
+
+		clusterSearch.setCluster(initialCell);
+		clusterSearch.searchFrom(initialCell);
+
+		for (int i = 0; i < count; i++) {
+			startEnergies[i] = clusterSearch.getDistance(hierarchy.getEntranceCell(firstStartEntrance + i));
+		}
+
+		directEnergy = Double.POSITIVE_INFINITY;
+		directFinalCell = GridGraph.NO_CELL;
+		for (int i = 0; i < graph.getNumberOfFinalCells(); i++) {
+			final int finalCell = graph.getFinalCell(i);
+			if (hierarchy.getCluster(finalCell) == cluster && clusterSearch.getDistance(finalCell) < directEnergy) {
+				directEnergy = clusterSearch.getDistance(finalCell);
+				directFinalCell = finalCell;
+			}
+		}
+
+	}
+
+	/**
+	 * Find the energy needed to reach the nearest final cell from each
+	 * entrance of the clusters of the final cells, without leaving the
+	 * cluster. The energies of the previous search are forgotten.
+	 */
+	private void joinFinalCells() {
+
+		for (int i = 0; i < numberOfExitEntrances; i++) {
+			exitEnergies[exitEntrances[i]] = Double.POSITIVE_INFINITY;
+		}
+		numberOfExitEntrances = 0;
+
+		for (int i = 0; i < graph.getNumberOfFinalCells(); i++) {
+
+			final int finalCell = graph.getFinalCell(i);
+			final int cluster = hierarchy.getCluster(finalCell);
+			clusterSearch.setCluster(finalCell);
+			clusterSearch.searchTo(finalCell);
+
+			for (int entrance = hierarchy.getFirstEntrance(cluster); entrance < hierarchy
+					.getEntranceEnd(cluster); entrance++) {
+				final double energy = clusterSearch.getDistance(hierarchy.getEntranceCell(entrance));
+				if (energy < exitEnergies[entrance]) {
+					if (Double.isInfinite(exitEnergies[entrance])) {
+						if (numberOfExitEntrances == exitEntrances.length) {
+							exitEntrances = Arrays.copyOf(exitEntrances, numberOfExitEntrances * 2);
+						}
+						exitEntrances[numberOfExitEntrances++] = entrance;
+					}
+					exitEnergies[entrance] = energy;
+					exitCells[entrance] = finalCell;
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * Relax the edge between two nodes of the abstract graph.
+	 *
+	 * @param node
+	 *            the node at the start of the edge
+	 * @param nextNode
+	 *            the node at the end of the edge
+	 * @param energy
+	 *            the energy of the next node through the edge
+	 */
+	private void relax(int node, int nextNode, double energy) {
+
+		if (state.isVisited(nextNode) || !(energy < state.getDistance(nextNode))) {
+			return;
+		}
+
+		state.setDistance(nextNode, energy);
+		state.setPreviousCell(nextNode, node);
+
+		final double priority = nextNode == goalNode ? energy
+				: energy + Heuristic.OCTILE.estimate(heuristicState, hierarchy.getEntranceCell(nextNode));
+		if (heap.contains(nextNode)) {
+			heap.decreaseKey(nextNode, priority);
+		} else {
+			heap.insert(nextNode, priority);
+		}
+
+	}
+
+	/**
+	 * Turn the route found over the abstract graph into cells, searching the
+	 * path of each edge inside its cluster.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCell
+	 *            the final cell of the route
+	 * @return the cells of the route, both ends included
+	 */
+	private int[] refine(int initialCell, int finalCell) {
+
+		int numberOfNodes = 0;
+		for (int node = state.getPreviousCell(goalNode); node != startNode; node = state.getPreviousCell(node)) {
+			numberOfNodes++;
+		}
+		final int[] entrances = new int[numberOfNodes];
+		for (int node = state.getPreviousCell(goalNode), i = numberOfNodes - 1; node != startNode; node = state
+				.getPreviousCell(node), i--) {
+			entrances[i] = node;
+		}
+
+		clusterSearch.setCluster(initialCell);
+		clusterSearch.searchFrom(initialCell);
+		if (numberOfNodes == 0) {
+			return clusterSearch.getPath(finalCell);
+		}
+
+		// Each part starts at the last cell of the previous one
+		final int[][] parts = new int[numberOfNodes + 1][];
+		parts[0] = clusterSearch.getPath(hierarchy.getEntranceCell(entrances[0]));
+		for (int i = 1; i < numberOfNodes; i++) {
+			final int cell = hierarchy.getEntranceCell(entrances[i - 1]);
+			final int nextCell = hierarchy.getEntranceCell(entrances[i]);
+			if (hierarchy.getCluster(cell) != hierarchy.getCluster(nextCell)) {
+				parts[i] = new int[] { cell, nextCell };
+			} else {
+				clusterSearch.setCluster(cell);
+				clusterSearch.searchFrom(cell);
+				parts[i] = clusterSearch.getPath(nextCell);
+			}
+		}
+		clusterSearch.setCluster(finalCell);
+		clusterSearch.searchTo(finalCell);
+		parts[numberOfNodes] = clusterSearch.getPath(hierarchy.getEntranceCell(entrances[numberOfNodes - 1]));
+
+		int length = 1;
+		for (final int[] part : parts) {
+			length += part.length - 1;
+		}
+		final int[] path = new int[length];
+		path[0] = initialCell;
+		int position = 1;
+		for (final int[] part : parts) {
+			System.arraycopy(part, 1, path, position, part.length - 1);
+			position += part.length - 1;
+		}
+
+		return path;
+
+	}
+
+	/**
+	 * Gets the number of nodes of the abstract graph expanded by the last
+	 * search.
+	 *
+	 * @return the iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Gets the hierarchy.
+	 *
+	 * @return the hierarchy
+	 */
+	public ClusterHierarchy getHierarchy() {
+		return hierarchy;
+	}
+
+}
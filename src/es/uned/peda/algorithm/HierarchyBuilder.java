@@ -0,0 +1,64 @@
+package es.uned.peda.algorithm;
+
+import java.nio.file.Paths;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class HierarchyBuilder.
+ *
+ * Builds the {@link ClusterHierarchy} of a map and saves it, so that
+ * {@link Robot} can search with it without building it again.
+ */
+public class HierarchyBuilder {
+
+	/**
+	 * The main method.
+	 *
+	 * @param args
+	 *            the arguments: [-c lado] [-n] fichero_entrada fichero_jerarquia
+	 */
+	public static void main(String[] args) {
+
+		try {
+
+			int clusterSize = ClusterHierarchy.DEFAULT_CLUSTER_SIZE;
+			boolean optimal = true;
+
+			int first = 0;
+			while (first < args.length - 2 && args[first].startsWith("-")) {
+				switch (args[first]) {
+				case "-c":
+					clusterSize = Integer.parseInt(args[++first]);
+					break;
+				case "-n":
+					optimal = false;
+					break;
+				default:
+					throw new IllegalArgumentException("Invalid arguments");
+				}
+				first++;
+			}
+			if (args.length - first != 2) {
+				throw new IllegalArgumentException("Invalid arguments");
+			}
+
+			final GridGraph map = new IOData().readInput(args[first]).getGraph();
+
+			final long start = System.nanoTime();
+			final ClusterHierarchy hierarchy = ClusterHierarchy.build(map, clusterSize, optimal);
+			final long end = System.nanoTime();
+			hierarchy.write(Paths.get(args[first + 1]));
+
+			System.out.format("Jerarquia %s de %d grupos, %d entradas y %d aristas construida en %.1f ms\n",
+					optimal ? "optima" : "aproximada", hierarchy.getNumberOfClusters(),
+					hierarchy.getNumberOfEntrances(), hierarchy.getNumberOfEdges(), (end - start) / 1e6);
+
+		} catch (final Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+
+	}
+
+}
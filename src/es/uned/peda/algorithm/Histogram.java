@@ -0,0 +1,183 @@
+package es.uned.peda.algorithm;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * The Class Histogram.
+ *
+ * Thread-safe histogram of non negative longs with logarithmic buckets: the
+ * values from 0 to 3 have a bucket each, and every power of two above is split
+ * in four buckets, so a value is known with an error below 25% in 248 buckets.
+ * Recording a value takes a few atomic additions and no lock.
+ */
+public final class Histogram {
+
+	/** The number of buckets in which each power of two is split. */
+	private static final int SUB_BUCKETS = 4;
+
+	/** The bits of the value that select the sub bucket. */
+	private static final int SUB_BUCKET_BITS = 2;
+
+	/** The number of buckets, enough for any positive long. */
+	private static final int NUMBER_OF_BUCKETS = SUB_BUCKETS * (Long.SIZE - SUB_BUCKET_BITS);
+
+	/** The percentiles written to JSON. */
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	/** The names of the percentiles written to JSON. */
+	private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+	/** The number of values in each bucket. */
+	private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+
+	/** The number of values. */
+	private final AtomicLong count = new AtomicLong();
+
+	/** The sum of the values. */
+	private final AtomicLong sum = new AtomicLong();
+
+	/** The greatest value. */
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Record a value.
+	 *
+	 * @param value
+	 *            the value, negative values are recorded as zero
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		buckets.incrementAndGet(getBucket(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Gets the bucket of a value.
+	 *
+	 * @param value
+	 *            the value, not negative
+	 * @return the bucket
+	 */
+	private static int getBucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return SUB_BUCKETS * (exponent - 1) + subBucket;
+	}
+
+	/**
+	 * Gets the greatest value of a bucket.
+	 *
+	 * @param bucket
+	 *            the bucket
+	 * @return the greatest value
+	 */
+	private static long getBucketLimit(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		final int exponent = bucket / SUB_BUCKETS + 1;
+		final long subBucket = bucket % SUB_BUCKETS;
+		return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * Gets the number of values.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Gets the mean of the values.
+	 *
+	 * @return the mean, zero if there are no values
+	 */
+	public double getMean() {
+		final long n = count.get();
+		return n == 0 ? 0.0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * Gets the greatest value.
+	 *
+	 * @return the max, zero if there are no values
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets a percentile of the values, as the greatest value of the bucket
+	 * where it falls, but never more than the greatest value.
+	 *
+	 * @param percentile
+	 *            the percentile, from 0 to 100
+	 * @return the value, zero if there are no values
+	 */
+	public long getPercentile(double percentile) {
+		final long n = count.get();
+		if (n == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+		long seen = 0;
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			seen += buckets.get(bucket);
+			if (seen >= rank) {
+				return Math.min(getBucketLimit(bucket), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Remove all the values. Values recorded at the same time may be lost or
+	 * kept in part.
+	 */
+	public void reset() {
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			buckets.set(bucket, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.reset();
+	}
+
+	/**
+	 * Write the histogram as a JSON object: the count, mean, max, some
+	 * percentiles and the number of values of each bucket that is not empty,
+	 * by the greatest value of the bucket.
+	 *
+	 * @return the JSON
+	 */
+	public String toJson() {
+		final StringBuilder json = new StringBuilder();
+		json.append("{\"count\":").append(getCount());
+		json.append(",\"mean\":").append(getMean());
+		json.append(",\"max\":").append(getMax());
+		for (int i = 0; i < PERCENTILES.length; i++) {
+			json.append(",\"").append(PERCENTILE_NAMES[i]).append("\":").append(getPercentile(PERCENTILES[i]));
+		}
+		json.append(",\"buckets\":{");
+		boolean first = true;
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			final long values = buckets.get(bucket);
+			if (values != 0) {
+				json.append(first ? "" : ",").append('"').append(getBucketLimit(bucket)).append("\":").append(values);
+				first = false;
+			}
+		}
+		json.append("}}");
+		return json.toString();
+	}
+
+}
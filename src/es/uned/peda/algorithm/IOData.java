@@ -1,40 +1,91 @@
 package es.uned.peda.algorithm;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.CharacterCodingException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import es.uned.peda.dataStructures.Node;
+import es.uned.peda.dataStructures.GridGraph;
 import es.uned.peda.dataStructures.ProblemData;
 
 /**
  * The Class IOData.
+ *
+ * The input file is scanned as bytes: the positions of the robot, the exits
+ * and the obstacles, and plain decimal costs, are read straight into the array
+ * of costs without creating a String per line. Any other line is decoded and
+ * read as a String, so that it is accepted or rejected with the same message
+ * as always. Large files can also be read by several threads, each one on a
+ * range of lines, with the same result and the same errors. Files in the
+ * binary format of {@link BinaryMap} are recognised and mapped instead.
  */
 public class IOData {
 
+	/** The powers of ten that are exact as doubles. */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** The maximum number of significant digits that are exact in a double. */
+	private static final int MAX_EXACT_DIGITS = 15;
+
+	/** The maximum value of an exponent that is read. */
+	private static final int MAX_EXPONENT = 10000;
+
+	/** The minimum size in bytes of the chunks read in parallel. */
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+	/** The size of the buffer used to find where the chunks start. */
+	private static final int BOUNDARY_BUFFER_SIZE = 1 << 12;
+
 	/** The number of rows. */
 	private int numberOfRows;
 
 	/** The number of columns. */
 	private int numberOfColumns;
 
-	/** The nodes. */
-	private final List<Node> nodes = new ArrayList<>();
+	/** The cost of each cell. */
+	private double[] costs;
 
-	/** The initial node. */
-	private Node initialNode = null;
+	/** The initial cell. */
+	private int initialCell = GridGraph.NO_CELL;
 
-	/** The final node. */
-	private Node finalNode = null;
+	/** The final cells, the exits of the maze. */
+	private final List<Integer> finalCells = new ArrayList<>();
 
 	/** The obstacle found. */
 	private boolean obstacleFound = false;
 
+	/** The first error of a chunk read in parallel. */
+	private Exception chunkError = null;
+
+	/**
+	 * Instantiates a new IO data.
+	 */
+	public IOData() {
+	}
+
+	/**
+	 * Instantiates a new IO data that reads a chunk of the cells of another
+	 * one, which has already read the number of rows and columns.
+	 *
+	 * @param parent
+	 *            the IO data that reads the whole file
+	 */
+	private IOData(IOData parent) {
+		this.numberOfRows = parent.numberOfRows;
+		this.numberOfColumns = parent.numberOfColumns;
+		this.costs = parent.costs;
+	}
+
 	/**
 	 * Read input.
 	 *
@@ -49,34 +100,295 @@ public class IOData {
 		if (!Files.exists(inputPath)) {
 			throw new IllegalArgumentException("Input file does not exist");
 		}
+		if (BinaryMap.isBinaryMap(inputPath)) {
+			return BinaryMap.read(inputPath);
+		}
 
-		try (BufferedReader br = Files.newBufferedReader(inputPath)) {
+		try (LineScanner scanner = new LineScanner(inputPath)) {
 
-			String line;
 			int lineNumber = 1;
 
-			numberOfRows = readInteger(br, lineNumber++);
-			numberOfColumns = readInteger(br, lineNumber++);
+			numberOfRows = readInteger(scanner, lineNumber++);
+			numberOfColumns = readInteger(scanner, lineNumber++);
+			costs = new double[numberOfRows * numberOfColumns];
 
-			while ((line = br.readLine()) != null) {
-				processLine(line, lineNumber++);
+			while (scanner.nextLine()) {
+				processLine(scanner, lineNumber++);
 			}
 
-			checkData(lineNumber);
+			return createProblemData(lineNumber);
+
+		} catch (final Exception e) {
+			throw new RuntimeException(e);
+		}
 
-			return new ProblemData(nodes, initialNode, finalNode, numberOfRows, numberOfColumns);
+	}
 
+	/**
+	 * Read input with several threads. The lines of the cells are split in
+	 * chunks that are read at the same time into their part of the costs. The
+	 * chunks are merged in order, so the result and the errors are the same
+	 * as with {@link #readInput(String)}.
+	 *
+	 * @param inputFile
+	 *            the input file
+	 * @param threads
+	 *            the number of threads
+	 * @return the problem data
+	 */
+	public ProblemData readInput(String inputFile, int threads) {
+
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+
+		final Path inputPath = Paths.get(inputFile);
+
+		if (!Files.exists(inputPath)) {
+			throw new IllegalArgumentException("Input file does not exist");
+		}
+		if (BinaryMap.isBinaryMap(inputPath)) {
+			return BinaryMap.read(inputPath);
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			return readChunks(inputPath, executor, threads);
 		} catch (final Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			executor.shutdown();
 		}
 
 	}
 
+	/**
+	 * Read the input in chunks. Every chunk but the last one is counted first
+	 * to know the line number where each chunk starts.
+	 *
+	 * @param inputPath
+	 *            the input path
+	 * @param executor
+	 *            the executor
+	 * @param threads
+	 *            the number of threads
+	 * @return the problem data
+	 * @throws Exception
+	 *             the same exception as the sequential reading
+	 */
+	private ProblemData readChunks(Path inputPath, ExecutorService executor, int threads) throws Exception {
+
+		final long dataEnd = Files.size(inputPath);
+		final long dataStart;
+		try (LineScanner scanner = new LineScanner(inputPath)) {
+			numberOfRows = readInteger(scanner, 1);
+			numberOfColumns = readInteger(scanner, 2);
+			costs = new double[numberOfRows * numberOfColumns];
+			dataStart = scanner.nextLine() ? scanner.getLineOffset() : dataEnd;
+		}
+
+		final int numberOfChunks = (int) Math.max(1, Math.min(threads, (dataEnd - dataStart) / MIN_CHUNK_SIZE));
+		final long[] starts = splitLines(inputPath, dataStart, dataEnd, numberOfChunks);
+
+		final List<Callable<Integer>> counts = new ArrayList<>();
+		for (int chunk = 0; chunk < numberOfChunks - 1; chunk++) {
+			final long start = starts[chunk];
+			final long end = starts[chunk + 1];
+			counts.add(() -> countLines(inputPath, start, end));
+		}
+		final List<Integer> numbersOfLines = invokeAll(executor, counts);
+
+		final List<IOData> chunks = new ArrayList<>();
+		final List<Callable<Integer>> reads = new ArrayList<>();
+		int lineNumber = 3;
+		for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+			final IOData data = new IOData(this);
+			final long start = starts[chunk];
+			final long end = starts[chunk + 1];
+			final int firstLineNumber = lineNumber;
+			chunks.add(data);
+			reads.add(() -> data.readChunk(inputPath, start, end, firstLineNumber));
+			if (chunk < numberOfChunks - 1) {
+				lineNumber += numbersOfLines.get(chunk);
+			}
+		}
+		final List<Integer> lastLineNumbers = invokeAll(executor, reads);
+
+		for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+			mergeChunk(chunks.get(chunk));
+		}
+
+		return createProblemData(lastLineNumbers.get(numberOfChunks - 1));
+
+	}
+
+	/**
+	 * Split the lines of the cells in chunks of about the same size. Each
+	 * chunk starts at the first line that starts at or after its share of
+	 * the bytes.
+	 *
+	 * @param inputPath
+	 *            the input path
+	 * @param dataStart
+	 *            the offset of the first line of the cells
+	 * @param dataEnd
+	 *            the size of the file
+	 * @param numberOfChunks
+	 *            the number of chunks
+	 * @return the offset where each chunk starts, followed by the size of the
+	 *         file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static long[] splitLines(Path inputPath, long dataStart, long dataEnd, int numberOfChunks)
+			throws IOException {
+
+		final long[] starts = new long[numberOfChunks + 1];
+		starts[0] = dataStart;
+		starts[numberOfChunks] = dataEnd;
+
+		for (int chunk = 1; chunk < numberOfChunks; chunk++) {
+			final long share = dataStart + (dataEnd - dataStart) * chunk / numberOfChunks;
+			// Start at the byte before the share, the line it ends (maybe an
+			// empty one) belongs to the previous chunk
+			try (LineScanner scanner = new LineScanner(inputPath, share - 1, dataEnd, BOUNDARY_BUFFER_SIZE)) {
+				scanner.nextLine();
+				final long start = scanner.nextLine() ? scanner.getLineOffset() : dataEnd;
+				starts[chunk] = Math.max(starts[chunk - 1], start);
+			}
+		}
+
+		return starts;
+
+	}
+
+	/**
+	 * Count the lines of a chunk.
+	 *
+	 * @param inputPath
+	 *            the input path
+	 * @param start
+	 *            the offset where the chunk starts
+	 * @param end
+	 *            the offset where the chunk ends
+	 * @return the number of lines
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static int countLines(Path inputPath, long start, long end) throws IOException {
+		int lines = 0;
+		try (LineScanner scanner = new LineScanner(inputPath, start, end, LineScanner.BUFFER_SIZE)) {
+			while (scanner.nextLine()) {
+				lines++;
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Read the cells of a chunk. The first error stops the reading and is kept
+	 * to be thrown when the chunk is merged, because an earlier chunk may have
+	 * an earlier error.
+	 *
+	 * @param inputPath
+	 *            the input path
+	 * @param start
+	 *            the offset where the chunk starts
+	 * @param end
+	 *            the offset where the chunk ends
+	 * @param firstLineNumber
+	 *            the line number of the first line of the chunk
+	 * @return the line number after the last line of the chunk
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private int readChunk(Path inputPath, long start, long end, int firstLineNumber) throws IOException {
+		int lineNumber = firstLineNumber;
+		try (LineScanner scanner = new LineScanner(inputPath, start, end, LineScanner.BUFFER_SIZE)) {
+			while (scanner.nextLine()) {
+				processLine(scanner, lineNumber);
+				lineNumber++;
+			}
+		} catch (final IllegalArgumentException | CharacterCodingException e) {
+			chunkError = e;
+		}
+		return lineNumber;
+	}
+
+	/**
+	 * Merge a chunk that has been read. A starting position in the chunk is
+	 * checked against the one of the previous chunks before the error of the
+	 * chunk, because it comes first in the file.
+	 *
+	 * @param chunk
+	 *            the chunk
+	 * @throws Exception
+	 *             the first error of the file up to the chunk
+	 */
+	private void mergeChunk(IOData chunk) throws Exception {
+
+		if (chunk.initialCell != GridGraph.NO_CELL) {
+			checkR(chunk.initialCell + 3, chunk.initialCell + 1);
+			initialCell = chunk.initialCell;
+		}
+		if (chunk.chunkError != null) {
+			throw chunk.chunkError;
+		}
+		finalCells.addAll(chunk.finalCells);
+		obstacleFound |= chunk.obstacleFound;
+
+	}
+
+	/**
+	 * Invoke tasks in an executor and wait for their results.
+	 *
+	 * @param <T>
+	 *            the type of the results
+	 * @param executor
+	 *            the executor
+	 * @param tasks
+	 *            the tasks
+	 * @return the results, in the same order as the tasks
+	 * @throws Exception
+	 *             the exception of the first task that failed
+	 */
+	private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) throws Exception {
+		final List<T> results = new ArrayList<>(tasks.size());
+		for (final Future<T> future : executor.invokeAll(tasks)) {
+			try {
+				results.add(future.get());
+			} catch (final ExecutionException e) {
+				if (e.getCause() instanceof Exception) {
+					throw (Exception) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Check the data that has been read and create the problem data.
+	 *
+	 * @param lineNumber
+	 *            the line number after the last line
+	 * @return the problem data
+	 */
+	private ProblemData createProblemData(int lineNumber) {
+
+		checkData(lineNumber);
+
+		final int[] exits = finalCells.stream().mapToInt(Integer::intValue).toArray();
+
+		return new ProblemData(new GridGraph(costs, initialCell, exits, numberOfRows, numberOfColumns));
+
+	}
+
 	private void checkData(int lineNumber) {
-		if (initialNode == null) {
+		if (initialCell == GridGraph.NO_CELL) {
 			throw new IllegalArgumentException("Starting position not found");
 		}
-		if (finalNode == null) {
+		if (finalCells.isEmpty()) {
 			throw new IllegalArgumentException("Final position not found");
 		}
 		if (!obstacleFound) {
@@ -87,6 +399,56 @@ public class IOData {
 		}
 	}
 
+	/**
+	 * Process the current line of a scanner. Lines that are not a position or
+	 * a plain decimal cost are processed as a String.
+	 *
+	 * @param scanner
+	 *            the scanner
+	 * @param lineNumber
+	 *            the line number
+	 * @throws CharacterCodingException
+	 *             if the line is processed as a String and is not valid UTF-8
+	 */
+	private void processLine(LineScanner scanner, int lineNumber) throws CharacterCodingException {
+
+		final byte[] bytes = scanner.getBytes();
+		int start = scanner.getLineStart();
+		int end = scanner.getLineEnd();
+		while (start < end && (bytes[start] & 0xff) <= ' ') {
+			start++;
+		}
+		while (end > start && (bytes[end - 1] & 0xff) <= ' ') {
+			end--;
+		}
+
+		if (end - start == 1) {
+			switch (bytes[start]) {
+			case 'R':
+			case 'r':
+				setInitialCell(lineNumber);
+				return;
+			case 'S':
+			case 's':
+				addFinalCell(lineNumber);
+				return;
+			case 'O':
+			case 'o':
+				setObstacle(lineNumber);
+				return;
+			default:
+			}
+		}
+
+		final double cost = parseDecimal(bytes, start, end);
+		if (Double.isNaN(cost)) {
+			processLine(scanner.getLine(), lineNumber);
+		} else {
+			setCost(lineNumber - 2, checkCost(cost, lineNumber));
+		}
+
+	}
+
 	/**
 	 * Process line.
 	 *
@@ -97,32 +459,78 @@ public class IOData {
 	 */
 	private void processLine(String line, int lineNumber) {
 
-		final int position = lineNumber - 2;
-		final int x = (position - 1) / numberOfColumns + 1;
-		final int y = (position - 1) % numberOfColumns + 1;
 		line = line.trim().toUpperCase();
 
 		switch (line) {
 		case "R":
-			checkR(lineNumber, position);
-			initialNode = new Node(position, x, y, 0.0, 0.0);
-			nodes.add(initialNode);
+			setInitialCell(lineNumber);
 			break;
 		case "S":
-			checkS(lineNumber, position, x, y);
-			finalNode = new Node(position, x, y, 0.0);
-			nodes.add(finalNode);
+			addFinalCell(lineNumber);
 			break;
 		case "O":
-			obstacleFound = true;
-			nodes.add(new Node(position, x, y, Double.POSITIVE_INFINITY));
+			setObstacle(lineNumber);
 			break;
 		default:
-			nodes.add(new Node(position, x, y, readDouble(line, lineNumber)));
+			setCost(lineNumber - 2, readDouble(line, lineNumber));
 		}
 
 	}
 
+	/**
+	 * Sets the initial cell at the position of a line.
+	 *
+	 * @param lineNumber
+	 *            the line number
+	 */
+	private void setInitialCell(int lineNumber) {
+		final int position = lineNumber - 2;
+		checkR(lineNumber, position);
+		initialCell = position - 1;
+		setCost(position, 0.0);
+	}
+
+	/**
+	 * Adds a final cell at the position of a line.
+	 *
+	 * @param lineNumber
+	 *            the line number
+	 */
+	private void addFinalCell(int lineNumber) {
+		final int position = lineNumber - 2;
+		final int x = (position - 1) / numberOfColumns + 1;
+		final int y = (position - 1) % numberOfColumns + 1;
+		checkS(lineNumber, position, x, y);
+		finalCells.add(position - 1);
+		setCost(position, 0.0);
+	}
+
+	/**
+	 * Sets an obstacle at the position of a line.
+	 *
+	 * @param lineNumber
+	 *            the line number
+	 */
+	private void setObstacle(int lineNumber) {
+		obstacleFound = true;
+		setCost(lineNumber - 2, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Sets the cost of the cell at a position. Positions beyond the size of
+	 * the grid are ignored, they are reported by {@link #checkData(int)}.
+	 *
+	 * @param position
+	 *            the position
+	 * @param cost
+	 *            the cost
+	 */
+	private void setCost(int position, double cost) {
+		if (position <= costs.length) {
+			costs[position - 1] = cost;
+		}
+	}
+
 	private double readDouble(String line, int lineNumber) {
 		final double n;
 		if (line.equals("")) {
@@ -133,15 +541,119 @@ public class IOData {
 		} catch (final Exception e) {
 			throw new IllegalArgumentException("Error reading floating point number in line " + lineNumber);
 		}
-		if (n <= 0.0) {
+		return checkCost(n, lineNumber);
+
+	}
+
+	/**
+	 * Check that a cost is greater than zero.
+	 *
+	 * @param cost
+	 *            the cost
+	 * @param lineNumber
+	 *            the line number
+	 * @return the cost
+	 */
+	private static double checkCost(double cost, int lineNumber) {
+		if (cost <= 0.0) {
 			throw new IllegalArgumentException("Cost should be greater than zero (line " + lineNumber + ")");
 		}
-		return n;
+		return cost;
+	}
+
+	/**
+	 * Parse a plain decimal number, with an optional sign, fraction and
+	 * exponent, from bytes that have no surrounding spaces. Only numbers whose
+	 * value is exact from their digits and a power of ten are parsed, so the
+	 * result is the same as {@link Double#parseDouble(String)}.
+	 *
+	 * @param bytes
+	 *            the bytes
+	 * @param start
+	 *            the position of the first byte
+	 * @param end
+	 *            the position after the last byte
+	 * @return the number, or NaN if it is not a plain decimal number or it
+	 *         cannot be parsed exactly, in which case it must be parsed as a
+	 *         String
+	 */
+	static double parseDecimal(byte[] bytes, int start, int end) {
+
+		int index = start;
+		final boolean negative = index < end && bytes[index] == '-';
+		if (index < end && (bytes[index] == '-' || bytes[index] == '+')) {
+			index++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean digitFound = false;
+		boolean fraction = false;
+
+		for (; index < end; index++) {
+			final int b = bytes[index];
+			if (b == '.' && !fraction) {
+				fraction = true;
+				continue;
+			}
+			if (b < '0' || b > '9') {
+				break;
+			}
+			digitFound = true;
+			if (mantissa != 0 || b != '0') {
+				if (++digits > MAX_EXACT_DIGITS) {
+					return Double.NaN;
+				}
+				mantissa = mantissa * 10 + (b - '0');
+			}
+			if (fraction) {
+				exponent--;
+			}
+		}
+
+		if (!digitFound) {
+			return Double.NaN;
+		}
+
+		if (index < end && (bytes[index] == 'e' || bytes[index] == 'E')) {
+			index++;
+			final boolean negativeExponent = index < end && bytes[index] == '-';
+			if (index < end && (bytes[index] == '-' || bytes[index] == '+')) {
+				index++;
+			}
+			int value = 0;
+			boolean exponentDigitFound = false;
+			for (; index < end && bytes[index] >= '0' && bytes[index] <= '9'; index++) {
+				exponentDigitFound = true;
+				if (value < MAX_EXPONENT) {
+					value = value * 10 + (bytes[index] - '0');
+				}
+			}
+			if (!exponentDigitFound) {
+				return Double.NaN;
+			}
+			exponent += negativeExponent ? -value : value;
+		}
+
+		if (index != end) {
+			return Double.NaN;
+		}
+
+		if (mantissa == 0) {
+			return negative ? -0.0 : 0.0;
+		}
+		if (exponent < -(POWERS_OF_TEN.length - 1) || exponent > POWERS_OF_TEN.length - 1) {
+			return Double.NaN;
+		}
+
+		final double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+		return negative ? -value : value;
 
 	}
 
 	/**
-	 * Check S.
+	 * Check S. There can be several exits, but all of them on a border.
 	 *
 	 * @param lineNumber
 	 *            the line number
@@ -152,10 +664,6 @@ public class IOData {
 	 */
 	private void checkS(int lineNumber, int position, int x, int y) {
 
-		if (finalNode != null) {
-			throw new IllegalArgumentException("Two end positions specified (line " + lineNumber + ")");
-		}
-
 		if (!(y == 1 || y == numberOfColumns || x == 1 || x == numberOfRows)) {
 			throw new IllegalArgumentException("The exit position should be on a border (line " + lineNumber + ")");
 		}
@@ -172,7 +680,7 @@ public class IOData {
 	 */
 	private void checkR(int lineNumber, int position) {
 
-		if (initialNode != null) {
+		if (initialCell != GridGraph.NO_CELL) {
 			throw new IllegalArgumentException("Two start positions specified (line " + lineNumber + ")");
 		}
 
@@ -181,16 +689,17 @@ public class IOData {
 	/**
 	 * Read integer.
 	 *
-	 * @param br
-	 *            the br
+	 * @param scanner
+	 *            the scanner
 	 * @param lineNumber
 	 *            the line number
 	 * @return the int
 	 */
-	private int readInteger(BufferedReader br, int lineNumber) {
+	private int readInteger(LineScanner scanner, int lineNumber) {
 		final int n;
 		try {
-			n = Integer.parseInt(br.readLine().trim());
+			final String line = scanner.nextLine() ? scanner.getLine() : null;
+			n = Integer.parseInt(line.trim());
 		} catch (final Exception e) {
 			throw new RuntimeException("Error reading integer in line " + lineNumber);
 		}
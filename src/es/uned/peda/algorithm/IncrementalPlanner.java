@@ -0,0 +1,404 @@
+package es.uned.peda.algorithm;
+
+import java.util.Arrays;
+import java.util.List;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.IndexedMinHeap;
+import es.uned.peda.dataStructures.Node;
+
+/**
+ * The Class IncrementalPlanner.
+ *
+ * Lifelong planning A* (LPA*) from the initial cell of a map to its final
+ * cells, without heuristic. The costs of the cells can be changed between two
+ * plans with {@link #updateCost(int, int, double)}, and the next plan only
+ * repairs the part of the tree of shortest paths affected by the changes
+ * instead of searching the whole map again.
+ *
+ * Every cell has its energy g and a lookahead rhs, the lowest energy through
+ * its adjacent cells, and the queue holds the cells where both differ. A plan
+ * ends, as a search of {@link RobotAlgorithm}, once the nearest final cell is
+ * reached: the energy and the previous cell of every cell with an energy
+ * lower than that of the route are the same as those of a search from
+ * scratch, but for ties between paths of the same energy.
+ *
+ * The routes end at the first final cell they reach, so the final cells are
+ * never the previous cell of another cell: as they cost nothing, two of them
+ * side by side would otherwise keep each other in the tree after losing their
+ * path. The planner keeps its own copy of the costs, the graph is only used
+ * for the positions of the cells and it is never modified.
+ */
+public class IncrementalPlanner {
+
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The current cost of each cell. */
+	private final double[] costs;
+
+	/** The energy of each cell. */
+	private final double[] energies;
+
+	/** The lowest energy of each cell through its adjacent cells. */
+	private final double[] lookaheads;
+
+	/** The adjacent cell that gives each cell its lookahead. */
+	private final int[] previousCells;
+
+	/** The cells whose energy and lookahead differ, by the lowest of both. */
+	private final IndexedMinHeap queue;
+
+	/** The surrounding cells, to avoid creating an array on each expansion. */
+	private final int[] surroundingCells = new int[GridGraph.MAX_ADJACENT_CELLS];
+
+	/** The surrounding cells of a cell whose lookahead is computed again. */
+	private final int[] lookaheadCells = new int[GridGraph.MAX_ADJACENT_CELLS];
+
+	/** The initial cell. */
+	private final int initialCell;
+
+	/** The nearest final cell found by the last plan. */
+	private int finalCell;
+
+	/** The number of cells expanded by the last plan. */
+	private int iterations;
+
+	/**
+	 * Instantiates a new incremental planner with the costs and the endpoints
+	 * of a graph. Nothing is searched until the first plan.
+	 *
+	 * @param graph
+	 *            the graph
+	 */
+	public IncrementalPlanner(GridGraph graph) {
+
+		final int numberOfCells = graph.getNumberOfCells();
+
+		this.graph = graph;
+		this.costs = new double[numberOfCells];
+		this.energies = new double[numberOfCells];
+		this.lookaheads = new double[numberOfCells];
+		this.previousCells = new int[numberOfCells];
+		this.queue = new IndexedMinHeap(numberOfCells);
+		this.initialCell = graph.getInitialCell();
+		this.finalCell = graph.getFinalCell();
+
+		for (int cell = 0; cell < numberOfCells; cell++) {
+			costs[cell] = graph.getCost(cell);
+		}
+		Arrays.fill(energies, Double.POSITIVE_INFINITY);
+		Arrays.fill(lookaheads, Double.POSITIVE_INFINITY);
+		Arrays.fill(previousCells, GridGraph.NO_CELL);
+
+		lookaheads[initialCell] = 0.0;
+		queue.insert(initialCell, 0.0);
+
+	}
+
+	/**
+	 * Change the cost of a cell. The change is taken into account by the next
+	 * plan. The initial cell and the final cells cannot be changed.
+	 *
+	 * @param x
+	 *            the x (row, starting at 1)
+	 * @param y
+	 *            the y (column, starting at 1)
+	 * @param newCost
+	 *            the new cost, greater than zero, infinite for an obstacle
+	 */
+	public void updateCost(int x, int y, double newCost) {
+
+		final int cell = graph.getCellAt(x, y);
+
+		if (cell == GridGraph.NO_CELL) {
+			throw new IllegalArgumentException("Cell " + x + "," + y + " is out of the grid");
+		}
+		if (cell == initialCell || graph.isFinalCell(cell)) {
+			throw new IllegalArgumentException("The cost of cell " + x + "," + y + " cannot be changed");
+		}
+		if (!(newCost > 0.0)) {
+			throw new IllegalArgumentException("The cost of cell " + x + "," + y + " must be greater than zero");
+		}
+
+		if (costs[cell] == newCost) {
+			return;
+		}
+		costs[cell] = newCost;
+
+		// Only the moves that enter the cell change, so only its lookahead
+		updateCell(cell);
+
+	}
+
+	/**
+	 * Find the route from the initial cell to the nearest final cell with the
+	 * current costs, repairing the result of the previous plan.
+	 *
+	 * @return the route
+	 */
+	public RouteResult plan() {
+
+		iterations = 0;
+		finalCell = getNearestFinalCell();
+
+		// The final cells cost nothing, so the cells with the same key as the
+		// nearest one may still change its energy and must be expanded too
+		while (!queue.isEmpty() && (queue.getMinPriority() <= getKey(finalCell)
+				|| energies[finalCell] != lookaheads[finalCell])) {
+
+			iterations++;
+
+			final int cell = queue.extractMin();
+			final int count = graph.getSurroundingCells(cell, surroundingCells);
+
+			if (energies[cell] > lookaheads[cell]) {
+				// Overconsistent: the energy of the cell is now known
+				energies[cell] = lookaheads[cell];
+				for (int i = 0; i < count && !graph.isFinalCell(cell); i++) {
+					final int adjacentCell = surroundingCells[i];
+					final double newLookahead = energies[cell] + costs[adjacentCell];
+					if (newLookahead < lookaheads[adjacentCell]) {
+						lookaheads[adjacentCell] = newLookahead;
+						previousCells[adjacentCell] = cell;
+						updateQueue(adjacentCell);
+					}
+				}
+			} else {
+				// Underconsistent: the cells reached through it must be repaired
+				energies[cell] = Double.POSITIVE_INFINITY;
+				updateCell(cell);
+				for (int i = 0; i < count; i++) {
+					final int adjacentCell = surroundingCells[i];
+					if (previousCells[adjacentCell] == cell) {
+						updateCell(adjacentCell);
+					}
+				}
+			}
+
+			if (graph.isFinalCell(cell)) {
+				finalCell = getNearestFinalCell();
+			}
+
+		}
+
+		return new RouteResult(initialCell, finalCell, getEnergy(), getPath(finalCell), iterations);
+
+	}
+
+	/**
+	 * Gets the key of a cell in the queue.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the key
+	 */
+	private double getKey(int cell) {
+		return Math.min(energies[cell], lookaheads[cell]);
+	}
+
+	/**
+	 * Gets the final cell with the lowest key.
+	 *
+	 * @return the final cell
+	 */
+	private int getNearestFinalCell() {
+
+		int nearestCell = graph.getFinalCell(0);
+		for (int i = 1; i < graph.getNumberOfFinalCells(); i++) {
+			final int cell = graph.getFinalCell(i);
+			if (getKey(cell) < getKey(nearestCell)) {
+				nearestCell = cell;
+			}
+		}
+
+		return nearestCell;
+
+	}
+
+	/**
+	 * Compute again the lookahead of a cell from its adjacent cells and update
+	 * its place in the queue. The final cells are not taken into account.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	private void updateCell(int cell) {
+
+		if (cell != initialCell) {
+			double lookahead = Double.POSITIVE_INFINITY;
+			int previousCell = GridGraph.NO_CELL;
+			if (!Double.isInfinite(costs[cell])) {
+				final int count = graph.getSurroundingCells(cell, lookaheadCells);
+				for (int i = 0; i < count; i++) {
+					final int adjacentCell = lookaheadCells[i];
+					if (!graph.isFinalCell(adjacentCell) && energies[adjacentCell] + costs[cell] < lookahead) {
+						lookahead = energies[adjacentCell] + costs[cell];
+						previousCell = adjacentCell;
+					}
+				}
+			}
+			lookaheads[cell] = lookahead;
+			previousCells[cell] = previousCell;
+		}
+
+		updateQueue(cell);
+
+	}
+
+	/**
+	 * Insert a cell in the queue, move it or remove it from the queue,
+	 * depending on whether its energy and its lookahead differ. The nearest
+	 * final cell is found again when a final cell changes.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	private void updateQueue(int cell) {
+
+		if (energies[cell] != lookaheads[cell]) {
+			if (queue.contains(cell)) {
+				queue.changeKey(cell, getKey(cell));
+			} else {
+				queue.insert(cell, getKey(cell));
+			}
+		} else if (queue.contains(cell)) {
+			queue.remove(cell);
+		}
+
+		if (graph.isFinalCell(cell)) {
+			finalCell = getNearestFinalCell();
+		}
+
+	}
+
+	/**
+	 * Copy the energy and the previous node of every cell to the nodes of the
+	 * map, sorted by tag. As in a search from scratch, the previous node of
+	 * the initial cell and of the cells without previous cell is the initial
+	 * node.
+	 *
+	 * @param nodes
+	 *            the nodes
+	 */
+	public void copyResultToNodes(List<Node> nodes) {
+		for (int tag = 1; tag <= nodes.size(); tag++) {
+			final int cell = graph.getCell(tag);
+			final int previousCell = previousCells[cell] == GridGraph.NO_CELL ? initialCell : previousCells[cell];
+			final Node node = nodes.get(tag - 1);
+			node.setValue(energies[cell]);
+			node.setPreviousNode(nodes.get(graph.getTag(previousCell) - 1));
+		}
+	}
+
+	/**
+	 * Gets the cells of the path from the initial cell to a cell, both
+	 * included.
+	 *
+	 * @param lastCell
+	 *            the last cell of the path
+	 * @return the path, empty if there is no path
+	 */
+	private int[] getPath(int lastCell) {
+
+		if (Double.isInfinite(energies[lastCell])) {
+			return new int[0];
+		}
+
+		int length = 1;
+		for (int cell = lastCell; cell != initialCell; cell = previousCells[cell]) {
+			length++;
+		}
+
+		final int[] path = new int[length];
+		int cell = lastCell;
+		path[--length] = cell;
+		while (cell != initialCell) {
+			cell = previousCells[cell];
+			path[--length] = cell;
+		}
+
+		return path;
+
+	}
+
+	/**
+	 * Gets the energy of the route of the last plan.
+	 *
+	 * @return the energy, infinite if there is no path
+	 */
+	public double getEnergy() {
+		return energies[finalCell];
+	}
+
+	/**
+	 * Gets the cells of the route of the last plan.
+	 *
+	 * @return the path, empty if there is no path
+	 */
+	public int[] getPath() {
+		return getPath(finalCell);
+	}
+
+	/**
+	 * Gets the energy of a cell. Only valid for the cells with an energy lower
+	 * than that of the route.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the energy
+	 */
+	public double getEnergy(int cell) {
+		return energies[cell];
+	}
+
+	/**
+	 * Gets the previous cell of a cell in the tree of shortest paths.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the previous cell, or {@link GridGraph#NO_CELL} if it has none
+	 */
+	public int getPreviousCell(int cell) {
+		return previousCells[cell];
+	}
+
+	/**
+	 * Gets the current cost of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the cost
+	 */
+	public double getCost(int cell) {
+		return costs[cell];
+	}
+
+	/**
+	 * Gets the nearest final cell found by the last plan.
+	 *
+	 * @return the final cell
+	 */
+	public int getFinalCell() {
+		return finalCell;
+	}
+
+	/**
+	 * Gets the number of cells expanded by the last plan.
+	 *
+	 * @return the iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Gets the graph.
+	 *
+	 * @return the graph
+	 */
+	public GridGraph getGraph() {
+		return graph;
+	}
+
+}
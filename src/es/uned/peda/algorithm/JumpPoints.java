@@ -0,0 +1,313 @@
+package es.uned.peda.algorithm;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class JumpPoints.
+ *
+ * Rules of jump point search adapted to grids with costs. A cell is
+ * homogeneous when all the cells around it that are not obstacles cost the
+ * same as the cell itself. Inside homogeneous areas every move costs the same,
+ * so among the paths of the same energy only those that move diagonally before
+ * moving straight need to be followed, and the search can jump along straight
+ * and diagonal lines until it finds a cell where that is no longer true: a
+ * final cell, a cell that is not homogeneous or a cell with a forced neighbour
+ * next to an obstacle. Cells that are not homogeneous are expanded in all
+ * directions.
+ */
+final class JumpPoints {
+
+	/** The row of each direction. */
+	static final int[] DX = { -1, -1, -1, 0, 0, 1, 1, 1 };
+
+	/** The column of each direction. */
+	static final int[] DY = { -1, 0, 1, -1, 1, -1, 0, 1 };
+
+	/** The number of directions. */
+	static final int NUMBER_OF_DIRECTIONS = DX.length;
+
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The homogeneous cells. */
+	private final boolean[] homogeneous;
+
+	/** The energy of the last jump. */
+	private double jumpEnergy;
+
+	/**
+	 * Instantiates new jump point rules for a graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 */
+	JumpPoints(GridGraph graph) {
+		this.graph = graph;
+		this.homogeneous = new boolean[graph.getNumberOfCells()];
+		for (int cell = 0; cell < homogeneous.length; cell++) {
+			homogeneous[cell] = !graph.isObstacle(cell) && computeHomogeneous(graph.getX(cell), graph.getY(cell));
+		}
+	}
+
+	/**
+	 * Gets the directions in which the search must jump from a cell reached
+	 * from another one.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param previousCell
+	 *            the cell from which it was reached, or the cell itself if it
+	 *            is the initial cell
+	 * @param directions
+	 *            array of at least {@link #NUMBER_OF_DIRECTIONS} elements where
+	 *            the directions are written
+	 * @return the number of directions
+	 */
+	int getDirections(int cell, int previousCell, int[] directions) {
+
+		final int x = graph.getX(cell);
+		final int y = graph.getY(cell);
+
+		if (cell == previousCell || !isHomogeneous(x, y)) {
+			for (int direction = 0; direction < NUMBER_OF_DIRECTIONS; direction++) {
+				directions[direction] = direction;
+			}
+			return NUMBER_OF_DIRECTIONS;
+		}
+
+		final int dx = Integer.signum(x - graph.getX(previousCell));
+		final int dy = Integer.signum(y - graph.getY(previousCell));
+		int count = 0;
+
+		if (dx != 0 && dy != 0) {
+			directions[count++] = getDirection(dx, 0);
+			directions[count++] = getDirection(0, dy);
+			directions[count++] = getDirection(dx, dy);
+			if (isBlocked(x - dx, y) && !isBlocked(x - dx, y + dy)) {
+				directions[count++] = getDirection(-dx, dy);
+			}
+			if (isBlocked(x, y - dy) && !isBlocked(x + dx, y - dy)) {
+				directions[count++] = getDirection(dx, -dy);
+			}
+		} else {
+			directions[count++] = getDirection(dx, dy);
+			final int sx = dy;
+			final int sy = dx;
+			if (isBlocked(x + sx, y + sy) && !isBlocked(x + sx + dx, y + sy + dy)) {
+				directions[count++] = getDirection(sx + dx, sy + dy);
+			}
+			if (isBlocked(x - sx, y - sy) && !isBlocked(x - sx + dx, y - sy + dy)) {
+				directions[count++] = getDirection(dx - sx, dy - sy);
+			}
+		}
+
+		return count;
+
+	}
+
+	/**
+	 * Jump from a cell in a direction until a jump point is found. The energy
+	 * needed to reach it is available through {@link #getJumpEnergy()}.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param direction
+	 *            the direction
+	 * @return the jump point, or {@link GridGraph#NO_CELL} if an obstacle or
+	 *         the border is reached first
+	 */
+	int jump(int cell, int direction) {
+
+		final int dx = DX[direction];
+		final int dy = DY[direction];
+		int x = graph.getX(cell) + dx;
+		int y = graph.getY(cell) + dy;
+		double energy = 0.0;
+
+		while (!isBlocked(x, y)) {
+			final int current = graph.getCellAt(x, y);
+			energy += graph.getCost(current);
+			if (isJumpPoint(current, x, y, dx, dy)) {
+				jumpEnergy = energy;
+				return current;
+			}
+			x += dx;
+			y += dy;
+		}
+
+		return GridGraph.NO_CELL;
+
+	}
+
+	/**
+	 * Checks if a cell reached moving in a direction is a jump point. When the
+	 * move is diagonal, it also is if a jump point can be reached from it
+	 * moving straight in any of the two components of the direction.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param x
+	 *            the x of the cell
+	 * @param y
+	 *            the y of the cell
+	 * @param dx
+	 *            the row of the direction
+	 * @param dy
+	 *            the column of the direction
+	 * @return true, if it is a jump point
+	 */
+	private boolean isJumpPoint(int cell, int x, int y, int dx, int dy) {
+		if (isStraightJumpPoint(cell, x, y, dx, dy)) {
+			return true;
+		}
+		return dx != 0 && dy != 0 && (reachesJumpPoint(x, y, dx, 0) || reachesJumpPoint(x, y, 0, dy));
+	}
+
+	/**
+	 * Checks if a cell reached moving in a direction is a jump point by
+	 * itself: a final cell, a cell that is not homogeneous or a cell with a
+	 * forced neighbour.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param x
+	 *            the x of the cell
+	 * @param y
+	 *            the y of the cell
+	 * @param dx
+	 *            the row of the direction
+	 * @param dy
+	 *            the column of the direction
+	 * @return true, if it is a jump point
+	 */
+	private boolean isStraightJumpPoint(int cell, int x, int y, int dx, int dy) {
+		return graph.isFinalCell(cell) || !isHomogeneous(x, y) || hasForcedNeighbours(x, y, dx, dy);
+	}
+
+	/**
+	 * Checks if a jump point can be reached moving straight from a cell.
+	 *
+	 * @param x
+	 *            the x of the cell
+	 * @param y
+	 *            the y of the cell
+	 * @param dx
+	 *            the row of the direction
+	 * @param dy
+	 *            the column of the direction
+	 * @return true, if a jump point is reached
+	 */
+	private boolean reachesJumpPoint(int x, int y, int dx, int dy) {
+		int currentX = x + dx;
+		int currentY = y + dy;
+		while (!isBlocked(currentX, currentY)) {
+			if (isStraightJumpPoint(graph.getCellAt(currentX, currentY), currentX, currentY, dx, dy)) {
+				return true;
+			}
+			currentX += dx;
+			currentY += dy;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a cell reached moving in a direction has forced neighbours,
+	 * which can only be reached through it without changing the energy
+	 * because of an obstacle.
+	 *
+	 * @param x
+	 *            the x of the cell
+	 * @param y
+	 *            the y of the cell
+	 * @param dx
+	 *            the row of the direction
+	 * @param dy
+	 *            the column of the direction
+	 * @return true, if it has forced neighbours
+	 */
+	private boolean hasForcedNeighbours(int x, int y, int dx, int dy) {
+		if (dx != 0 && dy != 0) {
+			return (isBlocked(x - dx, y) && !isBlocked(x - dx, y + dy))
+					|| (isBlocked(x, y - dy) && !isBlocked(x + dx, y - dy));
+		}
+		final int sx = dy;
+		final int sy = dx;
+		return (isBlocked(x + sx, y + sy) && !isBlocked(x + sx + dx, y + sy + dy))
+				|| (isBlocked(x - sx, y - sy) && !isBlocked(x - sx + dx, y - sy + dy));
+	}
+
+	/**
+	 * Checks if all the cells around a position that are not obstacles cost
+	 * the same as the cell at the position.
+	 *
+	 * @param x
+	 *            the x
+	 * @param y
+	 *            the y
+	 * @return true, if it is homogeneous
+	 */
+	private boolean isHomogeneous(int x, int y) {
+		return homogeneous[graph.getCellAt(x, y)];
+	}
+
+	/**
+	 * Checks if all the cells around a position that are not obstacles cost
+	 * the same as the cell at the position, without using the homogeneous
+	 * cells already found.
+	 *
+	 * @param x
+	 *            the x
+	 * @param y
+	 *            the y
+	 * @return true, if it is homogeneous
+	 */
+	private boolean computeHomogeneous(int x, int y) {
+		final double cost = graph.getCost(graph.getCellAt(x, y));
+		for (int i = -1; i <= 1; i++) {
+			for (int j = -1; j <= 1; j++) {
+				if (!isBlocked(x + i, y + j) && graph.getCost(graph.getCellAt(x + i, y + j)) != cost) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a position is out of the grid or an obstacle.
+	 *
+	 * @param x
+	 *            the x
+	 * @param y
+	 *            the y
+	 * @return true, if it is blocked
+	 */
+	private boolean isBlocked(int x, int y) {
+		final int cell = graph.getCellAt(x, y);
+		return cell == GridGraph.NO_CELL || graph.isObstacle(cell);
+	}
+
+	/**
+	 * Gets the direction of a move.
+	 *
+	 * @param dx
+	 *            the row of the move
+	 * @param dy
+	 *            the column of the move
+	 * @return the direction
+	 */
+	private static int getDirection(int dx, int dy) {
+		final int index = (dx + 1) * 3 + dy + 1;
+		return index < 4 ? index : index - 1;
+	}
+
+	/**
+	 * Gets the energy of the last jump.
+	 *
+	 * @return the jump energy
+	 */
+	double getJumpEnergy() {
+		return jumpEnergy;
+	}
+
+}
@@ -0,0 +1,128 @@
+package es.uned.peda.algorithm;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class LandmarkState.
+ *
+ * The energies between each landmark of {@link Landmarks} and the final cells
+ * of a graph that the bounds of every cell are measured against, reduced to
+ * two values per landmark so that each estimate only looks at the landmarks
+ * instead of at every final cell and landmark. They are found again by
+ * {@link #update()} when the final cells change, before each search.
+ */
+public final class LandmarkState {
+
+	/** The landmarks. */
+	private final Landmarks landmarks;
+
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The final cells the values were found for, in the order of the graph. */
+	private int[] finalCells = new int[0];
+
+	/**
+	 * The lowest energy from each landmark to a final cell, NaN if the
+	 * landmark does not reach every final cell.
+	 */
+	private final double[] finalEnergies;
+
+	/**
+	 * The lowest cost of a final cell minus the energy from each landmark to
+	 * it.
+	 */
+	private final double[] reverseOffsets;
+
+	/**
+	 * Instantiates a new landmark state for the final cells of a graph.
+	 *
+	 * @param landmarks
+	 *            the landmarks of the map of the graph
+	 * @param graph
+	 *            the graph
+	 */
+	public LandmarkState(Landmarks landmarks, GridGraph graph) {
+
+		landmarks.checkGraph(graph);
+
+		this.landmarks = landmarks;
+		this.graph = graph;
+		this.finalEnergies = new double[landmarks.getNumberOfLandmarks()];
+		this.reverseOffsets = new double[landmarks.getNumberOfLandmarks()];
+
+		update();
+
+	}
+
+	/**
+	 * Take the current final cells of the graph into account, finding the
+	 * values again only if they have changed.
+	 */
+	public void update() {
+
+		final int numberOfFinalCells = graph.getNumberOfFinalCells();
+		boolean changed = finalCells.length != numberOfFinalCells;
+		for (int i = 0; i < numberOfFinalCells && !changed; i++) {
+			changed = finalCells[i] != graph.getFinalCell(i);
+		}
+		if (!changed) {
+			return;
+		}
+
+		finalCells = new int[numberOfFinalCells];
+		for (int i = 0; i < numberOfFinalCells; i++) {
+			finalCells[i] = graph.getFinalCell(i);
+		}
+
+		for (int j = 0; j < finalEnergies.length; j++) {
+			double finalEnergy = Double.POSITIVE_INFINITY;
+			double reverseOffset = Double.POSITIVE_INFINITY;
+			for (final int finalCell : finalCells) {
+				final double energy = landmarks.getEnergy(graph.getTag(finalCell) - 1, j);
+				if (Double.isInfinite(energy)) {
+					finalEnergy = Double.NaN;
+					break;
+				}
+				finalEnergy = Math.min(finalEnergy, energy);
+				reverseOffset = Math.min(reverseOffset, graph.getCost(finalCell) - energy);
+			}
+			finalEnergies[j] = finalEnergy;
+			reverseOffsets[j] = reverseOffset;
+		}
+
+	}
+
+	/**
+	 * Gets the graph.
+	 *
+	 * @return the graph
+	 */
+	public GridGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Gets the lowest energy from a landmark to a final cell.
+	 *
+	 * @param landmark
+	 *            the index of the landmark
+	 * @return the energy, NaN if the landmark does not reach every final cell
+	 */
+	double getFinalEnergy(int landmark) {
+		return finalEnergies[landmark];
+	}
+
+	/**
+	 * Gets the lowest cost of a final cell minus the energy from a landmark to
+	 * it.
+	 *
+	 * @param landmark
+	 *            the index of the landmark
+	 * @return the offset
+	 */
+	double getReverseOffset(int landmark) {
+		return reverseOffsets[landmark];
+	}
+
+}
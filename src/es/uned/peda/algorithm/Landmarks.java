@@ -0,0 +1,427 @@
+package es.uned.peda.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class Landmarks.
+ *
+ * Lower bounds of the energy between two cells of a map from the energy
+ * needed to reach every cell from a few landmarks (ALT). For a landmark L,
+ * the triangle inequality gives d(v, t) &gt;= d(L, t) - d(L, v) and d(v, t)
+ * &gt;= d(v, L) - d(t, L). Moving from a cell to another costs the cost of
+ * the one that is entered, so the reverse of a path from a to b costs the
+ * same plus the cost of a minus the cost of b, and a single search from each
+ * landmark gives both bounds. With several final cells, each landmark bounds
+ * the energy to the nearest one with the lowest energy from the landmark to
+ * them, and the lowest cost minus that energy, found once per search by
+ * {@link LandmarkState}. Each bound is consistent, so their maximum is a
+ * consistent heuristic for A*.
+ *
+ * The landmarks are chosen one by one as the cell farthest from those
+ * already chosen, starting with the cell farthest from the initial cell. The
+ * energies are stored as float64, 8 bytes per cell and landmark, by the index
+ * of the cells in row-major order: the energies of the searches are kept as
+ * they are, so the bounds stay consistent up to the rounding of the sums, as
+ * the priorities of a {@link es.uned.peda.dataStructures.RadixHeap} need. The
+ * table can be saved in a binary file, with all the values little-endian, and
+ * mapped in memory from it without reading it:
+ *
+ * <pre>
+ *  0  int      magic number, "RLMK"
+ *  4  int      version
+ *  8  int      number of rows
+ * 12  int      number of columns
+ * 16  int      number of landmarks
+ * 20  long     fingerprint of the costs of the map
+ * 28  int[]    index of each landmark
+ *     double[] energy from each landmark to each cell, landmarks first,
+ *              infinity if the cell cannot be reached
+ * </pre>
+ */
+public final class Landmarks {
+
+	/** The magic number, the bytes "RLMK" read as a little-endian int. */
+	static final int MAGIC = 0x4B4D4C52;
+
+	/** The version of the format. */
+	static final int VERSION = 2;
+
+	/** The default number of landmarks. */
+	public static final int DEFAULT_LANDMARKS = 16;
+
+	/** The size of the header. */
+	private static final int HEADER_SIZE = 28;
+
+	/** The size of the buffer used to write the values. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/** The number of rows. */
+	private final int numberOfRows;
+
+	/** The number of columns. */
+	private final int numberOfColumns;
+
+	/** The index in row-major order of each landmark. */
+	private final int[] landmarks;
+
+	/** The energy from each landmark to each cell, landmarks first. */
+	private final DoubleBuffer energies;
+
+	/** The fingerprint of the costs of the map. */
+	private final long fingerprint;
+
+	/**
+	 * Instantiates new landmarks.
+	 *
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 * @param landmarks
+	 *            the index of each landmark
+	 * @param energies
+	 *            the energy from each landmark to each cell
+	 * @param fingerprint
+	 *            the fingerprint of the costs of the map
+	 */
+	private Landmarks(int numberOfRows, int numberOfColumns, int[] landmarks, DoubleBuffer energies,
+			long fingerprint) {
+		this.numberOfRows = numberOfRows;
+		this.numberOfColumns = numberOfColumns;
+		this.landmarks = landmarks;
+		this.energies = energies;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Choose the landmarks of a map and find the energy from each of them to
+	 * every cell, with one search of Dijkstra by {@link RobotAlgorithm} per
+	 * landmark. If the initial cell reaches fewer cells than landmarks, some
+	 * landmarks are repeated. The graph is not modified.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param numberOfLandmarks
+	 *            the number of landmarks
+	 * @return the landmarks
+	 */
+	public static Landmarks select(GridGraph graph, int numberOfLandmarks) {
+
+		final int numberOfCells = graph.getNumberOfCells();
+
+		if (numberOfLandmarks < 1) {
+			throw new IllegalArgumentException("There must be at least one landmark");
+		}
+		if ((long) numberOfCells * numberOfLandmarks > Integer.MAX_VALUE / Double.BYTES) {
+			throw new IllegalArgumentException("Too many landmarks for the size of the map");
+		}
+
+		final GridGraph searchGraph = new GridGraph(graph);
+		final RobotAlgorithm algorithm = new RobotAlgorithm(searchGraph, QueueType.BINARY, true,
+				SearchMode.DIJKSTRA, false, null);
+		final DoubleBuffer energies = DoubleBuffer.allocate(numberOfCells * numberOfLandmarks);
+		final int[] landmarks = new int[numberOfLandmarks];
+
+		// The energy from the nearest landmark, or from the initial cell
+		final double[] nearestEnergies = new double[numberOfCells];
+		searchFrom(algorithm, searchGraph, graph.getInitialCell());
+		for (int cell = 0; cell < numberOfCells; cell++) {
+			nearestEnergies[cell] = searchGraph.getDistance(cell);
+		}
+
+		for (int i = 0; i < numberOfLandmarks; i++) {
+
+			final int landmark = getFarthestCell(nearestEnergies);
+			landmarks[i] = graph.getTag(landmark) - 1;
+			searchFrom(algorithm, searchGraph, landmark);
+
+			for (int cell = 0; cell < numberOfCells; cell++) {
+				final double energy = searchGraph.getDistance(cell);
+				energies.put((graph.getTag(cell) - 1) * numberOfLandmarks + i, energy);
+				nearestEnergies[cell] = i == 0 ? energy : Math.min(nearestEnergies[cell], energy);
+			}
+
+		}
+
+		return new Landmarks(graph.getNumberOfRows(), graph.getNumberOfColumns(), landmarks, energies,
+				ClusterHierarchy.getFingerprint(graph));
+
+	}
+
+	/**
+	 * Search from a cell to every reachable cell.
+	 *
+	 * @param algorithm
+	 *            the algorithm
+	 * @param graph
+	 *            the graph of the algorithm, which receives the energies
+	 * @param cell
+	 *            the cell
+	 */
+	private static void searchFrom(RobotAlgorithm algorithm, GridGraph graph, int cell) {
+		graph.setEndpoints(cell, graph.getFinalCell());
+		algorithm.rankFinalCells();
+	}
+
+	/**
+	 * Gets the reachable cell with the highest energy.
+	 *
+	 * @param energies
+	 *            the energy of each cell
+	 * @return the cell
+	 */
+	private static int getFarthestCell(double[] energies) {
+
+		int farthestCell = 0;
+		double farthestEnergy = -1.0;
+		for (int cell = 0; cell < energies.length; cell++) {
+			if (energies[cell] > farthestEnergy && !Double.isInfinite(energies[cell])) {
+				farthestCell = cell;
+				farthestEnergy = energies[cell];
+			}
+		}
+
+		return farthestCell;
+
+	}
+
+	/**
+	 * Estimate the energy needed to go from a cell to the nearest final cell
+	 * of the graph of a state.
+	 *
+	 * @param state
+	 *            the state, updated for the final cells of the graph
+	 * @param cell
+	 *            the cell
+	 * @return the estimate
+	 */
+	public double estimate(LandmarkState state, int cell) {
+
+		final GridGraph graph = state.getGraph();
+		final int numberOfLandmarks = landmarks.length;
+		final int first = (graph.getTag(cell) - 1) * numberOfLandmarks;
+		final double cost = graph.getCost(cell);
+
+		double estimate = 0.0;
+		for (int j = 0; j < numberOfLandmarks; j++) {
+			final double toCell = energies.get(first + j);
+			final double toFinalCells = state.getFinalEnergy(j);
+			// A landmark that does not reach the cell and every final cell
+			// gives no bound
+			if (toCell != Double.POSITIVE_INFINITY && !Double.isNaN(toFinalCells)) {
+				estimate = Math.max(estimate,
+						Math.max(toFinalCells - toCell, toCell + state.getReverseOffset(j) - cost));
+			}
+		}
+
+		return estimate;
+
+	}
+
+	/**
+	 * Gets the energy from a landmark to a cell.
+	 *
+	 * @param index
+	 *            the index of the cell in row-major order
+	 * @param landmark
+	 *            the index of the landmark
+	 * @return the energy, infinite if the landmark does not reach the cell
+	 */
+	double getEnergy(int index, int landmark) {
+		return energies.get(index * landmarks.length + landmark);
+	}
+
+	/**
+	 * Check that a graph has the size of the map of the landmarks.
+	 *
+	 * @param graph
+	 *            the graph
+	 */
+	void checkGraph(GridGraph graph) {
+		if (graph.getNumberOfRows() != numberOfRows || graph.getNumberOfColumns() != numberOfColumns) {
+			throw new IllegalArgumentException("The landmarks belong to a map of another size");
+		}
+	}
+
+	/**
+	 * Write the landmarks to a binary file, which must not exist.
+	 *
+	 * @param outputPath
+	 *            the output path
+	 */
+	public void write(Path outputPath) {
+
+		if (Files.exists(outputPath)) {
+			throw new IllegalArgumentException("Output file already exists");
+		}
+
+		try (FileChannel channel = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+
+			final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(numberOfRows).putInt(numberOfColumns)
+					.putInt(landmarks.length).putLong(fingerprint);
+
+			for (final int landmark : landmarks) {
+				if (buffer.remaining() < Integer.BYTES) {
+					flush(channel, buffer);
+				}
+				buffer.putInt(landmark);
+			}
+			for (int i = 0; i < energies.limit(); i++) {
+				if (buffer.remaining() < Double.BYTES) {
+					flush(channel, buffer);
+				}
+				buffer.putDouble(energies.get(i));
+			}
+			flush(channel, buffer);
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Write the content of a buffer to a channel and clear it.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		BinaryMap.writeFully(channel, buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Read the landmarks of a map from a binary file. The energies are mapped
+	 * in memory, not read: the pages of the file are loaded by the operating
+	 * system when a search needs them.
+	 *
+	 * @param inputPath
+	 *            the input path
+	 * @param graph
+	 *            the graph of the map, whose costs must be those of the map
+	 *            of the file
+	 * @return the landmarks
+	 */
+	public static Landmarks read(Path inputPath, GridGraph graph) {
+
+		if (!Files.exists(inputPath)) {
+			throw new IllegalArgumentException("Input file does not exist");
+		}
+
+		try (FileChannel channel = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			if (!BinaryMap.readFully(channel, header, 0) || header.getInt(0) != MAGIC) {
+				throw new IllegalArgumentException("Invalid landmarks file");
+			}
+			if (header.getInt(4) != VERSION) {
+				throw new IllegalArgumentException("Unsupported landmarks version " + header.getInt(4));
+			}
+
+			final int numberOfRows = header.getInt(8);
+			final int numberOfColumns = header.getInt(12);
+			final int numberOfLandmarks = header.getInt(16);
+			final long numberOfCells = (long) numberOfRows * numberOfColumns;
+			if (numberOfLandmarks < 1 || numberOfRows < 1 || numberOfColumns < 1
+					|| numberOfCells * numberOfLandmarks > Integer.MAX_VALUE / Double.BYTES
+					|| channel.size() != HEADER_SIZE + (long) numberOfLandmarks * Integer.BYTES
+							+ numberOfCells * numberOfLandmarks * Double.BYTES) {
+				throw new IllegalArgumentException("Invalid landmarks file");
+			}
+			if (numberOfRows != graph.getNumberOfRows() || numberOfColumns != graph.getNumberOfColumns()
+					|| header.getLong(20) != ClusterHierarchy.getFingerprint(graph)) {
+				throw new IllegalArgumentException("The landmarks file belongs to another map");
+			}
+
+			final ByteBuffer landmarkBuffer = ByteBuffer.allocate(numberOfLandmarks * Integer.BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			BinaryMap.readFully(channel, landmarkBuffer, HEADER_SIZE);
+			landmarkBuffer.flip();
+			final int[] landmarks = new int[numberOfLandmarks];
+			landmarkBuffer.asIntBuffer().get(landmarks);
+			for (final int landmark : landmarks) {
+				if (landmark < 0 || landmark >= numberOfCells) {
+					throw new IllegalArgumentException("Invalid landmarks file");
+				}
+			}
+
+			final long offset = HEADER_SIZE + (long) numberOfLandmarks * Integer.BYTES;
+			final DoubleBuffer energies = channel.map(MapMode.READ_ONLY, offset, channel.size() - offset)
+					.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+
+			return new Landmarks(numberOfRows, numberOfColumns, landmarks, energies, header.getLong(20));
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Gets the number of landmarks.
+	 *
+	 * @return the number of landmarks
+	 */
+	public int getNumberOfLandmarks() {
+		return landmarks.length;
+	}
+
+	/**
+	 * Gets the index in row-major order of a landmark, the tag of its cell
+	 * minus one.
+	 *
+	 * @param index
+	 *            the index of the landmark
+	 * @return the index of its cell
+	 */
+	public int getLandmark(int index) {
+		return landmarks[index];
+	}
+
+	/**
+	 * Gets the size in bytes of the table of energies.
+	 *
+	 * @return the size
+	 */
+	public long getTableSize() {
+		return (long) energies.limit() * Double.BYTES;
+	}
+
+	/**
+	 * Gets the number of rows.
+	 *
+	 * @return the number of rows
+	 */
+	public int getNumberOfRows() {
+		return numberOfRows;
+	}
+
+	/**
+	 * Gets the number of columns.
+	 *
+	 * @return the number of columns
+	 */
+	public int getNumberOfColumns() {
+		return numberOfColumns;
+	}
+
+}
@@ -0,0 +1,241 @@
+package es.uned.peda.algorithm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The Class LineScanner.
+ *
+ * Reads the lines of a file as bytes through a large buffer filled from a
+ * {@link FileChannel}, without creating a String per line. Lines end at a line
+ * feed, a carriage return or both, as in
+ * {@link java.io.BufferedReader#readLine()}. The bytes of the current line
+ * stay in the buffer until the next line is read. A scanner can read only a
+ * range of the file, so that several threads read different parts of it.
+ */
+final class LineScanner implements Closeable {
+
+	/** The default initial size of the buffer. */
+	static final int BUFFER_SIZE = 1 << 20;
+
+	/** The channel of the file. */
+	private final FileChannel channel;
+
+	/** The offset in the file after the last byte that is read. */
+	private final long end;
+
+	/** The offset in the file of the next byte to read from the channel. */
+	private long readOffset;
+
+	/** The offset in the file of the first byte of the buffer. */
+	private long bufferOffset;
+
+	/** The buffer, which grows if a line does not fit in it. */
+	private byte[] bytes;
+
+	/** The position of the first byte not read yet. */
+	private int position = 0;
+
+	/** The position after the last byte in the buffer. */
+	private int limit = 0;
+
+	/** Whether the end of the file has been reached. */
+	private boolean endOfFile = false;
+
+	/** Whether the last line ended in a carriage return. */
+	private boolean skipLineFeed = false;
+
+	/** The position of the first byte of the current line. */
+	private int lineStart = 0;
+
+	/** The position after the last byte of the current line. */
+	private int lineEnd = 0;
+
+	/**
+	 * Instantiates a new line scanner.
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	LineScanner(Path path) throws IOException {
+		this(path, 0, Long.MAX_VALUE, BUFFER_SIZE);
+	}
+
+	/**
+	 * Instantiates a new line scanner that reads a range of a file. The first
+	 * line starts at the beginning of the range and the last one ends at the
+	 * end of the range, with or without a line terminator.
+	 *
+	 * @param path
+	 *            the path of the file
+	 * @param start
+	 *            the offset in the file of the first byte to read
+	 * @param end
+	 *            the offset in the file after the last byte to read
+	 * @param bufferSize
+	 *            the initial size of the buffer
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	LineScanner(Path path, long start, long end, int bufferSize) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.end = end;
+		this.readOffset = start;
+		this.bufferOffset = start;
+		this.bytes = new byte[bufferSize];
+	}
+
+	/**
+	 * Read the next line.
+	 *
+	 * @return true, if there was a line; false at the end of the file
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	boolean nextLine() throws IOException {
+
+		if (skipLineFeed) {
+			if (position == limit) {
+				fill();
+			}
+			if (position < limit && bytes[position] == '\n') {
+				position++;
+			}
+			skipLineFeed = false;
+		}
+
+		int index = position;
+		while (true) {
+
+			while (index < limit) {
+				final byte b = bytes[index];
+				if (b == '\n' || b == '\r') {
+					lineStart = position;
+					lineEnd = index;
+					position = index + 1;
+					skipLineFeed = b == '\r';
+					return true;
+				}
+				index++;
+			}
+
+			if (endOfFile) {
+				if (position == limit) {
+					return false;
+				}
+				lineStart = position;
+				lineEnd = limit;
+				position = limit;
+				return true;
+			}
+
+			final int scanned = index - position;
+			fill();
+			index = position + scanned;
+
+		}
+
+	}
+
+	/**
+	 * Move the bytes not read yet to the beginning of the buffer, growing it
+	 * if it is full, and read more bytes after them.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void fill() throws IOException {
+
+		final int remaining = limit - position;
+		System.arraycopy(bytes, position, bytes, 0, remaining);
+		bufferOffset += position;
+		position = 0;
+		limit = remaining;
+
+		if (limit == bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+
+		final int length = (int) Math.min(bytes.length - limit, end - readOffset);
+		final int read = length == 0 ? -1 : channel.read(ByteBuffer.wrap(bytes, limit, length), readOffset);
+		if (read < 0) {
+			endOfFile = true;
+		} else {
+			limit += read;
+			readOffset += read;
+		}
+
+	}
+
+	/**
+	 * Gets the buffer that holds the current line.
+	 *
+	 * @return the bytes
+	 */
+	byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Gets the position of the first byte of the current line.
+	 *
+	 * @return the line start
+	 */
+	int getLineStart() {
+		return lineStart;
+	}
+
+	/**
+	 * Gets the position after the last byte of the current line.
+	 *
+	 * @return the line end
+	 */
+	int getLineEnd() {
+		return lineEnd;
+	}
+
+	/**
+	 * Gets the offset in the file of the first byte of the current line.
+	 *
+	 * @return the line offset
+	 */
+	long getLineOffset() {
+		return bufferOffset + lineStart;
+	}
+
+	/**
+	 * Gets the current line as a String, decoded as UTF-8.
+	 *
+	 * @return the line
+	 * @throws CharacterCodingException
+	 *             if the line is not valid UTF-8
+	 */
+	String getLine() throws CharacterCodingException {
+		final CharBuffer line = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT)
+				.decode(ByteBuffer.wrap(bytes, lineStart, lineEnd - lineStart));
+		return line.toString();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
@@ -0,0 +1,42 @@
+package es.uned.peda.algorithm;
+
+import java.nio.file.Paths;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class MapConverter.
+ *
+ * Converts a map from the text format read by {@link IOData} to the binary
+ * format of {@link BinaryMap}, which {@link Robot} loads without reading the
+ * costs.
+ */
+public class MapConverter {
+
+	/**
+	 * The main method.
+	 *
+	 * @param args
+	 *            the arguments: fichero_entrada fichero_salida
+	 */
+	public static void main(String[] args) {
+
+		try {
+
+			if (args.length != 2) {
+				throw new IllegalArgumentException("Invalid arguments");
+			}
+
+			final GridGraph map = new IOData().readInput(args[0]).getGraph();
+			BinaryMap.write(map, Paths.get(args[1]));
+
+			System.out.format("Mapa de %dx%d casillas convertido\n", map.getNumberOfRows(), map.getNumberOfColumns());
+
+		} catch (final Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+
+	}
+
+}
@@ -0,0 +1,507 @@
+package es.uned.peda.algorithm;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The Class MapGenerator.
+ *
+ * Creates random maps of any size in the text format read by {@link IOData}
+ * or in the binary format of {@link BinaryMap}. The map is generated and
+ * written one row at a time, so it takes memory proportional to the number of
+ * columns and not to the number of cells. The robot starts at the top left
+ * corner and the exit is at the bottom right one, or in the last row below
+ * the last column of rooms of a maze, and the same parameters and seed always
+ * give the same map.
+ *
+ * The obstacles are placed at random with a density, or are the walls of a
+ * maze with corridors one cell wide, whose rooms are all connected. The exit
+ * can be left to chance, kept reachable by a random path free of obstacles,
+ * or cut off by a full row of obstacles. Since {@link IOData} rejects maps
+ * without obstacles, the top right corner is always an obstacle, and the free
+ * path goes around it.
+ */
+public class MapGenerator {
+
+	/** The default seed. */
+	private static final long DEFAULT_SEED = 1L;
+
+	/** The default density of obstacles. */
+	private static final double DEFAULT_OBSTACLE_DENSITY = 0.2;
+
+	/** The size of the buffer of the output. */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/** The number of rows. */
+	private final int numberOfRows;
+
+	/** The number of columns. */
+	private final int numberOfColumns;
+
+	/** The seed. */
+	private final long seed;
+
+	/** The probability of a cell being an obstacle, when it is not a maze. */
+	private double obstacleDensity = DEFAULT_OBSTACLE_DENSITY;
+
+	/** Whether the map is a maze. */
+	private boolean maze = false;
+
+	/** The distribution of the costs. */
+	private CostDistribution costDistribution = CostDistribution.INTEGER;
+
+	/** Whether the exit can be reached. */
+	private Reachability reachability = Reachability.ANY;
+
+	/** The random number generator of the map being generated. */
+	private Random random;
+
+	/** The rows of the maze being generated, or null. */
+	private EllerMaze mazeRows;
+
+	/** Whether each cell of the row being generated is open. */
+	private boolean[] open;
+
+	/** The row of obstacles that cuts off the exit, or -1. */
+	private int wallRow;
+
+	/** The cell that is always an obstacle, or -1 in a maze. */
+	private int spareCell;
+
+	/** The column where the free path enters the next row. */
+	private int pathColumn;
+
+	/** The row that is generated next. */
+	private int row;
+
+	/**
+	 * The main method.
+	 *
+	 * @param args
+	 *            the arguments: [-s semilla] [-o densidad] [-l] [-c costes]
+	 *            [-r alcance] [-b] filas columnas fichero_salida
+	 */
+	public static void main(String[] args) {
+
+		try {
+
+			long seed = DEFAULT_SEED;
+			double obstacleDensity = DEFAULT_OBSTACLE_DENSITY;
+			boolean maze = false;
+			CostDistribution costDistribution = CostDistribution.INTEGER;
+			Reachability reachability = Reachability.ANY;
+			boolean binary = false;
+
+			int first = 0;
+			while (first < args.length - 1 && args[first].startsWith("-")) {
+				switch (args[first]) {
+				case "-l":
+					maze = true;
+					first++;
+					continue;
+				case "-b":
+					binary = true;
+					first++;
+					continue;
+				case "-s":
+					seed = Long.parseLong(args[first + 1]);
+					break;
+				case "-o":
+					obstacleDensity = Double.parseDouble(args[first + 1]);
+					break;
+				case "-c":
+					costDistribution = CostDistribution.fromName(args[first + 1]);
+					break;
+				case "-r":
+					reachability = Reachability.fromName(args[first + 1]);
+					break;
+				default:
+					throw new IllegalArgumentException("Invalid arguments");
+				}
+				first += 2;
+			}
+			if (args.length - first != 3) {
+				throw new IllegalArgumentException("Invalid arguments");
+			}
+
+			final int numberOfRows = Integer.parseInt(args[first]);
+			final int numberOfColumns = Integer.parseInt(args[first + 1]);
+			final Path outputPath = Paths.get(args[first + 2]);
+
+			final MapGenerator generator = new MapGenerator(numberOfRows, numberOfColumns, seed);
+			generator.setObstacleDensity(obstacleDensity);
+			generator.setMaze(maze);
+			generator.setCostDistribution(costDistribution);
+			generator.setReachability(reachability);
+			if (binary) {
+				generator.writeBinary(outputPath);
+			} else {
+				generator.writeText(outputPath);
+			}
+
+			System.out.format("Mapa de %dx%d casillas generado\n", numberOfRows, numberOfColumns);
+
+		} catch (final Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+
+	}
+
+	/**
+	 * Instantiates a new map generator.
+	 *
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 * @param seed
+	 *            the seed
+	 */
+	public MapGenerator(int numberOfRows, int numberOfColumns, long seed) {
+		if (numberOfRows < 1 || numberOfColumns < 1 || (long) numberOfRows * numberOfColumns < 2) {
+			throw new IllegalArgumentException("The map must have at least two cells");
+		}
+		if ((long) numberOfRows * numberOfColumns > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The map has too many cells");
+		}
+		this.numberOfRows = numberOfRows;
+		this.numberOfColumns = numberOfColumns;
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the probability of a cell being an obstacle, which is not used in
+	 * a maze.
+	 *
+	 * @param obstacleDensity
+	 *            the new obstacle density, from 0 to 1
+	 */
+	public void setObstacleDensity(double obstacleDensity) {
+		if (!(obstacleDensity >= 0.0 && obstacleDensity <= 1.0)) {
+			throw new IllegalArgumentException("The obstacle density must be between 0 and 1");
+		}
+		this.obstacleDensity = obstacleDensity;
+	}
+
+	/**
+	 * Sets whether the map is a maze.
+	 *
+	 * @param maze
+	 *            the new maze
+	 */
+	public void setMaze(boolean maze) {
+		this.maze = maze;
+	}
+
+	/**
+	 * Sets the distribution of the costs.
+	 *
+	 * @param costDistribution
+	 *            the new cost distribution
+	 */
+	public void setCostDistribution(CostDistribution costDistribution) {
+		this.costDistribution = costDistribution;
+	}
+
+	/**
+	 * Sets whether the exit can be reached.
+	 *
+	 * @param reachability
+	 *            the new reachability
+	 */
+	public void setReachability(Reachability reachability) {
+		this.reachability = reachability;
+	}
+
+	/**
+	 * Gets the initial cell.
+	 *
+	 * @return the initial cell
+	 */
+	public int getInitialCell() {
+		return 0;
+	}
+
+	/**
+	 * Gets the final cell: the bottom right corner, or the cell of the last
+	 * row below the last column of rooms of a maze, which is on a border as
+	 * {@link IOData} requires.
+	 *
+	 * @return the final cell
+	 */
+	public int getFinalCell() {
+		if (maze) {
+			return (numberOfRows - 1) * numberOfColumns + EllerMaze.getLastRoom(numberOfColumns);
+		}
+		return numberOfRows * numberOfColumns - 1;
+	}
+
+	/**
+	 * Write the map in the text format.
+	 *
+	 * @param outputPath
+	 *            the output path
+	 */
+	public void writeText(Path outputPath) {
+
+		if (Files.exists(outputPath)) {
+			throw new IllegalArgumentException("Output file already exists");
+		}
+
+		start();
+
+		final int finalCell = getFinalCell();
+		final double[] costs = new double[numberOfColumns];
+		final byte[] digits = new byte[Long.toString(Long.MIN_VALUE).length()];
+
+		try (OutputStream output = new BufferedOutputStream(
+				Files.newOutputStream(outputPath, StandardOpenOption.CREATE_NEW), BUFFER_SIZE)) {
+
+			writeLine(output, Integer.toString(numberOfRows));
+			writeLine(output, Integer.toString(numberOfColumns));
+
+			int cell = 0;
+			while (row < numberOfRows) {
+				nextRow(costs);
+				for (int column = 0; column < numberOfColumns; column++, cell++) {
+					final double cost = costs[column];
+					if (cell == getInitialCell()) {
+						output.write('R');
+					} else if (cell == finalCell) {
+						output.write('S');
+					} else if (Double.isInfinite(cost)) {
+						output.write('O');
+					} else if (cost == Math.rint(cost) && cost < Long.MAX_VALUE) {
+						writeLong(output, (long) cost, digits);
+					} else {
+						output.write(Double.toString(cost).getBytes(StandardCharsets.US_ASCII));
+					}
+					output.write('\n');
+				}
+			}
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Write the map in the binary format. The costs are written first and the
+	 * header at the end, when the range of the costs is known.
+	 *
+	 * @param outputPath
+	 *            the output path
+	 */
+	public void writeBinary(Path outputPath) {
+
+		if (Files.exists(outputPath)) {
+			throw new IllegalArgumentException("Output file already exists");
+		}
+
+		start();
+
+		final int initialCell = getInitialCell();
+		final int finalCell = getFinalCell();
+		final int[] finalCells = { finalCell };
+		final int[] freeCells = { initialCell, finalCell };
+		final int costSize = costDistribution.fitsInFloat() ? Float.BYTES : Double.BYTES;
+		final double[] costs = new double[numberOfColumns];
+		double minCost = Double.POSITIVE_INFINITY;
+		double maxCost = 0.0;
+
+		try (FileChannel channel = FileChannel.open(outputPath, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+
+			channel.position(BinaryMap.getDataOffset(finalCells.length, freeCells.length));
+
+			final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while (row < numberOfRows) {
+				nextRow(costs);
+				for (final double cost : costs) {
+					if (cost > 0.0 && !Double.isInfinite(cost)) {
+						minCost = Math.min(minCost, cost);
+						maxCost = Math.max(maxCost, cost);
+					}
+					if (buffer.remaining() < costSize) {
+						buffer.flip();
+						BinaryMap.writeFully(channel, buffer);
+						buffer.clear();
+					}
+					if (costSize == Float.BYTES) {
+						buffer.putFloat((float) cost);
+					} else {
+						buffer.putDouble(cost);
+					}
+				}
+			}
+			buffer.flip();
+			BinaryMap.writeFully(channel, buffer);
+
+			if (Double.isInfinite(minCost)) {
+				minCost = 0.0;
+			}
+			BinaryMap.writeHeader(channel, numberOfRows, numberOfColumns, costSize, initialCell, finalCells,
+					freeCells, minCost, maxCost);
+
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
+	/**
+	 * Check the parameters and start generating the map from its first row.
+	 */
+	private void start() {
+
+		if (maze) {
+			// The walls between four rooms are the obstacles
+			if (numberOfRows < 2 || numberOfColumns < 2) {
+				throw new IllegalArgumentException("A maze must have at least two rows and two columns");
+			}
+			spareCell = -1;
+		} else if (numberOfRows > 1 && numberOfColumns > 1) {
+			spareCell = numberOfColumns - 1;
+		} else if (reachability == Reachability.GUARANTEED || getFinalCell() == 1) {
+			throw new IllegalArgumentException("The map has no room for an obstacle");
+		} else {
+			spareCell = 1;
+		}
+
+		random = new Random(seed);
+		mazeRows = maze ? new EllerMaze(numberOfRows, numberOfColumns, random) : null;
+		open = new boolean[numberOfColumns];
+		pathColumn = 0;
+		row = 0;
+
+		wallRow = -1;
+		if (reachability == Reachability.FORBIDDEN) {
+			// A row of obstacles between the rows of the initial cell and of
+			// the exit, which in a maze is a row of walls
+			if (numberOfRows < 3) {
+				throw new IllegalArgumentException("The exit can only be cut off in maps with three rows or more");
+			}
+			wallRow = maze ? 1 + 2 * random.nextInt(EllerMaze.getLastRoom(numberOfRows) / 2)
+					: 1 + random.nextInt(numberOfRows - 2);
+		}
+
+	}
+
+	/**
+	 * Generate the next row of the map.
+	 *
+	 * @param costs
+	 *            array where the costs of the cells are written, infinite for
+	 *            the obstacles and zero for the initial cell and the exit
+	 */
+	private void nextRow(double[] costs) {
+
+		if (mazeRows != null) {
+			mazeRows.nextRow(open);
+		} else {
+			for (int column = 0; column < numberOfColumns; column++) {
+				open[column] = random.nextDouble() >= obstacleDensity;
+			}
+		}
+
+		if (row == wallRow) {
+			Arrays.fill(open, false);
+		} else if (reachability == Reachability.GUARANTEED && mazeRows == null) {
+			openPath();
+		}
+		if (spareCell >= 0 && row == spareCell / numberOfColumns) {
+			open[spareCell % numberOfColumns] = false;
+		}
+
+		for (int column = 0; column < numberOfColumns; column++) {
+			costs[column] = open[column] ? costDistribution.nextCost(random) : Double.POSITIVE_INFINITY;
+		}
+
+		final int finalCell = getFinalCell();
+		if (row == getInitialCell() / numberOfColumns) {
+			costs[getInitialCell() % numberOfColumns] = 0.0;
+		}
+		if (row == finalCell / numberOfColumns) {
+			costs[finalCell % numberOfColumns] = 0.0;
+		}
+
+		row++;
+
+	}
+
+	/**
+	 * Open the cells of the free path in the current row. The path walks at
+	 * random towards the diagonal of the map, and in each row it crosses the
+	 * cells from the column where it enters to the column where it goes down,
+	 * until it reaches the last column in the last row. It goes down before
+	 * the top right corner.
+	 */
+	private void openPath() {
+
+		final int lastRow = numberOfRows - 1;
+		final int lastColumn = numberOfColumns - 1;
+
+		int nextColumn = lastColumn;
+		if (row < lastRow) {
+			final long target = (long) (row + 1) * lastColumn / lastRow;
+			nextColumn = pathColumn + random.nextInt(3) - 1 + Long.signum(target - pathColumn);
+			nextColumn = Math.max(0, Math.min(row == 0 ? lastColumn - 1 : lastColumn, nextColumn));
+		}
+
+		for (int column = Math.min(pathColumn, nextColumn); column <= Math.max(pathColumn, nextColumn); column++) {
+			open[column] = true;
+		}
+		pathColumn = nextColumn;
+
+	}
+
+	/**
+	 * Write a line of text.
+	 *
+	 * @param output
+	 *            the output
+	 * @param line
+	 *            the line
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void writeLine(OutputStream output, String line) throws IOException {
+		output.write(line.getBytes(StandardCharsets.US_ASCII));
+		output.write('\n');
+	}
+
+	/**
+	 * Write a non negative long in decimal.
+	 *
+	 * @param output
+	 *            the output
+	 * @param value
+	 *            the value
+	 * @param digits
+	 *            a buffer for the digits
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static void writeLong(OutputStream output, long value, byte[] digits) throws IOException {
+		int start = digits.length;
+		do {
+			digits[--start] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		output.write(digits, start, digits.length - start);
+	}
+
+}
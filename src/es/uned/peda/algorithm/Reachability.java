@@ -0,0 +1,58 @@
+package es.uned.peda.algorithm;
+
+/**
+ * The Enum Reachability.
+ *
+ * Whether the exit of a map created by {@link MapGenerator} can be reached
+ * from the initial cell.
+ */
+public enum Reachability {
+
+	/** Nothing is done about it, the obstacles decide. */
+	ANY("any"),
+
+	/** A path from the initial cell to the exit is kept free of obstacles. */
+	GUARANTEED("guaranteed"),
+
+	/** A full row of obstacles separates the initial cell from the exit. */
+	FORBIDDEN("forbidden");
+
+	/** The name used in the command line. */
+	private final String name;
+
+	/**
+	 * Instantiates a new reachability.
+	 *
+	 * @param name
+	 *            the name
+	 */
+	Reachability(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the reachability with the given name.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the reachability
+	 */
+	public static Reachability fromName(String name) {
+		for (final Reachability reachability : values()) {
+			if (reachability.name.equals(name)) {
+				return reachability;
+			}
+		}
+		throw new IllegalArgumentException("Unknown reachability: " + name);
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+}
@@ -0,0 +1,118 @@
+package es.uned.peda.algorithm;
+
+/**
+ * The Class ReachableCells.
+ *
+ * Immutable answer of a bounded search from a cell: the cells that can be
+ * reached from it with at most a given energy, from the nearest to the
+ * farthest, and the energy needed to reach each of them. If the search was
+ * cut off by a limit, only the nearest cells are known, but their energies
+ * are still exact.
+ */
+public final class ReachableCells {
+
+	/** The status. */
+	private final SearchStatus status;
+
+	/** The energy budget. */
+	private final double maxEnergy;
+
+	/** The cells, from the nearest to the farthest. */
+	private final int[] cells;
+
+	/** The energy needed to reach each cell. */
+	private final double[] energies;
+
+	/** The number of iterations. */
+	private final int iterations;
+
+	/**
+	 * Instantiates new reachable cells. The arrays are not copied.
+	 *
+	 * @param status
+	 *            the status: complete or cut off by a limit
+	 * @param maxEnergy
+	 *            the energy budget
+	 * @param cells
+	 *            the cells, from the nearest to the farthest
+	 * @param energies
+	 *            the energy needed to reach each cell
+	 * @param iterations
+	 *            the number of iterations
+	 */
+	public ReachableCells(SearchStatus status, double maxEnergy, int[] cells, double[] energies, int iterations) {
+		this.status = status;
+		this.maxEnergy = maxEnergy;
+		this.cells = cells;
+		this.energies = energies;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Gets the status.
+	 *
+	 * @return the status
+	 */
+	public SearchStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Checks if every cell reachable within the budget is known.
+	 *
+	 * @return true, if the search was not cut off
+	 */
+	public boolean isComplete() {
+		return status == SearchStatus.COMPLETE;
+	}
+
+	/**
+	 * Gets the energy budget.
+	 *
+	 * @return the energy budget
+	 */
+	public double getMaxEnergy() {
+		return maxEnergy;
+	}
+
+	/**
+	 * Gets the number of cells.
+	 *
+	 * @return the number of cells
+	 */
+	public int getNumberOfCells() {
+		return cells.length;
+	}
+
+	/**
+	 * Gets a cell.
+	 *
+	 * @param index
+	 *            the index, from the nearest cell to the farthest
+	 * @return the cell
+	 */
+	public int getCell(int index) {
+		return cells[index];
+	}
+
+	/**
+	 * Gets the energy needed to reach a cell.
+	 *
+	 * @param index
+	 *            the index, from the nearest cell to the farthest
+	 * @return the energy
+	 */
+	public double getEnergy(int index) {
+		return energies[index];
+	}
+
+	/**
+	 * Gets the number of iterations.
+	 *
+	 * @return the iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+}
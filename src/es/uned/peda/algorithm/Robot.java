@@ -1,10 +1,15 @@
 package es.uned.peda.algorithm;
 
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
-import es.uned.peda.dataStructures.Node;
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.LayoutType;
 import es.uned.peda.dataStructures.ProblemData;
+import es.uned.peda.dataStructures.QueueType;
 
 // TODO: Auto-generated Javadoc
 /**
@@ -21,6 +26,48 @@ public class Robot {
 	/** The trace. */
 	private static boolean trace = false;
 
+	/** The delta trace, which only shows the cells changed in each iteration. */
+	private static boolean deltaTrace = false;
+
+	/** The frontier only mode of the heap. */
+	private static boolean frontierOnly = false;
+
+	/** The type of priority queue. */
+	private static QueueType queueType = QueueType.BINARY;
+
+	/** The search mode. */
+	private static SearchMode searchMode = SearchMode.DIJKSTRA;
+
+	/** Compare the iterations with the algorithm of Dijkstra. */
+	private static boolean compare = false;
+
+	/** Print the exits ranked by the energy needed to reach them. */
+	private static boolean rankExits = false;
+
+	/** The file where the binary trace is recorded, or null. */
+	private static String traceFile = null;
+
+	/** The number of threads that read the input file. */
+	private static int readThreads = 1;
+
+	/** Print the metrics of the search. */
+	private static boolean printMetrics = false;
+
+	/** The layout of the cells in memory. */
+	private static LayoutType layoutType = LayoutType.ROW_MAJOR;
+
+	/** The file where the distance field to the exits is written, or null. */
+	private static String fieldFile = null;
+
+	/** The file of the cluster hierarchy used to search, or null. */
+	private static String hierarchyFile = null;
+
+	/** The file of the landmarks used as heuristic, or null. */
+	private static String landmarksFile = null;
+
+	/** The energy budget of the bounded searches, or NaN without them. */
+	private static double energyBudget = Double.NaN;
+
 	/**
 	 * The main method.
 	 *
@@ -34,14 +81,55 @@ public class Robot {
 			parseArguments(args);
 
 			final IOData iodata = new IOData();
-			final ProblemData data = iodata.readInput(inputFile);
+			final long loadStart = System.nanoTime();
+			final ProblemData data = readThreads == 1 ? iodata.readInput(inputFile)
+					: iodata.readInput(inputFile, readThreads);
+			final long loadTime = System.nanoTime() - loadStart;
 			final PrintStream output = outputFile == null ? System.out : iodata.getOutput(outputFile);
 
-			final List<Node> nodes = data.getNodes();
-			final Node initialNode = data.getInitialNode();
-			final Node finalNode = data.getFinalNode();
+			final long buildStart = System.nanoTime();
+			final GridGraph graph = layoutType == LayoutType.ROW_MAJOR ? data.getGraph()
+					: new GridGraph(data.getGraph(), layoutType);
+			if (hierarchyFile != null) {
+				searchWithHierarchy(graph, output);
+				return;
+			}
+			final RobotAlgorithm algorithm = new RobotAlgorithm(graph, queueType, frontierOnly, searchMode, trace,
+					output);
+			final long buildTime = System.nanoTime() - buildStart;
+			if (landmarksFile != null) {
+				algorithm.setLandmarks(loadLandmarks(graph));
+			}
+			algorithm.setDeltaTrace(deltaTrace);
+			final SearchMetrics metrics = printMetrics ? new SearchMetrics() : null;
+			if (metrics != null) {
+				metrics.setLoadTime(loadTime);
+				metrics.setBuildTime(buildTime);
+			}
+			algorithm.setMetrics(metrics);
+			try (TraceRecorder recorder = traceFile == null ? null : TraceRecorder.create(traceFile)) {
+				algorithm.setTraceRecorder(recorder);
+				algorithm.run();
+			}
+			if (metrics != null) {
+				output.format("\nMetricas de la busqueda: %s\n", metrics.toJson());
+			}
 
-			new RobotAlgorithm(nodes, initialNode, finalNode, trace, output).run();
+			if (compare) {
+				compareWithDijkstra(graph, algorithm.getIterations(), output);
+			}
+
+			if (rankExits) {
+				printExitRanking(graph, output);
+			}
+
+			if (fieldFile != null) {
+				writeDistanceField(graph, output);
+			}
+
+			if (!Double.isNaN(energyBudget)) {
+				printBoundedSearches(graph, output);
+			}
 
 		} catch (final Exception e) {
 			System.err.println(e.getMessage());
@@ -50,6 +138,174 @@ public class Robot {
 
 	}
 
+	/**
+	 * Search again with the algorithm of Dijkstra and print how many
+	 * iterations the selected search mode has saved.
+	 *
+	 * @param graph
+	 *            the graph, with the result of the selected search mode
+	 * @param selectedIterations
+	 *            the iterations of the selected search mode
+	 * @param output
+	 *            the output
+	 */
+	private static void compareWithDijkstra(GridGraph graph, int selectedIterations, PrintStream output) {
+
+		graph.reset();
+
+		final int dijkstraIterations = new RobotAlgorithm(graph, queueType, frontierOnly, SearchMode.DIJKSTRA, false,
+				null).search();
+
+		output.format("\nIteraciones con %s %d. Iteraciones con dijkstra %d. Iteraciones ahorradas %d\n",
+				searchMode.getName(), selectedIterations, dijkstraIterations, dijkstraIterations - selectedIterations);
+
+	}
+
+	/**
+	 * Search again from the initial cell to every reachable cell and print the
+	 * exits ranked by the energy needed to reach them.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param output
+	 *            the output
+	 */
+	private static void printExitRanking(GridGraph graph, PrintStream output) {
+
+		graph.reset();
+
+		final List<RouteResult> ranking = new RobotAlgorithm(graph, queueType, frontierOnly, SearchMode.DIJKSTRA,
+				false, null).rankFinalCells();
+
+		output.format("\nSalidas ordenadas por energia:\n");
+		for (final RouteResult exit : ranking) {
+			final int cell = exit.getFinalCell();
+			if (exit.isReachable()) {
+				output.format("S[%d,%d]  Energía consumida: %.1f\n", graph.getX(cell), graph.getY(cell),
+						exit.getEnergy());
+			} else {
+				output.format("S[%d,%d]  No existe camino\n", graph.getX(cell), graph.getY(cell));
+			}
+		}
+
+	}
+
+	/**
+	 * Search again for an exit within the energy budget and for the cells
+	 * that can be reached within it, and print both answers.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param output
+	 *            the output
+	 */
+	private static void printBoundedSearches(GridGraph graph, PrintStream output) {
+
+		final RobotAlgorithm algorithm = new RobotAlgorithm(graph, queueType, frontierOnly, searchMode, false, null);
+
+		final EscapeResult escape = algorithm.findEscape(energyBudget);
+		if (escape.isFound()) {
+			final int cell = escape.getRoute().getFinalCell();
+			output.format("\nSalida con energia como maximo %.1f: S[%d,%d]  Energía consumida: %.1f\n", energyBudget,
+					graph.getX(cell), graph.getY(cell), escape.getRoute().getEnergy());
+		} else {
+			output.format("\nSalida con energia como maximo %.1f: %s\n", energyBudget, escape.getStatus().getName());
+		}
+
+		final ReachableCells reachable = algorithm.findReachableCells(energyBudget);
+		output.format("Casillas alcanzables con energia como maximo %.1f: %d\n", energyBudget,
+				reachable.getNumberOfCells());
+
+	}
+
+	/**
+	 * Search with the cluster hierarchy of the hierarchy file, which is built
+	 * in the optimal mode and saved if it does not exist yet, and print the
+	 * route.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param output
+	 *            the output
+	 */
+	private static void searchWithHierarchy(GridGraph graph, PrintStream output) {
+
+		final Path path = Paths.get(hierarchyFile);
+		final ClusterHierarchy hierarchy;
+		if (Files.exists(path)) {
+			hierarchy = ClusterHierarchy.read(path, graph);
+		} else {
+			hierarchy = ClusterHierarchy.build(graph, ClusterHierarchy.DEFAULT_CLUSTER_SIZE, true);
+			hierarchy.write(path);
+		}
+
+		final RouteResult route = new HierarchicalSearch(hierarchy).search();
+
+		if (!route.isReachable()) {
+			output.format("\nFinal de la busqueda jerarquica. Nodos expandidos %d. No existe camino.\n",
+					route.getIterations());
+			return;
+		}
+
+		output.format("\nFinal de la busqueda jerarquica. Nodos expandidos %d\n", route.getIterations());
+		output.format("\nCamino seguido: ");
+		final int[] cells = route.getPath();
+		for (int i = 0; i < cells.length; i++) {
+			final String c = i == 0 ? "R" : i == cells.length - 1 ? "S" : "";
+			output.format("%s%s[%d,%d]", i == 0 ? "" : ",", c, graph.getX(cells[i]), graph.getY(cells[i]));
+		}
+		output.format("  Energía consumida: %.1f\n", route.getEnergy());
+
+	}
+
+	/**
+	 * Read the landmarks of the landmarks file or, if it does not exist yet,
+	 * choose them and save them.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the landmarks
+	 */
+	private static Landmarks loadLandmarks(GridGraph graph) {
+
+		final Path path = Paths.get(landmarksFile);
+		if (Files.exists(path)) {
+			return Landmarks.read(path, graph);
+		}
+
+		final Landmarks landmarks = Landmarks.select(graph, Landmarks.DEFAULT_LANDMARKS);
+		landmarks.write(path);
+
+		return landmarks;
+
+	}
+
+	/**
+	 * Compute the energy needed to reach the nearest exit from every cell with
+	 * a single search from the exits and write it to the field file.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param output
+	 *            the output
+	 */
+	private static void writeDistanceField(GridGraph graph, PrintStream output) {
+
+		final DistanceField field = DistanceField.compute(graph);
+		field.write(Paths.get(fieldFile));
+
+		int reachingCells = 0;
+		for (int cell = 0; cell < graph.getNumberOfCells(); cell++) {
+			if (!Double.isInfinite(field.getEnergy(cell))) {
+				reachingCells++;
+			}
+		}
+
+		output.format("\nCampo de distancias a las salidas grabado en %s: %d casillas llegan a una salida\n",
+				fieldFile, reachingCells);
+
+	}
+
 	/**
 	 * Parses the arguments.
 	 *
@@ -65,32 +321,107 @@ public class Robot {
 			}
 		}
 
-		// Otherwise, run the algorithm
-		switch (args.length) {
-		case 1:
-			if (args[0].equals("-t")) {
+		// Otherwise, read the options that precede the file names
+		int first = 0;
+		while (first < args.length && args[first].startsWith("-")) {
+			switch (args[first]) {
+			case "-t":
+				trace = true;
+				break;
+			case "-d":
+				trace = true;
+				deltaTrace = true;
+				break;
+			case "-f":
+				frontierOnly = true;
+				break;
+			case "-q":
+				if (++first == args.length) {
+					error();
+					System.exit(-1);
+				}
+				queueType = QueueType.fromName(args[first]);
+				break;
+			case "-a":
+				if (++first == args.length) {
+					error();
+					System.exit(-1);
+				}
+				searchMode = SearchMode.fromName(args[first]);
+				break;
+			case "-c":
+				compare = true;
+				break;
+			case "-e":
+				rankExits = true;
+				break;
+			case "-m":
+				printMetrics = true;
+				break;
+			case "-r":
+				if (++first == args.length) {
+					error();
+					System.exit(-1);
+				}
+				traceFile = args[first];
+				break;
+			case "-p":
+				if (++first == args.length) {
+					error();
+					System.exit(-1);
+				}
+				readThreads = Integer.parseInt(args[first]);
+				break;
+			case "-l":
+				if (++first == args.length) {
+					error();
+					System.exit(-1);
+				}
+				layoutType = LayoutType.fromName(args[first]);
+				break;
+			case "-k":
+				if (++first == args.length) {
+					error();
+					System.exit(-1);
+				}
+				hierarchyFile = args[first];
+				break;
+			case "-b":
+				if (++first == args.length) {
+					error();
+					System.exit(-1);
+				}
+				energyBudget = Double.parseDouble(args[first]);
+				break;
+			case "-g":
+				if (++first == args.length) {
+					error();
+					System.exit(-1);
+				}
+				landmarksFile = args[first];
+				break;
+			case "-x":
+				if (++first == args.length) {
+					error();
+					System.exit(-1);
+				}
+				fieldFile = args[first];
+				break;
+			default:
 				error();
 				System.exit(-1);
 			}
-			inputFile = args[0];
+			first++;
+		}
+
+		// and run the algorithm
+		switch (args.length - first) {
+		case 1:
+			inputFile = args[first];
 			break;
 		case 2:
-			if (args[0].equals("-t")) {
-				trace = true;
-				inputFile = args[1];
-			} else {
-				inputFile = args[0];
-				outputFile = args[1];
-			}
-			break;
-		case 3:
-			if (!args[0].equals("-t")) {
-				error();
-				System.exit(-1);
-			}
-			trace = true;
-			inputFile = args[1];
-			outputFile = args[2];
+			inputFile = args[first];
+			outputFile = args[first + 1];
 			break;
 		default:
 			error();
@@ -111,8 +442,45 @@ public class Robot {
 	 */
 	public static void help() {
 		System.out.println("Sintaxis:\n");
-		System.out.println("robot [-t]  [-h]  [fichero_entrada]  [fichero_salida]\n");
+		System.out.println("robot [-t]  [-d]  [-r fichero_traza]  [-f]  [-q cola]  [-a algoritmo]  [-c]  [-e]");
+		System.out.println("      [-p hilos]  [-m]  [-l disposicion]  [-x fichero_campo]  [-k fichero_jerarquia]");
+		System.out.println("      [-g fichero_referencias]  [-b energia]  [-h]  [fichero_entrada]");
+		System.out.println("      [fichero_salida]\n");
 		System.out.println("-t                Traza la aplicacion del algoritmo a los datos\n");
+		System.out.println("-d                Traza solo las casillas que cambian en cada iteracion, como");
+		System.out.println("                  casilla=distancia/anterior\n");
+		System.out.println("-r fichero_traza  Graba la traza en binario, comprimida si el nombre acaba en .gz.");
+		System.out.println("                  TraceReplay muestra cualquier iteracion sin repetir la busqueda\n");
+		System.out.println("-f                Solo inserta en el monticulo las casillas alcanzadas\n");
+		System.out.println("-q cola           Cola de prioridad: binary (por defecto), 4-ary, pairing, radix,");
+		System.out.println("                  bucket (costes multiplos de un cuanto) o nodes (monticulo original)\n");
+		System.out.println("-a algoritmo      Algoritmo de busqueda: dijkstra (por defecto), astar (A* con la");
+		System.out.println("                  distancia octil a la salida), astar-border (A* con la distancia");
+		System.out.println("                  al borde mas cercano), bidirectional (Dijkstra desde la casilla");
+		System.out.println("                  de salida y la de llegada a la vez), jps (Dijkstra saltando las");
+		System.out.println("                  zonas de coste uniforme) o astar-jps (A* saltando esas zonas)\n");
+		System.out.println("-c                Compara el numero de iteraciones con el algoritmo de Dijkstra\n");
+		System.out.println("-e                Muestra las salidas ordenadas por la energia necesaria para");
+		System.out.println("                  alcanzarlas. Si hay varias salidas, el robot va a la mas cercana\n");
+		System.out.println("-p hilos          Lee el fichero de entrada con varios hilos a la vez\n");
+		System.out.println("-m                Muestra en JSON las metricas de la busqueda: casillas asentadas,");
+		System.out.println("                  relajaciones, operaciones del monticulo, frontera maxima y");
+		System.out.println("                  tiempos de carga, construccion y busqueda en nanosegundos\n");
+		System.out.println("-l disposicion    Orden de las casillas en memoria: row-major (por filas, por");
+		System.out.println("                  defecto) o tiled (en bloques de 8x8, con las casillas vecinas");
+		System.out.println("                  mas cerca en mapas anchos)\n");
+		System.out.println("-x fichero_campo  Graba en binario la energia necesaria para llegar a la salida mas");
+		System.out.println("                  cercana desde cada casilla y la siguiente casilla del camino,");
+		System.out.println("                  calculadas con una sola busqueda desde las salidas\n");
+		System.out.println("-k fichero_jerarquia  Busca con la jerarquia de grupos del fichero (HPA*). Si no");
+		System.out.println("                  existe, la construye en modo optimo y la graba. HierarchyBuilder");
+		System.out.println("                  la construye con otro tamano de grupo o en modo aproximado\n");
+		System.out.println("-g fichero_referencias  Usa como heuristica las cotas de la energia a la salida");
+		System.out.println("                  dadas por la energia desde 16 casillas de referencia (ALT), leidas");
+		System.out.println("                  del fichero. Si no existe, las calcula y las graba\n");
+		System.out.println("-b energia        Busca ademas una salida alcanzable con esa energia como maximo y");
+		System.out.println("                  cuenta las casillas alcanzables con ella, parando ambas busquedas");
+		System.out.println("                  al superarla\n");
 		System.out.println("-h                Muestra esta ayuda\n");
 		System.out.println("fichero_entrada   Nombre del fichero de entrada. Si no existe dara error\n");
 		System.out.println("fichero_salida    Nombre del fichero de salida que se creara para almacenar");
@@ -2,11 +2,16 @@ package es.uned.peda.algorithm;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
-import es.uned.peda.dataStructures.MinDijkstraHeap;
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.IndexedMinHeap;
+import es.uned.peda.dataStructures.IndexedPriorityQueue;
 import es.uned.peda.dataStructures.Node;
+import es.uned.peda.dataStructures.QueueType;
+import es.uned.peda.dataStructures.SearchState;
 
 // TODO: Auto-generated Javadoc
 /**
@@ -14,24 +19,134 @@ import es.uned.peda.dataStructures.Node;
  */
 public class RobotAlgorithm implements Runnable {
 
-	/** The trace. */
-	private final boolean trace;
+	/** The number of iterations between two readings of the clock. */
+	private static final int TIME_CHECK_INTERVAL = 1024;
 
-	/** The initial node. */
-	private final Node initialNode;
+	/** Whether the search is traced, as text or recorded. */
+	private boolean trace;
 
-	/** The final node. */
-	private final Node finalNode;
+	/** The writer of the text trace, or null without it. */
+	private final TraceWriter traceWriter;
+
+	/** The recorder of the binary trace, or null without it. */
+	private TraceRecorder traceRecorder;
+
+	/** The metrics of the searches, or null if they are not measured. */
+	private SearchMetrics metrics;
+
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The initial cell of the current search. */
+	private int initialCell;
+
+	/**
+	 * The final cell of the current search. With several final cells, the
+	 * one reached by the search once it ends.
+	 */
+	private int finalCell;
 
 	/** The special. */
-	private final MinDijkstraHeap heap;
+	private final IndexedPriorityQueue heap;
+
+	/**
+	 * The frontier only mode: cells are inserted in the heap when they are
+	 * reached for the first time instead of at the beginning.
+	 */
+	private final boolean frontierOnly;
+
+	/** The search mode. */
+	private final SearchMode mode;
+
+	/**
+	 * The heuristic. Cells are extracted from the heap by their distance plus
+	 * their estimate, which makes the algorithm A* unless there is no estimate.
+	 */
+	private final Heuristic heuristic;
+
+	/**
+	 * The final cells and free cells indexed for the heuristic, created by the
+	 * first search with a heuristic.
+	 */
+	private HeuristicState heuristicState;
+
+	/**
+	 * The landmarks whose bounds replace the heuristic of the search mode, or
+	 * null.
+	 */
+	private Landmarks landmarks;
+
+	/**
+	 * The final cells measured against the landmarks, created by the first
+	 * search with them.
+	 */
+	private LandmarkState landmarkState;
+
+	/** The heap of the search from the final cell in bidirectional mode. */
+	private final IndexedPriorityQueue reverseHeap;
+
+	/**
+	 * The state of the search from the final cell in bidirectional mode. The
+	 * previous cell of a cell is the next one in the path to the final cell.
+	 * Created by the first bidirectional search.
+	 */
+	private SearchState reverseState;
+
+	/** The jump point rules, created by the first jump point search. */
+	private JumpPoints jumpPoints;
+
+	/**
+	 * The one to all mode: the search does not stop at the final cells and
+	 * uses no heuristic, so it finds the distance to every reachable cell.
+	 */
+	private boolean oneToAll = false;
+
+	/**
+	 * The bounded mode: the search always searches best first, and no cell
+	 * gets a distance above the energy budget, so the search ends when no cell
+	 * within the budget is left.
+	 */
+	private boolean bounded = false;
+
+	/** The energy budget of the bounded mode. */
+	private double energyBudget = Double.POSITIVE_INFINITY;
+
+	/** Whether the cells settled by the search are recorded. */
+	private boolean recordSettledCells = false;
+
+	/** The cells settled by the search, in order, when they are recorded. */
+	private int[] settledCells = new int[16];
+
+	/** The number of cells settled by the search. */
+	private int numberOfSettledCells;
+
+	/** The largest number of iterations of a best first search. */
+	private int maxIterations = Integer.MAX_VALUE;
+
+	/** The longest time of a best first search in nanoseconds, or 0. */
+	private long maxTime = 0;
+
+	/** The time when the current search must stop, if there is a limit. */
+	private long deadline;
+
+	/** The status of the last search. */
+	private SearchStatus status;
 
 	/** The output. */
 	private final PrintStream output;
 
-	/** The nodes. */
+	/**
+	 * The nodes. When the algorithm is created from a list of nodes, the
+	 * result is copied back to them at the end of the run.
+	 */
 	private final List<Node> nodes;
 
+	/** The last cell selected by the search. */
+	private int selectedCell = GridGraph.NO_CELL;
+
+	/** The number of iterations of the search. */
+	private int iterations = 0;
+
 	/**
 	 * Instantiates a new robot dijkstra algorithm.
 	 *
@@ -47,15 +162,127 @@ public class RobotAlgorithm implements Runnable {
 	 *            the output stream
 	 */
 	public RobotAlgorithm(List<Node> nodes, Node initialNode, Node finalNode, boolean trace, PrintStream outputStream) {
+		this(GridGraph.fromNodes(nodes, initialNode, finalNode, nodes.get(nodes.size() - 1).getX(),
+				nodes.get(nodes.size() - 1).getY()), null, null, false, SearchMode.DIJKSTRA, nodes, trace,
+				outputStream);
+	}
 
-		this.initialNode = initialNode;
-		this.finalNode = finalNode;
+	/**
+	 * Instantiates a new robot dijkstra algorithm.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param trace
+	 *            the trace
+	 * @param outputStream
+	 *            the output stream
+	 */
+	public RobotAlgorithm(GridGraph graph, boolean trace, PrintStream outputStream) {
+		this(graph, null, null, false, SearchMode.DIJKSTRA, null, trace, outputStream);
+	}
+
+	/**
+	 * Instantiates a new robot dijkstra algorithm that uses the given
+	 * priority queue. The cells that are not in the queue are inserted when
+	 * the algorithm starts.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param heap
+	 *            the priority queue
+	 * @param trace
+	 *            the trace
+	 * @param outputStream
+	 *            the output stream
+	 */
+	public RobotAlgorithm(GridGraph graph, IndexedPriorityQueue heap, boolean trace, PrintStream outputStream) {
+		this(graph, heap, null, false, SearchMode.DIJKSTRA, null, trace, outputStream);
+	}
+
+	/**
+	 * Instantiates a new robot dijkstra algorithm that uses the given
+	 * priority queue. In frontier only mode, cells enter the queue the first
+	 * time they are reached, so obstacles and unreachable cells never do.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param heap
+	 *            the priority queue, or null to use a binary heap
+	 * @param frontierOnly
+	 *            the frontier only mode
+	 * @param trace
+	 *            the trace
+	 * @param outputStream
+	 *            the output stream
+	 */
+	public RobotAlgorithm(GridGraph graph, IndexedPriorityQueue heap, boolean frontierOnly, boolean trace,
+			PrintStream outputStream) {
+		this(graph, heap, null, frontierOnly, SearchMode.DIJKSTRA, null, trace, outputStream);
+	}
+
+	/**
+	 * Instantiates a new robot algorithm with the given search mode, which
+	 * creates its priority queues of the given type.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param queueType
+	 *            the type of the priority queues
+	 * @param frontierOnly
+	 *            the frontier only mode, which is always used by the
+	 *            bidirectional search
+	 * @param mode
+	 *            the search mode
+	 * @param trace
+	 *            the trace
+	 * @param outputStream
+	 *            the output stream
+	 */
+	public RobotAlgorithm(GridGraph graph, QueueType queueType, boolean frontierOnly, SearchMode mode,
+			boolean trace, PrintStream outputStream) {
+		this(graph, queueType.create(graph, frontierOnly),
+				mode == SearchMode.BIDIRECTIONAL ? queueType.create(graph, true) : null, frontierOnly, mode, null,
+				trace, outputStream);
+	}
+
+	/**
+	 * Instantiates a new robot dijkstra algorithm.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param heap
+	 *            the priority queue, or null to use a binary heap
+	 * @param reverseHeap
+	 *            the priority queue of the search from the final cell, only
+	 *            needed in bidirectional mode
+	 * @param frontierOnly
+	 *            the frontier only mode
+	 * @param mode
+	 *            the search mode
+	 * @param nodes
+	 *            the nodes that receive the result, or null
+	 * @param trace
+	 *            the trace
+	 * @param outputStream
+	 *            the output stream
+	 */
+	private RobotAlgorithm(GridGraph graph, IndexedPriorityQueue heap, IndexedPriorityQueue reverseHeap,
+			boolean frontierOnly, SearchMode mode, List<Node> nodes, boolean trace, PrintStream outputStream) {
+
+		this.graph = graph;
+		this.initialCell = graph.getInitialCell();
+		this.finalCell = graph.getFinalCell();
 
 		this.nodes = nodes;
-		this.heap = new MinDijkstraHeap(nodes);
+		this.heap = heap == null ? new IndexedMinHeap(graph.getNumberOfCells()) : heap;
+		this.reverseHeap = reverseHeap;
+		this.frontierOnly = frontierOnly;
+		this.mode = mode;
+		this.heuristic = mode.getHeuristic();
 
 		this.trace = trace;
 		this.output = outputStream;
+		this.traceWriter = trace ? new TraceWriter(graph, outputStream) : null;
 
 	}
 
@@ -65,163 +292,1003 @@ public class RobotAlgorithm implements Runnable {
 	@Override
 	public void run() {
 
-		Node selectedNode = heap.extractFirstNode();
-		double nodeValue = selectedNode.getValue();
+		search();
+
+		printResult(selectedCell, iterations);
+
+		if (nodes != null) {
+			copyResultToNodes();
+		}
+
+	}
+
+	/**
+	 * Search the path between two cells without printing the result, reusing
+	 * the graph and the priority queues of the previous searches. The search
+	 * state of the graph is reset in constant time, so in frontier only mode a
+	 * search only costs the cells it reaches.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCell
+	 *            the final cell
+	 * @return the number of iterations
+	 */
+	public int search(int initialCell, int finalCell) {
+
+		heap.clear();
+		if (reverseHeap != null) {
+			reverseHeap.clear();
+		}
+		graph.setEndpoints(initialCell, finalCell);
+
+		return search();
+
+	}
+
+	/**
+	 * Search the path between a cell and the nearest of several cells without
+	 * printing the result, reusing the graph and the priority queues of the
+	 * previous searches.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCells
+	 *            the final cells
+	 * @return the number of iterations
+	 */
+	public int search(int initialCell, int[] finalCells) {
+
+		heap.clear();
+		if (reverseHeap != null) {
+			reverseHeap.clear();
+		}
+		graph.setEndpoints(initialCell, finalCells);
+
+		return search();
+
+	}
+
+	/**
+	 * Search the path to the final cell without printing the result. If the
+	 * graph has several final cells, the search stops at the first one it
+	 * selects, which is the one that needs the least energy.
+	 *
+	 * @return the number of iterations
+	 */
+	public int search() {
+
+		initialCell = graph.getInitialCell();
+		finalCell = graph.getFinalCell();
+		deadline = System.nanoTime() + maxTime;
+		if (landmarks != null) {
+			if (landmarkState == null) {
+				landmarkState = new LandmarkState(landmarks, graph);
+			} else {
+				landmarkState.update();
+			}
+		} else if (heuristic != Heuristic.NONE) {
+			if (heuristicState == null) {
+				heuristicState = new HeuristicState(graph);
+			} else {
+				heuristicState.update();
+			}
+		}
+
+		if (traceRecorder != null) {
+			traceRecorder.start(graph, initialCell);
+		}
+
+		if (metrics == null) {
+			return searchWithMode();
+		}
+
+		metrics.startSearch();
+		final long start = System.nanoTime();
+		try {
+			return searchWithMode();
+		} finally {
+			metrics.setSearchTime(System.nanoTime() - start);
+		}
+
+	}
+
+	/**
+	 * Search with the algorithm of the search mode.
+	 *
+	 * @return the number of iterations
+	 */
+	private int searchWithMode() {
+
+		final int count;
+		if (mode == SearchMode.BIDIRECTIONAL && !oneToAll && !bounded) {
+			count = searchBidirectional();
+		} else if (mode.isJumpPointSearch() && !oneToAll && !bounded) {
+			count = searchJumpPoints();
+		} else {
+			return searchBestFirst();
+		}
+
+		status = Double.isInfinite(getEnergy()) ? SearchStatus.NOT_FOUND : SearchStatus.FOUND;
+
+		return count;
+
+	}
+
+	/**
+	 * Search with the algorithm of Dijkstra, which is A* when there is a
+	 * heuristic, until the final cell is selected, or every reachable cell in
+	 * one to all mode.
+	 *
+	 * @return the number of iterations
+	 */
+	private int searchBestFirst() {
+
+		final int[] adjacentCells = new int[GridGraph.MAX_ADJACENT_CELLS];
+
+		if (frontierOnly) {
+			if (!heap.contains(initialCell)) {
+				insert(heap, initialCell, getPriority(initialCell, graph.getDistance(initialCell)));
+			}
+		} else {
+			for (int tag = 1; tag <= graph.getNumberOfCells(); tag++) {
+				final int cell = graph.getCell(tag);
+				if (!heap.contains(cell)) {
+					insert(heap, cell, getPriority(cell, graph.getDistance(cell)));
+				}
+			}
+		}
+
+		selectedCell = extractFirstCell();
+		double cellValue = getValue(selectedCell);
 		int count = 0;
+		status = null;
 
 		if (trace) {
-			printTrace(selectedNode, count);
+			printTrace(selectedCell, count);
 		}
 
-		while (!Double.isInfinite(nodeValue) && !selectedNode.equals(finalNode)) {
+		while (!Double.isInfinite(cellValue) && (oneToAll || !graph.isFinalCell(selectedCell))
+				&& !isOverLimits(count)) {
 
 			count++;
+			if (recordSettledCells) {
+				addSettledCell(selectedCell);
+			}
 
-			for (final Node adjacentNode : selectedNode.getAdjacentNodes()) {
-				final double cost = adjacentNode.getCost();
-				if (!adjacentNode.isVisited() && (adjacentNode.getValue() > nodeValue + cost)) {
-					adjacentNode.setValue(nodeValue + cost);
-					adjacentNode.setPreviousNode(selectedNode);
-					heap.bubbleUpNode(adjacentNode);
+			final int numberOfAdjacentCells = graph.getAdjacentCells(selectedCell, adjacentCells);
+			if (metrics != null) {
+				metrics.cellsRelaxed(numberOfAdjacentCells);
+			}
+			for (int i = 0; i < numberOfAdjacentCells; i++) {
+				final int adjacentCell = adjacentCells[i];
+				final double cost = graph.getCost(adjacentCell);
+				if (!graph.isVisited(adjacentCell) && (graph.getDistance(adjacentCell) > cellValue + cost)
+						&& isWithinBudget(cellValue + cost)) {
+					graph.setDistance(adjacentCell, cellValue + cost);
+					graph.setPreviousCell(adjacentCell, selectedCell);
+					if (trace) {
+						traceChanged(adjacentCell);
+					}
+					updatePriority(heap, adjacentCell, getPriority(adjacentCell, cellValue + cost));
 				}
 			}
 
 			if (trace) {
-				printTrace(selectedNode, count);
+				printTrace(selectedCell, count);
 			}
 
-			selectedNode = heap.extractFirstNode();
-			nodeValue = selectedNode.getValue();
+			selectedCell = extractFirstCell();
+			cellValue = getValue(selectedCell);
 
 		}
 
-		printResult(selectedNode, count);
+		if (status == null) {
+			status = oneToAll ? SearchStatus.COMPLETE
+					: Double.isInfinite(cellValue) ? SearchStatus.NOT_FOUND : SearchStatus.FOUND;
+		}
+		if (status == SearchStatus.FOUND) {
+			finalCell = selectedCell;
+		}
+
+		iterations = count;
+
+		return count;
 
 	}
 
 	/**
-	 * Prints the trace.
+	 * Checks if a distance is within the energy budget of the bounded mode.
+	 * The distance is compared, not the priority: a heuristic that is not
+	 * zero at the final cells, or only by rounding, would leave final cells
+	 * within the budget out.
+	 *
+	 * @param distance
+	 *            the distance
+	 * @return true, if it is or the search is not bounded
+	 */
+	private boolean isWithinBudget(double distance) {
+		return !bounded || distance <= energyBudget;
+	}
+
+	/**
+	 * Checks if the search has reached the limit of iterations or of time,
+	 * which cuts it off. The clock is only read every
+	 * {@value #TIME_CHECK_INTERVAL} iterations.
 	 *
-	 * @param node
-	 *            the node
 	 * @param count
-	 *            the count
+	 *            the iterations done
+	 * @return true, if it has
+	 */
+	private boolean isOverLimits(int count) {
+		if (count >= maxIterations) {
+			status = SearchStatus.ITERATION_LIMIT;
+			return true;
+		}
+		if (maxTime > 0 && count % TIME_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+			status = SearchStatus.TIME_LIMIT;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Record a cell settled by the search.
+	 *
+	 * @param cell
+	 *            the cell
 	 */
-	private void printTrace(Node node, int count) {
+	private void addSettledCell(int cell) {
+		if (numberOfSettledCells == settledCells.length) {
+			settledCells = Arrays.copyOf(settledCells, numberOfSettledCells * 2);
+		}
+		settledCells[numberOfSettledCells++] = cell;
+	}
+
+	/**
+	 * Search at the same time from the initial cell and, over the reversed
+	 * graph, from the final cells, until no path through the cells still in
+	 * the heaps can be shorter than the best one found between the two
+	 * searches. Going back from a cell to the previous one costs the cost of
+	 * the cell that is left, so the distance of the reverse search to a cell
+	 * is the energy needed to go from that cell to the nearest final cell. At
+	 * the end, the previous cells and distances of the cells of the path are
+	 * set as if only the forward search had been done.
+	 *
+	 * @return the number of iterations
+	 */
+	private int searchBidirectional() {
+
+		final int[] adjacentCells = new int[GridGraph.MAX_ADJACENT_CELLS];
+
+		if (reverseState == null) {
+			reverseState = new SearchState(graph.getNumberOfCells());
+		}
+		reverseState.reset(finalCell);
+
+		if (!heap.contains(initialCell)) {
+			insert(heap, initialCell, graph.getDistance(initialCell));
+		}
+		for (int i = 0; i < graph.getNumberOfFinalCells(); i++) {
+			final int cell = graph.getFinalCell(i);
+			if (!reverseHeap.contains(cell)) {
+				reverseState.setDistance(cell, 0.0);
+				insert(reverseHeap, cell, 0.0);
+			}
+		}
+
+		final boolean initialIsFinal = graph.isFinalCell(initialCell);
+		double bestEnergy = initialIsFinal ? 0.0 : Double.POSITIVE_INFINITY;
+		int meetingCell = initialIsFinal ? initialCell : GridGraph.NO_CELL;
+		int meetingNextCell = GridGraph.NO_CELL;
+		int count = 0;
+
+		if (trace) {
+			printTrace(initialCell, count);
+		}
+
+		while (!heap.isEmpty() && !reverseHeap.isEmpty()
+				&& heap.getMinPriority() + reverseHeap.getMinPriority() < bestEnergy) {
+
+			count++;
+
+			final int cell;
+			if (heap.getMinPriority() <= reverseHeap.getMinPriority()) {
+
+				cell = extractFirstCell();
+				final double cellValue = graph.getDistance(cell);
 
-		if (count == 0) {
-			output.format("Inicio del Algoritmo. Casilla origen: %d\n", node.getTag());
+				final int numberOfAdjacentCells = graph.getAdjacentCells(cell, adjacentCells);
+				if (metrics != null) {
+					metrics.cellsRelaxed(numberOfAdjacentCells);
+				}
+				for (int i = 0; i < numberOfAdjacentCells; i++) {
+					final int adjacentCell = adjacentCells[i];
+					final double distance = cellValue + graph.getCost(adjacentCell);
+					if (!graph.isVisited(adjacentCell) && graph.getDistance(adjacentCell) > distance) {
+						graph.setDistance(adjacentCell, distance);
+						graph.setPreviousCell(adjacentCell, cell);
+						if (trace) {
+							traceChanged(adjacentCell);
+						}
+						updatePriority(heap, adjacentCell, distance);
+					}
+					if (distance + reverseState.getDistance(adjacentCell) < bestEnergy) {
+						bestEnergy = distance + reverseState.getDistance(adjacentCell);
+						meetingCell = cell;
+						meetingNextCell = adjacentCell;
+					}
+				}
+
+			} else {
+
+				cell = reverseHeap.extractMin();
+				reverseState.setVisited(cell, true);
+				if (metrics != null) {
+					metrics.cellPopped(true);
+				}
+				final double distance = reverseState.getDistance(cell) + graph.getCost(cell);
+
+				final int numberOfAdjacentCells = graph.getAdjacentCells(cell, adjacentCells);
+				if (metrics != null) {
+					metrics.cellsRelaxed(numberOfAdjacentCells);
+				}
+				for (int i = 0; i < numberOfAdjacentCells; i++) {
+					final int adjacentCell = adjacentCells[i];
+					if (!reverseState.isVisited(adjacentCell) && reverseState.getDistance(adjacentCell) > distance) {
+						reverseState.setDistance(adjacentCell, distance);
+						reverseState.setPreviousCell(adjacentCell, cell);
+						updatePriority(reverseHeap, adjacentCell, distance);
+					}
+					if (graph.getDistance(adjacentCell) + distance < bestEnergy) {
+						bestEnergy = graph.getDistance(adjacentCell) + distance;
+						meetingCell = adjacentCell;
+						meetingNextCell = cell;
+					}
+				}
+
+			}
+
+			if (trace) {
+				printTrace(cell, count);
+			}
+
+		}
+
+		if (meetingCell == GridGraph.NO_CELL) {
+			selectedCell = GridGraph.NO_CELL;
 		} else {
-			output.format("\nIteracion Nº %d  Casilla seleccionada: %d\n", count, node.getTag());
+			int cell = meetingCell;
+			int next = meetingNextCell;
+			while (!graph.isFinalCell(cell)) {
+				graph.setPreviousCell(next, cell);
+				graph.setDistance(next, graph.getDistance(cell) + graph.getCost(next));
+				cell = next;
+				next = reverseState.getPreviousCell(cell);
+			}
+			finalCell = cell;
+			selectedCell = cell;
 		}
 
-		printUnselectedNodes();
-		printDistances();
-		printPrevious();
+		iterations = count;
+
+		return count;
 
 	}
 
 	/**
-	 * Prints the result.
+	 * Search with jump points: instead of the adjacent cells, each cell
+	 * relaxes the jump points found in the directions given by
+	 * {@link JumpPoints}. At the end, the cells skipped by the jumps of the
+	 * path get their previous cells and distances.
 	 *
-	 * @param selectedNode
-	 *            the selected node
-	 * @param count
-	 *            the count
+	 * @return the number of iterations
 	 */
-	private void printResult(Node selectedNode, int count) {
+	private int searchJumpPoints() {
 
-		if (Double.isInfinite(selectedNode.getValue())) {
-			output.format(
-					"\nFinal del algoritmo. Iteraciones realizadas %d. No ha sido posible ancanzar la casilla de llegada. No existe camino.\n",
-					count);
+		if (jumpPoints == null) {
+			jumpPoints = new JumpPoints(graph);
+		}
+		final int[] directions = new int[JumpPoints.NUMBER_OF_DIRECTIONS];
 
-		} else if (selectedNode.equals(finalNode)) {
+		if (!heap.contains(initialCell)) {
+			insert(heap, initialCell, getPriority(initialCell, graph.getDistance(initialCell)));
+		}
 
-			final List<Node> path = getPathToFinalNode();
+		selectedCell = extractFirstCell();
+		double cellValue = getValue(selectedCell);
+		int count = 0;
 
-			output.format(
-					"\nFinal del algoritmo. La casilla seleccionada (%d,%d) es la casilla de llegada. Iteraciones realizadas %d\n",
-					selectedNode.getX(), selectedNode.getY(), count);
+		if (trace) {
+			printTrace(selectedCell, count);
+		}
 
-			output.format("\nCamino seguido: ");
+		while (!Double.isInfinite(cellValue) && !graph.isFinalCell(selectedCell)) {
 
-			for (final Node node : path) {
+			count++;
 
-				final String c;
-				if (node.equals(initialNode)) {
-					c = "R";
-				} else {
-					c = "";
+			final int numberOfDirections = jumpPoints.getDirections(selectedCell,
+					graph.getPreviousCell(selectedCell), directions);
+			for (int i = 0; i < numberOfDirections; i++) {
+				final int jumpPoint = jumpPoints.jump(selectedCell, directions[i]);
+				if (jumpPoint == GridGraph.NO_CELL) {
+					continue;
+				}
+				if (metrics != null) {
+					metrics.cellsRelaxed(1);
+				}
+				final double distance = cellValue + jumpPoints.getJumpEnergy();
+				if (!graph.isVisited(jumpPoint) && graph.getDistance(jumpPoint) > distance) {
+					graph.setDistance(jumpPoint, distance);
+					graph.setPreviousCell(jumpPoint, selectedCell);
+					if (trace) {
+						traceChanged(jumpPoint);
+					}
+					updatePriority(heap, jumpPoint, getPriority(jumpPoint, distance));
 				}
+			}
 
-				output.format("%s[%d,%d],", c, node.getX(), node.getY());
+			if (trace) {
+				printTrace(selectedCell, count);
 			}
 
-			output.format("S[%d,%d]", finalNode.getX(), finalNode.getY());
+			selectedCell = extractFirstCell();
+			cellValue = getValue(selectedCell);
 
-			output.format("  Energía consumida: %.1f\n", finalNode.getValue());
 		}
 
+		if (!Double.isInfinite(cellValue)) {
+			finalCell = selectedCell;
+			fillJumps();
+		}
+
+		iterations = count;
+
+		return count;
+
 	}
 
-	private List<Node> getPathToFinalNode() {
-		final List<Node> list = new ArrayList<>();
+	/**
+	 * Set the previous cells and distances of the cells skipped by the jumps
+	 * of the path to the final cell.
+	 */
+	private void fillJumps() {
+
+		int numberOfJumpPoints = 0;
+		for (int cell = finalCell; cell != initialCell; cell = graph.getPreviousCell(cell)) {
+			numberOfJumpPoints++;
+		}
 
-		Node node = finalNode;
-		while (node != initialNode) {
-			node = node.getPreviousNode();
-			list.add(node);
+		final int[] path = new int[numberOfJumpPoints + 1];
+		int cell = finalCell;
+		for (int i = numberOfJumpPoints; i >= 0; i--) {
+			path[i] = cell;
+			cell = graph.getPreviousCell(cell);
 		}
 
-		Collections.reverse(list);
+		for (int i = 1; i < path.length; i++) {
+			final int target = path[i];
+			final int dx = Integer.signum(graph.getX(target) - graph.getX(path[i - 1]));
+			final int dy = Integer.signum(graph.getY(target) - graph.getY(path[i - 1]));
+			int current = path[i - 1];
+			while (current != target) {
+				final int next = graph.getCellAt(graph.getX(current) + dx, graph.getY(current) + dy);
+				graph.setPreviousCell(next, current);
+				graph.setDistance(next, graph.getDistance(current) + graph.getCost(next));
+				current = next;
+			}
+		}
 
-		return list;
 	}
 
 	/**
-	 * Prints the distances array.
+	 * Gets the priority of a cell in the heap: its distance plus its estimate.
 	 *
+	 * @param cell
+	 *            the cell
+	 * @param distance
+	 *            the distance
+	 * @return the priority
 	 */
-	private void printDistances() {
-		output.format("   Distancia al nodo inicial [");
-		for (final Node node : nodes) {
-			final double v = node.getValue();
-			if (Double.isInfinite(v)) {
-				output.format("  Inf");
-			} else {
-				output.format("%5.1f", v);
+	private double getPriority(int cell, double distance) {
+		if (oneToAll) {
+			return distance;
+		}
+		if (landmarks != null) {
+			return distance + landmarks.estimate(landmarkState, cell);
+		}
+		return heuristic == Heuristic.NONE ? distance : distance + heuristic.estimate(heuristicState, cell);
+	}
+
+	/**
+	 * Gets the energy needed to reach the final cell, which is infinite if
+	 * there is no path. Only valid after the search.
+	 *
+	 * @return the energy
+	 */
+	public double getEnergy() {
+		return graph.getDistance(finalCell);
+	}
+
+	/**
+	 * Gets the cells of the path from the initial cell to the final cell, both
+	 * included. Only valid after the search.
+	 *
+	 * @return the path, empty if there is no path
+	 */
+	public int[] getPath() {
+		return getPath(finalCell);
+	}
+
+	/**
+	 * Gets the cells of the path from the initial cell to a cell, both
+	 * included.
+	 *
+	 * @param lastCell
+	 *            the last cell of the path
+	 * @return the path, empty if there is no path
+	 */
+	private int[] getPath(int lastCell) {
+
+		if (Double.isInfinite(graph.getDistance(lastCell))) {
+			return new int[0];
+		}
+
+		final int[] pathToLastCell = getPathTo(lastCell);
+		final int[] path = Arrays.copyOf(pathToLastCell, pathToLastCell.length + 1);
+		path[pathToLastCell.length] = lastCell;
+
+		return path;
+
+	}
+
+	/**
+	 * Search from the initial cell to every reachable cell with the algorithm
+	 * of Dijkstra, whatever the search mode, and rank the final cells by the
+	 * energy needed to reach them.
+	 *
+	 * @return the result of every final cell, from the lowest energy to the
+	 *         highest, with the unreachable ones at the end
+	 */
+	public List<RouteResult> rankFinalCells() {
+
+		oneToAll = true;
+		try {
+			search();
+		} finally {
+			oneToAll = false;
+		}
+
+		final List<RouteResult> ranking = new ArrayList<>(graph.getNumberOfFinalCells());
+		for (int i = 0; i < graph.getNumberOfFinalCells(); i++) {
+			final int cell = graph.getFinalCell(i);
+			ranking.add(new RouteResult(initialCell, cell, graph.getDistance(cell), getPath(cell), iterations));
+		}
+		ranking.sort(Comparator.comparingDouble(RouteResult::getEnergy));
+
+		return ranking;
+
+	}
+
+	/**
+	 * Search for a final cell that can be reached from the initial cell with
+	 * at most an energy budget, whatever the search mode: the algorithm of
+	 * Dijkstra, or A* with the heuristic of the mode or the landmarks, leaves
+	 * out every cell whose energy exceeds the budget.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCells
+	 *            the final cells
+	 * @param maxEnergy
+	 *            the energy budget
+	 * @return the result
+	 */
+	public EscapeResult findEscape(int initialCell, int[] finalCells, double maxEnergy) {
+		graph.setEndpoints(initialCell, finalCells);
+		return findEscape(maxEnergy);
+	}
+
+	/**
+	 * Search for a final cell of the graph that can be reached from its
+	 * initial cell with at most an energy budget.
+	 *
+	 * @param maxEnergy
+	 *            the energy budget
+	 * @return the result
+	 * @see #findEscape(int, int[], double)
+	 */
+	public EscapeResult findEscape(double maxEnergy) {
+
+		startBoundedSearch(maxEnergy);
+		try {
+			search();
+		} finally {
+			bounded = false;
+		}
+
+		final RouteResult route = status == SearchStatus.FOUND
+				? new RouteResult(initialCell, finalCell, getEnergy(), getPath(), iterations) : null;
+
+		return new EscapeResult(status, maxEnergy, route, iterations);
+
+	}
+
+	/**
+	 * Find every cell that can be reached from a cell with at most an energy
+	 * budget, with the algorithm of Dijkstra whatever the search mode. The
+	 * final cells of the graph are kept but do not stop the search.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param maxEnergy
+	 *            the energy budget
+	 * @return the result
+	 */
+	public ReachableCells findReachableCells(int initialCell, double maxEnergy) {
+
+		final int[] finalCells = new int[graph.getNumberOfFinalCells()];
+		for (int i = 0; i < finalCells.length; i++) {
+			finalCells[i] = graph.getFinalCell(i);
+		}
+		graph.setEndpoints(initialCell, finalCells);
+
+		return findReachableCells(maxEnergy);
+
+	}
+
+	/**
+	 * Find every cell that can be reached from the initial cell of the graph
+	 * with at most an energy budget.
+	 *
+	 * @param maxEnergy
+	 *            the energy budget
+	 * @return the result
+	 * @see #findReachableCells(int, double)
+	 */
+	public ReachableCells findReachableCells(double maxEnergy) {
+
+		startBoundedSearch(maxEnergy);
+		oneToAll = true;
+		recordSettledCells = true;
+		numberOfSettledCells = 0;
+		try {
+			search();
+		} finally {
+			bounded = false;
+			oneToAll = false;
+			recordSettledCells = false;
+		}
+
+		final int[] cells = Arrays.copyOf(settledCells, numberOfSettledCells);
+		final double[] energies = new double[cells.length];
+		for (int i = 0; i < cells.length; i++) {
+			energies[i] = graph.getDistance(cells[i]);
+		}
+
+		return new ReachableCells(status, maxEnergy, cells, energies, iterations);
+
+	}
+
+	/**
+	 * Prepare the graph and the heap for a bounded search from the initial
+	 * cell of the graph.
+	 *
+	 * @param maxEnergy
+	 *            the energy budget
+	 */
+	private void startBoundedSearch(double maxEnergy) {
+
+		if (!(maxEnergy >= 0.0)) {
+			throw new IllegalArgumentException("The energy budget must not be negative");
+		}
+
+		heap.clear();
+		graph.reset();
+		energyBudget = maxEnergy;
+		bounded = true;
+
+	}
+
+	/**
+	 * Gets the status of the last search.
+	 *
+	 * @return the status
+	 */
+	public SearchStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Sets the limit of iterations of the next best first searches, which
+	 * are cut off when they reach it. The bidirectional and jump point
+	 * searches have no limits, except in the bounded searches, which always
+	 * search best first.
+	 *
+	 * @param maxIterations
+	 *            the largest number of iterations, or 0 for no limit
+	 */
+	public void setIterationLimit(int maxIterations) {
+		if (maxIterations < 0) {
+			throw new IllegalArgumentException("The limit of iterations must not be negative");
+		}
+		this.maxIterations = maxIterations == 0 ? Integer.MAX_VALUE : maxIterations;
+	}
+
+	/**
+	 * Sets the limit of time of the next best first searches, which are cut
+	 * off when they reach it.
+	 *
+	 * @param maxTime
+	 *            the longest time in nanoseconds, or 0 for no limit
+	 * @see #setIterationLimit(int)
+	 */
+	public void setTimeLimit(long maxTime) {
+		if (maxTime < 0) {
+			throw new IllegalArgumentException("The limit of time must not be negative");
+		}
+		this.maxTime = maxTime;
+	}
+
+	/**
+	 * Gets the number of iterations of the last search.
+	 *
+	 * @return the iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Sets the delta trace. With trace, each iteration then prints only the
+	 * cells whose distance or previous cell changed in it, instead of every
+	 * cell.
+	 *
+	 * @param deltaTrace
+	 *            the new delta trace
+	 */
+	public void setDeltaTrace(boolean deltaTrace) {
+		if (traceWriter != null) {
+			traceWriter.setDelta(deltaTrace);
+		}
+	}
+
+	/**
+	 * Sets the recorder of the binary trace of the next search, which is
+	 * recorded besides the text trace, if any.
+	 *
+	 * @param traceRecorder
+	 *            the trace recorder, or null to stop recording
+	 */
+	public void setTraceRecorder(TraceRecorder traceRecorder) {
+		this.traceRecorder = traceRecorder;
+		this.trace = traceWriter != null || traceRecorder != null;
+	}
+
+	/**
+	 * Sets the metrics filled by the next searches.
+	 *
+	 * @param metrics
+	 *            the metrics, or null to stop measuring
+	 */
+	public void setMetrics(SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the landmarks whose bounds are used as the heuristic of the next
+	 * searches instead of that of the search mode, which makes the algorithm
+	 * of Dijkstra A* with landmarks (ALT). The bidirectional search uses no
+	 * heuristic and ignores them.
+	 *
+	 * @param landmarks
+	 *            the landmarks of the map of the graph, or null to use the
+	 *            heuristic of the search mode again
+	 */
+	public void setLandmarks(Landmarks landmarks) {
+		if (landmarks != null) {
+			landmarks.checkGraph(graph);
+		}
+		this.landmarks = landmarks;
+		this.landmarkState = null;
+	}
+
+	/**
+	 * Gets the metrics filled by the searches.
+	 *
+	 * @return the metrics, or null if they are not measured
+	 */
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Extract first cell from heap and mark it as visited.
+	 *
+	 * @return the cell, or {@link GridGraph#NO_CELL} if the heap is empty
+	 */
+	private int extractFirstCell() {
+		if (heap.isEmpty()) {
+			return GridGraph.NO_CELL;
+		}
+		final int cell = heap.extractMin();
+		graph.setVisited(cell, true);
+		if (traceRecorder != null) {
+			traceRecorder.cellVisited(cell);
+		}
+		if (metrics != null) {
+			metrics.cellPopped(!Double.isInfinite(graph.getDistance(cell)));
+		}
+		return cell;
+	}
+
+	/**
+	 * Insert a cell in a heap, or decrease its priority if it is already
+	 * there.
+	 *
+	 * @param queue
+	 *            the heap
+	 * @param cell
+	 *            the cell
+	 * @param priority
+	 *            the priority
+	 */
+	private void updatePriority(IndexedPriorityQueue queue, int cell, double priority) {
+		if (queue.contains(cell)) {
+			queue.decreaseKey(cell, priority);
+			if (metrics != null) {
+				metrics.keyDecreased();
 			}
+		} else {
+			insert(queue, cell, priority);
+		}
+	}
+
+	/**
+	 * Insert a cell that is not in a heap.
+	 *
+	 * @param queue
+	 *            the heap
+	 * @param cell
+	 *            the cell
+	 * @param priority
+	 *            the priority
+	 */
+	private void insert(IndexedPriorityQueue queue, int cell, double priority) {
+		queue.insert(cell, priority);
+		if (metrics != null) {
+			metrics.cellPushed(reverseHeap == null ? heap.size() : heap.size() + reverseHeap.size());
 		}
-		output.format("]\n");
 	}
 
 	/**
-	 * Prints the previous node in the path.
+	 * Gets the distance of a cell, which is infinite if there is no cell.
 	 *
+	 * @param cell
+	 *            the cell
+	 * @return the value
 	 */
-	private void printPrevious() {
-		output.format("   Nodos anteriores          [");
+	private double getValue(int cell) {
+		return cell == GridGraph.NO_CELL ? Double.POSITIVE_INFINITY : graph.getDistance(cell);
+	}
 
-		for (final Node node : nodes) {
-			output.format("%5d", node.getPreviousNode().getTag());
+	/**
+	 * Copy the value, visited flag and previous node of every cell to the
+	 * nodes.
+	 */
+	private void copyResultToNodes() {
+		for (int tag = 1; tag <= nodes.size(); tag++) {
+			final int cell = graph.getCell(tag);
+			final Node node = nodes.get(tag - 1);
+			node.setValue(graph.getDistance(cell));
+			node.setVisited(graph.isVisited(cell));
+			node.setPreviousNode(nodes.get(graph.getTag(graph.getPreviousCell(cell)) - 1));
+		}
+	}
+
+	/**
+	 * Prints the trace.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param count
+	 *            the count
+	 */
+	private void printTrace(int cell, int count) {
+
+		if (traceWriter != null) {
+			traceWriter.printIteration(cell, count);
+		}
+		if (traceRecorder != null) {
+			traceRecorder.iterationDone(cell);
 		}
 
-		output.format("]\n");
 	}
 
-	private void printUnselectedNodes() {
+	/**
+	 * Trace that the distance and the previous cell of a cell have changed.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	private void traceChanged(int cell) {
+
+		if (traceWriter != null) {
+			traceWriter.cellChanged(cell);
+		}
+		if (traceRecorder != null) {
+			traceRecorder.cellChanged(cell);
+		}
+
+	}
 
-		output.format("   Nodos pendientes          {");
+	/**
+	 * Prints the result.
+	 *
+	 * @param selectedCell
+	 *            the selected cell
+	 * @param count
+	 *            the count
+	 */
+	private void printResult(int selectedCell, int count) {
 
-		for (final Node node : nodes) {
-			if (!node.isVisited()) {
-				output.format(" %d", node.getTag());
+		if (Double.isInfinite(getValue(selectedCell))) {
+			output.format(
+					"\nFinal del algoritmo. Iteraciones realizadas %d. No ha sido posible ancanzar la casilla de llegada. No existe camino.\n",
+					count);
+
+		} else if (selectedCell == finalCell) {
+
+			final int[] path = getPathTo(finalCell);
+
+			output.format(
+					"\nFinal del algoritmo. La casilla seleccionada (%d,%d) es la casilla de llegada. Iteraciones realizadas %d\n",
+					graph.getX(selectedCell), graph.getY(selectedCell), count);
+
+			output.format("\nCamino seguido: ");
+
+			for (final int cell : path) {
+
+				final String c;
+				if (cell == initialCell) {
+					c = "R";
+				} else {
+					c = "";
+				}
+
+				output.format("%s[%d,%d],", c, graph.getX(cell), graph.getY(cell));
 			}
+
+			output.format("S[%d,%d]", graph.getX(finalCell), graph.getY(finalCell));
+
+			output.format("  Energía consumida: %.1f\n", graph.getDistance(finalCell));
+		}
+
+	}
+
+	/**
+	 * Gets the cells of the path from the initial cell to a cell, without the
+	 * last one.
+	 *
+	 * @param lastCell
+	 *            the last cell
+	 * @return the path
+	 */
+	private int[] getPathTo(int lastCell) {
+
+		int length = 0;
+		for (int cell = lastCell; cell != initialCell; cell = graph.getPreviousCell(cell)) {
+			length++;
 		}
 
-		output.format("}\n");
+		final int[] path = new int[length];
+		int cell = lastCell;
+		while (cell != initialCell) {
+			cell = graph.getPreviousCell(cell);
+			path[--length] = cell;
+		}
 
+		return path;
 	}
 
 }
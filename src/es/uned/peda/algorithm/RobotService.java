@@ -0,0 +1,292 @@
+package es.uned.peda.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class RobotService.
+ *
+ * Thread-safe service that answers searches between cells of a map shared by
+ * all the threads. Every search runs on a workspace taken from a pool: an
+ * algorithm with its own graph, which shares the costs of the map but has its
+ * own search state, and its own priority queues. Workspaces are created when
+ * no free one is left and reused afterwards, so there are never more than
+ * searches running at the same time. Searches are always done in frontier
+ * only mode, so that each one only costs the cells it reaches. With
+ * statistics, the metrics of every search are recorded in them and returned
+ * with its result.
+ */
+public class RobotService implements AutoCloseable {
+
+	/** The map. */
+	private final GridGraph map;
+
+	/** The type of priority queue. */
+	private final QueueType queueType;
+
+	/** The search mode. */
+	private final SearchMode mode;
+
+	/** The executor of the batches. */
+	private final ExecutorService executor;
+
+	/** The number of tasks in which a batch is spread. */
+	private final int parallelism;
+
+	/** Whether the executor was created by the service and must be shut down. */
+	private final boolean ownExecutor;
+
+	/** The free workspaces. */
+	private final Queue<RobotAlgorithm> workspaces = new ConcurrentLinkedQueue<>();
+
+	/** The statistics of the searches, or null if they are not measured. */
+	private volatile SearchStatistics statistics;
+
+	/**
+	 * Instantiates a new robot service with its own pool of threads.
+	 *
+	 * @param map
+	 *            the map
+	 * @param queueType
+	 *            the type of priority queue
+	 * @param mode
+	 *            the search mode
+	 * @param threads
+	 *            the number of threads
+	 */
+	public RobotService(GridGraph map, QueueType queueType, SearchMode mode, int threads) {
+		this(map, queueType, mode, Executors.newFixedThreadPool(checkThreads(threads)), threads, true);
+	}
+
+	/**
+	 * Instantiates a new robot service that runs the batches in an executor,
+	 * which is not shut down by {@link #close()}.
+	 *
+	 * @param map
+	 *            the map
+	 * @param queueType
+	 *            the type of priority queue
+	 * @param mode
+	 *            the search mode
+	 * @param executor
+	 *            the executor
+	 * @param parallelism
+	 *            the number of tasks in which a batch is spread, usually the
+	 *            number of threads of the executor
+	 */
+	public RobotService(GridGraph map, QueueType queueType, SearchMode mode, ExecutorService executor,
+			int parallelism) {
+		this(map, queueType, mode, executor, checkThreads(parallelism), false);
+	}
+
+	/**
+	 * Instantiates a new robot service.
+	 *
+	 * @param map
+	 *            the map
+	 * @param queueType
+	 *            the type of priority queue
+	 * @param mode
+	 *            the search mode
+	 * @param executor
+	 *            the executor
+	 * @param parallelism
+	 *            the number of tasks in which a batch is spread
+	 * @param ownExecutor
+	 *            whether the executor must be shut down by {@link #close()}
+	 */
+	private RobotService(GridGraph map, QueueType queueType, SearchMode mode, ExecutorService executor,
+			int parallelism, boolean ownExecutor) {
+		this.map = new GridGraph(map);
+		this.queueType = queueType;
+		this.mode = mode;
+		this.executor = executor;
+		this.parallelism = parallelism;
+		this.ownExecutor = ownExecutor;
+	}
+
+	/**
+	 * Check that a number of threads is valid.
+	 *
+	 * @param threads
+	 *            the number of threads
+	 * @return the number of threads
+	 */
+	private static int checkThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		return threads;
+	}
+
+	/**
+	 * Search the path between two cells in the calling thread.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCell
+	 *            the final cell
+	 * @return the result
+	 */
+	public RouteResult solve(int initialCell, int finalCell) {
+
+		final RobotAlgorithm workspace = acquireWorkspace();
+		try {
+			return solve(workspace, initialCell, finalCell);
+		} finally {
+			workspaces.add(workspace);
+		}
+
+	}
+
+	/**
+	 * Search the paths between pairs of cells, spreading them among the
+	 * threads of the executor. Each task takes the next pending search until
+	 * there are none left, so long and short searches are balanced.
+	 *
+	 * @param initialCells
+	 *            the initial cell of each search
+	 * @param finalCells
+	 *            the final cell of each search
+	 * @return the results, in the same order as the searches
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	public List<RouteResult> solveAll(int[] initialCells, int[] finalCells) throws InterruptedException {
+
+		if (initialCells.length != finalCells.length) {
+			throw new IllegalArgumentException("There must be as many initial cells as final cells");
+		}
+
+		final RouteResult[] results = new RouteResult[initialCells.length];
+		final AtomicInteger nextSearch = new AtomicInteger();
+
+		final Callable<Void> task = () -> {
+			final RobotAlgorithm workspace = acquireWorkspace();
+			try {
+				int search;
+				while ((search = nextSearch.getAndIncrement()) < results.length) {
+					results[search] = solve(workspace, initialCells[search], finalCells[search]);
+				}
+			} finally {
+				workspaces.add(workspace);
+			}
+			return null;
+		};
+
+		final int numberOfTasks = Math.min(parallelism, results.length);
+		final List<Callable<Void>> tasks = new ArrayList<>(numberOfTasks);
+		for (int i = 0; i < numberOfTasks; i++) {
+			tasks.add(task);
+		}
+
+		for (final Future<Void> future : executor.invokeAll(tasks)) {
+			try {
+				future.get();
+			} catch (final ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+
+		return Arrays.asList(results);
+
+	}
+
+	/**
+	 * Search the path between two cells with a workspace.
+	 *
+	 * @param workspace
+	 *            the workspace
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCell
+	 *            the final cell
+	 * @return the result
+	 */
+	private RouteResult solve(RobotAlgorithm workspace, int initialCell, int finalCell) {
+
+		final SearchStatistics currentStatistics = statistics;
+		if (currentStatistics == null) {
+			workspace.setMetrics(null);
+			final int iterations = workspace.search(initialCell, finalCell);
+			return new RouteResult(initialCell, finalCell, workspace.getEnergy(), workspace.getPath(), iterations);
+		}
+
+		if (workspace.getMetrics() == null) {
+			workspace.setMetrics(new SearchMetrics());
+		}
+		final int iterations = workspace.search(initialCell, finalCell);
+		final SearchMetrics metrics = new SearchMetrics(workspace.getMetrics());
+		currentStatistics.record(metrics);
+		return new RouteResult(initialCell, finalCell, workspace.getEnergy(), workspace.getPath(), iterations,
+				metrics);
+
+	}
+
+	/**
+	 * Take a free workspace from the pool, or create one if there is none.
+	 *
+	 * @return the workspace
+	 */
+	private RobotAlgorithm acquireWorkspace() {
+		final RobotAlgorithm workspace = workspaces.poll();
+		if (workspace != null) {
+			return workspace;
+		}
+		return new RobotAlgorithm(new GridGraph(map), queueType, true, mode, false, null);
+	}
+
+	/**
+	 * Sets the statistics where the metrics of the next searches are recorded.
+	 *
+	 * @param statistics
+	 *            the statistics, or null to stop measuring
+	 */
+	public void setStatistics(SearchStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Gets the statistics where the metrics of the searches are recorded.
+	 *
+	 * @return the statistics, or null if they are not measured
+	 */
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Gets the map.
+	 *
+	 * @return the map
+	 */
+	public GridGraph getMap() {
+		return map;
+	}
+
+	/**
+	 * Shut down the executor if it was created by the service.
+	 */
+	@Override
+	public void close() {
+		if (ownExecutor) {
+			executor.shutdown();
+		}
+	}
+
+}
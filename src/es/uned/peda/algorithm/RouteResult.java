@@ -0,0 +1,149 @@
+package es.uned.peda.algorithm;
+
+/**
+ * The Class RouteResult.
+ *
+ * Immutable result of a search between two cells: the energy consumed, the
+ * cells of the path and the number of iterations of the search.
+ */
+public final class RouteResult {
+
+	/** The initial cell. */
+	private final int initialCell;
+
+	/** The final cell. */
+	private final int finalCell;
+
+	/** The energy, infinite if there is no path. */
+	private final double energy;
+
+	/** The cells of the path, both ends included. */
+	private final int[] path;
+
+	/** The number of iterations. */
+	private final int iterations;
+
+	/** The metrics of the search, or null if they were not measured. */
+	private final SearchMetrics metrics;
+
+	/**
+	 * Instantiates a new route result. The path is not copied.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCell
+	 *            the final cell
+	 * @param energy
+	 *            the energy, infinite if there is no path
+	 * @param path
+	 *            the cells of the path, both ends included, or an empty array
+	 *            if there is no path
+	 * @param iterations
+	 *            the number of iterations
+	 */
+	public RouteResult(int initialCell, int finalCell, double energy, int[] path, int iterations) {
+		this(initialCell, finalCell, energy, path, iterations, null);
+	}
+
+	/**
+	 * Instantiates a new route result with the metrics of its search. Neither
+	 * the path nor the metrics are copied.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCell
+	 *            the final cell
+	 * @param energy
+	 *            the energy, infinite if there is no path
+	 * @param path
+	 *            the cells of the path, both ends included, or an empty array
+	 *            if there is no path
+	 * @param iterations
+	 *            the number of iterations
+	 * @param metrics
+	 *            the metrics of the search, or null
+	 */
+	public RouteResult(int initialCell, int finalCell, double energy, int[] path, int iterations,
+			SearchMetrics metrics) {
+		this.initialCell = initialCell;
+		this.finalCell = finalCell;
+		this.energy = energy;
+		this.path = path;
+		this.iterations = iterations;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Gets the initial cell.
+	 *
+	 * @return the initial cell
+	 */
+	public int getInitialCell() {
+		return initialCell;
+	}
+
+	/**
+	 * Gets the final cell.
+	 *
+	 * @return the final cell
+	 */
+	public int getFinalCell() {
+		return finalCell;
+	}
+
+	/**
+	 * Gets the energy.
+	 *
+	 * @return the energy, infinite if there is no path
+	 */
+	public double getEnergy() {
+		return energy;
+	}
+
+	/**
+	 * Checks if there is a path.
+	 *
+	 * @return true, if the final cell can be reached
+	 */
+	public boolean isReachable() {
+		return !Double.isInfinite(energy);
+	}
+
+	/**
+	 * Gets a copy of the cells of the path.
+	 *
+	 * @return the path, both ends included, or an empty array if there is no
+	 *         path
+	 */
+	public int[] getPath() {
+		return path.clone();
+	}
+
+	/**
+	 * Gets the number of cells of the path.
+	 *
+	 * @return the path length
+	 */
+	public int getPathLength() {
+		return path.length;
+	}
+
+	/**
+	 * Gets the number of iterations.
+	 *
+	 * @return the iterations
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Gets the metrics of the search.
+	 *
+	 * @return the metrics, or null if they were not measured
+	 */
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+}
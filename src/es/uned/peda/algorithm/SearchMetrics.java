@@ -0,0 +1,246 @@
+package es.uned.peda.algorithm;
+
+/**
+ * The Class SearchMetrics.
+ *
+ * Counters of a search, filled by a {@link RobotAlgorithm} that has been given
+ * them with {@link RobotAlgorithm#setMetrics(SearchMetrics)}. The counters of
+ * the search are reset when each search starts. The times of loading the map
+ * and building the structures of the search are not measured by the
+ * algorithm, so they are set by whoever does it, and kept until they are set
+ * again.
+ */
+public final class SearchMetrics {
+
+	/** The cells extracted from the heaps with a finite distance. */
+	private long settledCells;
+
+	/** The adjacent cells, or jump points, examined from the settled cells. */
+	private long relaxations;
+
+	/** The calls to decrease key. */
+	private long decreaseKeys;
+
+	/** The cells inserted in the heaps. */
+	private long pushes;
+
+	/** The cells extracted from the heaps. */
+	private long pops;
+
+	/** The largest number of cells in the heaps at the same time. */
+	private long maxFrontierSize;
+
+	/** The time spent loading the map, in nanoseconds. */
+	private long loadTime;
+
+	/** The time spent building the structures of the search, in nanoseconds. */
+	private long buildTime;
+
+	/** The time spent searching, in nanoseconds. */
+	private long searchTime;
+
+	/**
+	 * Instantiates new search metrics, all zero.
+	 */
+	public SearchMetrics() {
+	}
+
+	/**
+	 * Instantiates a copy of search metrics.
+	 *
+	 * @param metrics
+	 *            the metrics
+	 */
+	public SearchMetrics(SearchMetrics metrics) {
+		this.settledCells = metrics.settledCells;
+		this.relaxations = metrics.relaxations;
+		this.decreaseKeys = metrics.decreaseKeys;
+		this.pushes = metrics.pushes;
+		this.pops = metrics.pops;
+		this.maxFrontierSize = metrics.maxFrontierSize;
+		this.loadTime = metrics.loadTime;
+		this.buildTime = metrics.buildTime;
+		this.searchTime = metrics.searchTime;
+	}
+
+	/**
+	 * Reset the counters of the search.
+	 */
+	void startSearch() {
+		settledCells = 0;
+		relaxations = 0;
+		decreaseKeys = 0;
+		pushes = 0;
+		pops = 0;
+		maxFrontierSize = 0;
+		searchTime = 0;
+	}
+
+	/**
+	 * Count a cell extracted from a heap.
+	 *
+	 * @param settled
+	 *            whether its distance is finite
+	 */
+	void cellPopped(boolean settled) {
+		pops++;
+		if (settled) {
+			settledCells++;
+		}
+	}
+
+	/**
+	 * Count the cells examined from a settled cell.
+	 *
+	 * @param cells
+	 *            the number of cells
+	 */
+	void cellsRelaxed(int cells) {
+		relaxations += cells;
+	}
+
+	/**
+	 * Count a cell inserted in a heap.
+	 *
+	 * @param frontierSize
+	 *            the number of cells in the heaps after the insertion
+	 */
+	void cellPushed(int frontierSize) {
+		pushes++;
+		if (frontierSize > maxFrontierSize) {
+			maxFrontierSize = frontierSize;
+		}
+	}
+
+	/**
+	 * Count a call to decrease key.
+	 */
+	void keyDecreased() {
+		decreaseKeys++;
+	}
+
+	/**
+	 * Gets the cells extracted from the heaps with a finite distance, whose
+	 * distance is then final.
+	 *
+	 * @return the settled cells
+	 */
+	public long getSettledCells() {
+		return settledCells;
+	}
+
+	/**
+	 * Gets the adjacent cells, or jump points, examined from the settled cells.
+	 *
+	 * @return the relaxations
+	 */
+	public long getRelaxations() {
+		return relaxations;
+	}
+
+	/**
+	 * Gets the calls to decrease key.
+	 *
+	 * @return the decrease keys
+	 */
+	public long getDecreaseKeys() {
+		return decreaseKeys;
+	}
+
+	/**
+	 * Gets the cells inserted in the heaps.
+	 *
+	 * @return the pushes
+	 */
+	public long getPushes() {
+		return pushes;
+	}
+
+	/**
+	 * Gets the cells extracted from the heaps.
+	 *
+	 * @return the pops
+	 */
+	public long getPops() {
+		return pops;
+	}
+
+	/**
+	 * Gets the largest number of cells in the heaps at the same time.
+	 *
+	 * @return the max frontier size
+	 */
+	public long getMaxFrontierSize() {
+		return maxFrontierSize;
+	}
+
+	/**
+	 * Gets the time spent loading the map.
+	 *
+	 * @return the load time, in nanoseconds
+	 */
+	public long getLoadTime() {
+		return loadTime;
+	}
+
+	/**
+	 * Sets the time spent loading the map.
+	 *
+	 * @param loadTime
+	 *            the new load time, in nanoseconds
+	 */
+	public void setLoadTime(long loadTime) {
+		this.loadTime = loadTime;
+	}
+
+	/**
+	 * Gets the time spent building the structures of the search.
+	 *
+	 * @return the build time, in nanoseconds
+	 */
+	public long getBuildTime() {
+		return buildTime;
+	}
+
+	/**
+	 * Sets the time spent building the structures of the search.
+	 *
+	 * @param buildTime
+	 *            the new build time, in nanoseconds
+	 */
+	public void setBuildTime(long buildTime) {
+		this.buildTime = buildTime;
+	}
+
+	/**
+	 * Gets the time spent searching.
+	 *
+	 * @return the search time, in nanoseconds
+	 */
+	public long getSearchTime() {
+		return searchTime;
+	}
+
+	/**
+	 * Sets the time spent searching.
+	 *
+	 * @param searchTime
+	 *            the new search time, in nanoseconds
+	 */
+	void setSearchTime(long searchTime) {
+		this.searchTime = searchTime;
+	}
+
+	/**
+	 * Write the metrics as a JSON object.
+	 *
+	 * @return the JSON
+	 */
+	public String toJson() {
+		return "{\"settledCells\":" + settledCells + ",\"relaxations\":" + relaxations + ",\"decreaseKeys\":"
+				+ decreaseKeys + ",\"pushes\":" + pushes + ",\"pops\":" + pops + ",\"maxFrontierSize\":"
+				+ maxFrontierSize + ",\"loadTimeNanos\":" + loadTime + ",\"buildTimeNanos\":" + buildTime
+				+ ",\"searchTimeNanos\":" + searchTime + "}";
+	}
+
+}
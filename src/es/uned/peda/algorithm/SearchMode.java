@@ -0,0 +1,90 @@
+package es.uned.peda.algorithm;
+
+/**
+ * The Enum SearchMode.
+ *
+ * Search algorithms that the robot can use.
+ */
+public enum SearchMode {
+
+	/** The algorithm of Dijkstra. */
+	DIJKSTRA("dijkstra", Heuristic.NONE),
+
+	/** A* with the octile distance to the final cell. */
+	ASTAR("astar", Heuristic.OCTILE),
+
+	/** A* with the distance to the nearest border. */
+	ASTAR_BORDER("astar-border", Heuristic.BORDER),
+
+	/** The algorithm of Dijkstra from the initial and the final cells at once. */
+	BIDIRECTIONAL("bidirectional", Heuristic.NONE),
+
+	/** The algorithm of Dijkstra with jump points. */
+	JPS("jps", Heuristic.NONE),
+
+	/** A* with the octile distance to the final cell and jump points. */
+	ASTAR_JPS("astar-jps", Heuristic.OCTILE);
+
+	/** The name used in the command line. */
+	private final String name;
+
+	/** The heuristic. */
+	private final Heuristic heuristic;
+
+	/**
+	 * Instantiates a new search mode.
+	 *
+	 * @param name
+	 *            the name
+	 * @param heuristic
+	 *            the heuristic
+	 */
+	SearchMode(String name, Heuristic heuristic) {
+		this.name = name;
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Gets the search mode with the given name.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the search mode
+	 */
+	public static SearchMode fromName(String name) {
+		for (final SearchMode mode : values()) {
+			if (mode.name.equals(name)) {
+				return mode;
+			}
+		}
+		throw new IllegalArgumentException("Unknown search mode: " + name);
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Checks if the search mode uses jump points.
+	 *
+	 * @return true, if it does
+	 */
+	public boolean isJumpPointSearch() {
+		return this == JPS || this == ASTAR_JPS;
+	}
+
+	/**
+	 * Gets the heuristic.
+	 *
+	 * @return the heuristic
+	 */
+	public Heuristic getHeuristic() {
+		return heuristic;
+	}
+
+}
@@ -0,0 +1,230 @@
+package es.uned.peda.algorithm;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The Class SearchStatistics.
+ *
+ * Thread-safe histograms of the {@link SearchMetrics} of many searches, which
+ * can be dumped as JSON or read through JMX once they are registered with
+ * {@link #register(String)}.
+ */
+public class SearchStatistics implements SearchStatisticsMBean {
+
+	/** The nanoseconds of a millisecond. */
+	private static final double NANOS_PER_MILLI = 1e6;
+
+	/** The settled cells. */
+	private final Histogram settledCells = new Histogram();
+
+	/** The relaxations. */
+	private final Histogram relaxations = new Histogram();
+
+	/** The calls to decrease key. */
+	private final Histogram decreaseKeys = new Histogram();
+
+	/** The cells inserted in the heaps. */
+	private final Histogram pushes = new Histogram();
+
+	/** The cells extracted from the heaps. */
+	private final Histogram pops = new Histogram();
+
+	/** The largest frontiers. */
+	private final Histogram maxFrontierSizes = new Histogram();
+
+	/** The times spent loading the map. */
+	private final Histogram loadTimes = new Histogram();
+
+	/** The times spent building the structures of the search. */
+	private final Histogram buildTimes = new Histogram();
+
+	/** The times spent searching. */
+	private final Histogram searchTimes = new Histogram();
+
+	/**
+	 * Record the metrics of a search.
+	 *
+	 * @param metrics
+	 *            the metrics
+	 */
+	public void record(SearchMetrics metrics) {
+		settledCells.record(metrics.getSettledCells());
+		relaxations.record(metrics.getRelaxations());
+		decreaseKeys.record(metrics.getDecreaseKeys());
+		pushes.record(metrics.getPushes());
+		pops.record(metrics.getPops());
+		maxFrontierSizes.record(metrics.getMaxFrontierSize());
+		loadTimes.record(metrics.getLoadTime());
+		buildTimes.record(metrics.getBuildTime());
+		searchTimes.record(metrics.getSearchTime());
+	}
+
+	/**
+	 * Register the statistics in the platform MBean server, as
+	 * es.uned.peda:type=SearchStatistics,name=the name.
+	 *
+	 * @param name
+	 *            the name
+	 */
+	public void register(String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, getObjectName(name));
+		} catch (final JMException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Remove the statistics registered with a name from the platform MBean
+	 * server.
+	 *
+	 * @param name
+	 *            the name
+	 */
+	public static void unregister(String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(getObjectName(name));
+		} catch (final JMException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Gets the name of the MBean of the statistics.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the object name
+	 * @throws JMException
+	 *             if the name is not valid
+	 */
+	private static ObjectName getObjectName(String name) throws JMException {
+		return new ObjectName("es.uned.peda:type=SearchStatistics,name=" + ObjectName.quote(name));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#getQueries()
+	 */
+	@Override
+	public long getQueries() {
+		return searchTimes.getCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#getMeanSearchTime()
+	 */
+	@Override
+	public double getMeanSearchTime() {
+		return searchTimes.getMean() / NANOS_PER_MILLI;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#getMedianSearchTime()
+	 */
+	@Override
+	public double getMedianSearchTime() {
+		return searchTimes.getPercentile(50) / NANOS_PER_MILLI;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#getSearchTime99()
+	 */
+	@Override
+	public double getSearchTime99() {
+		return searchTimes.getPercentile(99) / NANOS_PER_MILLI;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#getMaxSearchTime()
+	 */
+	@Override
+	public double getMaxSearchTime() {
+		return searchTimes.getMax() / NANOS_PER_MILLI;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#getMeanSettledCells()
+	 */
+	@Override
+	public double getMeanSettledCells() {
+		return settledCells.getMean();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#getMeanRelaxations()
+	 */
+	@Override
+	public double getMeanRelaxations() {
+		return relaxations.getMean();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#getMeanDecreaseKeys()
+	 */
+	@Override
+	public double getMeanDecreaseKeys() {
+		return decreaseKeys.getMean();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#getMaxFrontierSize()
+	 */
+	@Override
+	public long getMaxFrontierSize() {
+		return maxFrontierSizes.getMax();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#toJson()
+	 */
+	@Override
+	public String toJson() {
+		return "{\"queries\":" + getQueries() + ",\"settledCells\":" + settledCells.toJson() + ",\"relaxations\":"
+				+ relaxations.toJson() + ",\"decreaseKeys\":" + decreaseKeys.toJson() + ",\"pushes\":"
+				+ pushes.toJson() + ",\"pops\":" + pops.toJson() + ",\"maxFrontierSize\":"
+				+ maxFrontierSizes.toJson() + ",\"loadTimeNanos\":" + loadTimes.toJson() + ",\"buildTimeNanos\":"
+				+ buildTimes.toJson() + ",\"searchTimeNanos\":" + searchTimes.toJson() + "}";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.algorithm.SearchStatisticsMBean#reset()
+	 */
+	@Override
+	public void reset() {
+		settledCells.reset();
+		relaxations.reset();
+		decreaseKeys.reset();
+		pushes.reset();
+		pops.reset();
+		maxFrontierSizes.reset();
+		loadTimes.reset();
+		buildTimes.reset();
+		searchTimes.reset();
+	}
+
+}
@@ -0,0 +1,86 @@
+package es.uned.peda.algorithm;
+
+/**
+ * The Interface SearchStatisticsMBean.
+ *
+ * The view of {@link SearchStatistics} published by JMX. Times are in
+ * milliseconds.
+ */
+public interface SearchStatisticsMBean {
+
+	/**
+	 * Gets the number of searches recorded.
+	 *
+	 * @return the queries
+	 */
+	long getQueries();
+
+	/**
+	 * Gets the mean time of the searches.
+	 *
+	 * @return the mean search time
+	 */
+	double getMeanSearchTime();
+
+	/**
+	 * Gets the median time of the searches.
+	 *
+	 * @return the median search time
+	 */
+	double getMedianSearchTime();
+
+	/**
+	 * Gets the 99th percentile of the time of the searches.
+	 *
+	 * @return the 99th percentile of the search time
+	 */
+	double getSearchTime99();
+
+	/**
+	 * Gets the longest time of a search.
+	 *
+	 * @return the max search time
+	 */
+	double getMaxSearchTime();
+
+	/**
+	 * Gets the mean number of cells settled by a search.
+	 *
+	 * @return the mean settled cells
+	 */
+	double getMeanSettledCells();
+
+	/**
+	 * Gets the mean number of cells examined by a search.
+	 *
+	 * @return the mean relaxations
+	 */
+	double getMeanRelaxations();
+
+	/**
+	 * Gets the mean number of calls to decrease key of a search.
+	 *
+	 * @return the mean decrease keys
+	 */
+	double getMeanDecreaseKeys();
+
+	/**
+	 * Gets the largest frontier of a search.
+	 *
+	 * @return the max frontier size
+	 */
+	long getMaxFrontierSize();
+
+	/**
+	 * Write all the histograms as JSON.
+	 *
+	 * @return the JSON
+	 */
+	String toJson();
+
+	/**
+	 * Remove all the searches recorded.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,60 @@
+package es.uned.peda.algorithm;
+
+/**
+ * The Enum SearchStatus.
+ *
+ * How a search of {@link RobotAlgorithm} ended.
+ */
+public enum SearchStatus {
+
+	/** A final cell was reached, within the energy budget if there is one. */
+	FOUND("encontrada"),
+
+	/**
+	 * No final cell can be reached, or none within the energy budget if there
+	 * is one.
+	 */
+	NOT_FOUND("no encontrada"),
+
+	/** Every cell reachable within the energy budget was found. */
+	COMPLETE("completa"),
+
+	/** The search was cut off by the limit of iterations. */
+	ITERATION_LIMIT("limite de iteraciones"),
+
+	/** The search was cut off by the limit of time. */
+	TIME_LIMIT("limite de tiempo");
+
+	/** The name used in the output. */
+	private final String name;
+
+	/**
+	 * Instantiates a new search status.
+	 *
+	 * @param name
+	 *            the name
+	 */
+	SearchStatus(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Checks if the search was cut off by a limit before it could give an
+	 * answer.
+	 *
+	 * @return true, if it was
+	 */
+	public boolean isCutOff() {
+		return this == ITERATION_LIMIT || this == TIME_LIMIT;
+	}
+
+	/**
+	 * Gets the name used in the output.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+}
@@ -0,0 +1,235 @@
+package es.uned.peda.algorithm;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class TraceRecorder.
+ *
+ * Records the trace of a search as a compact binary stream of events, which
+ * {@link TraceReplay} turns back into the text of any iteration without
+ * running the search again. The stream starts with a header, all big-endian:
+ *
+ * <pre>
+ * int  magic number, "RTRC"
+ * int  version
+ * int  number of rows
+ * int  number of columns
+ * int  initial cell
+ * </pre>
+ *
+ * Each event is a byte with its type followed by its fields. Cells are
+ * numbered in row-major order, whatever the layout of the graph, and written
+ * as the zigzag varint of their difference with the cell of the previous
+ * event, which is usually a neighbour, and previous cells as the difference
+ * with their cell:
+ *
+ * <pre>
+ * VISITED    cell                         the cell leaves the heap
+ * CHANGED    cell, distance, previous     distance as the bits of a double
+ * ITERATION  cell                         the iteration ends, with its cell
+ * </pre>
+ *
+ * The stream can be compressed with gzip.
+ */
+public class TraceRecorder implements Closeable {
+
+	/** The magic number, the bytes "RTRC". */
+	static final int MAGIC = 0x52545243;
+
+	/** The version of the format. */
+	static final int VERSION = 1;
+
+	/** The event of a cell that leaves the heap. */
+	static final int VISITED = 0;
+
+	/** The event of a cell whose distance and previous cell change. */
+	static final int CHANGED = 1;
+
+	/** The event of the end of an iteration. */
+	static final int ITERATION = 2;
+
+	/** The size of the buffer of the stream. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The stream. */
+	private final DataOutputStream output;
+
+	/** The graph of the search, set when it starts. */
+	private GridGraph graph;
+
+	/** The cell of the last event. */
+	private int lastCell = 0;
+
+	/**
+	 * Instantiates a new trace recorder.
+	 *
+	 * @param outputStream
+	 *            the output stream
+	 * @param compress
+	 *            whether the stream is compressed with gzip
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public TraceRecorder(OutputStream outputStream, boolean compress) throws IOException {
+		final OutputStream stream = compress ? new GZIPOutputStream(outputStream, BUFFER_SIZE) : outputStream;
+		this.output = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+	}
+
+	/**
+	 * Creates a trace recorder that writes a new file, compressed if its name
+	 * ends with .gz.
+	 *
+	 * @param outputFile
+	 *            the output file
+	 * @return the trace recorder
+	 */
+	public static TraceRecorder create(String outputFile) {
+		final Path outputPath = Paths.get(outputFile);
+
+		if (Files.exists(outputPath)) {
+			throw new IllegalArgumentException("Output file already exists");
+		}
+
+		try {
+			return new TraceRecorder(Files.newOutputStream(outputPath), outputFile.endsWith(".gz"));
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Start the trace of a search by writing the header.
+	 *
+	 * @param searchGraph
+	 *            the graph of the search
+	 * @param initialCell
+	 *            the initial cell
+	 */
+	void start(GridGraph searchGraph, int initialCell) {
+		if (graph != null) {
+			throw new IllegalStateException("A trace records a single search");
+		}
+		graph = searchGraph;
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(graph.getNumberOfRows());
+			output.writeInt(graph.getNumberOfColumns());
+			output.writeInt(toRowMajor(initialCell));
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Record that a cell has left the heap.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	void cellVisited(int cell) {
+		try {
+			output.writeByte(VISITED);
+			writeCell(cell);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Record the new distance and previous cell of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	void cellChanged(int cell) {
+		try {
+			output.writeByte(CHANGED);
+			writeCell(cell);
+			output.writeDouble(graph.getDistance(cell));
+			writeVarint(toRowMajor(graph.getPreviousCell(cell)) - toRowMajor(cell));
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Record the end of an iteration.
+	 *
+	 * @param cell
+	 *            the cell selected in the iteration
+	 */
+	void iterationDone(int cell) {
+		try {
+			output.writeByte(ITERATION);
+			writeCell(cell);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Write a cell as its difference with the cell of the previous event.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void writeCell(int cell) throws IOException {
+		final int rowMajorCell = toRowMajor(cell);
+		writeVarint(rowMajorCell - lastCell);
+		lastCell = rowMajorCell;
+	}
+
+	/**
+	 * Gets the number of a cell of the graph in row-major order.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the cell in row-major order
+	 */
+	private int toRowMajor(int cell) {
+		return graph.getTag(cell) - 1;
+	}
+
+	/**
+	 * Write a signed int as a zigzag varint: 7 bits per byte, with the high
+	 * bit set in every byte but the last one.
+	 *
+	 * @param value
+	 *            the value
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private void writeVarint(int value) throws IOException {
+		int rest = (value << 1) ^ (value >> 31);
+		while ((rest & ~0x7F) != 0) {
+			output.writeByte((rest & 0x7F) | 0x80);
+			rest >>>= 7;
+		}
+		output.writeByte(rest);
+	}
+
+	/**
+	 * Finish the stream and close it.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Override
+	public void close() throws IOException {
+		output.close();
+	}
+
+}
@@ -0,0 +1,227 @@
+package es.uned.peda.algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class TraceReplay.
+ *
+ * Rebuilds the text trace of a search from the events recorded by
+ * {@link TraceRecorder}, without running the search again. The events are
+ * applied to the search state of a graph with the size of the map, and the
+ * text is written by the same {@link TraceWriter} as during the search, so it
+ * is the same as with the options -t or -d of {@link Robot}.
+ */
+public class TraceReplay {
+
+	/** The first byte of a gzip stream. */
+	private static final int GZIP_FIRST_BYTE = 0x1f;
+
+	/** The size of the buffer of the stream. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The graph whose search state is rebuilt. */
+	private final GridGraph graph;
+
+	/** The writer of the text trace. */
+	private final TraceWriter traceWriter;
+
+	/** The stream of events. */
+	private final DataInputStream input;
+
+	/** The cell of the last event. */
+	private int lastCell = 0;
+
+	/**
+	 * The main method.
+	 *
+	 * @param args
+	 *            the arguments: [-d] fichero_traza [iteracion]
+	 */
+	public static void main(String[] args) {
+
+		try {
+
+			final boolean delta = args.length > 0 && args[0].equals("-d");
+			final int first = delta ? 1 : 0;
+			if (args.length - first < 1 || args.length - first > 2) {
+				throw new IllegalArgumentException("Invalid arguments");
+			}
+			final int iteration = args.length - first == 2 ? Integer.parseInt(args[first + 1]) : -1;
+
+			final Path tracePath = Paths.get(args[first]);
+			if (!Files.exists(tracePath)) {
+				throw new IllegalArgumentException("Trace file does not exist");
+			}
+
+			try (InputStream stream = open(tracePath)) {
+				new TraceReplay(stream, System.out, delta).replay(iteration);
+			}
+			System.out.flush();
+
+		} catch (final Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+
+	}
+
+	/**
+	 * Open a trace file, decompressing it if it is compressed with gzip.
+	 *
+	 * @param tracePath
+	 *            the trace path
+	 * @return the stream
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private static InputStream open(Path tracePath) throws IOException {
+		final BufferedInputStream stream = new BufferedInputStream(Files.newInputStream(tracePath), BUFFER_SIZE);
+		stream.mark(1);
+		final int firstByte = stream.read();
+		stream.reset();
+		if (firstByte == GZIP_FIRST_BYTE) {
+			return new BufferedInputStream(new GZIPInputStream(stream, BUFFER_SIZE), BUFFER_SIZE);
+		}
+		return stream;
+	}
+
+	/**
+	 * Instantiates a new trace replay and reads the header of the trace.
+	 *
+	 * @param stream
+	 *            the stream of the trace
+	 * @param output
+	 *            the output of the text trace
+	 * @param delta
+	 *            whether only the cells changed in each iteration are written
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public TraceReplay(InputStream stream, PrintStream output, boolean delta) throws IOException {
+
+		this.input = new DataInputStream(stream);
+
+		if (input.readInt() != TraceRecorder.MAGIC) {
+			throw new IllegalArgumentException("Invalid trace file");
+		}
+		final int version = input.readInt();
+		if (version != TraceRecorder.VERSION) {
+			throw new IllegalArgumentException("Unsupported trace version " + version);
+		}
+		final int numberOfRows = input.readInt();
+		final int numberOfColumns = input.readInt();
+		final int initialCell = input.readInt();
+		if (numberOfRows < 1 || numberOfColumns < 1 || (long) numberOfRows * numberOfColumns > Integer.MAX_VALUE
+				|| initialCell < 0 || initialCell >= numberOfRows * numberOfColumns) {
+			throw new IllegalArgumentException("Invalid trace file");
+		}
+
+		// Only the search state is used, the costs are not recorded
+		this.graph = new GridGraph(new double[numberOfRows * numberOfColumns], initialCell, initialCell,
+				numberOfRows, numberOfColumns);
+		this.traceWriter = new TraceWriter(graph, output);
+		traceWriter.setDelta(delta);
+
+	}
+
+	/**
+	 * Apply the events of the trace and write the text of an iteration, or of
+	 * all of them.
+	 *
+	 * @param iteration
+	 *            the iteration, or a negative number for all of them
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public void replay(int iteration) throws IOException {
+
+		int count = 0;
+
+		while (true) {
+
+			final int event = input.read();
+			if (event < 0) {
+				break;
+			}
+
+			try {
+				switch (event) {
+				case TraceRecorder.VISITED:
+					graph.setVisited(readCell(), true);
+					break;
+				case TraceRecorder.CHANGED:
+					final int cell = readCell();
+					graph.setDistance(cell, input.readDouble());
+					graph.setPreviousCell(cell, cell + readVarint());
+					traceWriter.cellChanged(cell);
+					break;
+				case TraceRecorder.ITERATION:
+					final int selectedCell = readCell();
+					if (iteration < 0 || iteration == count) {
+						traceWriter.printIteration(selectedCell, count);
+					}
+					if (iteration == count) {
+						return;
+					}
+					traceWriter.clearChanges();
+					count++;
+					break;
+				default:
+					throw new IllegalArgumentException("Invalid trace file");
+				}
+			} catch (final EOFException | ArrayIndexOutOfBoundsException e) {
+				throw new IllegalArgumentException("Invalid trace file");
+			}
+
+		}
+
+		if (iteration >= count) {
+			throw new IllegalArgumentException("Iteration " + iteration + " not found in trace");
+		}
+
+	}
+
+	/**
+	 * Read a cell written as its difference with the cell of the previous
+	 * event.
+	 *
+	 * @return the cell
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private int readCell() throws IOException {
+		lastCell += readVarint();
+		return lastCell;
+	}
+
+	/**
+	 * Read a signed int written as a zigzag varint.
+	 *
+	 * @return the value
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	private int readVarint() throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = input.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0 && shift < Integer.SIZE);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
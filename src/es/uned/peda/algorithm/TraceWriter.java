@@ -0,0 +1,348 @@
+package es.uned.peda.algorithm;
+
+import java.io.PrintStream;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.Locale;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class TraceWriter.
+ *
+ * Writes the trace of a search. Each line is built in a reusable
+ * StringBuilder and printed at once, and the numbers are formatted by hand
+ * instead of with a call to {@link PrintStream#format} per cell. Distances
+ * that are not a whole number of tenths are still formatted with a
+ * {@link Formatter} on the same StringBuilder, so the text is the same as
+ * before byte by byte.
+ *
+ * Besides the full snapshot of every iteration, it can write only the cells
+ * whose distance or previous cell changed in the iteration, which the search
+ * reports with {@link #cellChanged(int)}. The same writer rebuilds the text
+ * of recorded traces in {@link TraceReplay}.
+ */
+final class TraceWriter {
+
+	/** The width of the numbers of the snapshot. */
+	private static final int WIDTH = 5;
+
+	/** The greatest number of tenths formatted by hand. */
+	private static final double MAX_TENTHS = 1e15;
+
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The output. */
+	private final PrintStream output;
+
+	/** The line being built. */
+	private final StringBuilder line = new StringBuilder();
+
+	/** The formatter of the numbers that are not formatted by hand. */
+	private final Formatter formatter;
+
+	/** The decimal separator of the locale. */
+	private final char decimalSeparator;
+
+	/** Whether the locale writes ASCII digits, which are formatted by hand. */
+	private final boolean asciiDigits;
+
+	/** The cells changed in the current iteration. */
+	private int[] changedCells = new int[GridGraph.MAX_ADJACENT_CELLS];
+
+	/** The number of cells changed in the current iteration. */
+	private int numberOfChangedCells = 0;
+
+	/** The cells in {@link #changedCells}. */
+	private final boolean[] changed;
+
+	/** Whether only the cells changed in each iteration are written. */
+	private boolean delta = false;
+
+	/**
+	 * Instantiates a new trace writer.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param output
+	 *            the output
+	 */
+	TraceWriter(GridGraph graph, PrintStream output) {
+		this.graph = graph;
+		this.output = output;
+		final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		final DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+		this.formatter = new Formatter(line, locale);
+		this.decimalSeparator = symbols.getDecimalSeparator();
+		this.asciiDigits = symbols.getZeroDigit() == '0';
+		this.changed = new boolean[graph.getNumberOfCells()];
+	}
+
+	/**
+	 * Sets the delta mode, in which only the cells changed in each iteration
+	 * are written.
+	 *
+	 * @param delta
+	 *            the new delta
+	 */
+	void setDelta(boolean delta) {
+		this.delta = delta;
+	}
+
+	/**
+	 * Prints an iteration, as a full snapshot or only its changes depending on
+	 * the delta mode.
+	 *
+	 * @param cell
+	 *            the selected cell
+	 * @param count
+	 *            the iteration
+	 */
+	void printIteration(int cell, int count) {
+		if (delta) {
+			printChanges(cell, count);
+		} else {
+			printSnapshot(cell, count);
+		}
+	}
+
+	/**
+	 * Record that the distance or the previous cell of a cell has changed in
+	 * the current iteration.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	void cellChanged(int cell) {
+		if (!changed[cell]) {
+			changed[cell] = true;
+			if (numberOfChangedCells == changedCells.length) {
+				changedCells = Arrays.copyOf(changedCells, changedCells.length * 2);
+			}
+			changedCells[numberOfChangedCells++] = cell;
+		}
+	}
+
+	/**
+	 * Prints the full snapshot of an iteration: the pending cells, and the
+	 * distance and previous cell of every cell.
+	 *
+	 * @param cell
+	 *            the selected cell
+	 * @param count
+	 *            the iteration
+	 */
+	private void printSnapshot(int cell, int count) {
+
+		printHeader(cell, count);
+
+		final int numberOfCells = graph.getNumberOfCells();
+
+		line.append("   Nodos pendientes          {");
+		for (int tag = 1; tag <= numberOfCells; tag++) {
+			if (!graph.isVisited(graph.getCell(tag))) {
+				line.append(' ');
+				appendInt(tag, 0);
+			}
+		}
+		line.append("}\n");
+		flush();
+
+		line.append("   Distancia al nodo inicial [");
+		for (int tag = 1; tag <= numberOfCells; tag++) {
+			appendDistance(graph.getDistance(graph.getCell(tag)), WIDTH);
+		}
+		line.append("]\n");
+		flush();
+
+		line.append("   Nodos anteriores          [");
+		for (int tag = 1; tag <= numberOfCells; tag++) {
+			appendInt(graph.getTag(graph.getPreviousCell(graph.getCell(tag))), WIDTH);
+		}
+		line.append("]\n");
+		flush();
+
+		clearChanges();
+
+	}
+
+	/**
+	 * Prints the changes of an iteration: the distance and previous cell of
+	 * the cells changed in it, as casilla=distancia/anterior. The first
+	 * iteration shows the initial cell.
+	 *
+	 * @param cell
+	 *            the selected cell
+	 * @param count
+	 *            the iteration
+	 */
+	private void printChanges(int cell, int count) {
+
+		printHeader(cell, count);
+
+		if (count == 0) {
+			cellChanged(cell);
+		}
+
+		line.append("   Casillas actualizadas     {");
+		for (int i = 0; i < numberOfChangedCells; i++) {
+			final int changedCell = changedCells[i];
+			line.append(' ');
+			appendInt(graph.getTag(changedCell), 0);
+			line.append('=');
+			appendDistance(graph.getDistance(changedCell), 0);
+			line.append('/');
+			appendInt(graph.getTag(graph.getPreviousCell(changedCell)), 0);
+		}
+		line.append("}\n");
+		flush();
+
+		clearChanges();
+
+	}
+
+	/**
+	 * Prints the header of an iteration.
+	 *
+	 * @param cell
+	 *            the selected cell
+	 * @param count
+	 *            the iteration
+	 */
+	private void printHeader(int cell, int count) {
+		if (count == 0) {
+			line.append("Inicio del Algoritmo. Casilla origen: ");
+		} else {
+			line.append("\nIteracion Nº ");
+			appendInt(count, 0);
+			line.append("  Casilla seleccionada: ");
+		}
+		appendInt(graph.getTag(cell), 0);
+		line.append('\n');
+		flush();
+	}
+
+	/**
+	 * Forget the cells changed in the current iteration.
+	 */
+	void clearChanges() {
+		for (int i = 0; i < numberOfChangedCells; i++) {
+			changed[changedCells[i]] = false;
+		}
+		numberOfChangedCells = 0;
+	}
+
+	/**
+	 * Print the line and empty it.
+	 */
+	private void flush() {
+		output.append(line);
+		line.setLength(0);
+	}
+
+	/**
+	 * Append an int as %Nd, right aligned in a width.
+	 *
+	 * @param value
+	 *            the value
+	 * @param width
+	 *            the width, 0 for no padding
+	 */
+	private void appendInt(int value, int width) {
+
+		if (!asciiDigits) {
+			formatter.format(width == 0 ? "%d" : "%" + width + "d", value);
+			return;
+		}
+
+		final int start = line.length();
+		long rest = Math.abs((long) value);
+		do {
+			line.append((char) ('0' + rest % 10));
+			rest /= 10;
+		} while (rest != 0);
+		if (value < 0) {
+			line.append('-');
+		}
+		while (line.length() - start < width) {
+			line.append(' ');
+		}
+		reverse(start);
+
+	}
+
+	/**
+	 * Append a distance as %N.1f, right aligned in a width, or as Inf if it
+	 * is infinite. Distances that are exactly a number of tenths are
+	 * formatted by hand.
+	 *
+	 * @param distance
+	 *            the distance
+	 * @param width
+	 *            the width, 0 for no padding
+	 */
+	private void appendDistance(double distance, int width) {
+
+		final int start = line.length();
+
+		if (Double.isInfinite(distance)) {
+			line.append("Inf");
+			pad(start, width);
+			return;
+		}
+
+		final double tenths = Math.rint(distance * 10);
+		if (!asciiDigits || Double.doubleToRawLongBits(distance) < 0 || tenths >= MAX_TENTHS
+				|| tenths / 10 != distance) {
+			formatter.format(width == 0 ? "%.1f" : "%" + width + ".1f", distance);
+			return;
+		}
+
+		long rest = (long) tenths;
+		line.append((char) ('0' + rest % 10));
+		line.append(decimalSeparator);
+		rest /= 10;
+		do {
+			line.append((char) ('0' + rest % 10));
+			rest /= 10;
+		} while (rest != 0);
+		while (line.length() - start < width) {
+			line.append(' ');
+		}
+		reverse(start);
+
+	}
+
+	/**
+	 * Pad the end of the line with spaces on the left, from a position, up to
+	 * a width.
+	 *
+	 * @param start
+	 *            the position
+	 * @param width
+	 *            the width
+	 */
+	private void pad(int start, int width) {
+		final int padding = width - (line.length() - start);
+		for (int i = 0; i < padding; i++) {
+			line.insert(start, ' ');
+		}
+	}
+
+	/**
+	 * Reverse the end of the line, from a position.
+	 *
+	 * @param start
+	 *            the position
+	 */
+	private void reverse(int start) {
+		for (int i = start, j = line.length() - 1; i < j; i++, j--) {
+			final char c = line.charAt(i);
+			line.setCharAt(i, line.charAt(j));
+			line.setCharAt(j, c);
+		}
+	}
+
+}
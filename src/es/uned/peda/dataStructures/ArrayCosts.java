@@ -0,0 +1,114 @@
+package es.uned.peda.dataStructures;
+
+/**
+ * The Class ArrayCosts.
+ *
+ * Costs stored in a primitive array, used in place. The summary of the costs
+ * is computed once, when they are created.
+ */
+final class ArrayCosts implements CellCosts {
+
+	/** The cost of each cell. */
+	private final double[] costs;
+
+	/** The lowest cost of the cells with positive cost. */
+	private double minCost;
+
+	/** The highest cost of the cells that are not obstacles. */
+	private double maxCost;
+
+	/** The cells that cost nothing. */
+	private int[] freeCells;
+
+	/**
+	 * Instantiates new array costs.
+	 *
+	 * @param costs
+	 *            the cost of each cell in row-major order
+	 */
+	ArrayCosts(double[] costs) {
+		this.costs = costs;
+		computeCostRange();
+	}
+
+	/**
+	 * Compute the lowest positive cost and the highest finite cost of the
+	 * cells, both zero if there is no cell with positive finite cost, and find
+	 * the cells that cost nothing.
+	 */
+	private void computeCostRange() {
+		minCost = Double.POSITIVE_INFINITY;
+		maxCost = 0.0;
+		int numberOfFreeCells = 0;
+		for (final double cost : costs) {
+			if (cost > 0.0 && !Double.isInfinite(cost)) {
+				minCost = Math.min(minCost, cost);
+				maxCost = Math.max(maxCost, cost);
+			} else if (cost == 0.0) {
+				numberOfFreeCells++;
+			}
+		}
+		if (Double.isInfinite(minCost)) {
+			minCost = 0.0;
+		}
+
+		freeCells = new int[numberOfFreeCells];
+		int count = 0;
+		for (int cell = 0; cell < costs.length; cell++) {
+			if (costs[cell] == 0.0) {
+				freeCells[count++] = cell;
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getNumberOfCells()
+	 */
+	@Override
+	public int getNumberOfCells() {
+		return costs.length;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getCost(int)
+	 */
+	@Override
+	public double getCost(int cell) {
+		return costs[cell];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getMinCost()
+	 */
+	@Override
+	public double getMinCost() {
+		return minCost;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getMaxCost()
+	 */
+	@Override
+	public double getMaxCost() {
+		return maxCost;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getFreeCells()
+	 */
+	@Override
+	public int[] getFreeCells() {
+		return freeCells;
+	}
+
+}
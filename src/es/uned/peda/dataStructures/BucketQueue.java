@@ -0,0 +1,434 @@
+package es.uned.peda.dataStructures;
+
+/**
+ * The Class BucketQueue.
+ *
+ * Bucket queue of Dial for cells whose costs are multiples of a quantum. Each
+ * bucket holds the cells whose priority rounds to the same multiple of the
+ * quantum, and since in the algorithm of Dijkstra the priorities in the queue
+ * never differ in more than the maximum cost, a circular array of maximum cost
+ * / quantum + 1 buckets, the window, is enough. With a consistent heuristic the
+ * priorities can also differ in the change of the heuristic between adjacent
+ * cells. Cells beyond the window are kept in an overflow bucket until the
+ * window is empty, and cells with infinite priority in another bucket.
+ */
+public class BucketQueue implements IndexedPriorityQueue {
+
+	/** The largest number of buckets that can be created. */
+	private static final int MAX_NUMBER_OF_BUCKETS = 1 << 24;
+
+	/** The quantums tried by {@link #findQuantum(GridGraph)}. */
+	private static final double[] QUANTUMS = { 1.0, 0.5, 0.25, 0.2, 0.1, 0.05, 0.025, 0.02, 0.01, 0.005, 0.001 };
+
+	/** The tolerance used to decide if a cost is a multiple of a quantum. */
+	private static final double TOLERANCE = 1e-9;
+
+	/**
+	 * The buckets. After the buckets of the window come the overflow bucket and
+	 * the bucket of the cells with infinite priority.
+	 */
+	private final CellBuckets buckets;
+
+	/** The number of buckets of the window. */
+	private final int windowLength;
+
+	/** The overflow bucket. */
+	private final int overflowBucket;
+
+	/** The bucket of the cells with infinite priority. */
+	private final int infiniteBucket;
+
+	/** The quantum. */
+	private final double quantum;
+
+	/** The priority of each cell. */
+	private final double[] priorities;
+
+	/** The multiple of the quantum of the first bucket of the window. */
+	private long currentMultiple;
+
+	/** The number of cells in the window. */
+	private int windowSize;
+
+	/** The number of cells in the overflow bucket. */
+	private int overflowSize;
+
+	/** A lower bound of the multiples of the cells in the overflow bucket. */
+	private long overflowMultiple;
+
+	/** The current size. */
+	private int currentSize;
+
+	/** Whether a cell with finite priority has been extracted. */
+	private boolean extracted;
+
+	/** The multiple of the quantum of the last cell with finite priority extracted. */
+	private long extractedMultiple;
+
+	/**
+	 * Instantiates a new empty bucket queue.
+	 *
+	 * @param numberOfCells
+	 *            the number of cells
+	 * @param quantum
+	 *            the quantum
+	 * @param maxSpread
+	 *            the usual maximum difference between two priorities in the
+	 *            queue, which sets the length of the window
+	 */
+	public BucketQueue(int numberOfCells, double quantum, double maxSpread) {
+
+		if (!(quantum > 0.0)) {
+			throw new IllegalArgumentException("The quantum must be greater than zero");
+		}
+		final long numberOfBuckets = Math.round(maxSpread / quantum) + 1;
+		if (numberOfBuckets > MAX_NUMBER_OF_BUCKETS) {
+			throw new IllegalArgumentException("Too many buckets for quantum " + quantum);
+		}
+
+		this.windowLength = (int) numberOfBuckets;
+		this.overflowBucket = windowLength;
+		this.infiniteBucket = windowLength + 1;
+		this.buckets = new CellBuckets(numberOfCells, windowLength + 2);
+		this.quantum = quantum;
+		this.priorities = new double[numberOfCells];
+		this.currentMultiple = 0;
+		this.windowSize = 0;
+		this.overflowSize = 0;
+		this.overflowMultiple = Long.MAX_VALUE;
+		this.currentSize = 0;
+		this.extracted = false;
+		this.extractedMultiple = 0;
+
+	}
+
+	/**
+	 * Instantiates a new empty bucket queue for the cells of a graph, with a
+	 * window that can also hold the priorities of A* with heuristics that
+	 * change at most in the lowest cost between adjacent cells.
+	 *
+	 * @param graph
+	 *            the graph
+	 */
+	public BucketQueue(GridGraph graph) {
+		this(graph.getNumberOfCells(), findQuantum(graph), graph.getMaxCost() + graph.getMinCost());
+	}
+
+	/**
+	 * Find the largest quantum, among some usual ones, of which all the costs of
+	 * the cells of a graph are multiples.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the quantum
+	 */
+	public static double findQuantum(GridGraph graph) {
+
+		for (final double quantum : QUANTUMS) {
+			if (isQuantum(graph, quantum)) {
+				return quantum;
+			}
+		}
+
+		throw new IllegalArgumentException("The costs of the cells are not multiples of a common quantum");
+
+	}
+
+	/**
+	 * Checks if all the finite costs of the cells of a graph are multiples of
+	 * a quantum.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param quantum
+	 *            the quantum
+	 * @return true, if they are
+	 */
+	private static boolean isQuantum(GridGraph graph, double quantum) {
+		for (int cell = 0; cell < graph.getNumberOfCells(); cell++) {
+			if (!graph.isObstacle(cell)) {
+				final double multiple = graph.getCost(cell) / quantum;
+				if (Math.abs(multiple - Math.rint(multiple)) > TOLERANCE * Math.max(1.0, multiple)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the multiple of the quantum of a priority.
+	 *
+	 * @param priority
+	 *            the priority
+	 * @return the multiple
+	 */
+	private long getMultiple(double priority) {
+		return Math.round(priority / quantum);
+	}
+
+	/**
+	 * Add a cell to the bucket of its priority.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param priority
+	 *            the priority
+	 */
+	private void add(int cell, double priority) {
+
+		priorities[cell] = priority;
+
+		if (Double.isInfinite(priority)) {
+			buckets.add(cell, infiniteBucket);
+			return;
+		}
+
+		final long multiple = getMultiple(priority);
+		if (extracted && multiple < extractedMultiple) {
+			throw new IllegalArgumentException("Priority " + priority + " is lower than the last extracted one");
+		}
+
+		if (windowSize == 0 && overflowSize == 0) {
+			currentMultiple = extracted ? extractedMultiple : multiple;
+		} else if (windowSize > 0 && multiple < currentMultiple) {
+			spillWindow();
+		}
+
+		if ((windowSize == 0 && overflowSize > 0) || multiple - currentMultiple >= windowLength) {
+			buckets.add(cell, overflowBucket);
+			overflowSize++;
+			overflowMultiple = Math.min(overflowMultiple, multiple);
+		} else {
+			buckets.add(cell, (int) (multiple % windowLength));
+			windowSize++;
+		}
+
+	}
+
+	/**
+	 * Move all the cells of the window to the overflow bucket, so that the
+	 * window can start at a lower priority.
+	 */
+	private void spillWindow() {
+		for (int bucket = 0; bucket < windowLength; bucket++) {
+			int cell = buckets.getFirst(bucket);
+			while (cell != CellBuckets.NONE) {
+				final int next = buckets.getNext(cell);
+				buckets.remove(cell);
+				buckets.add(cell, overflowBucket);
+				overflowMultiple = Math.min(overflowMultiple, getMultiple(priorities[cell]));
+				cell = next;
+			}
+		}
+		overflowSize += windowSize;
+		windowSize = 0;
+	}
+
+	/**
+	 * Remove a cell from its bucket.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	private void remove(int cell) {
+		final int bucket = buckets.getBucket(cell);
+		if (bucket == overflowBucket) {
+			overflowSize--;
+			if (overflowSize == 0) {
+				overflowMultiple = Long.MAX_VALUE;
+			}
+		} else if (bucket != infiniteBucket) {
+			windowSize--;
+		}
+		buckets.remove(cell);
+	}
+
+	/**
+	 * Move the cells of the overflow bucket that fit in the window to it. If
+	 * the window is empty, it is first moved to the lowest priority of the
+	 * overflow bucket.
+	 */
+	private void fillWindow() {
+
+		if (windowSize == 0) {
+			long minMultiple = Long.MAX_VALUE;
+			for (int cell = buckets.getFirst(overflowBucket); cell != CellBuckets.NONE; cell = buckets
+					.getNext(cell)) {
+				minMultiple = Math.min(minMultiple, getMultiple(priorities[cell]));
+			}
+			currentMultiple = minMultiple;
+		}
+
+		overflowMultiple = Long.MAX_VALUE;
+		int cell = buckets.getFirst(overflowBucket);
+		while (cell != CellBuckets.NONE) {
+			final int next = buckets.getNext(cell);
+			final long multiple = getMultiple(priorities[cell]);
+			if (multiple - currentMultiple < windowLength) {
+				buckets.remove(cell);
+				buckets.add(cell, (int) (multiple % windowLength));
+				overflowSize--;
+				windowSize++;
+			} else {
+				overflowMultiple = Math.min(overflowMultiple, multiple);
+			}
+			cell = next;
+		}
+
+	}
+
+	/**
+	 * Gets the bucket with the lowest priority that is not empty. The cells of
+	 * the overflow bucket are moved to the window as soon as they fit in it.
+	 *
+	 * @return the bucket
+	 */
+	private int findFirstBucket() {
+
+		if (windowSize == 0) {
+			if (overflowSize == 0) {
+				return infiniteBucket;
+			}
+			fillWindow();
+		}
+
+		int bucket = (int) (currentMultiple % windowLength);
+		while (buckets.getFirst(bucket) == CellBuckets.NONE) {
+			currentMultiple++;
+			if (overflowMultiple - currentMultiple < windowLength) {
+				fillWindow();
+			}
+			bucket = (int) (currentMultiple % windowLength);
+		}
+
+		return bucket;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#insert(int, double)
+	 */
+	@Override
+	public void insert(int cell, double priority) {
+
+		if (contains(cell)) {
+			throw new IllegalArgumentException("Cell " + cell + " is already in the queue");
+		}
+
+		add(cell, priority);
+		currentSize++;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#decreaseKey(int,
+	 * double)
+	 */
+	@Override
+	public void decreaseKey(int cell, double priority) {
+
+		if (!contains(cell)) {
+			throw new IllegalArgumentException("Cell " + cell + " is not in the queue");
+		}
+		if (priority > priorities[cell]) {
+			throw new IllegalArgumentException("The priority of cell " + cell + " cannot be increased");
+		}
+
+		remove(cell);
+		add(cell, priority);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#extractMin()
+	 */
+	@Override
+	public int extractMin() {
+
+		final int bucket = findFirstBucket();
+		final int cell = buckets.getFirst(bucket);
+		remove(cell);
+		currentSize--;
+		if (bucket != infiniteBucket) {
+			extracted = true;
+			extractedMultiple = currentMultiple;
+		}
+
+		return cell;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#getMinPriority()
+	 */
+	@Override
+	public double getMinPriority() {
+		return priorities[buckets.getFirst(findFirstBucket())];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#contains(int)
+	 */
+	@Override
+	public boolean contains(int cell) {
+		return buckets.getBucket(cell) != CellBuckets.NONE;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return currentSize == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#size()
+	 */
+	@Override
+	public int size() {
+		return currentSize;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#clear()
+	 */
+	@Override
+	public void clear() {
+		buckets.clear();
+		currentMultiple = 0;
+		windowSize = 0;
+		overflowSize = 0;
+		overflowMultiple = Long.MAX_VALUE;
+		currentSize = 0;
+		extracted = false;
+		extractedMultiple = 0;
+	}
+
+	/**
+	 * Gets the quantum.
+	 *
+	 * @return the quantum
+	 */
+	public double getQuantum() {
+		return quantum;
+	}
+
+}
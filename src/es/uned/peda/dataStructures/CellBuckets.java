@@ -0,0 +1,140 @@
+package es.uned.peda.dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * The Class CellBuckets.
+ *
+ * Set of buckets of cells used by the bucket based priority queues. Each
+ * bucket is a doubly linked list stored in arrays indexed by cell, so cells
+ * can be added and removed in constant time without creating objects.
+ */
+class CellBuckets {
+
+	/** Value used to mark the end of a list or a cell that is in no bucket. */
+	static final int NONE = -1;
+
+	/** The first cell of each bucket. */
+	private final int[] heads;
+
+	/** The next cell in the bucket of each cell. */
+	private final int[] nextCells;
+
+	/** The previous cell in the bucket of each cell. */
+	private final int[] previousCells;
+
+	/** The bucket of each cell. */
+	private final int[] cellBuckets;
+
+	/**
+	 * Instantiates a new set of empty buckets.
+	 *
+	 * @param numberOfCells
+	 *            the number of cells
+	 * @param numberOfBuckets
+	 *            the number of buckets
+	 */
+	CellBuckets(int numberOfCells, int numberOfBuckets) {
+		this.heads = new int[numberOfBuckets];
+		this.nextCells = new int[numberOfCells];
+		this.previousCells = new int[numberOfCells];
+		this.cellBuckets = new int[numberOfCells];
+
+		Arrays.fill(heads, NONE);
+		Arrays.fill(cellBuckets, NONE);
+	}
+
+	/**
+	 * Add a cell at the beginning of a bucket.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param bucket
+	 *            the bucket
+	 */
+	void add(int cell, int bucket) {
+		final int head = heads[bucket];
+		nextCells[cell] = head;
+		previousCells[cell] = NONE;
+		if (head != NONE) {
+			previousCells[head] = cell;
+		}
+		heads[bucket] = cell;
+		cellBuckets[cell] = bucket;
+	}
+
+	/**
+	 * Remove a cell from its bucket.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	void remove(int cell) {
+		final int next = nextCells[cell];
+		final int previous = previousCells[cell];
+		if (previous == NONE) {
+			heads[cellBuckets[cell]] = next;
+		} else {
+			nextCells[previous] = next;
+		}
+		if (next != NONE) {
+			previousCells[next] = previous;
+		}
+		cellBuckets[cell] = NONE;
+	}
+
+	/**
+	 * Remove all the cells from all the buckets.
+	 */
+	void clear() {
+		for (int bucket = 0; bucket < heads.length; bucket++) {
+			for (int cell = heads[bucket]; cell != NONE; cell = nextCells[cell]) {
+				cellBuckets[cell] = NONE;
+			}
+			heads[bucket] = NONE;
+		}
+	}
+
+	/**
+	 * Gets the first cell of a bucket.
+	 *
+	 * @param bucket
+	 *            the bucket
+	 * @return the first cell, or {@link #NONE} if the bucket is empty
+	 */
+	int getFirst(int bucket) {
+		return heads[bucket];
+	}
+
+	/**
+	 * Gets the cell that follows a cell in its bucket.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the next cell, or {@link #NONE} if it is the last one
+	 */
+	int getNext(int cell) {
+		return nextCells[cell];
+	}
+
+	/**
+	 * Gets the bucket of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the bucket, or {@link #NONE} if the cell is in no bucket
+	 */
+	int getBucket(int cell) {
+		return cellBuckets[cell];
+	}
+
+	/**
+	 * Gets the number of buckets.
+	 *
+	 * @return the number of buckets
+	 */
+	int getNumberOfBuckets() {
+		return heads.length;
+	}
+
+}
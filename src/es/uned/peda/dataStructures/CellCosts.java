@@ -0,0 +1,53 @@
+package es.uned.peda.dataStructures;
+
+/**
+ * The Interface CellCosts.
+ *
+ * The cost of entering each cell of a grid, in row-major order, together with
+ * a summary of them that the searches need: the range of the positive costs
+ * and the cells that cost nothing. Obstacles have infinite cost. The costs are
+ * never modified, so they can be shared by graphs searched from different
+ * threads.
+ */
+public interface CellCosts {
+
+	/**
+	 * Gets the number of cells.
+	 *
+	 * @return the number of cells
+	 */
+	int getNumberOfCells();
+
+	/**
+	 * Gets the cost of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the cost
+	 */
+	double getCost(int cell);
+
+	/**
+	 * Gets the lowest cost of the cells with positive cost, or zero if there
+	 * is none.
+	 *
+	 * @return the min cost
+	 */
+	double getMinCost();
+
+	/**
+	 * Gets the highest cost of the cells that are not obstacles, or zero if
+	 * there is no cell with positive cost.
+	 *
+	 * @return the max cost
+	 */
+	double getMaxCost();
+
+	/**
+	 * Gets the cells that cost nothing, sorted.
+	 *
+	 * @return the free cells
+	 */
+	int[] getFreeCells();
+
+}
@@ -0,0 +1,175 @@
+package es.uned.peda.dataStructures;
+
+/**
+ * The Class CellLayout.
+ *
+ * Position in the arrays of a {@link GridGraph} of the cell at each row and
+ * column. In row-major order the cells above and below a cell are a whole row
+ * away, so on wide maps every relaxation touches three distant parts of each
+ * array. In the tiled layout the grid is cut in bands of
+ * {@link #TILE_SIDE} rows and each band in tiles of {@link #TILE_SIDE}
+ * columns, and the cells of a tile are stored together by rows, so most of the
+ * adjacent cells of a cell are in the same few cache lines. The last band and
+ * the last tile of each band are smaller when the sides of the grid are not
+ * multiples of the tile, so no cell is wasted.
+ */
+public final class CellLayout {
+
+	/** The bits of the side of a tile. */
+	private static final int TILE_BITS = 3;
+
+	/** The side of a tile: a row of a tile of doubles fills a cache line. */
+	public static final int TILE_SIDE = 1 << TILE_BITS;
+
+	/** The type. */
+	private final LayoutType type;
+
+	/** Whether the cells are in row-major order. */
+	private final boolean rowMajor;
+
+	/** The number of rows. */
+	private final int numberOfRows;
+
+	/** The number of columns. */
+	private final int numberOfColumns;
+
+	/**
+	 * The number of cells of a full band. A grid too wide for it to fit in an
+	 * int has a single band, so its cells are all below it.
+	 */
+	private final int bandSize;
+
+	/** The first row of the last band. */
+	private final int lastBandStart;
+
+	/** The first column of the last tile of each band. */
+	private final int lastTileStart;
+
+	/**
+	 * Instantiates a new layout.
+	 *
+	 * @param type
+	 *            the type
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 */
+	CellLayout(LayoutType type, int numberOfRows, int numberOfColumns) {
+		this.type = type;
+		this.rowMajor = type == LayoutType.ROW_MAJOR;
+		this.numberOfRows = numberOfRows;
+		this.numberOfColumns = numberOfColumns;
+		this.bandSize = (int) Math.min((long) TILE_SIDE * numberOfColumns, Integer.MAX_VALUE);
+		this.lastBandStart = (numberOfRows - 1) & ~(TILE_SIDE - 1);
+		this.lastTileStart = (numberOfColumns - 1) & ~(TILE_SIDE - 1);
+	}
+
+	/**
+	 * Gets the cell at a row and column.
+	 *
+	 * @param row
+	 *            the row, starting at 0
+	 * @param column
+	 *            the column, starting at 0
+	 * @return the cell
+	 */
+	public int getCell(int row, int column) {
+		if (rowMajor) {
+			return row * numberOfColumns + column;
+		}
+		final int bandStart = row & ~(TILE_SIDE - 1);
+		final int tileStart = column & ~(TILE_SIDE - 1);
+		return bandStart * numberOfColumns + tileStart * getBandHeight(bandStart)
+				+ (row - bandStart) * getTileWidth(tileStart) + column - tileStart;
+	}
+
+	/**
+	 * Gets the row of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the row, starting at 0
+	 */
+	public int getRow(int cell) {
+		if (rowMajor) {
+			return cell / numberOfColumns;
+		}
+		final int bandStart = cell / bandSize << TILE_BITS;
+		final int offset = cell - bandStart * numberOfColumns;
+		final int height = getBandHeight(bandStart);
+		final int tileStart = getTileStart(offset, height);
+		final int width = getTileWidth(tileStart);
+		final int inTile = offset - tileStart * height;
+		return bandStart + (width == TILE_SIDE ? inTile >> TILE_BITS : inTile / width);
+	}
+
+	/**
+	 * Gets the column of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the column, starting at 0
+	 */
+	public int getColumn(int cell) {
+		if (rowMajor) {
+			return cell % numberOfColumns;
+		}
+		final int bandStart = cell / bandSize << TILE_BITS;
+		final int offset = cell - bandStart * numberOfColumns;
+		final int height = getBandHeight(bandStart);
+		final int tileStart = getTileStart(offset, height);
+		final int width = getTileWidth(tileStart);
+		final int inTile = offset - tileStart * height;
+		return tileStart + (width == TILE_SIDE ? inTile & (TILE_SIDE - 1) : inTile % width);
+	}
+
+	/**
+	 * Gets the number of rows of a band.
+	 *
+	 * @param bandStart
+	 *            the first row of the band
+	 * @return the height
+	 */
+	private int getBandHeight(int bandStart) {
+		return bandStart == lastBandStart ? numberOfRows - lastBandStart : TILE_SIDE;
+	}
+
+	/**
+	 * Gets the number of columns of a tile.
+	 *
+	 * @param tileStart
+	 *            the first column of the tile
+	 * @return the width
+	 */
+	private int getTileWidth(int tileStart) {
+		return tileStart == lastTileStart ? numberOfColumns - lastTileStart : TILE_SIDE;
+	}
+
+	/**
+	 * Gets the first column of the tile of a cell. Every tile but the last one
+	 * of the band is full, so the last one is found in the same way.
+	 *
+	 * @param offset
+	 *            the position of the cell in its band
+	 * @param height
+	 *            the number of rows of the band
+	 * @return the first column of the tile
+	 */
+	private static int getTileStart(int offset, int height) {
+		if (height == TILE_SIDE) {
+			return offset >> (2 * TILE_BITS) << TILE_BITS;
+		}
+		return offset / (TILE_SIDE * height) << TILE_BITS;
+	}
+
+	/**
+	 * Gets the type.
+	 *
+	 * @return the type
+	 */
+	public LayoutType getType() {
+		return type;
+	}
+
+}
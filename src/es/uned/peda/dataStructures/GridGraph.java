@@ -0,0 +1,709 @@
+package es.uned.peda.dataStructures;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Class GridGraph.
+ *
+ * Compact representation of the maze: the cost of every cell is stored in a
+ * primitive array indexed by cell, or read in place from a mapped file through
+ * {@link CellCosts}, and the adjacent cells are computed on the
+ * fly from the number of columns, so no object is created per cell. The
+ * distance, previous cell and visited flag of the search are kept apart in a
+ * {@link SearchState}, so the same graph can answer many searches between
+ * different cells without being read or allocated again.
+ *
+ * The cells are numbered by their position in the arrays, which follows a
+ * {@link CellLayout}: row-major order, as in the map files, unless the graph
+ * is copied into another layout. The tags and the x and y of the cells, which
+ * are what the input and output use, are the same in every layout.
+ */
+public class GridGraph {
+
+	/** Maximum number of adjacent cells of a cell. */
+	public static final int MAX_ADJACENT_CELLS = 8;
+
+	/** Value used when a cell does not exist. */
+	public static final int NO_CELL = -1;
+
+	/** The number of rows. */
+	private final int numberOfRows;
+
+	/** The number of columns. */
+	private final int numberOfColumns;
+
+	/** The position of each cell in the arrays. */
+	private final CellLayout layout;
+
+	/** The cost of entering each cell. Obstacles have infinite cost. */
+	private final CellCosts costs;
+
+	/** The number of cells. */
+	private final int numberOfCells;
+
+	/** The state of the search from the initial cell. */
+	private final SearchState state;
+
+	/** The initial cell. */
+	private int initialCell;
+
+	/** The final cells. The search ends at the first one it reaches. */
+	private int[] finalCells;
+
+	/** The cells that are final cells. */
+	private final boolean[] finalFlags;
+
+	/** The cells that cost nothing, such as the initial cell and the exits. */
+	private final int[] freeCells;
+
+	/**
+	 * Instantiates a new grid graph. The array of costs is used in place, not
+	 * copied.
+	 *
+	 * @param costs
+	 *            the cost of each cell in row-major order
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCell
+	 *            the final cell
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 */
+	public GridGraph(double[] costs, int initialCell, int finalCell, int numberOfRows, int numberOfColumns) {
+		this(costs, initialCell, new int[] { finalCell }, numberOfRows, numberOfColumns);
+	}
+
+	/**
+	 * Instantiates a new grid graph with several final cells. The array of
+	 * costs is used in place, not copied.
+	 *
+	 * @param costs
+	 *            the cost of each cell in row-major order
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCells
+	 *            the final cells, at least one
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 */
+	public GridGraph(double[] costs, int initialCell, int[] finalCells, int numberOfRows, int numberOfColumns) {
+		this(new ArrayCosts(costs), initialCell, finalCells, numberOfRows, numberOfColumns);
+	}
+
+	/**
+	 * Instantiates a new grid graph with several final cells whose costs are
+	 * read in place.
+	 *
+	 * @param costs
+	 *            the cost of each cell in row-major order
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCells
+	 *            the final cells, at least one
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 */
+	public GridGraph(CellCosts costs, int initialCell, int[] finalCells, int numberOfRows, int numberOfColumns) {
+
+		if (costs.getNumberOfCells() != numberOfRows * numberOfColumns) {
+			throw new IllegalArgumentException("Invalid number of cells");
+		}
+		if (finalCells.length == 0) {
+			throw new IllegalArgumentException("There must be at least one final cell");
+		}
+
+		this.costs = costs;
+		this.numberOfCells = costs.getNumberOfCells();
+		this.initialCell = initialCell;
+		this.finalCells = finalCells.clone();
+		this.numberOfRows = numberOfRows;
+		this.numberOfColumns = numberOfColumns;
+		this.layout = LayoutType.ROW_MAJOR.create(numberOfRows, numberOfColumns);
+		this.freeCells = costs.getFreeCells();
+
+		this.finalFlags = new boolean[numberOfCells];
+		for (final int finalCell : finalCells) {
+			finalFlags[finalCell] = true;
+		}
+
+		this.state = new SearchState(numberOfCells);
+
+		reset();
+
+	}
+
+	/**
+	 * Instantiates a new grid graph that shares the costs of another one but
+	 * has its own endpoints and search state. The costs are never modified, so
+	 * graphs that share them can be searched from different threads at the
+	 * same time.
+	 *
+	 * @param graph
+	 *            the graph whose costs are shared
+	 */
+	public GridGraph(GridGraph graph) {
+
+		this.costs = graph.costs;
+		this.numberOfCells = graph.numberOfCells;
+		this.initialCell = graph.initialCell;
+		this.finalCells = graph.finalCells.clone();
+		this.finalFlags = graph.finalFlags.clone();
+		this.numberOfRows = graph.numberOfRows;
+		this.numberOfColumns = graph.numberOfColumns;
+		this.layout = graph.layout;
+		this.freeCells = graph.freeCells;
+
+		this.state = new SearchState(numberOfCells);
+
+		reset();
+
+	}
+
+	/**
+	 * Instantiates a new graph with the costs and endpoints of another one but
+	 * its cells stored in another layout. The costs are copied in the new
+	 * order, so a graph whose costs are read in place from a file gets them
+	 * in memory.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param layoutType
+	 *            the type of layout
+	 */
+	public GridGraph(GridGraph graph, LayoutType layoutType) {
+
+		this.numberOfCells = graph.numberOfCells;
+		this.numberOfRows = graph.numberOfRows;
+		this.numberOfColumns = graph.numberOfColumns;
+		this.layout = layoutType.create(numberOfRows, numberOfColumns);
+
+		final double[] layoutCosts = new double[numberOfCells];
+		for (int row = 0; row < numberOfRows; row++) {
+			for (int column = 0; column < numberOfColumns; column++) {
+				layoutCosts[layout.getCell(row, column)] = graph.getCost(graph.layout.getCell(row, column));
+			}
+		}
+		this.costs = new ArrayCosts(layoutCosts);
+		this.freeCells = costs.getFreeCells();
+
+		this.initialCell = toLayout(graph, graph.initialCell);
+		this.finalCells = new int[graph.finalCells.length];
+		this.finalFlags = new boolean[numberOfCells];
+		for (int i = 0; i < finalCells.length; i++) {
+			finalCells[i] = toLayout(graph, graph.finalCells[i]);
+			finalFlags[finalCells[i]] = true;
+		}
+
+		this.state = new SearchState(numberOfCells);
+
+		reset();
+
+	}
+
+	/**
+	 * Gets the cell of this graph at the position of a cell of another graph
+	 * with the same size.
+	 *
+	 * @param graph
+	 *            the other graph
+	 * @param cell
+	 *            the cell of the other graph
+	 * @return the cell
+	 */
+	private int toLayout(GridGraph graph, int cell) {
+		return layout.getCell(graph.layout.getRow(cell), graph.layout.getColumn(cell));
+	}
+
+	/**
+	 * Creates a grid graph from a list of nodes sorted by tag.
+	 *
+	 * @param nodes
+	 *            the nodes
+	 * @param initialNode
+	 *            the initial node
+	 * @param finalNode
+	 *            the final node
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 * @return the grid graph
+	 */
+	public static GridGraph fromNodes(List<Node> nodes, Node initialNode, Node finalNode, int numberOfRows,
+			int numberOfColumns) {
+
+		final double[] costs = new double[nodes.size()];
+		for (int cell = 0; cell < costs.length; cell++) {
+			costs[cell] = nodes.get(cell).getCost();
+		}
+
+		return new GridGraph(costs, initialNode.getTag() - 1, finalNode.getTag() - 1, numberOfRows,
+				numberOfColumns);
+
+	}
+
+	/**
+	 * Reset the search state: every cell gets infinite distance, the initial
+	 * cell as previous cell and is marked as not visited. It takes constant
+	 * time, see {@link SearchState}.
+	 */
+	public final void reset() {
+		state.reset(initialCell);
+	}
+
+	/**
+	 * Change the initial and final cells and reset the search state.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCell
+	 *            the final cell
+	 */
+	public void setEndpoints(int initialCell, int finalCell) {
+
+		checkEndpoint(initialCell);
+		checkEndpoint(finalCell);
+
+		clearFinalFlags();
+		if (finalCells.length != 1) {
+			finalCells = new int[1];
+		}
+		finalCells[0] = finalCell;
+		finalFlags[finalCell] = true;
+		this.initialCell = initialCell;
+
+		reset();
+
+	}
+
+	/**
+	 * Change the initial cell and the final cells and reset the search state.
+	 * The search ends at the first final cell it reaches.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCells
+	 *            the final cells, at least one
+	 */
+	public void setEndpoints(int initialCell, int[] finalCells) {
+
+		if (finalCells.length == 0) {
+			throw new IllegalArgumentException("There must be at least one final cell");
+		}
+		checkEndpoint(initialCell);
+		for (final int finalCell : finalCells) {
+			checkEndpoint(finalCell);
+		}
+
+		clearFinalFlags();
+		this.finalCells = finalCells.clone();
+		for (final int finalCell : finalCells) {
+			finalFlags[finalCell] = true;
+		}
+		this.initialCell = initialCell;
+
+		reset();
+
+	}
+
+	/**
+	 * Unmark the current final cells.
+	 */
+	private void clearFinalFlags() {
+		for (final int finalCell : finalCells) {
+			finalFlags[finalCell] = false;
+		}
+	}
+
+	/**
+	 * Check that a cell can be the initial or final cell of a search.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	private void checkEndpoint(int cell) {
+		if (cell < 0 || cell >= numberOfCells) {
+			throw new IllegalArgumentException("Cell " + cell + " is out of the grid");
+		}
+		if (isObstacle(cell)) {
+			throw new IllegalArgumentException("Cell " + cell + " is an obstacle");
+		}
+	}
+
+	/**
+	 * Gets the adjacent cells of a cell that are not obstacles. They are
+	 * written in the same order used by {@link ProblemData} for the adjacent
+	 * nodes.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param adjacentCells
+	 *            array of at least {@link #MAX_ADJACENT_CELLS} elements where
+	 *            the adjacent cells are written
+	 * @return the number of adjacent cells
+	 */
+	public int getAdjacentCells(int cell, int[] adjacentCells) {
+
+		final int row = layout.getRow(cell);
+		final int column = layout.getColumn(cell);
+		int count = 0;
+
+		for (int i = -1; i <= 1; i++) {
+			final int adjacentRow = row + i;
+			if (adjacentRow < 0 || adjacentRow >= numberOfRows) {
+				continue;
+			}
+			for (int j = -1; j <= 1; j++) {
+				final int adjacentColumn = column + j;
+				if ((i == 0 && j == 0) || adjacentColumn < 0 || adjacentColumn >= numberOfColumns) {
+					continue;
+				}
+				final int candidate = layout.getCell(adjacentRow, adjacentColumn);
+				if (!isObstacle(candidate)) {
+					adjacentCells[count++] = candidate;
+				}
+			}
+		}
+
+		return count;
+
+	}
+
+	/**
+	 * Gets the cells around a cell, obstacles included, in the same order as
+	 * {@link #getAdjacentCells(int, int[])}. Used by searches that keep their
+	 * own costs, where an obstacle of the graph may no longer be one.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param surroundingCells
+	 *            array of at least {@link #MAX_ADJACENT_CELLS} elements where
+	 *            the cells are written
+	 * @return the number of cells
+	 */
+	public int getSurroundingCells(int cell, int[] surroundingCells) {
+
+		final int row = layout.getRow(cell);
+		final int column = layout.getColumn(cell);
+		int count = 0;
+
+		for (int i = -1; i <= 1; i++) {
+			final int adjacentRow = row + i;
+			if (adjacentRow < 0 || adjacentRow >= numberOfRows) {
+				continue;
+			}
+			for (int j = -1; j <= 1; j++) {
+				final int adjacentColumn = column + j;
+				if ((i == 0 && j == 0) || adjacentColumn < 0 || adjacentColumn >= numberOfColumns) {
+					continue;
+				}
+				surroundingCells[count++] = layout.getCell(adjacentRow, adjacentColumn);
+			}
+		}
+
+		return count;
+
+	}
+
+	/**
+	 * Creates a list of nodes with the costs of this graph, sorted by tag. The
+	 * nodes do not share the search state of the graph.
+	 *
+	 * @return the nodes
+	 */
+	public List<Node> createNodes() {
+
+		final List<Node> nodes = new ArrayList<>(numberOfCells);
+
+		for (int tag = 1; tag <= numberOfCells; tag++) {
+			final int cell = getCell(tag);
+			final double value = cell == initialCell ? 0.0 : Double.POSITIVE_INFINITY;
+			nodes.add(new Node(getTag(cell), getX(cell), getY(cell), costs.getCost(cell), value));
+		}
+
+		return nodes;
+
+	}
+
+	/**
+	 * Checks if a cell is an obstacle.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return true, if it is an obstacle
+	 */
+	public boolean isObstacle(int cell) {
+		return Double.isInfinite(costs.getCost(cell));
+	}
+
+	/**
+	 * Gets the cell of a tag.
+	 *
+	 * @param tag
+	 *            the tag
+	 * @return the cell
+	 */
+	public int getCell(int tag) {
+		return layout.getCell((tag - 1) / numberOfColumns, (tag - 1) % numberOfColumns);
+	}
+
+	/**
+	 * Gets the cell at a position.
+	 *
+	 * @param x
+	 *            the x (row, starting at 1)
+	 * @param y
+	 *            the y (column, starting at 1)
+	 * @return the cell, or {@link #NO_CELL} if the position is out of the grid
+	 */
+	public int getCellAt(int x, int y) {
+		if (x < 1 || x > numberOfRows || y < 1 || y > numberOfColumns) {
+			return NO_CELL;
+		}
+		return layout.getCell(x - 1, y - 1);
+	}
+
+	/**
+	 * Gets the tag of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the tag
+	 */
+	public int getTag(int cell) {
+		return layout.getRow(cell) * numberOfColumns + layout.getColumn(cell) + 1;
+	}
+
+	/**
+	 * Gets the x (row, starting at 1) of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the x
+	 */
+	public int getX(int cell) {
+		return layout.getRow(cell) + 1;
+	}
+
+	/**
+	 * Gets the y (column, starting at 1) of a cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the y
+	 */
+	public int getY(int cell) {
+		return layout.getColumn(cell) + 1;
+	}
+
+	/**
+	 * Gets the cost.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the cost
+	 */
+	public double getCost(int cell) {
+		return costs.getCost(cell);
+	}
+
+	/**
+	 * Gets the distance.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the distance
+	 */
+	public double getDistance(int cell) {
+		return state.getDistance(cell);
+	}
+
+	/**
+	 * Sets the distance.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param distance
+	 *            the new distance
+	 */
+	public void setDistance(int cell, double distance) {
+		state.setDistance(cell, distance);
+	}
+
+	/**
+	 * Gets the previous cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the previous cell
+	 */
+	public int getPreviousCell(int cell) {
+		return state.getPreviousCell(cell);
+	}
+
+	/**
+	 * Sets the previous cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param previousCell
+	 *            the new previous cell
+	 */
+	public void setPreviousCell(int cell, int previousCell) {
+		state.setPreviousCell(cell, previousCell);
+	}
+
+	/**
+	 * Checks if a cell is visited.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return true, if is visited
+	 */
+	public boolean isVisited(int cell) {
+		return state.isVisited(cell);
+	}
+
+	/**
+	 * Sets the visited.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param visited
+	 *            the new visited
+	 */
+	public void setVisited(int cell, boolean visited) {
+		state.setVisited(cell, visited);
+	}
+
+	/**
+	 * Gets the lowest cost of the cells with positive cost.
+	 *
+	 * @return the min cost
+	 */
+	public double getMinCost() {
+		return costs.getMinCost();
+	}
+
+	/**
+	 * Gets the highest cost of the cells that are not obstacles.
+	 *
+	 * @return the max cost
+	 */
+	public double getMaxCost() {
+		return costs.getMaxCost();
+	}
+
+	/**
+	 * Gets one of the cells that cost nothing.
+	 *
+	 * @param index
+	 *            the index, from zero to the number of free cells minus one
+	 * @return the free cell
+	 */
+	public int getFreeCell(int index) {
+		return freeCells[index];
+	}
+
+	/**
+	 * Gets the number of cells that cost nothing.
+	 *
+	 * @return the number of free cells
+	 */
+	public int getNumberOfFreeCells() {
+		return freeCells.length;
+	}
+
+	/**
+	 * Gets the number of cells.
+	 *
+	 * @return the number of cells
+	 */
+	public int getNumberOfCells() {
+		return numberOfCells;
+	}
+
+	/**
+	 * Gets the number of rows.
+	 *
+	 * @return the number of rows
+	 */
+	public int getNumberOfRows() {
+		return numberOfRows;
+	}
+
+	/**
+	 * Gets the number of columns.
+	 *
+	 * @return the number of columns
+	 */
+	public int getNumberOfColumns() {
+		return numberOfColumns;
+	}
+
+	/**
+	 * Gets the layout of the cells.
+	 *
+	 * @return the layout
+	 */
+	public CellLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Gets the initial cell.
+	 *
+	 * @return the initial cell
+	 */
+	public int getInitialCell() {
+		return initialCell;
+	}
+
+	/**
+	 * Gets the final cell, or the first one if there are several.
+	 *
+	 * @return the final cell
+	 */
+	public int getFinalCell() {
+		return finalCells[0];
+	}
+
+	/**
+	 * Gets one of the final cells.
+	 *
+	 * @param index
+	 *            the index, from zero to the number of final cells minus one
+	 * @return the final cell
+	 */
+	public int getFinalCell(int index) {
+		return finalCells[index];
+	}
+
+	/**
+	 * Gets the number of final cells.
+	 *
+	 * @return the number of final cells
+	 */
+	public int getNumberOfFinalCells() {
+		return finalCells.length;
+	}
+
+	/**
+	 * Checks if a cell is one of the final cells.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return true, if it is a final cell
+	 */
+	public boolean isFinalCell(int cell) {
+		return finalFlags[cell];
+	}
+
+}
@@ -0,0 +1,317 @@
+package es.uned.peda.dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * The Class IndexedMinHeap.
+ *
+ * D-ary min heap of cells. The cells and their priorities are stored in two
+ * parallel arrays and the position of each cell in an array indexed by cell,
+ * so no object is created after the heap is instantiated. With arity 2 the
+ * cells are extracted in the same order as in {@link MinDijkstraHeap}.
+ */
+public class IndexedMinHeap implements IndexedPriorityQueue {
+
+	/** Position of the cells that are not in the heap. */
+	private static final int NOT_IN_HEAP = -1;
+
+	/** The number of children of each position. */
+	private final int arity;
+
+	/** The heap is implemented on top of this array of cells. */
+	private final int[] cells;
+
+	/** The priority of the cell at each position of the heap. */
+	private final double[] priorities;
+
+	/** The position of each cell in the heap. */
+	private final int[] cellPositions;
+
+	/** The current size. */
+	private int currentSize;
+
+	/**
+	 * Instantiates a new empty binary heap.
+	 *
+	 * @param numberOfCells
+	 *            the number of cells
+	 */
+	public IndexedMinHeap(int numberOfCells) {
+		this(numberOfCells, 2);
+	}
+
+	/**
+	 * Instantiates a new empty d-ary heap.
+	 *
+	 * @param numberOfCells
+	 *            the number of cells
+	 * @param arity
+	 *            the number of children of each position
+	 */
+	public IndexedMinHeap(int numberOfCells, int arity) {
+
+		if (arity < 2) {
+			throw new IllegalArgumentException("The arity of the heap must be at least 2");
+		}
+
+		this.arity = arity;
+		this.cells = new int[numberOfCells];
+		this.priorities = new double[numberOfCells];
+		this.cellPositions = new int[numberOfCells];
+		this.currentSize = 0;
+
+		Arrays.fill(cellPositions, NOT_IN_HEAP);
+
+	}
+
+	/**
+	 * Move a cell to a position of the heap.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param priority
+	 *            the priority of the cell
+	 * @param position
+	 *            the position
+	 */
+	private void place(int cell, double priority, int position) {
+		cells[position] = cell;
+		priorities[position] = priority;
+		cellPositions[cell] = position;
+	}
+
+	/**
+	 * Bubble down a cell from a position.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param priority
+	 *            the priority of the cell
+	 * @param position
+	 *            the position
+	 */
+	private void bubbleDown(int cell, double priority, int position) {
+		int currentPosition = position;
+
+		while (true) {
+			final int firstChild = currentPosition * arity + 1;
+			if (firstChild >= currentSize) {
+				break;
+			}
+			final int lastChild = Math.min(firstChild + arity, currentSize);
+			int child = firstChild;
+			for (int i = firstChild + 1; i < lastChild; i++) {
+				if (priorities[i] < priorities[child]) {
+					child = i;
+				}
+			}
+			if (priority <= priorities[child]) {
+				break;
+			}
+			place(cells[child], priorities[child], currentPosition);
+			currentPosition = child;
+		}
+
+		place(cell, priority, currentPosition);
+	}
+
+	/**
+	 * Bubble up a cell from a position.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param priority
+	 *            the priority of the cell
+	 * @param position
+	 *            the position
+	 */
+	private void bubbleUp(int cell, double priority, int position) {
+		int currentPosition = position;
+
+		while (currentPosition > 0) {
+			final int fatherPosition = (currentPosition - 1) / arity;
+			if (priorities[fatherPosition] <= priority) {
+				break;
+			}
+			place(cells[fatherPosition], priorities[fatherPosition], currentPosition);
+			currentPosition = fatherPosition;
+		}
+
+		place(cell, priority, currentPosition);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#insert(int, double)
+	 */
+	@Override
+	public void insert(int cell, double priority) {
+
+		if (cellPositions[cell] != NOT_IN_HEAP) {
+			throw new IllegalArgumentException("Cell " + cell + " is already in the heap");
+		}
+
+		bubbleUp(cell, priority, currentSize++);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#decreaseKey(int,
+	 * double)
+	 */
+	@Override
+	public void decreaseKey(int cell, double priority) {
+
+		final int position = cellPositions[cell];
+
+		if (position == NOT_IN_HEAP) {
+			throw new IllegalArgumentException("Cell " + cell + " is not in the heap");
+		}
+		if (priority > priorities[position]) {
+			throw new IllegalArgumentException("The priority of cell " + cell + " cannot be increased");
+		}
+
+		bubbleUp(cell, priority, position);
+
+	}
+
+	/**
+	 * Change the priority of a cell in the heap, up or down.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param priority
+	 *            the new priority
+	 */
+	public void changeKey(int cell, double priority) {
+
+		final int position = cellPositions[cell];
+
+		if (position == NOT_IN_HEAP) {
+			throw new IllegalArgumentException("Cell " + cell + " is not in the heap");
+		}
+
+		if (priority < priorities[position]) {
+			bubbleUp(cell, priority, position);
+		} else {
+			bubbleDown(cell, priority, position);
+		}
+
+	}
+
+	/**
+	 * Remove a cell from the heap.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	public void remove(int cell) {
+
+		final int position = cellPositions[cell];
+
+		if (position == NOT_IN_HEAP) {
+			throw new IllegalArgumentException("Cell " + cell + " is not in the heap");
+		}
+
+		cellPositions[cell] = NOT_IN_HEAP;
+		currentSize--;
+		if (position == currentSize) {
+			return;
+		}
+
+		final int lastCell = cells[currentSize];
+		final double lastPriority = priorities[currentSize];
+		if (position > 0 && priorities[(position - 1) / arity] > lastPriority) {
+			bubbleUp(lastCell, lastPriority, position);
+		} else {
+			bubbleDown(lastCell, lastPriority, position);
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#extractMin()
+	 */
+	@Override
+	public int extractMin() {
+
+		final int cell = cells[0];
+		cellPositions[cell] = NOT_IN_HEAP;
+
+		currentSize--;
+		if (currentSize > 0) {
+			bubbleDown(cells[currentSize], priorities[currentSize], 0);
+		}
+
+		return cell;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#getMinPriority()
+	 */
+	@Override
+	public double getMinPriority() {
+		return priorities[0];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#contains(int)
+	 */
+	@Override
+	public boolean contains(int cell) {
+		return cellPositions[cell] != NOT_IN_HEAP;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return currentSize == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#size()
+	 */
+	@Override
+	public int size() {
+		return currentSize;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#clear()
+	 */
+	@Override
+	public void clear() {
+		for (int position = 0; position < currentSize; position++) {
+			cellPositions[cells[position]] = NOT_IN_HEAP;
+		}
+		currentSize = 0;
+	}
+
+	/**
+	 * Gets the arity.
+	 *
+	 * @return the arity
+	 */
+	public int getArity() {
+		return arity;
+	}
+
+}
@@ -0,0 +1,76 @@
+package es.uned.peda.dataStructures;
+
+/**
+ * The Interface IndexedPriorityQueue.
+ *
+ * Min priority queue of the cells of a grid. Cells are identified by their
+ * index, from zero to the number of cells minus one, and each cell can be in
+ * the queue at most once.
+ */
+public interface IndexedPriorityQueue {
+
+	/**
+	 * Insert a cell that is not in the queue.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param priority
+	 *            the priority
+	 */
+	void insert(int cell, double priority);
+
+	/**
+	 * Decrease the priority of a cell that is in the queue.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param priority
+	 *            the new priority, not greater than the current one
+	 */
+	void decreaseKey(int cell, double priority);
+
+	/**
+	 * Extract the cell with the lowest priority.
+	 *
+	 * @return the cell
+	 */
+	int extractMin();
+
+	/**
+	 * Gets the lowest priority in the queue.
+	 *
+	 * @return the lowest priority
+	 */
+	double getMinPriority();
+
+	/**
+	 * Checks if a cell is in the queue.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return true, if the cell is in the queue
+	 */
+	boolean contains(int cell);
+
+	/**
+	 * Checks if the queue is empty.
+	 *
+	 * @return true, if is empty
+	 */
+	boolean isEmpty();
+
+	/**
+	 * Gets the number of cells in the queue.
+	 *
+	 * @return the size
+	 */
+	int size();
+
+	/**
+	 * Remove all the cells from the queue, so that it can be used again
+	 * without being allocated. It takes time proportional to the cells in the
+	 * queue, not to the number of cells of the grid.
+	 */
+	void clear();
+
+}
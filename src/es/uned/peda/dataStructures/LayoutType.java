@@ -0,0 +1,71 @@
+package es.uned.peda.dataStructures;
+
+/**
+ * The Enum LayoutType.
+ *
+ * Orders in which the cells of a grid can be stored in the arrays of a
+ * {@link GridGraph}: its costs, its search state and the priority queues.
+ */
+public enum LayoutType {
+
+	/** One row after another, as in the map files. */
+	ROW_MAJOR("row-major"),
+
+	/**
+	 * Square tiles of {@link CellLayout#TILE_SIDE} cells of side, one after
+	 * another by rows, with the cells of each tile by rows.
+	 */
+	TILED("tiled");
+
+	/** The name used in the command line. */
+	private final String name;
+
+	/**
+	 * Instantiates a new layout type.
+	 *
+	 * @param name
+	 *            the name
+	 */
+	LayoutType(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the layout type with the given name.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the layout type
+	 */
+	public static LayoutType fromName(String name) {
+		for (final LayoutType type : values()) {
+			if (type.name.equals(name)) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown layout: " + name);
+	}
+
+	/**
+	 * Creates the layout of a grid.
+	 *
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 * @return the layout
+	 */
+	public CellLayout create(int numberOfRows, int numberOfColumns) {
+		return new CellLayout(this, numberOfRows, numberOfColumns);
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+}
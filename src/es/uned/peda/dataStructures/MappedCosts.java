@@ -0,0 +1,152 @@
+package es.uned.peda.dataStructures;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * The Class MappedCosts.
+ *
+ * Costs read in place from a file mapped in memory, stored as little-endian
+ * float32 or float64 values. Nothing is copied: the pages of the file are read
+ * by the operating system when a search reaches them. The file is mapped in
+ * segments, since a single mapping cannot be larger than 2 GB. The summary of
+ * the costs is not computed from them but given, so creating the costs does
+ * not read the file either.
+ */
+public final class MappedCosts implements CellCosts {
+
+	/** The base 2 logarithm of the number of cells in a segment. */
+	private static final int SEGMENT_SHIFT = 27;
+
+	/** The mask that gives the index of a cell inside its segment. */
+	private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+	/** The number of cells. */
+	private final int numberOfCells;
+
+	/** The segments of costs stored as float64, or null. */
+	private final DoubleBuffer[] doubleSegments;
+
+	/** The segments of costs stored as float32, or null. */
+	private final FloatBuffer[] floatSegments;
+
+	/** The lowest cost of the cells with positive cost. */
+	private final double minCost;
+
+	/** The highest cost of the cells that are not obstacles. */
+	private final double maxCost;
+
+	/** The cells that cost nothing. */
+	private final int[] freeCells;
+
+	/**
+	 * Instantiates new mapped costs. The mapping is still valid after the
+	 * channel is closed.
+	 *
+	 * @param channel
+	 *            the channel of the file
+	 * @param offset
+	 *            the offset in the file of the first cost
+	 * @param numberOfCells
+	 *            the number of cells
+	 * @param costSize
+	 *            the size in bytes of each cost, 4 or 8
+	 * @param minCost
+	 *            the lowest cost of the cells with positive cost
+	 * @param maxCost
+	 *            the highest cost of the cells that are not obstacles
+	 * @param freeCells
+	 *            the cells that cost nothing, sorted
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	public MappedCosts(FileChannel channel, long offset, int numberOfCells, int costSize, double minCost,
+			double maxCost, int[] freeCells) throws IOException {
+
+		if (costSize != Double.BYTES && costSize != Float.BYTES) {
+			throw new IllegalArgumentException("Invalid size of costs: " + costSize);
+		}
+
+		this.numberOfCells = numberOfCells;
+		this.minCost = minCost;
+		this.maxCost = maxCost;
+		this.freeCells = freeCells.clone();
+
+		final int numberOfSegments = (int) (((long) numberOfCells + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+		this.doubleSegments = costSize == Double.BYTES ? new DoubleBuffer[numberOfSegments] : null;
+		this.floatSegments = costSize == Float.BYTES ? new FloatBuffer[numberOfSegments] : null;
+
+		for (int segment = 0; segment < numberOfSegments; segment++) {
+			final long first = (long) segment << SEGMENT_SHIFT;
+			final long cells = Math.min(1L << SEGMENT_SHIFT, numberOfCells - first);
+			final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, offset + first * costSize,
+					cells * costSize);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (doubleSegments != null) {
+				doubleSegments[segment] = buffer.asDoubleBuffer();
+			} else {
+				floatSegments[segment] = buffer.asFloatBuffer();
+			}
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getNumberOfCells()
+	 */
+	@Override
+	public int getNumberOfCells() {
+		return numberOfCells;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getCost(int)
+	 */
+	@Override
+	public double getCost(int cell) {
+		if (doubleSegments != null) {
+			return doubleSegments[cell >>> SEGMENT_SHIFT].get(cell & SEGMENT_MASK);
+		}
+		return floatSegments[cell >>> SEGMENT_SHIFT].get(cell & SEGMENT_MASK);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getMinCost()
+	 */
+	@Override
+	public double getMinCost() {
+		return minCost;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getMaxCost()
+	 */
+	@Override
+	public double getMaxCost() {
+		return maxCost;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.CellCosts#getFreeCells()
+	 */
+	@Override
+	public int[] getFreeCells() {
+		return freeCells;
+	}
+
+}
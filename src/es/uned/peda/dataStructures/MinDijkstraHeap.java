@@ -6,8 +6,12 @@ import java.util.Map;
 
 /**
  * The Class MinDijkstraHeap.
+ *
+ * As an {@link IndexedPriorityQueue}, the cell of a node is its tag minus one,
+ * or the cell of its tag in the graph it was created for, and the priority of a
+ * node is its value.
  */
-public class MinDijkstraHeap {
+public class MinDijkstraHeap implements IndexedPriorityQueue {
 
 	/** The heap is implemented on top of this array. */
 	private final Node[] array;
@@ -15,6 +19,12 @@ public class MinDijkstraHeap {
 	/** This map maps node tags to positions. */
 	private final Map<Node, Integer> nodePositionMap;
 
+	/** The nodes indexed by cell. */
+	private final Node[] cellNodes;
+
+	/** The cell of each tag minus one, or null if they are the same. */
+	private final int[] tagCells;
+
 	/** The max size. */
 	private final int maxSize;
 
@@ -28,20 +38,70 @@ public class MinDijkstraHeap {
 	 *            the list of nodes
 	 */
 	public MinDijkstraHeap(List<Node> elements) {
+		this(elements, false);
+	}
+
+	/**
+	 * Instantiates a new min dijkstra heap. In frontier only mode the heap
+	 * starts empty and the nodes must be inserted when they are reached.
+	 *
+	 * @param elements
+	 *            the list of nodes
+	 * @param frontierOnly
+	 *            the frontier only mode
+	 */
+	public MinDijkstraHeap(List<Node> elements, boolean frontierOnly) {
+		this(elements, frontierOnly, null);
+	}
+
+	/**
+	 * Instantiates a new min dijkstra heap for the cells of a graph, whose
+	 * layout decides the cell of each node.
+	 *
+	 * @param elements
+	 *            the list of nodes
+	 * @param frontierOnly
+	 *            the frontier only mode
+	 * @param graph
+	 *            the graph, or null if the cell of a node is its tag minus one
+	 */
+	public MinDijkstraHeap(List<Node> elements, boolean frontierOnly, GridGraph graph) {
+
+		if (graph == null || graph.getLayout().getType() == LayoutType.ROW_MAJOR) {
+			this.tagCells = null;
+		} else {
+			this.tagCells = new int[graph.getNumberOfCells()];
+			for (int tag = 1; tag <= tagCells.length; tag++) {
+				tagCells[tag - 1] = graph.getCell(tag);
+			}
+		}
 
 		this.maxSize = elements.size();
-		this.currentSize = maxSize;
 		this.array = new Node[maxSize + 1];
-		this.nodePositionMap = new HashMap<>(maxSize);
+		this.nodePositionMap = frontierOnly ? new HashMap<>() : new HashMap<>(maxSize);
+		this.cellNodes = new Node[maxSize];
 
-		int position = 1;
 		for (final Node element : elements) {
-			nodePositionMap.put(element, position);
-			array[position++] = element;
+			cellNodes[getCell(element)] = element;
 		}
 
-		for (int i = maxSize / 2 + maxSize % 2; i >= 1; i--) {
-			bubbleDown(i);
+		if (frontierOnly) {
+
+			this.currentSize = 0;
+
+		} else {
+
+			this.currentSize = maxSize;
+			int position = 1;
+			for (final Node element : elements) {
+				nodePositionMap.put(element, position);
+				array[position++] = element;
+			}
+
+			for (int i = maxSize / 2 + maxSize % 2; i >= 1; i--) {
+				bubbleDown(i);
+			}
+
 		}
 
 	}
@@ -141,6 +201,7 @@ public class MinDijkstraHeap {
 		node.setVisited(true);
 
 		swapNodes(1, currentSize);
+		nodePositionMap.remove(node);
 		currentSize--;
 		bubbleDown(1);
 
@@ -148,6 +209,25 @@ public class MinDijkstraHeap {
 
 	}
 
+	/**
+	 * Insert a node that is not in the heap.
+	 *
+	 * @param node
+	 *            the node
+	 */
+	public void insertNode(Node node) {
+
+		if (nodePositionMap.containsKey(node)) {
+			throw new IllegalArgumentException("Node " + node.getTag() + " is already in the heap");
+		}
+
+		currentSize++;
+		array[currentSize] = node;
+		nodePositionMap.put(node, currentSize);
+		bubbleUp(currentSize);
+
+	}
+
 	/**
 	 * Bubble up to the correct position.
 	 *
@@ -169,6 +249,95 @@ public class MinDijkstraHeap {
 		return nodePositionMap.get(node);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#insert(int, double)
+	 */
+	@Override
+	public void insert(int cell, double priority) {
+		final Node node = cellNodes[cell];
+		node.setValue(priority);
+		insertNode(node);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#decreaseKey(int,
+	 * double)
+	 */
+	@Override
+	public void decreaseKey(int cell, double priority) {
+		final Node node = cellNodes[cell];
+		node.setValue(priority);
+		bubbleUpNode(node);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#extractMin()
+	 */
+	@Override
+	public int extractMin() {
+		return getCell(extractFirstNode());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#getMinPriority()
+	 */
+	@Override
+	public double getMinPriority() {
+		return array[1].getValue();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#contains(int)
+	 */
+	@Override
+	public boolean contains(int cell) {
+		return nodePositionMap.containsKey(cellNodes[cell]);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return currentSize == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#size()
+	 */
+	@Override
+	public int size() {
+		return currentSize;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#clear()
+	 */
+	@Override
+	public void clear() {
+		for (int position = 1; position <= currentSize; position++) {
+			nodePositionMap.remove(array[position]);
+			array[position] = null;
+		}
+		currentSize = 0;
+	}
+
 	/**
 	 * Gets the max size.
 	 *
@@ -178,4 +347,15 @@ public class MinDijkstraHeap {
 		return maxSize;
 	}
 
+	/**
+	 * Gets the cell of a node.
+	 *
+	 * @param node
+	 *            the node
+	 * @return the cell
+	 */
+	private int getCell(Node node) {
+		return tagCells == null ? node.getTag() - 1 : tagCells[node.getTag() - 1];
+	}
+
 }
@@ -0,0 +1,305 @@
+package es.uned.peda.dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * The Class PairingHeap.
+ *
+ * Pairing heap of cells. The tree is stored in arrays indexed by cell: the
+ * first child of each cell, its next sibling and its previous sibling, or its
+ * father when it is the first child. Decreasing a priority cuts the subtree
+ * of the cell and links it with the root, and extracting the root links its
+ * children in two passes.
+ */
+public class PairingHeap implements IndexedPriorityQueue {
+
+	/** Value used when there is no cell. */
+	private static final int NONE = -1;
+
+	/** The priority of each cell. */
+	private final double[] priorities;
+
+	/** The first child of each cell. */
+	private final int[] children;
+
+	/** The next sibling of each cell. */
+	private final int[] nextSiblings;
+
+	/** The previous sibling of each cell, or its father if it is the first child. */
+	private final int[] previousCells;
+
+	/** The cells in the heap. */
+	private final boolean[] inHeap;
+
+	/** The root. */
+	private int root;
+
+	/** The current size. */
+	private int currentSize;
+
+	/**
+	 * Instantiates a new empty pairing heap.
+	 *
+	 * @param numberOfCells
+	 *            the number of cells
+	 */
+	public PairingHeap(int numberOfCells) {
+		this.priorities = new double[numberOfCells];
+		this.children = new int[numberOfCells];
+		this.nextSiblings = new int[numberOfCells];
+		this.previousCells = new int[numberOfCells];
+		this.inHeap = new boolean[numberOfCells];
+		this.root = NONE;
+		this.currentSize = 0;
+
+		Arrays.fill(children, NONE);
+		Arrays.fill(nextSiblings, NONE);
+		Arrays.fill(previousCells, NONE);
+	}
+
+	/**
+	 * Link two trees, making the root with the greater priority the first
+	 * child of the other one.
+	 *
+	 * @param first
+	 *            the root of the first tree
+	 * @param second
+	 *            the root of the second tree
+	 * @return the root of the resulting tree
+	 */
+	private int link(int first, int second) {
+
+		final int father;
+		final int child;
+		if (priorities[second] < priorities[first]) {
+			father = second;
+			child = first;
+		} else {
+			father = first;
+			child = second;
+		}
+
+		final int oldFirstChild = children[father];
+		nextSiblings[child] = oldFirstChild;
+		if (oldFirstChild != NONE) {
+			previousCells[oldFirstChild] = child;
+		}
+		previousCells[child] = father;
+		children[father] = child;
+
+		nextSiblings[father] = NONE;
+		previousCells[father] = NONE;
+
+		return father;
+
+	}
+
+	/**
+	 * Cut the subtree of a cell that is not the root.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	private void cut(int cell) {
+
+		final int previous = previousCells[cell];
+		final int next = nextSiblings[cell];
+
+		if (children[previous] == cell) {
+			children[previous] = next;
+		} else {
+			nextSiblings[previous] = next;
+		}
+		if (next != NONE) {
+			previousCells[next] = previous;
+		}
+
+		nextSiblings[cell] = NONE;
+		previousCells[cell] = NONE;
+
+	}
+
+	/**
+	 * Link the children of the root in two passes: first each pair of
+	 * consecutive children from left to right, then the resulting trees from
+	 * right to left.
+	 *
+	 * @return the new root
+	 */
+	private int mergeChildren() {
+
+		// First pass: the trees are kept in reverse order linked by their next
+		// sibling
+		int pairs = NONE;
+		int first = children[root];
+		while (first != NONE) {
+			final int second = nextSiblings[first];
+			if (second == NONE) {
+				previousCells[first] = NONE;
+				nextSiblings[first] = pairs;
+				pairs = first;
+				break;
+			}
+			final int next = nextSiblings[second];
+			final int tree = link(first, second);
+			nextSiblings[tree] = pairs;
+			pairs = tree;
+			first = next;
+		}
+
+		// Second pass
+		int newRoot = NONE;
+		while (pairs != NONE) {
+			final int next = nextSiblings[pairs];
+			nextSiblings[pairs] = NONE;
+			newRoot = newRoot == NONE ? pairs : link(newRoot, pairs);
+			pairs = next;
+		}
+
+		return newRoot;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#insert(int, double)
+	 */
+	@Override
+	public void insert(int cell, double priority) {
+
+		if (inHeap[cell]) {
+			throw new IllegalArgumentException("Cell " + cell + " is already in the heap");
+		}
+
+		priorities[cell] = priority;
+		children[cell] = NONE;
+		inHeap[cell] = true;
+		currentSize++;
+
+		root = root == NONE ? cell : link(root, cell);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#decreaseKey(int,
+	 * double)
+	 */
+	@Override
+	public void decreaseKey(int cell, double priority) {
+
+		if (!inHeap[cell]) {
+			throw new IllegalArgumentException("Cell " + cell + " is not in the heap");
+		}
+		if (priority > priorities[cell]) {
+			throw new IllegalArgumentException("The priority of cell " + cell + " cannot be increased");
+		}
+
+		priorities[cell] = priority;
+		if (cell != root) {
+			cut(cell);
+			root = link(root, cell);
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#extractMin()
+	 */
+	@Override
+	public int extractMin() {
+
+		final int cell = root;
+
+		root = mergeChildren();
+		if (root != NONE) {
+			previousCells[root] = NONE;
+		}
+
+		children[cell] = NONE;
+		inHeap[cell] = false;
+		currentSize--;
+
+		return cell;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#getMinPriority()
+	 */
+	@Override
+	public double getMinPriority() {
+		return priorities[root];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#contains(int)
+	 */
+	@Override
+	public boolean contains(int cell) {
+		return inHeap[cell];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return currentSize == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#size()
+	 */
+	@Override
+	public int size() {
+		return currentSize;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#clear()
+	 */
+	@Override
+	public void clear() {
+
+		// The children of each cell are moved in front of its next siblings,
+		// so every cell is visited once
+		int cell = root;
+		while (cell != NONE) {
+			int next = nextSiblings[cell];
+			final int child = children[cell];
+			if (child != NONE) {
+				int last = child;
+				while (nextSiblings[last] != NONE) {
+					last = nextSiblings[last];
+				}
+				nextSiblings[last] = next;
+				next = child;
+			}
+			children[cell] = NONE;
+			nextSiblings[cell] = NONE;
+			previousCells[cell] = NONE;
+			inHeap[cell] = false;
+			cell = next;
+		}
+
+		root = NONE;
+		currentSize = 0;
+
+	}
+
+}
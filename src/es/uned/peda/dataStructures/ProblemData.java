@@ -8,14 +8,17 @@ import java.util.List;
  */
 public class ProblemData {
 
-	/** The nodes. */
-	private final List<Node> nodes;
+	/** The graph. */
+	private final GridGraph graph;
+
+	/** The nodes, created from the graph the first time they are requested. */
+	private List<Node> nodes;
 
 	/** The initial node. */
-	private final Node initialNode;
+	private Node initialNode;
 
 	/** The final node. */
-	private final Node finalNode;
+	private Node finalNode;
 
 	/** The number of columns. */
 	private final int numberOfColumns;
@@ -23,6 +26,19 @@ public class ProblemData {
 	/** The number of rows. */
 	private final int numberOfRows;
 
+	/**
+	 * Instantiates a new problem data.
+	 *
+	 * @param graph
+	 *            the graph
+	 */
+	public ProblemData(GridGraph graph) {
+		this.graph = graph;
+
+		this.numberOfRows = graph.getNumberOfRows();
+		this.numberOfColumns = graph.getNumberOfColumns();
+	}
+
 	/**
 	 * Instantiates a new problem data.
 	 *
@@ -38,6 +54,8 @@ public class ProblemData {
 	 *            the number of columns
 	 */
 	public ProblemData(List<Node> nodes, Node initialNode, Node finalNode, int numberOfRows, int numberOfColumns) {
+		this.graph = GridGraph.fromNodes(nodes, initialNode, finalNode, numberOfRows, numberOfColumns);
+
 		this.nodes = nodes;
 		this.initialNode = initialNode;
 		this.finalNode = finalNode;
@@ -94,11 +112,27 @@ public class ProblemData {
 	}
 
 	/**
-	 * Gets the nodes.
+	 * Gets the graph.
+	 *
+	 * @return the graph
+	 */
+	public GridGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Gets the nodes. When the problem was created from a graph, the nodes are
+	 * built from it the first time this method is called.
 	 *
 	 * @return the nodes
 	 */
 	public List<Node> getNodes() {
+		if (nodes == null) {
+			nodes = graph.createNodes();
+			initialNode = nodes.get(graph.getTag(graph.getInitialCell()) - 1);
+			finalNode = nodes.get(graph.getTag(graph.getFinalCell()) - 1);
+			initialiseNodes();
+		}
 		return nodes;
 	}
 
@@ -108,6 +142,7 @@ public class ProblemData {
 	 * @return the initial node
 	 */
 	public Node getInitialNode() {
+		getNodes();
 		return initialNode;
 	}
 
@@ -117,6 +152,7 @@ public class ProblemData {
 	 * @return the final node
 	 */
 	public Node getFinalNode() {
+		getNodes();
 		return finalNode;
 	}
 
@@ -0,0 +1,94 @@
+package es.uned.peda.dataStructures;
+
+/**
+ * The Enum QueueType.
+ *
+ * Implementations of {@link IndexedPriorityQueue} that can be used to solve a
+ * {@link GridGraph}.
+ */
+public enum QueueType {
+
+	/** Binary heap. */
+	BINARY("binary"),
+
+	/** Heap with four children per position. */
+	QUATERNARY("4-ary"),
+
+	/** Pairing heap. */
+	PAIRING("pairing"),
+
+	/** Monotone radix heap. */
+	RADIX("radix"),
+
+	/** Bucket queue of Dial, for costs that are multiples of a quantum. */
+	BUCKET("bucket"),
+
+	/** The original heap of nodes. */
+	NODES("nodes");
+
+	/** The name used in the command line. */
+	private final String name;
+
+	/**
+	 * Instantiates a new queue type.
+	 *
+	 * @param name
+	 *            the name
+	 */
+	QueueType(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the queue type with the given name.
+	 *
+	 * @param name
+	 *            the name
+	 * @return the queue type
+	 */
+	public static QueueType fromName(String name) {
+		for (final QueueType type : values()) {
+			if (type.name.equals(name)) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown queue type: " + name);
+	}
+
+	/**
+	 * Creates an empty queue for the cells of a graph. The heap of nodes
+	 * starts with all the cells unless it is created in frontier only mode.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param frontierOnly
+	 *            the frontier only mode
+	 * @return the queue
+	 */
+	public IndexedPriorityQueue create(GridGraph graph, boolean frontierOnly) {
+		switch (this) {
+		case QUATERNARY:
+			return new IndexedMinHeap(graph.getNumberOfCells(), 4);
+		case PAIRING:
+			return new PairingHeap(graph.getNumberOfCells());
+		case RADIX:
+			return new RadixHeap(graph.getNumberOfCells());
+		case BUCKET:
+			return new BucketQueue(graph);
+		case NODES:
+			return new MinDijkstraHeap(graph.createNodes(), frontierOnly, graph);
+		default:
+			return new IndexedMinHeap(graph.getNumberOfCells());
+		}
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+}
@@ -0,0 +1,229 @@
+package es.uned.peda.dataStructures;
+
+/**
+ * The Class RadixHeap.
+ *
+ * Monotone radix heap of cells: the priorities inserted can not be lower than
+ * the last priority extracted, which always holds in the algorithm of
+ * Dijkstra. Priorities are compared through the bits of their representation
+ * as doubles, which keep the order of non negative numbers, and the cells are
+ * kept in 65 buckets according to the highest bit in which their priority
+ * differs from the last one extracted.
+ *
+ * With a consistent heuristic the priorities of A* are monotone too, but only
+ * up to rounding: g + h may come out a few units in the last place below the
+ * priority of the cell that was expanded. Such priorities are raised to the
+ * last one extracted, and only priorities lower by more than a relative
+ * tolerance are rejected.
+ */
+public class RadixHeap implements IndexedPriorityQueue {
+
+	/** The number of buckets. */
+	private static final int NUMBER_OF_BUCKETS = Long.SIZE + 1;
+
+	/** The relative tolerance below the last priority extracted. */
+	private static final double TOLERANCE = 1e-9;
+
+	/** The buckets. */
+	private final CellBuckets buckets;
+
+	/** The bits of the priority of each cell. */
+	private final long[] keys;
+
+	/** The bits of the last priority extracted. */
+	private long lastKey;
+
+	/** The current size. */
+	private int currentSize;
+
+	/**
+	 * Instantiates a new empty radix heap.
+	 *
+	 * @param numberOfCells
+	 *            the number of cells
+	 */
+	public RadixHeap(int numberOfCells) {
+		this.buckets = new CellBuckets(numberOfCells, NUMBER_OF_BUCKETS);
+		this.keys = new long[numberOfCells];
+		this.lastKey = Double.doubleToLongBits(0.0);
+		this.currentSize = 0;
+	}
+
+	/**
+	 * Gets the bits of a priority.
+	 *
+	 * @param priority
+	 *            the priority
+	 * @return the key
+	 */
+	private long toKey(double priority) {
+		final long key = Double.doubleToLongBits(priority + 0.0);
+		if (key >= lastKey && priority >= 0.0) {
+			return key;
+		}
+		final double lastPriority = Double.longBitsToDouble(lastKey);
+		if (!(priority >= 0.0) || lastPriority - priority > TOLERANCE * lastPriority) {
+			throw new IllegalArgumentException("Priority " + priority + " is lower than the last one extracted");
+		}
+		return lastKey;
+	}
+
+	/**
+	 * Gets the bucket of a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the bucket
+	 */
+	private int getBucket(long key) {
+		return key == lastKey ? 0 : Long.SIZE - Long.numberOfLeadingZeros(key ^ lastKey);
+	}
+
+	/**
+	 * Make sure that the first bucket holds the cells with the lowest priority,
+	 * redistributing the first bucket that is not empty if needed.
+	 */
+	private void fillFirstBucket() {
+
+		if (buckets.getFirst(0) != CellBuckets.NONE) {
+			return;
+		}
+
+		int bucket = 1;
+		while (buckets.getFirst(bucket) == CellBuckets.NONE) {
+			bucket++;
+		}
+
+		long minKey = Long.MAX_VALUE;
+		for (int cell = buckets.getFirst(bucket); cell != CellBuckets.NONE; cell = buckets.getNext(cell)) {
+			minKey = Math.min(minKey, keys[cell]);
+		}
+		lastKey = minKey;
+
+		int cell = buckets.getFirst(bucket);
+		while (cell != CellBuckets.NONE) {
+			final int next = buckets.getNext(cell);
+			buckets.remove(cell);
+			buckets.add(cell, getBucket(keys[cell]));
+			cell = next;
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#insert(int, double)
+	 */
+	@Override
+	public void insert(int cell, double priority) {
+
+		if (contains(cell)) {
+			throw new IllegalArgumentException("Cell " + cell + " is already in the heap");
+		}
+
+		keys[cell] = toKey(priority);
+		buckets.add(cell, getBucket(keys[cell]));
+		currentSize++;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#decreaseKey(int,
+	 * double)
+	 */
+	@Override
+	public void decreaseKey(int cell, double priority) {
+
+		if (!contains(cell)) {
+			throw new IllegalArgumentException("Cell " + cell + " is not in the heap");
+		}
+
+		final long key = toKey(priority);
+		if (key > keys[cell]) {
+			throw new IllegalArgumentException("The priority of cell " + cell + " cannot be increased");
+		}
+
+		keys[cell] = key;
+		final int bucket = getBucket(key);
+		if (bucket != buckets.getBucket(cell)) {
+			buckets.remove(cell);
+			buckets.add(cell, bucket);
+		}
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#extractMin()
+	 */
+	@Override
+	public int extractMin() {
+
+		fillFirstBucket();
+
+		final int cell = buckets.getFirst(0);
+		buckets.remove(cell);
+		currentSize--;
+
+		return cell;
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#getMinPriority()
+	 */
+	@Override
+	public double getMinPriority() {
+		fillFirstBucket();
+		return Double.longBitsToDouble(lastKey);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#contains(int)
+	 */
+	@Override
+	public boolean contains(int cell) {
+		return buckets.getBucket(cell) != CellBuckets.NONE;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return currentSize == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#size()
+	 */
+	@Override
+	public int size() {
+		return currentSize;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see es.uned.peda.dataStructures.IndexedPriorityQueue#clear()
+	 */
+	@Override
+	public void clear() {
+		buckets.clear();
+		lastKey = Double.doubleToLongBits(0.0);
+		currentSize = 0;
+	}
+
+}
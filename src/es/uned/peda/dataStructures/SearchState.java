@@ -0,0 +1,177 @@
+package es.uned.peda.dataStructures;
+
+import java.util.Arrays;
+
+/**
+ * The Class SearchState.
+ *
+ * Distance, previous cell and visited flag of every cell during a search.
+ * Each cell also stores the epoch in which it was last written, and a cell
+ * whose epoch is not the current one has its initial values: infinite
+ * distance, the initial cell as previous cell and not visited. A reset only
+ * changes the current epoch, so a new search only pays for the cells it
+ * touches and no array is filled or allocated again.
+ */
+public class SearchState {
+
+	/** The distance of each cell. */
+	private final double[] distances;
+
+	/** The previous cell of each cell. */
+	private final int[] previousCells;
+
+	/** The visited cells. */
+	private final boolean[] visited;
+
+	/** The epoch in which each cell was last written. */
+	private final int[] epochs;
+
+	/** The current epoch. */
+	private int epoch;
+
+	/** The initial cell of the current search. */
+	private int initialCell;
+
+	/**
+	 * Instantiates a new search state. It must be reset before it is used.
+	 *
+	 * @param numberOfCells
+	 *            the number of cells
+	 */
+	public SearchState(int numberOfCells) {
+		this.distances = new double[numberOfCells];
+		this.previousCells = new int[numberOfCells];
+		this.visited = new boolean[numberOfCells];
+		this.epochs = new int[numberOfCells];
+		this.epoch = 0;
+		this.initialCell = GridGraph.NO_CELL;
+	}
+
+	/**
+	 * Reset the state for a new search from a cell, which gets distance zero.
+	 *
+	 * @param initialCell
+	 *            the initial cell
+	 */
+	public void reset(int initialCell) {
+
+		if (epoch == Integer.MAX_VALUE) {
+			Arrays.fill(epochs, 0);
+			epoch = 0;
+		}
+
+		epoch++;
+		this.initialCell = initialCell;
+		setDistance(initialCell, 0.0);
+
+	}
+
+	/**
+	 * Give a cell the initial values if it has not been written in the current
+	 * epoch.
+	 *
+	 * @param cell
+	 *            the cell
+	 */
+	private void touch(int cell) {
+		if (epochs[cell] != epoch) {
+			epochs[cell] = epoch;
+			distances[cell] = Double.POSITIVE_INFINITY;
+			previousCells[cell] = initialCell;
+			visited[cell] = false;
+		}
+	}
+
+	/**
+	 * Checks if a cell has been written since the last reset.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return true, if it has been touched
+	 */
+	public boolean isTouched(int cell) {
+		return epochs[cell] == epoch;
+	}
+
+	/**
+	 * Gets the distance.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the distance
+	 */
+	public double getDistance(int cell) {
+		return epochs[cell] == epoch ? distances[cell] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Sets the distance.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param distance
+	 *            the new distance
+	 */
+	public void setDistance(int cell, double distance) {
+		touch(cell);
+		distances[cell] = distance;
+	}
+
+	/**
+	 * Gets the previous cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return the previous cell
+	 */
+	public int getPreviousCell(int cell) {
+		return epochs[cell] == epoch ? previousCells[cell] : initialCell;
+	}
+
+	/**
+	 * Sets the previous cell.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param previousCell
+	 *            the new previous cell
+	 */
+	public void setPreviousCell(int cell, int previousCell) {
+		touch(cell);
+		previousCells[cell] = previousCell;
+	}
+
+	/**
+	 * Checks if a cell is visited.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @return true, if is visited
+	 */
+	public boolean isVisited(int cell) {
+		return epochs[cell] == epoch && visited[cell];
+	}
+
+	/**
+	 * Sets the visited.
+	 *
+	 * @param cell
+	 *            the cell
+	 * @param visited
+	 *            the new visited
+	 */
+	public void setVisited(int cell, boolean visited) {
+		touch(cell);
+		this.visited[cell] = visited;
+	}
+
+	/**
+	 * Gets the number of cells.
+	 *
+	 * @return the number of cells
+	 */
+	public int getNumberOfCells() {
+		return epochs.length;
+	}
+
+}
@@ -0,0 +1,183 @@
+package es.uned.peda.algorithm;
+
+import static es.uned.peda.algorithm.RandomMaps.DELTA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class BoundedSearchTest.
+ *
+ * A bounded search must find a final cell exactly when the algorithm of
+ * Dijkstra reaches one within the budget, and the reachable cells must be
+ * those at most the budget away, whatever the search mode.
+ */
+public class BoundedSearchTest {
+
+	/**
+	 * Escapes of every search mode, with and without landmarks, with the
+	 * energy of Dijkstra as budget and with a budget just below it.
+	 */
+	@Test
+	public void escapeIsFoundWithinTheEnergyOfDijkstra() {
+
+		final GridGraph graph = RandomMaps.create(2, 30, 36, 2);
+		final Landmarks landmarks = Landmarks.select(graph, 4);
+		final RobotAlgorithm dijkstra = RandomMaps.createDijkstra(graph);
+
+		final Random random = new Random(25);
+		for (final SearchMode mode : SearchMode.values()) {
+			for (final boolean withLandmarks : new boolean[] { false, true }) {
+
+				final RobotAlgorithm algorithm = new RobotAlgorithm(new GridGraph(graph), QueueType.BINARY, true,
+						mode, false, null);
+				if (withLandmarks) {
+					algorithm.setLandmarks(landmarks);
+				}
+
+				for (int query = 0; query < 20; query++) {
+					final int initialCell = RandomMaps.getOpenCell(graph, random);
+					final int[] finalCells = RandomMaps.getOpenCells(graph, random, query % 4 == 0 ? 2 : 1);
+					dijkstra.search(initialCell, finalCells);
+					checkEscape(algorithm, initialCell, finalCells, dijkstra.getEnergy());
+				}
+
+			}
+		}
+
+	}
+
+	/**
+	 * The reachable cells of every search mode against the distances of a
+	 * search from the same cell to every cell.
+	 */
+	@Test
+	public void reachableCellsAreWithinTheBudget() {
+
+		final GridGraph graph = RandomMaps.create(6, 28, 33, 1);
+		final Random random = new Random(25);
+		for (int query = 0; query < 24; query++) {
+
+			final int initialCell = RandomMaps.getOpenCell(graph, random);
+			// Halfway between tenths, so no distance is on the budget
+			final double maxEnergy = random.nextInt(60) + 0.05;
+
+			final GridGraph reference = RandomMaps.getDistances(graph, initialCell);
+			int expectedCells = 0;
+			for (int cell = 0; cell < graph.getNumberOfCells(); cell++) {
+				if (reference.getDistance(cell) <= maxEnergy) {
+					expectedCells++;
+				}
+			}
+
+			final SearchMode mode = SearchMode.values()[query % SearchMode.values().length];
+			final RobotAlgorithm algorithm = new RobotAlgorithm(new GridGraph(graph), QueueType.BINARY,
+					query % 2 == 0, mode, false, null);
+			final ReachableCells reachable = algorithm.findReachableCells(initialCell, maxEnergy);
+
+			assertEquals(SearchStatus.COMPLETE, reachable.getStatus());
+			assertEquals(expectedCells, reachable.getNumberOfCells());
+			final boolean[] seen = new boolean[graph.getNumberOfCells()];
+			double lastEnergy = 0.0;
+			for (int i = 0; i < reachable.getNumberOfCells(); i++) {
+				final int cell = reachable.getCell(i);
+				assertTrue(!seen[cell] && reference.getDistance(cell) <= maxEnergy);
+				seen[cell] = true;
+				assertEquals(reference.getDistance(cell), reachable.getEnergy(i), DELTA);
+				assertTrue(reachable.getEnergy(i) >= lastEnergy);
+				lastEnergy = reachable.getEnergy(i);
+			}
+
+		}
+
+	}
+
+	/**
+	 * The limits of iterations and time cut the bounded searches off, and
+	 * searches without limits find the escape again.
+	 */
+	@Test
+	public void limitsCutSearchesOff() {
+
+		final GridGraph graph = RandomMaps.create(8, 60, 60, 1);
+		final double energy = RandomMaps.getDijkstraEnergy(graph);
+		final RobotAlgorithm algorithm = new RobotAlgorithm(graph, QueueType.BINARY, true, SearchMode.DIJKSTRA,
+				false, null);
+
+		algorithm.setIterationLimit(10);
+		final EscapeResult cutEscape = algorithm.findEscape(Double.MAX_VALUE);
+		assertEquals(SearchStatus.ITERATION_LIMIT, cutEscape.getStatus());
+		assertEquals(10, cutEscape.getIterations());
+		assertNull(cutEscape.getRoute());
+		final ReachableCells cutCells = algorithm.findReachableCells(Double.MAX_VALUE);
+		assertEquals(SearchStatus.ITERATION_LIMIT, cutCells.getStatus());
+		assertEquals(10, cutCells.getNumberOfCells());
+
+		algorithm.setIterationLimit(0);
+		algorithm.setTimeLimit(1);
+		assertEquals(SearchStatus.TIME_LIMIT, algorithm.findEscape(Double.MAX_VALUE).getStatus());
+
+		algorithm.setTimeLimit(0);
+		final EscapeResult escape = algorithm.findEscape(Double.MAX_VALUE);
+		assertTrue(escape.isFound());
+		assertEquals(energy, escape.getRoute().getEnergy(), DELTA);
+
+	}
+
+	/**
+	 * A negative budget is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeBudgetIsRejected() {
+		new RobotAlgorithm(RandomMaps.create(0, 10, 10, 1), QueueType.BINARY, true, SearchMode.DIJKSTRA, false, null)
+				.findEscape(-1.0);
+	}
+
+	/**
+	 * Check the escapes of a query with the energy of Dijkstra as budget and
+	 * with a budget just below it.
+	 *
+	 * @param algorithm
+	 *            the algorithm
+	 * @param initialCell
+	 *            the initial cell
+	 * @param finalCells
+	 *            the final cells
+	 * @param energy
+	 *            the energy of Dijkstra
+	 */
+	private static void checkEscape(RobotAlgorithm algorithm, int initialCell, int[] finalCells, double energy) {
+
+		if (Double.isInfinite(energy)) {
+			assertEquals(SearchStatus.NOT_FOUND, algorithm.findEscape(initialCell, finalCells, 1e9).getStatus());
+			return;
+		}
+
+		final EscapeResult escape = algorithm.findEscape(initialCell, finalCells, energy);
+		assertEquals(SearchStatus.FOUND, escape.getStatus());
+		assertEquals(energy, escape.getRoute().getEnergy(), DELTA);
+		assertEquals(initialCell, escape.getRoute().getPath()[0]);
+
+		// The costs are tenths, so no route costs less than the energy
+		// minus half a tenth
+		final EscapeResult noEscape = algorithm.findEscape(initialCell, finalCells, Math.max(0.0, energy - 0.05));
+		if (energy > 0.0) {
+			assertEquals(SearchStatus.NOT_FOUND, noEscape.getStatus());
+			assertNull(noEscape.getRoute());
+		}
+
+		// A search without budget afterwards is not bounded
+		algorithm.search(initialCell, finalCells);
+		assertEquals(SearchStatus.FOUND, algorithm.getStatus());
+		assertEquals(energy, algorithm.getEnergy(), DELTA);
+
+	}
+
+}
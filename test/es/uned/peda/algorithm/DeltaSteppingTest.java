@@ -0,0 +1,102 @@
+package es.uned.peda.algorithm;
+
+import static es.uned.peda.algorithm.RandomMaps.DELTA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class DeltaSteppingTest.
+ *
+ * Delta stepping must find the distances of the algorithm of Dijkstra with
+ * any number of threads and bucket width, and previous cells that form a tree
+ * of optimal paths rooted at the initial cell.
+ */
+public class DeltaSteppingTest {
+
+	/**
+	 * Random maps searched with 1, 2 and 4 threads, and with the default
+	 * bucket width, a narrow one and a wide one.
+	 *
+	 * @throws InterruptedException
+	 *             if the thread is interrupted
+	 */
+	@Test
+	public void distancesAndPreviousCellsMatchDijkstra() throws InterruptedException {
+
+		for (long seed = 0; seed < 6; seed++) {
+
+			final GridGraph map = RandomMaps.create(seed, 30, 45, 2);
+			final GridGraph reference = RandomMaps.getDistances(map, map.getInitialCell());
+
+			final double defaultDelta = DeltaStepping.getDefaultDelta(map);
+			for (final double delta : new double[] { defaultDelta, 0.1, 10 * defaultDelta }) {
+				for (int threads = 1; threads <= 4; threads *= 2) {
+					try (DeltaStepping search = new DeltaStepping(map, threads, delta)) {
+						search.search(map.getInitialCell());
+						check(reference, search);
+					}
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * Check the result of a delta stepping search against the distances of
+	 * the algorithm of Dijkstra.
+	 *
+	 * @param reference
+	 *            the graph with the distances of Dijkstra
+	 * @param search
+	 *            the search
+	 */
+	private static void check(GridGraph reference, DeltaStepping search) {
+
+		final int initialCell = search.getInitialCell();
+		final int numberOfCells = reference.getNumberOfCells();
+
+		for (int cell = 0; cell < numberOfCells; cell++) {
+			final double distance = search.getDistance(cell);
+			assertEquals(reference.getDistance(cell), distance, DELTA);
+			if (cell == initialCell || Double.isInfinite(distance)) {
+				continue;
+			}
+			final int previousCell = search.getPreviousCell(cell);
+			assertTrue(Math.abs(reference.getX(previousCell) - reference.getX(cell)) <= 1);
+			assertTrue(Math.abs(reference.getY(previousCell) - reference.getY(cell)) <= 1);
+			assertEquals(distance, search.getDistance(previousCell) + reference.getCost(cell), DELTA);
+		}
+
+		// Following the previous cells from any reachable cell leads to the
+		// initial cell without cycles
+		final boolean[] leadsToInitialCell = new boolean[numberOfCells];
+		final boolean[] inPath = new boolean[numberOfCells];
+		final int[] path = new int[numberOfCells];
+		leadsToInitialCell[initialCell] = true;
+		for (int cell = 0; cell < numberOfCells; cell++) {
+			if (Double.isInfinite(search.getDistance(cell))) {
+				continue;
+			}
+			int length = 0;
+			int current = cell;
+			while (!leadsToInitialCell[current]) {
+				assertFalse(inPath[current]);
+				inPath[current] = true;
+				path[length++] = current;
+				current = search.getPreviousCell(current);
+			}
+			for (int i = 0; i < length; i++) {
+				leadsToInitialCell[path[i]] = true;
+				inPath[path[i]] = false;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,182 @@
+package es.uned.peda.algorithm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class HeuristicTest.
+ *
+ * The estimates read from the indexed final and free cells must be those of
+ * a scan of every final cell and every free cell.
+ */
+public class HeuristicTest {
+
+	/**
+	 * Every cell of maps with several exits, free cells inside the map and
+	 * endpoints moved between searches.
+	 */
+	@Test
+	public void indexedEstimatesMatchFullScan() {
+
+		final Random random = new Random(11);
+		for (long seed = 0; seed < 10; seed++) {
+
+			final GridGraph graph = withFreeCells(RandomMaps.create(seed, 30, 23, 1 + (int) seed), random);
+			final HeuristicState state = new HeuristicState(graph);
+
+			for (int endpoints = 0; endpoints < 3; endpoints++) {
+				for (int cell = 0; cell < graph.getNumberOfCells(); cell++) {
+					assertEquals(scanOctile(graph, cell), Heuristic.OCTILE.estimate(state, cell), 0.0);
+					assertEquals(scanBorder(graph, cell), Heuristic.BORDER.estimate(state, cell), 0.0);
+				}
+				final int[] finalCells = new int[1 + random.nextInt(5)];
+				for (int i = 0; i < finalCells.length; i++) {
+					finalCells[i] = RandomMaps.getOpenCell(graph, random);
+				}
+				graph.setEndpoints(RandomMaps.getOpenCell(graph, random), finalCells);
+				state.update();
+			}
+
+		}
+
+	}
+
+	/**
+	 * A* with the border heuristic between any cells, with several final
+	 * cells that are not on a border, finds the energy of Dijkstra.
+	 */
+	@Test
+	public void borderSearchWithInnerFinalCellsMatchesDijkstra() {
+
+		final Random random = new Random(10);
+		for (long seed = 0; seed < 10; seed++) {
+
+			final GridGraph graph = RandomMaps.create(seed, 30, 30, 1);
+			final RobotAlgorithm dijkstra = RandomMaps.createDijkstra(graph);
+			final RobotAlgorithm border = new RobotAlgorithm(new GridGraph(graph), QueueType.BINARY, true,
+					SearchMode.ASTAR_BORDER, false, null);
+
+			for (int query = 0; query < 200; query++) {
+				final int initialCell = RandomMaps.getOpenCell(graph, random);
+				final int[] finalCells = new int[2 + query % 3];
+				for (int i = 0; i < finalCells.length; i++) {
+					finalCells[i] = RandomMaps.getOpenCell(graph, random);
+				}
+				dijkstra.search(initialCell, finalCells);
+				border.search(initialCell, finalCells);
+				assertEquals(dijkstra.getEnergy(), border.getEnergy(), RandomMaps.DELTA);
+			}
+
+		}
+
+	}
+
+	/**
+	 * Copy a graph with some of its cells turned into free cells.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param random
+	 *            the random
+	 * @return the new graph
+	 */
+	private static GridGraph withFreeCells(GridGraph graph, Random random) {
+		final double[] costs = new double[graph.getNumberOfCells()];
+		for (int cell = 0; cell < costs.length; cell++) {
+			costs[cell] = random.nextInt(40) == 0 ? 0.0 : graph.getCost(cell);
+		}
+		final int[] finalCells = new int[graph.getNumberOfFinalCells()];
+		for (int i = 0; i < finalCells.length; i++) {
+			finalCells[i] = graph.getFinalCell(i);
+		}
+		return new GridGraph(costs, graph.getInitialCell(), finalCells, graph.getNumberOfRows(),
+				graph.getNumberOfColumns());
+	}
+
+	/**
+	 * The octile estimate, scanning every final cell and free cell.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param cell
+	 *            the cell
+	 * @return the estimate
+	 */
+	private static double scanOctile(GridGraph graph, int cell) {
+		int moves = Integer.MAX_VALUE;
+		for (int i = 0; i < graph.getNumberOfFinalCells(); i++) {
+			moves = Math.min(moves, getMoves(graph, cell, graph.getFinalCell(i)));
+		}
+		return scanFreeCells(graph, cell, moves);
+	}
+
+	/**
+	 * The border estimate, scanning every free cell, or the octile one if a
+	 * final cell is not on a border.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param cell
+	 *            the cell
+	 * @return the estimate
+	 */
+	private static double scanBorder(GridGraph graph, int cell) {
+		for (int i = 0; i < graph.getNumberOfFinalCells(); i++) {
+			final int finalCell = graph.getFinalCell(i);
+			if (graph.getX(finalCell) != 1 && graph.getY(finalCell) != 1
+					&& graph.getX(finalCell) != graph.getNumberOfRows()
+					&& graph.getY(finalCell) != graph.getNumberOfColumns()) {
+				return scanOctile(graph, cell);
+			}
+		}
+		final int x = graph.getX(cell);
+		final int y = graph.getY(cell);
+		final int rows = Math.min(x - 1, graph.getNumberOfRows() - x);
+		final int columns = Math.min(y - 1, graph.getNumberOfColumns() - y);
+		return scanFreeCells(graph, cell, Math.min(rows, columns));
+	}
+
+	/**
+	 * The energy of the moves, once the free cells other than the initial one
+	 * are taken into account.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param cell
+	 *            the cell
+	 * @param moves
+	 *            the moves to the final cell
+	 * @return the energy
+	 */
+	private static double scanFreeCells(GridGraph graph, int cell, int moves) {
+		for (int i = 0; i < graph.getNumberOfFreeCells(); i++) {
+			if (graph.getFreeCell(i) != graph.getInitialCell()) {
+				moves = Math.min(moves, getMoves(graph, cell, graph.getFreeCell(i)));
+			}
+		}
+		return moves <= 1 ? 0.0 : (moves - 1) * graph.getMinCost();
+	}
+
+	/**
+	 * Gets the octile distance between two cells.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param cell
+	 *            a cell
+	 * @param otherCell
+	 *            the other cell
+	 * @return the distance
+	 */
+	private static int getMoves(GridGraph graph, int cell, int otherCell) {
+		return Math.max(Math.abs(graph.getX(cell) - graph.getX(otherCell)),
+				Math.abs(graph.getY(cell) - graph.getY(otherCell)));
+	}
+
+}
@@ -0,0 +1,150 @@
+package es.uned.peda.algorithm;
+
+import static es.uned.peda.algorithm.RandomMaps.DELTA;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import es.uned.peda.dataStructures.GridGraph;
+
+/**
+ * The Class HierarchicalSearchTest.
+ *
+ * With an optimal hierarchy the routes must have the energy of the algorithm
+ * of Dijkstra; without it they may cost more, never less. Either way they
+ * must be paths of adjacent cells that cost their energy.
+ */
+public class HierarchicalSearchTest {
+
+	/** The number of random queries of each map. */
+	private static final int NUMBER_OF_QUERIES = 40;
+
+	/** The temporary folder. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Optimal hierarchies of several cluster sizes against Dijkstra.
+	 */
+	@Test
+	public void optimalHierarchyMatchesDijkstra() {
+		for (long seed = 0; seed < 6; seed++) {
+			for (final int clusterSize : new int[] { 3, 8, 16 }) {
+				checkQueries(seed, ClusterHierarchy.build(RandomMaps.create(seed, 30, 41, 2), clusterSize, true));
+			}
+		}
+	}
+
+	/**
+	 * Hierarchies that are not optimal never find routes cheaper than
+	 * Dijkstra, and find a route whenever there is one.
+	 */
+	@Test
+	public void nonOptimalHierarchyIsNeverCheaperThanDijkstra() {
+		for (long seed = 0; seed < 6; seed++) {
+			checkQueries(seed, ClusterHierarchy.build(RandomMaps.create(seed, 30, 41, 2), 8, false));
+		}
+	}
+
+	/**
+	 * A hierarchy read from its file is written again byte for byte and finds
+	 * the same routes.
+	 *
+	 * @throws IOException
+	 *             Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void fileRoundTrip() throws IOException {
+
+		final GridGraph graph = RandomMaps.create(4, 25, 25, 1);
+		final Path first = folder.getRoot().toPath().resolve("first.hpa");
+		final Path second = folder.getRoot().toPath().resolve("second.hpa");
+
+		ClusterHierarchy.build(graph, 6, true).write(first);
+		final ClusterHierarchy hierarchy = ClusterHierarchy.read(first, new GridGraph(graph));
+		hierarchy.write(second);
+
+		assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+		checkQueries(4, hierarchy);
+
+	}
+
+	/**
+	 * Check the route to the exits of the map and random queries against the
+	 * algorithm of Dijkstra.
+	 *
+	 * @param seed
+	 *            the seed of the queries
+	 * @param hierarchy
+	 *            the hierarchy
+	 */
+	private static void checkQueries(long seed, ClusterHierarchy hierarchy) {
+
+		final GridGraph graph = hierarchy.getGraph();
+		final HierarchicalSearch search = new HierarchicalSearch(hierarchy);
+		final RobotAlgorithm algorithm = RandomMaps.createDijkstra(graph);
+
+		algorithm.search();
+		checkRoute(hierarchy, algorithm.getEnergy(), search.search());
+
+		final Random random = new Random(seed);
+		for (int query = 0; query < NUMBER_OF_QUERIES; query++) {
+			final int initialCell = RandomMaps.getOpenCell(graph, random);
+			int finalCell;
+			do {
+				finalCell = RandomMaps.getOpenCell(graph, random);
+			} while (finalCell == initialCell);
+			algorithm.search(initialCell, finalCell);
+			checkRoute(hierarchy, algorithm.getEnergy(), search.search(initialCell, finalCell));
+		}
+
+	}
+
+	/**
+	 * Check a route of the hierarchical search.
+	 *
+	 * @param hierarchy
+	 *            the hierarchy
+	 * @param dijkstraEnergy
+	 *            the energy found by the algorithm of Dijkstra
+	 * @param route
+	 *            the route
+	 */
+	private static void checkRoute(ClusterHierarchy hierarchy, double dijkstraEnergy, RouteResult route) {
+
+		final GridGraph graph = hierarchy.getGraph();
+		final double energy = route.getEnergy();
+		if (Double.isInfinite(dijkstraEnergy)) {
+			assertTrue(Double.isInfinite(energy));
+			return;
+		}
+		if (hierarchy.isOptimal()) {
+			assertEquals(dijkstraEnergy, energy, DELTA);
+		} else {
+			assertTrue(energy >= dijkstraEnergy - DELTA);
+		}
+
+		final int[] path = route.getPath();
+		assertEquals(graph.getInitialCell(), path[0]);
+		assertTrue(graph.isFinalCell(path[path.length - 1]));
+		double pathEnergy = 0.0;
+		for (int i = 1; i < path.length; i++) {
+			assertTrue(path[i] != path[i - 1]);
+			assertTrue(Math.abs(graph.getX(path[i]) - graph.getX(path[i - 1])) <= 1);
+			assertTrue(Math.abs(graph.getY(path[i]) - graph.getY(path[i - 1])) <= 1);
+			pathEnergy += graph.getCost(path[i]);
+		}
+		assertEquals(energy, pathEnergy, DELTA);
+
+	}
+
+}
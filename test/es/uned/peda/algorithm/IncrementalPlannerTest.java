@@ -0,0 +1,125 @@
+package es.uned.peda.algorithm;
+
+import static es.uned.peda.algorithm.RandomMaps.DELTA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.Node;
+
+/**
+ * The Class IncrementalPlannerTest.
+ *
+ * After any sequence of cost changes, each plan must find the energy of a
+ * search from scratch with the new costs, and the same energy for every cell
+ * nearer than the route.
+ */
+public class IncrementalPlannerTest {
+
+	/**
+	 * Random cells blocked, freed and made cheaper or dearer between plans.
+	 */
+	@Test
+	public void repairedPlansMatchSearchesFromScratch() {
+
+		final Random random = new Random(21);
+		for (long seed = 0; seed < 8; seed++) {
+
+			final GridGraph graph = RandomMaps.create(seed, 25, 31, 1 + (int) (seed % 3));
+			final IncrementalPlanner planner = new IncrementalPlanner(graph);
+			checkPlan(planner, planner.plan());
+
+			for (int change = 0; change < 40; change++) {
+				final int cell = random.nextInt(graph.getNumberOfCells());
+				if (cell == graph.getInitialCell() || graph.isFinalCell(cell)) {
+					continue;
+				}
+				final double cost = random.nextInt(4) == 0 ? Double.POSITIVE_INFINITY
+						: (1 + random.nextInt(90)) / 10.0;
+				planner.updateCost(graph.getX(cell), graph.getY(cell), cost);
+				checkPlan(planner, planner.plan());
+			}
+
+		}
+
+	}
+
+	/**
+	 * The previous node of every node is set, the initial node for the cells
+	 * without previous cell, as in a search from scratch.
+	 */
+	@Test
+	public void everyNodeHasPreviousNode() {
+
+		final GridGraph graph = RandomMaps.create(3, 20, 20, 1);
+		final IncrementalPlanner planner = new IncrementalPlanner(graph);
+		planner.plan();
+
+		final List<Node> nodes = graph.createNodes();
+		planner.copyResultToNodes(nodes);
+
+		final Node initialNode = nodes.get(graph.getTag(graph.getInitialCell()) - 1);
+		assertSame(initialNode, initialNode.getPreviousNode());
+		for (final Node node : nodes) {
+			assertNotNull(node.getPreviousNode());
+		}
+
+	}
+
+	/**
+	 * Check a plan against a search from scratch with the current costs.
+	 *
+	 * @param planner
+	 *            the planner
+	 * @param route
+	 *            the route of the last plan
+	 */
+	private static void checkPlan(IncrementalPlanner planner, RouteResult route) {
+
+		final GridGraph graph = planner.getGraph();
+		final double[] costs = new double[graph.getNumberOfCells()];
+		for (int cell = 0; cell < costs.length; cell++) {
+			costs[cell] = planner.getCost(cell);
+		}
+		final GridGraph current = new GridGraph(costs, graph.getInitialCell(), RandomMaps.getFinalCells(graph),
+				graph.getNumberOfRows(), graph.getNumberOfColumns());
+
+		final RobotAlgorithm algorithm = RandomMaps.createDijkstra(current);
+		algorithm.search();
+		final double energy = algorithm.getEnergy();
+		assertEquals(energy, route.getEnergy(), DELTA);
+		if (Double.isInfinite(energy)) {
+			return;
+		}
+
+		// The path goes between adjacent cells and costs its energy
+		final int[] path = route.getPath();
+		double pathEnergy = 0.0;
+		for (int i = 1; i < path.length; i++) {
+			assertTrue(Math.abs(graph.getX(path[i]) - graph.getX(path[i - 1])) <= 1);
+			assertTrue(Math.abs(graph.getY(path[i]) - graph.getY(path[i - 1])) <= 1);
+			pathEnergy += costs[path[i]];
+		}
+		assertEquals(energy, pathEnergy, DELTA);
+
+		// Every cell nearer than the route has the energy of a search from
+		// scratch, and a previous cell that gives it that energy
+		final GridGraph distances = RandomMaps.getDistances(current, graph.getInitialCell());
+		for (int cell = 0; cell < costs.length; cell++) {
+			if (distances.getDistance(cell) < energy && cell != graph.getInitialCell()) {
+				assertEquals(distances.getDistance(cell), planner.getEnergy(cell), DELTA);
+				final int previousCell = planner.getPreviousCell(cell);
+				assertEquals(planner.getEnergy(cell), planner.getEnergy(previousCell) + costs[cell], DELTA);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,169 @@
+package es.uned.peda.algorithm;
+
+import static es.uned.peda.algorithm.RandomMaps.DELTA;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class LandmarksTest.
+ *
+ * The bounds of the landmarks must never exceed the energy from a cell to the
+ * nearest final cell, so A* with them (ALT) finds the energy of the algorithm
+ * of Dijkstra.
+ */
+public class LandmarksTest {
+
+	/** The temporary folder. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * The estimate of every cell that is not an obstacle against the energy
+	 * of a search from it, and against the cost of moving to an adjacent cell
+	 * plus the estimate there, for the exits of the map, one open cell and
+	 * three open cells.
+	 */
+	@Test
+	public void estimatesAreConsistentLowerBounds() {
+
+		final int[] adjacentCells = new int[GridGraph.MAX_ADJACENT_CELLS];
+		for (long seed = 0; seed < 4; seed++) {
+
+			final GridGraph graph = RandomMaps.create(seed, 18, 23, 2);
+			final Landmarks landmarks = Landmarks.select(graph, 2 + (int) seed * 2);
+			final GridGraph query = new GridGraph(graph);
+			final LandmarkState state = new LandmarkState(landmarks, query);
+			final RobotAlgorithm algorithm = RandomMaps.createDijkstra(graph);
+
+			final Random random = new Random(seed);
+			for (final int numberOfFinalCells : new int[] { 0, 1, 3 }) {
+				final int[] finalCells = numberOfFinalCells == 0 ? RandomMaps.getFinalCells(graph)
+						: RandomMaps.getOpenCells(graph, random, numberOfFinalCells);
+				query.setEndpoints(graph.getInitialCell(), finalCells);
+				state.update();
+				for (int cell = 0; cell < graph.getNumberOfCells(); cell++) {
+					if (graph.isObstacle(cell)) {
+						continue;
+					}
+					final double estimate = landmarks.estimate(state, cell);
+					algorithm.search(cell, finalCells);
+					assertTrue(estimate <= algorithm.getEnergy() + DELTA);
+					final int numberOfAdjacentCells = graph.getAdjacentCells(cell, adjacentCells);
+					for (int i = 0; i < numberOfAdjacentCells; i++) {
+						final int adjacentCell = adjacentCells[i];
+						assertTrue(estimate <= graph.getCost(adjacentCell) + landmarks.estimate(state, adjacentCell)
+								+ DELTA);
+					}
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * A* and A* with jump points with the landmarks against Dijkstra, on the
+	 * exits of the map and random queries, with a binary heap and with a
+	 * radix heap, which needs consistent bounds.
+	 */
+	@Test
+	public void landmarkSearchesMatchDijkstra() {
+		for (final QueueType queueType : new QueueType[] { QueueType.BINARY, QueueType.RADIX }) {
+			checkSearches(queueType);
+		}
+	}
+
+	/**
+	 * The map of the regression case of the radix heap, whose energies are
+	 * not exact float32 values, searched with the landmarks in every mode
+	 * that uses them.
+	 */
+	@Test
+	public void radixHeapAcceptsLandmarkPriorities() {
+
+		final GridGraph graph = RandomMaps.create(1, 40, 40, 1);
+		final Landmarks landmarks = Landmarks.select(graph, Landmarks.DEFAULT_LANDMARKS);
+		final double energy = RandomMaps.getDijkstraEnergy(graph);
+		for (final SearchMode mode : new SearchMode[] { SearchMode.DIJKSTRA, SearchMode.ASTAR, SearchMode.JPS,
+				SearchMode.ASTAR_JPS }) {
+			final RobotAlgorithm algorithm = new RobotAlgorithm(new GridGraph(graph), QueueType.RADIX, true, mode,
+					false, null);
+			algorithm.setLandmarks(landmarks);
+			algorithm.search();
+			assertEquals(energy, algorithm.getEnergy(), DELTA);
+		}
+
+	}
+
+	/**
+	 * Check A* and A* with jump points with the landmarks against Dijkstra.
+	 *
+	 * @param queueType
+	 *            the type of priority queue of the searches with landmarks
+	 */
+	private static void checkSearches(QueueType queueType) {
+
+		for (long seed = 0; seed < 6; seed++) {
+
+			final GridGraph graph = RandomMaps.create(seed, 35, 40, 3);
+			final Landmarks landmarks = Landmarks.select(graph, 6);
+			final RobotAlgorithm dijkstra = RandomMaps.createDijkstra(graph);
+			final RobotAlgorithm aStar = new RobotAlgorithm(new GridGraph(graph), queueType, true, SearchMode.ASTAR,
+					false, null);
+			aStar.setLandmarks(landmarks);
+			final RobotAlgorithm jumpPoints = new RobotAlgorithm(new GridGraph(graph), queueType, false,
+					SearchMode.ASTAR_JPS, false, null);
+			jumpPoints.setLandmarks(landmarks);
+
+			final Random random = new Random(seed);
+			for (int query = 0; query < 30; query++) {
+				final int initialCell = query == 0 ? graph.getInitialCell() : RandomMaps.getOpenCell(graph, random);
+				final int[] finalCells = query == 0 ? RandomMaps.getFinalCells(graph)
+						: RandomMaps.getOpenCells(graph, random, 1 + query % 3);
+				dijkstra.search(initialCell, finalCells);
+				aStar.search(initialCell, finalCells);
+				jumpPoints.search(initialCell, finalCells);
+				assertEquals(dijkstra.getEnergy(), aStar.getEnergy(), DELTA);
+				assertEquals(dijkstra.getEnergy(), jumpPoints.getEnergy(), DELTA);
+			}
+
+		}
+
+	}
+
+	/**
+	 * Landmarks read from their file give the same estimates.
+	 */
+	@Test
+	public void fileRoundTrip() {
+
+		final GridGraph graph = RandomMaps.create(5, 20, 27, 2);
+		final Landmarks landmarks = Landmarks.select(graph, 5);
+		final Path path = folder.getRoot().toPath().resolve("landmarks.alt");
+		landmarks.write(path);
+
+		final GridGraph other = new GridGraph(graph);
+		final Landmarks read = Landmarks.read(path, other);
+		assertEquals(landmarks.getNumberOfLandmarks(), read.getNumberOfLandmarks());
+		for (int i = 0; i < landmarks.getNumberOfLandmarks(); i++) {
+			assertEquals(landmarks.getLandmark(i), read.getLandmark(i));
+		}
+		final LandmarkState state = new LandmarkState(landmarks, graph);
+		final LandmarkState otherState = new LandmarkState(read, other);
+		for (int cell = 0; cell < graph.getNumberOfCells(); cell++) {
+			assertEquals(landmarks.estimate(state, cell), read.estimate(otherState, cell), 0.0);
+		}
+
+	}
+
+}
@@ -0,0 +1,189 @@
+package es.uned.peda.algorithm;
+
+import java.util.Random;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class RandomMaps.
+ *
+ * Random maps for the tests, with a fifth of obstacles and costs in tenths
+ * from 0.1 to 9.0, which are not exact in binary. The robot starts at a random
+ * cell and the exits are on the last row, so that every heuristic is
+ * admissible, and the same seed always gives the same map.
+ */
+final class RandomMaps {
+
+	/**
+	 * The tolerance of the energies compared by the tests, which each search
+	 * adds in its own order.
+	 */
+	static final double DELTA = 1e-9;
+
+	/** The probability of a cell being an obstacle. */
+	private static final double OBSTACLE_DENSITY = 0.2;
+
+	/**
+	 * Instantiates a new random maps.
+	 */
+	private RandomMaps() {
+	}
+
+	/**
+	 * Creates a map.
+	 *
+	 * @param seed
+	 *            the seed
+	 * @param numberOfRows
+	 *            the number of rows
+	 * @param numberOfColumns
+	 *            the number of columns
+	 * @param numberOfExits
+	 *            the number of exits
+	 * @return the graph
+	 */
+	static GridGraph create(long seed, int numberOfRows, int numberOfColumns, int numberOfExits) {
+
+		final Random random = new Random(seed);
+		final double[] costs = new double[numberOfRows * numberOfColumns];
+		for (int cell = 0; cell < costs.length; cell++) {
+			costs[cell] = random.nextDouble() < OBSTACLE_DENSITY ? Double.POSITIVE_INFINITY
+					: (1 + random.nextInt(90)) / 10.0;
+		}
+
+		final int initialCell = random.nextInt(costs.length);
+		costs[initialCell] = 0.0;
+		final int[] exits = new int[numberOfExits];
+		for (int i = 0; i < numberOfExits; i++) {
+			int exit;
+			do {
+				exit = (numberOfRows - 1) * numberOfColumns + random.nextInt(numberOfColumns);
+			} while (exit == initialCell || contains(exits, i, exit));
+			exits[i] = exit;
+			costs[exit] = 0.0;
+		}
+
+		return new GridGraph(costs, initialCell, exits, numberOfRows, numberOfColumns);
+
+	}
+
+	/**
+	 * Checks if the first values of an array contain a value.
+	 *
+	 * @param values
+	 *            the values
+	 * @param count
+	 *            the number of values to look at
+	 * @param value
+	 *            the value
+	 * @return true, if they do
+	 */
+	private static boolean contains(int[] values, int count, int value) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets a random cell that is not an obstacle, with any cost.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param random
+	 *            the random number generator
+	 * @return the cell
+	 */
+	static int getOpenCell(GridGraph graph, Random random) {
+		int cell;
+		do {
+			cell = random.nextInt(graph.getNumberOfCells());
+		} while (graph.isObstacle(cell));
+		return cell;
+	}
+
+	/**
+	 * Gets different random cells that are not obstacles, with any cost.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param random
+	 *            the random number generator
+	 * @param numberOfCells
+	 *            the number of cells
+	 * @return the cells
+	 */
+	static int[] getOpenCells(GridGraph graph, Random random, int numberOfCells) {
+		final int[] cells = new int[numberOfCells];
+		for (int i = 0; i < numberOfCells; i++) {
+			do {
+				cells[i] = getOpenCell(graph, random);
+			} while (contains(cells, i, cells[i]));
+		}
+		return cells;
+	}
+
+	/**
+	 * Gets the final cells of a graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the final cells
+	 */
+	static int[] getFinalCells(GridGraph graph) {
+		final int[] finalCells = new int[graph.getNumberOfFinalCells()];
+		for (int i = 0; i < finalCells.length; i++) {
+			finalCells[i] = graph.getFinalCell(i);
+		}
+		return finalCells;
+	}
+
+	/**
+	 * Creates the algorithm of Dijkstra with a binary heap on a copy of a
+	 * graph, the reference of the searches between any cells.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @return the algorithm
+	 */
+	static RobotAlgorithm createDijkstra(GridGraph graph) {
+		return new RobotAlgorithm(new GridGraph(graph), QueueType.BINARY, true, SearchMode.DIJKSTRA, false, null);
+	}
+
+	/**
+	 * Finds the energy from a cell to every cell with the algorithm of
+	 * Dijkstra, the reference of the searches from one cell to all.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param initialCell
+	 *            the cell
+	 * @return a copy of the graph with the energies as distances
+	 */
+	static GridGraph getDistances(GridGraph graph, int initialCell) {
+		final GridGraph copy = new GridGraph(graph);
+		copy.setEndpoints(initialCell, getFinalCells(graph));
+		new RobotAlgorithm(copy, QueueType.BINARY, true, SearchMode.DIJKSTRA, false, null).rankFinalCells();
+		return copy;
+	}
+
+	/**
+	 * Gets the energy of the route of the graph found by the algorithm of
+	 * Dijkstra with a binary heap, which the other searches must match.
+	 *
+	 * @param graph
+	 *            the graph, whose search state is reset
+	 * @return the energy
+	 */
+	static double getDijkstraEnergy(GridGraph graph) {
+		final GridGraph copy = new GridGraph(graph);
+		final RobotAlgorithm algorithm = new RobotAlgorithm(copy, QueueType.BINARY, false, SearchMode.DIJKSTRA,
+				false, null);
+		algorithm.search();
+		return algorithm.getEnergy();
+	}
+
+}
@@ -0,0 +1,71 @@
+package es.uned.peda.algorithm;
+
+import static es.uned.peda.algorithm.RandomMaps.DELTA;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import es.uned.peda.dataStructures.GridGraph;
+import es.uned.peda.dataStructures.QueueType;
+
+/**
+ * The Class SearchModeQueueTest.
+ *
+ * Every search mode with every priority queue, in both insertion modes, must
+ * find the energy of the algorithm of Dijkstra.
+ */
+public class SearchModeQueueTest {
+
+	/**
+	 * A map where A* with the border heuristic gives a priority a unit in the
+	 * last place below the last one extracted, which the radix heap rejected.
+	 */
+	@Test
+	public void radixHeapAcceptsRoundedAStarPriorities() {
+		final GridGraph graph = RandomMaps.create(1, 40, 40, 1);
+		final double expected = RandomMaps.getDijkstraEnergy(graph);
+		for (final SearchMode mode : SearchMode.values()) {
+			assertEquals(mode.getName(), expected, search(graph, QueueType.RADIX, false, mode), DELTA);
+		}
+	}
+
+	/**
+	 * Every mode and queue on maps with one exit and with several exits.
+	 */
+	@Test
+	public void everyModeAndQueueMatchesDijkstra() {
+		for (long seed = 0; seed < 20; seed++) {
+			final GridGraph graph = RandomMaps.create(seed, 28 + (int) seed, 29, 1 + (int) (seed % 4));
+			final double expected = RandomMaps.getDijkstraEnergy(graph);
+			for (final SearchMode mode : SearchMode.values()) {
+				for (final QueueType queueType : QueueType.values()) {
+					for (final boolean frontierOnly : new boolean[] { false, true }) {
+						assertEquals(seed + " " + mode.getName() + " " + queueType.getName() + " " + frontierOnly,
+								expected, search(graph, queueType, frontierOnly, mode), DELTA);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Search a copy of a graph.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param queueType
+	 *            the queue type
+	 * @param frontierOnly
+	 *            the frontier only mode
+	 * @param mode
+	 *            the search mode
+	 * @return the energy
+	 */
+	private static double search(GridGraph graph, QueueType queueType, boolean frontierOnly, SearchMode mode) {
+		final RobotAlgorithm algorithm = new RobotAlgorithm(new GridGraph(graph), queueType, frontierOnly, mode,
+				false, null);
+		algorithm.search();
+		return algorithm.getEnergy();
+	}
+
+}
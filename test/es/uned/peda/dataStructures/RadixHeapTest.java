@@ -0,0 +1,39 @@
+package es.uned.peda.dataStructures;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * The Class RadixHeapTest.
+ */
+public class RadixHeapTest {
+
+	/**
+	 * A priority a few units in the last place below the last one extracted
+	 * is raised to it.
+	 */
+	@Test
+	public void roundedPriorityIsRaisedToTheLastOneExtracted() {
+		final RadixHeap heap = new RadixHeap(3);
+		heap.insert(0, 6.7);
+		assertEquals(0, heap.extractMin());
+		heap.insert(1, 6.699999999999998);
+		heap.insert(2, 7.0);
+		assertEquals(6.7, heap.getMinPriority(), 0.0);
+		assertEquals(1, heap.extractMin());
+		assertEquals(2, heap.extractMin());
+	}
+
+	/**
+	 * A priority clearly below the last one extracted is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void lowerPriorityIsRejected() {
+		final RadixHeap heap = new RadixHeap(2);
+		heap.insert(0, 6.7);
+		heap.extractMin();
+		heap.insert(1, 6.6);
+	}
+
+}